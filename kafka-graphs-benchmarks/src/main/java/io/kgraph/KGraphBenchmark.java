@@ -0,0 +1,130 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.kgraph;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.serialization.Serdes;
+import org.apache.kafka.common.serialization.Serializer;
+import org.apache.kafka.streams.KeyValue;
+import org.apache.kafka.streams.StreamsBuilder;
+import org.apache.kafka.streams.TopologyTestDriver;
+import org.apache.kafka.streams.kstream.Consumed;
+import org.apache.kafka.streams.kstream.KTable;
+import org.apache.kafka.streams.test.ConsumerRecordFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.kgraph.utils.ClientUtils;
+import io.kgraph.utils.GraphGenerators;
+import io.kgraph.utils.KryoSerde;
+
+/**
+ * The grouping operators of {@link KGraph}, run in a {@link TopologyTestDriver} over a grid graph.
+ *
+ * <p>Each invocation pipes all the edges of the graph again, so that after the first invocation
+ * every record is an update of an existing edge.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class KGraphBenchmark {
+
+    private static final String EDGES_TOPIC = "edges";
+
+    @State(Scope.Thread)
+    public abstract static class GraphState {
+
+        @Param({"10", "32"})
+        private int size;
+
+        TopologyTestDriver driver;
+        List<ConsumerRecord<byte[], byte[]>> records;
+
+        @Setup(Level.Iteration)
+        public void setup() {
+            StreamsBuilder builder = new StreamsBuilder();
+            KTable<Edge<Long>, Long> edges =
+                builder.table(EDGES_TOPIC, Consumed.with(new KryoSerde<>(), Serdes.Long()));
+            KGraph<Long, Long, Long> graph = KGraph.fromEdges(edges, v -> 1L,
+                GraphSerialized.with(Serdes.Long(), Serdes.Long(), Serdes.Long()));
+            operator(graph);
+
+            driver = new TopologyTestDriver(builder.build(), ClientUtils.streamsConfig("kgraph-benchmark",
+                "kgraph-benchmark-client", "localhost:9092", Serdes.LongSerde.class, KryoSerde.class));
+            Serializer<Edge<Long>> edgeSerializer = new KryoSerde<Edge<Long>>().serializer();
+            ConsumerRecordFactory<Edge<Long>, Long> factory =
+                new ConsumerRecordFactory<>(EDGES_TOPIC, edgeSerializer, Serdes.Long().serializer());
+            List<KeyValue<Edge<Long>, Long>> edgeList = GraphGenerators.gridGraphEdges(size, size);
+            records = factory.create(edgeList);
+        }
+
+        protected abstract void operator(KGraph<Long, Long, Long> graph);
+
+        @TearDown(Level.Iteration)
+        public void tearDown() {
+            driver.close();
+        }
+    }
+
+    public static class EdgesGroupedBySource extends GraphState {
+        @Override
+        protected void operator(KGraph<Long, Long, Long> graph) {
+            graph.edgesGroupedBySource();
+        }
+    }
+
+    public static class GroupReduceOnNeighbors extends GraphState {
+        @Override
+        protected void operator(KGraph<Long, Long, Long> graph) {
+            graph.groupReduceOnNeighbors((vertexValue, neighbors) -> {
+                long sum = vertexValue;
+                for (Long neighborValue : neighbors.values()) {
+                    sum += neighborValue;
+                }
+                return sum;
+            }, EdgeDirection.OUT);
+        }
+    }
+
+    @Benchmark
+    public void edgesGroupedBySource(EdgesGroupedBySource state) {
+        state.driver.pipeInput(state.records);
+    }
+
+    @Benchmark
+    public void groupReduceOnNeighbors(GroupReduceOnNeighbors state) {
+        state.driver.pipeInput(state.records);
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.kgraph.pregel;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.serialization.Serdes;
+import org.apache.kafka.streams.KeyValue;
+import org.apache.kafka.streams.StreamsBuilder;
+import org.apache.kafka.streams.TopologyTestDriver;
+import org.apache.kafka.streams.kstream.Consumed;
+import org.apache.kafka.streams.state.Stores;
+import org.apache.kafka.streams.test.ConsumerRecordFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.kgraph.Edge;
+import io.kgraph.GraphSerialized;
+import io.kgraph.library.ConnectedComponents;
+import io.kgraph.utils.ClientUtils;
+import io.kgraph.utils.GraphGenerators;
+import io.kgraph.utils.KryoSerde;
+import io.vavr.Tuple3;
+
+/**
+ * The receiving side of a superstep: workset records of a grid graph are piped through
+ * {@code BarrierSync.transform}, which appends each message list to the local workset store.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BarrierSyncBenchmark {
+
+    private static final String APPLICATION_ID = "barrier-sync-benchmark";
+    private static final String WORKSET_TOPIC = "workSet";
+
+    @Param({"10", "32"})
+    private int size;
+
+    private TopologyTestDriver driver;
+    private List<ConsumerRecord<byte[], byte[]>> records;
+
+    @Setup(Level.Iteration)
+    public void setup() {
+        PregelComputation<Long, Long, Long, Long> computation = new PregelComputation<>(null, APPLICATION_ID,
+            "localhost:9092", new LocalBarrierCoordinator(APPLICATION_ID), "vertices", "edgesGroupedBySource",
+            Collections.emptyMap(), GraphSerialized.with(Serdes.Long(), Serdes.Long(), Serdes.Long()),
+            "solutionSet", "solutionSetStore", WORKSET_TOPIC, 1, Collections.emptyMap(), Optional.empty(),
+            new ConnectedComponents<>());
+        WorkSetSerde<Long, Long> workSetSerde = new WorkSetSerde<>(Serdes.Long());
+
+        StreamsBuilder builder = new StreamsBuilder();
+        builder.addStateStore(Stores.keyValueStoreBuilder(
+            Stores.persistentKeyValueStore(computation.localworkSetStoreName), Serdes.Bytes(), Serdes.ByteArray()));
+        builder.stream(WORKSET_TOPIC, Consumed.with(Serdes.Long(), workSetSerde))
+            .transform(() -> computation.new BarrierSync(), computation.localworkSetStoreName);
+
+        driver = new TopologyTestDriver(builder.build(), ClientUtils.streamsConfig(APPLICATION_ID,
+            APPLICATION_ID + "-client", "localhost:9092", Serdes.LongSerde.class, KryoSerde.class));
+
+        // One message along each edge of the grid, as sent in a superstep of connected components
+        List<KeyValue<Long, Tuple3<Integer, Long, List<Long>>>> workSet = new ArrayList<>();
+        for (KeyValue<Edge<Long>, Long> edge : GraphGenerators.gridGraphEdges(size, size)) {
+            long source = edge.key.source();
+            long target = edge.key.target();
+            workSet.add(new KeyValue<>(target, new Tuple3<>(1, source, Collections.singletonList(source))));
+        }
+        ConsumerRecordFactory<Long, Tuple3<Integer, Long, List<Long>>> factory =
+            new ConsumerRecordFactory<>(WORKSET_TOPIC, Serdes.Long().serializer(), workSetSerde);
+        records = factory.create(workSet);
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+        driver.close();
+    }
+
+    @Benchmark
+    public void transform() {
+        driver.pipeInput(records);
+    }
+}
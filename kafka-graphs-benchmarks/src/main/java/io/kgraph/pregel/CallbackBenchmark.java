@@ -0,0 +1,79 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.kgraph.pregel;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.kgraph.pregel.combiners.LongMinCombiner;
+
+/**
+ * The accumulation of outgoing messages in {@link ComputeFunction.Callback}, with and without a
+ * message combiner; each target receives several messages, as in a dense graph.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CallbackBenchmark {
+
+    @Param({"16", "1024"})
+    private int targets;
+
+    @Param({"4"})
+    private int messagesPerTarget;
+
+    @Param({"false", "true"})
+    private boolean combine;
+
+    private MessageCombiner<Long, Long> combiner;
+
+    @Setup
+    public void setup() {
+        combiner = combine ? new LongMinCombiner<>() : null;
+    }
+
+    @Benchmark
+    public Map<Long, List<Long>> sendMessages() {
+        ComputeFunction.Callback<Long, Long, Long, Long> cb = new ComputeFunction.Callback<>(
+            0L, (VertexEdges<Long, Long>) null, Collections.emptyMap(), Collections.emptyMap(), combiner);
+        for (int i = 0; i < messagesPerTarget; i++) {
+            for (long target = 0; target < targets; target++) {
+                cb.sendMessageTo(target, target + i);
+            }
+        }
+        return cb.outgoingMessages;
+    }
+}
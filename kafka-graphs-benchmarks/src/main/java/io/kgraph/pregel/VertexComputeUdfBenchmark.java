@@ -0,0 +1,119 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.kgraph.pregel;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.kafka.common.serialization.Serde;
+import org.apache.kafka.common.serialization.Serdes;
+import org.apache.kafka.streams.KeyValue;
+import org.apache.kafka.streams.processor.MockProcessorContext;
+import org.apache.kafka.streams.state.KeyValueStore;
+import org.apache.kafka.streams.state.Stores;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import io.kgraph.Edge;
+import io.kgraph.GraphSerialized;
+import io.kgraph.library.ConnectedComponents;
+import io.kgraph.utils.AdjacencySerde;
+import io.kgraph.utils.GraphGenerators;
+import io.vavr.Tuple2;
+
+/**
+ * A superstep of connected components over a grid graph, computed by {@code VertexComputeUdf}
+ * against in-memory stores.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class VertexComputeUdfBenchmark {
+
+    private static final String APPLICATION_ID = "vertex-compute-benchmark";
+
+    @Param({"10", "32"})
+    private int size;
+
+    private PregelComputation<Long, Long, Long, Long>.VertexComputeUdf udf;
+    private Map<Long, Map<Long, List<Long>>> inboxes;
+
+    @Setup
+    public void setup() {
+        PregelComputation<Long, Long, Long, Long> computation = new PregelComputation<>(null, APPLICATION_ID,
+            "localhost:9092", new LocalBarrierCoordinator(APPLICATION_ID), "vertices", "edgesGroupedBySource",
+            Collections.emptyMap(), GraphSerialized.with(Serdes.Long(), Serdes.Long(), Serdes.Long()),
+            "solutionSet", "solutionSetStore", "workSet", 1, Collections.emptyMap(), Optional.empty(),
+            new ConnectedComponents<>());
+
+        MockProcessorContext context = new MockProcessorContext();
+        store(context, computation.localSolutionSetStoreName, new SolutionSetSerde<>(Serdes.Long()));
+        KeyValueStore<Long, Long> vertices = store(context, computation.verticesStoreName, Serdes.Long());
+        KeyValueStore<Long, Map<Long, Long>> edges =
+            store(context, computation.edgesStoreName, new AdjacencySerde<>(Serdes.Long(), Serdes.Long()));
+
+        inboxes = new HashMap<>();
+        for (long vertex = 0; vertex < size * size; vertex++) {
+            vertices.put(vertex, vertex);
+            inboxes.put(vertex, new HashMap<>());
+        }
+        Map<Long, Map<Long, Long>> adjacency = new HashMap<>();
+        for (KeyValue<Edge<Long>, Long> edge : GraphGenerators.gridGraphEdges(size, size)) {
+            long source = edge.key.source();
+            long target = edge.key.target();
+            adjacency.computeIfAbsent(source, k -> new HashMap<>()).put(target, edge.value);
+            inboxes.get(target).put(source, Collections.singletonList(source));
+        }
+        adjacency.forEach(edges::put);
+
+        udf = computation.new VertexComputeUdf();
+        udf.init(context);
+    }
+
+    private static <V> KeyValueStore<Long, V> store(MockProcessorContext context, String name, Serde<V> valueSerde) {
+        KeyValueStore<Long, V> store = Stores.keyValueStoreBuilder(
+            Stores.inMemoryKeyValueStore(name), Serdes.Long(), valueSerde).withLoggingDisabled().build();
+        store.init(context, store);
+        return store;
+    }
+
+    @Benchmark
+    public void superstep(Blackhole bh) {
+        for (Map.Entry<Long, Map<Long, List<Long>>> inbox : inboxes.entrySet()) {
+            bh.consume(udf.transform(inbox.getKey(), new Tuple2<>(1, inbox.getValue())));
+        }
+    }
+}
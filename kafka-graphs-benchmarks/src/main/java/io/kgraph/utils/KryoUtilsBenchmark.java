@@ -0,0 +1,124 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.kgraph.utils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.kafka.common.serialization.Serdes;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Serialization of the values that Pregel writes most often: message lists and adjacency maps.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class KryoUtilsBenchmark {
+
+    @Param({"1", "16", "256"})
+    private int entries;
+
+    private List<Double> messages;
+    private Map<Long, Long> edges;
+    private MapSerde<Long, Long> edgesSerde;
+    private AdjacencySerde<Long, Long> adjacencySerde;
+
+    private byte[] serializedMessages;
+    private byte[] serializedEdges;
+    private byte[] compactEdges;
+    private byte[] packedEdges;
+
+    @Setup
+    public void setup() {
+        messages = new ArrayList<>();
+        edges = new HashMap<>();
+        for (int i = 0; i < entries; i++) {
+            messages.add(i / 3.0);
+            edges.put((long) i * 7, 1L);
+        }
+        edgesSerde = new MapSerde<>(Serdes.Long(), Serdes.Long());
+
+        serializedMessages = KryoUtils.serialize(messages);
+        serializedEdges = KryoUtils.serialize(edges);
+        compactEdges = edgesSerde.serialize("edges", edges);
+        adjacencySerde = new AdjacencySerde<>(Serdes.Long(), Serdes.Long());
+        packedEdges = adjacencySerde.serialize("edges", edges);
+    }
+
+    @Benchmark
+    public byte[] serializeMessages() {
+        return KryoUtils.serialize(messages);
+    }
+
+    @Benchmark
+    public List<Double> deserializeMessages() {
+        return KryoUtils.deserialize(serializedMessages);
+    }
+
+    @Benchmark
+    public byte[] serializeEdges() {
+        return KryoUtils.serialize(edges);
+    }
+
+    @Benchmark
+    public Map<Long, Long> deserializeEdges() {
+        return KryoUtils.deserialize(serializedEdges);
+    }
+
+    @Benchmark
+    public byte[] serializeEdgesCompact() {
+        return edgesSerde.serialize("edges", edges);
+    }
+
+    @Benchmark
+    public Map<Long, Long> deserializeEdgesCompact() {
+        return edgesSerde.deserialize("edges", compactEdges);
+    }
+
+    @Benchmark
+    public byte[] serializeEdgesPacked() {
+        return adjacencySerde.serialize("edges", edges);
+    }
+
+    @Benchmark
+    public long iterateEdgesPacked() {
+        long sum = 0L;
+        for (Map.Entry<Long, Long> edge : adjacencySerde.deserialize("edges", packedEdges).entrySet()) {
+            sum += edge.getKey() + edge.getValue();
+        }
+        return sum;
+    }
+}
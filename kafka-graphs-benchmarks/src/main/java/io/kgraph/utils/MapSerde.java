@@ -0,0 +1,63 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.kgraph.utils;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.kafka.common.serialization.Serde;
+
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+
+/**
+ * A serde for maps that writes each entry with the given key and value serdes, as the baseline
+ * for the packed layout of {@link AdjacencySerde}.
+ */
+public class MapSerde<K, V> extends CompactSerde<Map<K, V>> {
+
+    private final Serde<K> keySerde;
+    private final Serde<V> valueSerde;
+
+    public MapSerde(Serde<K> keySerde, Serde<V> valueSerde) {
+        this.keySerde = keySerde;
+        this.valueSerde = valueSerde;
+    }
+
+    @Override
+    protected void write(String topic, Output output, Map<K, V> data) {
+        output.writeVarInt(data.size(), true);
+        for (Map.Entry<K, V> entry : data.entrySet()) {
+            write(topic, output, keySerde, entry.getKey());
+            write(topic, output, valueSerde, entry.getValue());
+        }
+    }
+
+    @Override
+    protected Map<K, V> read(String topic, Input input) {
+        int size = input.readVarInt(true);
+        Map<K, V> map = new HashMap<>((int) (size / 0.75f) + 1);
+        for (int i = 0; i < size; i++) {
+            K key = read(topic, input, keySerde);
+            V value = read(topic, input, valueSerde);
+            map.put(key, value);
+        }
+        return map;
+    }
+}
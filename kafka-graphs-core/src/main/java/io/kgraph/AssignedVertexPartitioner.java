@@ -0,0 +1,50 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.kgraph;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Assigns vertices to the partitions given by a precomputed map, such as the one written by a
+ * {@link io.kgraph.utils.StreamingGraphPartitioner}.  Vertices that are not in the map, such as
+ * vertices added after the map was computed, are assigned by a fallback partitioner.
+ */
+public class AssignedVertexPartitioner<K> implements VertexPartitioner<K> {
+
+    private final Map<K, Integer> assignments;
+    private final VertexPartitioner<K> fallback;
+
+    public AssignedVertexPartitioner(Map<K, Integer> assignments, VertexPartitioner<K> fallback) {
+        this.assignments = assignments;
+        this.fallback = fallback;
+    }
+
+    public Map<K, Integer> assignments() {
+        return Collections.unmodifiableMap(assignments);
+    }
+
+    @Override
+    public int partition(K vertex, int numPartitions) {
+        Integer partition = assignments.get(vertex);
+        if (partition != null && partition < numPartitions) {
+            return partition;
+        }
+        return fallback.partition(vertex, numPartitions);
+    }
+}
@@ -23,13 +23,16 @@ public class GraphSerialized<K, VV, EV> {
     private final Serde<K> keySerde;
     private final Serde<VV> vertexValueSerde;
     private final Serde<EV> edgeValueSerde;
+    private final VertexPartitioner<K> vertexPartitioner;
 
     private GraphSerialized(Serde<K> keySerde,
                             Serde<VV> vertexValueSerde,
-                            Serde<EV> edgeValueSerde) {
+                            Serde<EV> edgeValueSerde,
+                            VertexPartitioner<K> vertexPartitioner) {
         this.keySerde = keySerde;
         this.vertexValueSerde = vertexValueSerde;
         this.edgeValueSerde = edgeValueSerde;
+        this.vertexPartitioner = vertexPartitioner;
     }
 
     public Serde<K> keySerde() {
@@ -44,13 +47,28 @@ public class GraphSerialized<K, VV, EV> {
         return edgeValueSerde;
     }
 
+    /**
+     * Returns the partitioner of the vertices, which hashes the serialized key unless another one was given.
+     */
+    public VertexPartitioner<K> vertexPartitioner() {
+        return vertexPartitioner;
+    }
+
+    /**
+     * Returns a copy of this that assigns vertices to partitions with the given partitioner.
+     */
+    public GraphSerialized<K, VV, EV> withVertexPartitioner(VertexPartitioner<K> vertexPartitioner) {
+        return new GraphSerialized<>(keySerde, vertexValueSerde, edgeValueSerde, vertexPartitioner);
+    }
+
     protected GraphSerialized(GraphSerialized<K, VV, EV> serialized) {
-        this(serialized.keySerde, serialized.vertexValueSerde, serialized.edgeValueSerde);
+        this(serialized.keySerde, serialized.vertexValueSerde, serialized.edgeValueSerde, serialized.vertexPartitioner);
     }
 
     public static <K, VV, EV> GraphSerialized<K, VV, EV> with(Serde<K> keySerde,
                                                               Serde<VV> vertexValueSerde,
                                                               Serde<EV> edgeValueSerde) {
-        return new GraphSerialized<>(keySerde, vertexValueSerde, edgeValueSerde);
+        return new GraphSerialized<>(keySerde, vertexValueSerde, edgeValueSerde,
+            new HashVertexPartitioner<>(keySerde.serializer()));
     }
 }
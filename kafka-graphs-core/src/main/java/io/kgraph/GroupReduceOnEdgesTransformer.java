@@ -0,0 +1,76 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.kgraph;
+
+import org.apache.kafka.common.utils.Bytes;
+import org.apache.kafka.streams.kstream.ValueTransformerWithKey;
+import org.apache.kafka.streams.processor.ProcessorContext;
+import org.apache.kafka.streams.state.KeyValueStore;
+
+import io.vavr.Tuple2;
+
+/**
+ * Applies an edges function to a vertex whenever the vertex or one of its grouped edges changes.
+ *
+ * <p>Each input carries the current value of the vertex and, for an edge update, the edge.  The
+ * edge is written to a {@link GroupedEdgesStore}, and the function is given a lazy view of the
+ * edges of the vertex in the store.  No result is returned for a vertex without a value.
+ */
+final class GroupReduceOnEdgesTransformer<K, VV, EV, T>
+    implements ValueTransformerWithKey<K, Tuple2<VV, EdgeWithValue<K, EV>>, T> {
+
+    private final String storeName;
+    private final GraphSerialized<K, VV, EV> serialized;
+    private final EdgesFunctionWithVertexValue<K, VV, EV, T> function;
+
+    private GroupedEdgesStore<K, EV> edges;
+
+    GroupReduceOnEdgesTransformer(String storeName, GraphSerialized<K, VV, EV> serialized,
+                                  EdgesFunctionWithVertexValue<K, VV, EV, T> function) {
+        this.storeName = storeName;
+        this.serialized = serialized;
+        this.function = function;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public void init(final ProcessorContext context) {
+        this.edges = new GroupedEdgesStore<>(
+            (KeyValueStore<Bytes, byte[]>) context.getStateStore(storeName), storeName, serialized);
+    }
+
+    @Override
+    public T transform(final K readOnlyKey, final Tuple2<VV, EdgeWithValue<K, EV>> value) {
+        if (value._2 != null) {
+            edges.update(readOnlyKey, value._2);
+        }
+        if (value._1 == null) {
+            return null;
+        }
+        try {
+            return function.iterateEdges(value._1, edges.edges(readOnlyKey));
+        } finally {
+            edges.closeIterators();
+        }
+    }
+
+    @Override
+    public void close() {
+    }
+}
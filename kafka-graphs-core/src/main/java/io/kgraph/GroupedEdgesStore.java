@@ -0,0 +1,183 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.kgraph;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import org.apache.kafka.common.serialization.Deserializer;
+import org.apache.kafka.common.serialization.Serializer;
+import org.apache.kafka.common.utils.Bytes;
+import org.apache.kafka.streams.KeyValue;
+import org.apache.kafka.streams.state.KeyValueIterator;
+import org.apache.kafka.streams.state.KeyValueStore;
+
+/**
+ * Edges grouped by their endpoints, kept in a key-value store under a composite key of the group,
+ * the direction of the edge and the other endpoint.
+ *
+ * <p>An edge may be added to the group of its source, of its target, or of both, so that the out-
+ * and in-edges of a vertex are kept together.  Adding or removing an edge writes a single entry
+ * per group, however many edges the group has.  The edges of a group are read with
+ * {@link #edges}, a lazy view that scans the entries of the group; the iterators opened by views
+ * are closed by {@link #closeIterators}.
+ */
+final class GroupedEdgesStore<K, EV> {
+
+    private static final byte IN = 0;
+    private static final byte OUT = 1;
+
+    private final KeyValueStore<Bytes, byte[]> store;
+    private final String topic;
+    private final Serializer<K> keySerializer;
+    private final Deserializer<K> keyDeserializer;
+    private final Serializer<EV> valueSerializer;
+    private final Deserializer<EV> valueDeserializer;
+    private final List<KeyValueIterator<Bytes, byte[]>> openIterators = new ArrayList<>();
+
+    GroupedEdgesStore(KeyValueStore<Bytes, byte[]> store, String topic, GraphSerialized<K, ?, EV> serialized) {
+        this.store = store;
+        this.topic = topic;
+        this.keySerializer = serialized.keySerde().serializer();
+        this.keyDeserializer = serialized.keySerde().deserializer();
+        this.valueSerializer = serialized.edgeValueSerde().serializer();
+        this.valueDeserializer = serialized.edgeValueSerde().deserializer();
+    }
+
+    /**
+     * Adds, replaces or, for a null value, removes an edge in the group of the given endpoint.  A
+     * self-loop is kept once, as an out-edge.
+     */
+    void update(K group, EdgeWithValue<K, EV> edge) {
+        Bytes key = key(group, edge.source(), edge.target());
+        if (edge.value() != null) {
+            store.put(key, valueSerializer.serialize(topic, edge.value()));
+        } else {
+            store.delete(key);
+        }
+    }
+
+    /**
+     * Returns the value of an edge in the group of the given endpoint, or null if it is not in the group.
+     */
+    EV get(K group, K source, K target) {
+        byte[] value = store.get(key(group, source, target));
+        return value != null ? valueDeserializer.deserialize(topic, value) : null;
+    }
+
+    private Bytes key(K group, K source, K target) {
+        boolean out = group.equals(source);
+        byte[] prefix = prefix(group);
+        byte[] otherBytes = keySerializer.serialize(topic, out ? target : source);
+        return Bytes.wrap(ByteBuffer.allocate(prefix.length + 1 + otherBytes.length)
+            .put(prefix).put(out ? OUT : IN).put(otherBytes).array());
+    }
+
+    Iterable<EdgeWithValue<K, EV>> edges(K group) {
+        return () -> {
+            byte[] prefix = prefix(group);
+            KeyValueIterator<Bytes, byte[]> iterator = store.range(Bytes.wrap(prefix), Bytes.wrap(increment(prefix)));
+            openIterators.add(iterator);
+            return new GroupIterator(group, prefix, iterator);
+        };
+    }
+
+    void closeIterators() {
+        for (KeyValueIterator<Bytes, byte[]> iterator : openIterators) {
+            iterator.close();
+        }
+        openIterators.clear();
+    }
+
+    private byte[] prefix(K group) {
+        byte[] groupBytes = keySerializer.serialize(topic, group);
+        return ByteBuffer.allocate(4 + groupBytes.length).putInt(groupBytes.length).put(groupBytes).array();
+    }
+
+    private static byte[] increment(byte[] prefix) {
+        byte[] result = Arrays.copyOf(prefix, prefix.length);
+        for (int i = result.length - 1; i >= 0; i--) {
+            if (++result[i] != 0) {
+                return result;
+            }
+        }
+        // The length field makes an all-ones prefix impossible
+        throw new IllegalArgumentException("Cannot increment prefix");
+    }
+
+    private static boolean startsWith(byte[] key, byte[] prefix) {
+        if (key.length < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (key[i] != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private final class GroupIterator implements Iterator<EdgeWithValue<K, EV>> {
+        private final K group;
+        private final byte[] prefix;
+        private final KeyValueIterator<Bytes, byte[]> iterator;
+        private KeyValue<Bytes, byte[]> next;
+
+        GroupIterator(K group, byte[] prefix, KeyValueIterator<Bytes, byte[]> iterator) {
+            this.group = group;
+            this.prefix = prefix;
+            this.iterator = iterator;
+            advance();
+        }
+
+        private void advance() {
+            next = null;
+            while (iterator.hasNext()) {
+                KeyValue<Bytes, byte[]> entry = iterator.next();
+                // The range ends at the incremented prefix, which belongs to another group
+                if (entry.key.get().length > prefix.length && startsWith(entry.key.get(), prefix)) {
+                    next = entry;
+                    return;
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public EdgeWithValue<K, EV> next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            byte[] key = next.key.get();
+            byte direction = key[prefix.length];
+            K other = keyDeserializer.deserialize(topic, Arrays.copyOfRange(key, prefix.length + 1, key.length));
+            EV value = valueDeserializer.deserialize(topic, next.value);
+            advance();
+            return direction == OUT ? new EdgeWithValue<>(group, other, value) : new EdgeWithValue<>(other, group, value);
+        }
+    }
+}
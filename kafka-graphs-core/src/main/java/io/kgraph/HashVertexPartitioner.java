@@ -0,0 +1,40 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.kgraph;
+
+import org.apache.kafka.common.serialization.Serializer;
+import org.apache.kafka.common.utils.Utils;
+
+/**
+ * Assigns vertices to partitions by the hash of their serialized key, as the default Kafka
+ * partitioners do.
+ */
+public class HashVertexPartitioner<K> implements VertexPartitioner<K> {
+
+    private final Serializer<K> serializer;
+
+    public HashVertexPartitioner(Serializer<K> serializer) {
+        this.serializer = serializer;
+    }
+
+    @Override
+    public int partition(K vertex, int numPartitions) {
+        byte[] keyBytes = serializer.serialize(null, vertex);
+        return Utils.toPositive(Utils.murmur2(keyBytes)) % numPartitions;
+    }
+}
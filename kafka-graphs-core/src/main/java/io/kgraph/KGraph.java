@@ -31,8 +31,10 @@ import java.util.function.Function;
 
 import org.apache.kafka.common.serialization.Serde;
 import org.apache.kafka.common.serialization.Serdes;
+import org.apache.kafka.common.serialization.Serializer;
 import org.apache.kafka.common.utils.Bytes;
 import org.apache.kafka.streams.KeyValue;
+import org.apache.kafka.streams.StreamsBuilder;
 import org.apache.kafka.streams.kstream.Grouped;
 import org.apache.kafka.streams.kstream.Joined;
 import org.apache.kafka.streams.kstream.KStream;
@@ -40,12 +42,19 @@ import org.apache.kafka.streams.kstream.KTable;
 import org.apache.kafka.streams.kstream.KeyValueMapper;
 import org.apache.kafka.streams.kstream.Materialized;
 import org.apache.kafka.streams.kstream.Predicate;
+import org.apache.kafka.streams.kstream.Produced;
 import org.apache.kafka.streams.kstream.Reducer;
+import org.apache.kafka.streams.kstream.TimeWindows;
 import org.apache.kafka.streams.kstream.ValueJoiner;
 import org.apache.kafka.streams.kstream.ValueMapper;
 import org.apache.kafka.streams.kstream.ValueMapperWithKey;
+import org.apache.kafka.streams.kstream.Windowed;
+import org.apache.kafka.streams.kstream.WindowedSerdes;
 import org.apache.kafka.streams.state.KeyValueStore;
+import org.apache.kafka.streams.state.Stores;
+import org.apache.kafka.streams.state.WindowStore;
 
+import io.kgraph.utils.HyperLogLog;
 import io.kgraph.utils.KryoSerde;
 import io.vavr.Tuple2;
 
@@ -177,14 +186,16 @@ public class KGraph<K, VV, EV> {
         KTable<K, NV> mappedVertices = vertices.mapValues(mapper, Materialized.<K, NV, KeyValueStore<Bytes, byte[]>>as(
             generateStoreName()).withKeySerde(keySerde()).withValueSerde(newVertexValueSerde));
         return new KGraph<>(mappedVertices, edges,
-            GraphSerialized.with(keySerde(), newVertexValueSerde, edgeValueSerde()));
+            GraphSerialized.with(keySerde(), newVertexValueSerde, edgeValueSerde())
+                .withVertexPartitioner(serialized.vertexPartitioner()));
     }
 
     public <NV> KGraph<K, VV, NV> mapEdges(ValueMapperWithKey<Edge<K>, EV, NV> mapper, Serde<NV> newEdgeValueSerde) {
         KTable<Edge<K>, NV> mappedEdges = edges.mapValues(mapper, Materialized.<Edge<K>, NV, KeyValueStore<Bytes, byte[]>>as(
             generateStoreName()).withKeySerde(new KryoSerde<>()).withValueSerde(newEdgeValueSerde));
         return new KGraph<>(vertices, mappedEdges,
-            GraphSerialized.with(keySerde(), vertexValueSerde(), newEdgeValueSerde));
+            GraphSerialized.with(keySerde(), vertexValueSerde(), newEdgeValueSerde)
+                .withVertexPartitioner(serialized.vertexPartitioner()));
     }
 
     public <T> KGraph<K, VV, EV> joinWithVertices(KTable<K, T> inputDataSet,
@@ -361,28 +372,132 @@ public class KGraph<K, VV, EV> {
     }
 
     public KTable<K, Long> outDegrees() {
-        return vertices.leftJoin(edgesGroupedBySource(), new CountNeighborsLeftJoin<>(),
-            Materialized.<K, Long, KeyValueStore<Bytes, byte[]>>as(generateStoreName()).withKeySerde(keySerde()).withValueSerde(Serdes.Long()));
+        return degrees(Edge::source);
     }
 
     public KTable<K, Long> inDegrees() {
-        return vertices.leftJoin(edgesGroupedByTarget(), new CountNeighborsLeftJoin<>(),
+        return degrees(Edge::target);
+    }
+
+    private KTable<K, Long> degrees(Function<Edge<K>, K> fun) {
+        // Only a count is kept per vertex, rather than the edges grouped by vertex
+        KTable<K, Long> counts = edges
+            .groupBy((edge, value) -> new KeyValue<>(fun.apply(edge), 1L), Grouped.with(keySerde(), Serdes.Long()))
+            .count(Materialized.<K, Long, KeyValueStore<Bytes, byte[]>>as(generateStoreName())
+                .withKeySerde(keySerde()).withValueSerde(Serdes.Long()));
+        return vertices.leftJoin(counts, (value, count) -> count != null ? count : 0L,
             Materialized.<K, Long, KeyValueStore<Bytes, byte[]>>as(generateStoreName()).withKeySerde(keySerde()).withValueSerde(Serdes.Long()));
     }
 
-    private static final class CountNeighborsLeftJoin<K, VV, EV>
-        implements ValueJoiner<VV, Iterable<EdgeWithValue<K, EV>>, Long> {
+    /**
+     * Returns the number of edges in the given direction that arrive at each vertex in each window.
+     * An update to an edge is counted as another edge.
+     */
+    public KTable<Windowed<K>, Long> degrees(EdgeDirection direction, TimeWindows windows) {
+        return neighborStream(direction)
+            .groupByKey(Grouped.with(keySerde(), keySerde()))
+            .windowedBy(windows)
+            .count(Materialized.<K, Long, WindowStore<Bytes, byte[]>>as(generateStoreName())
+                .withKeySerde(keySerde()).withValueSerde(Serdes.Long()));
+    }
 
-        @Override
-        public Long apply(VV value, Iterable<EdgeWithValue<K, EV>> edges) {
-            long count = 0;
-            if (edges != null) {
-                for (EdgeWithValue<K, EV> edge : edges) {
-                    count++;
+    public KTable<Windowed<K>, Long> distinctNeighbors(EdgeDirection direction, TimeWindows windows) {
+        return distinctNeighbors(direction, windows, HyperLogLog.DEFAULT_PRECISION);
+    }
+
+    /**
+     * Returns an estimate of the number of distinct neighbors in the given direction of each vertex
+     * in each window.  Each vertex keeps a HyperLogLog sketch per window, of {@code 2^precision} bytes.
+     */
+    public KTable<Windowed<K>, Long> distinctNeighbors(EdgeDirection direction, TimeWindows windows, int precision) {
+        Serializer<K> keySerializer = keySerde().serializer();
+        return neighborStream(direction)
+            .groupByKey(Grouped.with(keySerde(), keySerde()))
+            .windowedBy(windows)
+            .aggregate(
+                () -> new HyperLogLog(precision),
+                (vertex, neighbor, sketch) -> sketch.add(keySerializer.serialize(null, neighbor)),
+                Materialized.<K, HyperLogLog, WindowStore<Bytes, byte[]>>as(generateStoreName())
+                    .withKeySerde(keySerde()).withValueSerde(new KryoSerde<>()))
+            .mapValues(HyperLogLog::cardinality,
+                Materialized.<Windowed<K>, Long, KeyValueStore<Bytes, byte[]>>as(generateStoreName())
+                    .withKeySerde(new WindowedSerdes.TimeWindowedSerde<>(keySerde())).withValueSerde(Serdes.Long()));
+    }
+
+    private KStream<K, K> neighborStream(EdgeDirection direction) {
+        return edges
+            .toStream()
+            .filter((edge, value) -> value != null)
+            .flatMap((edge, value) -> {
+                List<KeyValue<K, K>> result = new ArrayList<>();
+                if (direction != EdgeDirection.IN) {
+                    result.add(new KeyValue<>(edge.source(), edge.target()));
                 }
-            }
-            return count;
+                if (direction != EdgeDirection.OUT) {
+                    result.add(new KeyValue<>(edge.target(), edge.source()));
+                }
+                return result;
+            });
+    }
+
+    /**
+     * Returns an estimate of the number of triangles at each vertex, treating the edges as undirected.
+     *
+     * <p>The edges are routed through the given topic, which must exist, to a single task that keeps
+     * a reservoir sample of at most {@code sampleSize} edges.  The estimates are exact as long as
+     * the number of edges does not exceed the sample size.  An edge and its reverse are the same edge,
+     * and an update to an edge in the sample is ignored, but an update to an edge that has left the
+     * sample is counted as a new edge.  Deletions are ignored, so the edges should be insert-only.
+     */
+    public KTable<K, Double> triangleCounts(StreamsBuilder builder, String edgesTopic, int sampleSize) {
+        if (sampleSize < 2) {
+            throw new IllegalArgumentException("Sample size must be at least 2");
         }
+        String sampleStoreName = generateStoreName();
+        String countStoreName = generateStoreName();
+        builder.addStateStore(Stores.keyValueStoreBuilder(Stores.persistentKeyValueStore(sampleStoreName),
+            Serdes.Integer(), new KryoSerde<Edge<K>>()));
+        builder.addStateStore(Stores.keyValueStoreBuilder(Stores.persistentKeyValueStore(countStoreName),
+            Serdes.Integer(), Serdes.Long()));
+        return edgesThrough(edgesTopic)
+            .transform(() -> new TriangleSampleTransformer<>(sampleStoreName, countStoreName, sampleSize,
+                keySerde().serializer()),
+                sampleStoreName, countStoreName)
+            .groupByKey(Grouped.with(keySerde(), Serdes.Double()))
+            .reduce(Double::sum, Materialized.<K, Double, KeyValueStore<Bytes, byte[]>>as(generateStoreName())
+                .withKeySerde(keySerde()).withValueSerde(Serdes.Double()));
+    }
+
+    /**
+     * Sends the edges through the given topic under a single key, so that they are all processed by one task.
+     */
+    private KStream<Integer, EdgeWithValue<K, EV>> edgesThrough(String topic) {
+        return edges
+            .toStream()
+            .filter((edge, value) -> value != null)
+            .map((edge, value) -> new KeyValue<>(0, new EdgeWithValue<>(edge, value)))
+            .through(topic, Produced.with(Serdes.Integer(), new KryoSerde<>()));
+    }
+
+    /**
+     * Returns the weakly connected components of this graph, updated as each edge arrives.
+     *
+     * <p>The edges are routed through the given topic, which must exist, to a single task that
+     * maintains a disjoint-set forest in a state store, so no supersteps are needed.  The
+     * returned table maps each vertex with at least one edge to a vertex that identifies its
+     * component, and changes as components are merged.  Edge deletions are ignored, as removing
+     * an edge may split a component; use {@link io.kgraph.library.ConnectedComponents} for
+     * graphs with deletions.
+     */
+    public KTable<K, K> connectedComponents(StreamsBuilder builder, String edgesTopic) {
+        String storeName = generateStoreName();
+        builder.addStateStore(Stores.keyValueStoreBuilder(Stores.persistentKeyValueStore(storeName),
+            keySerde(), new KryoSerde<UnionFindTransformer.Node<K>>()));
+        return edgesThrough(edgesTopic)
+            .transform(() -> new UnionFindTransformer<>(storeName), storeName)
+            .groupByKey(Grouped.with(keySerde(), keySerde()))
+            .reduce((v1, v2) -> v2, Materialized.<K, K, KeyValueStore<Bytes, byte[]>>as(generateStoreName())
+                .withKeySerde(keySerde()).withValueSerde(keySerde()));
     }
 
     public KGraph<K, VV, EV> undirected() {
@@ -422,12 +537,60 @@ public class KGraph<K, VV, EV> {
                     .leftJoin(edgesGroupedBySource(),
                         new ApplyEdgeLeftJoinFunction<>(edgesFunction), Materialized.with(keySerde(), new KryoSerde<>()));
             case BOTH:
-                throw new UnsupportedOperationException();
+                return vertices()
+                    .leftJoin(edgesGroupedByEitherEndpoint(),
+                        new ApplyEdgeLeftJoinFunction<>(edgesFunction), Materialized.with(keySerde(), new KryoSerde<>()));
             default:
                 throw new IllegalArgumentException("Illegal edge direction");
         }
     }
 
+    /**
+     * Applies the edges function to each vertex and its edges in the given direction, as
+     * {@link #groupReduceOnEdges(EdgesFunctionWithVertexValue, EdgeDirection)} does, but keeps the grouped
+     * edges in a store under a composite key of the vertex and the other endpoint, rather than as one set
+     * per vertex, so that an edge update writes a single entry.  The function is given a lazy view of the
+     * edges, which is only valid during the call.  Vertex deletions are not propagated to the result.
+     */
+    public <T> KTable<K, T> groupReduceOnEdges(StreamsBuilder builder,
+                                               EdgesFunctionWithVertexValue<K, VV, EV, T> edgesFunction,
+                                               EdgeDirection direction) throws IllegalArgumentException {
+        return groupReduceOnEdges(builder, edgesFunction, direction, new KryoSerde<>());
+    }
+
+    private <T> KTable<K, T> groupReduceOnEdges(StreamsBuilder builder,
+                                                EdgesFunctionWithVertexValue<K, VV, EV, T> edgesFunction,
+                                                EdgeDirection direction,
+                                                Serde<T> resultSerde) throws IllegalArgumentException {
+        String storeName = generateStoreName();
+        builder.addStateStore(Stores.keyValueStoreBuilder(Stores.persistentKeyValueStore(storeName),
+            Serdes.Bytes(), Serdes.ByteArray()));
+
+        return vertexAndEdgeUpdates(direction)
+            .transformValues(() -> new GroupReduceOnEdgesTransformer<>(storeName, serialized, edgesFunction),
+                storeName)
+            .filter((k, result) -> result != null)
+            .groupByKey(Grouped.with(keySerde(), resultSerde))
+            .reduce((v1, v2) -> v2, Materialized.<K, T, KeyValueStore<Bytes, byte[]>>as(generateStoreName())
+                .withKeySerde(keySerde()).withValueSerde(resultSerde));
+    }
+
+    /**
+     * Merges the updates of each vertex with the updates of its edges in the given direction.  The join
+     * repartitions the edges by vertex, and gives each edge update the current vertex value.
+     */
+    private KStream<K, Tuple2<VV, EdgeWithValue<K, EV>>> vertexAndEdgeUpdates(EdgeDirection direction) {
+        KStream<K, Tuple2<VV, EdgeWithValue<K, EV>>> edgeUpdates = edges
+            .toStream()
+            .flatMap(new EmitEdgeToEndpoints<>(direction))
+            .leftJoin(vertices, (edge, vertexValue) -> new Tuple2<>(vertexValue, edge),
+                Joined.with(keySerde(), new KryoSerde<>(), vertexValueSerde()));
+        KStream<K, Tuple2<VV, EdgeWithValue<K, EV>>> vertexUpdates = vertices
+            .toStream()
+            .mapValues(vertexValue -> new Tuple2<VV, EdgeWithValue<K, EV>>(vertexValue, null));
+        return vertexUpdates.merge(edgeUpdates);
+    }
+
     public <T> KTable<K, T> groupReduceOnNeighbors(NeighborsFunctionWithVertexValue<K, VV, EV, T> neighborsFunction,
                                                    EdgeDirection direction) throws IllegalArgumentException {
         switch (direction) {
@@ -466,7 +629,9 @@ public class KGraph<K, VV, EV> {
                     .leftJoin(neighborsGroupedBySource,
                         new ApplyNeighborLeftJoinFunction<>(neighborsFunction), Materialized.with(keySerde(), new KryoSerde<>()));
             case BOTH:
-                throw new UnsupportedOperationException();
+                return vertices()
+                    .leftJoin(neighborsGroupedByEitherEndpoint(),
+                        new ApplyNeighborLeftJoinFunction<>(neighborsFunction), Materialized.with(keySerde(), new KryoSerde<>()));
             default:
                 throw new IllegalArgumentException("Illegal edge direction");
         }
@@ -496,12 +661,38 @@ public class KGraph<K, VV, EV> {
                     },
                     Materialized.<K, EV, KeyValueStore<Bytes, byte[]>>as(generateStoreName()).withKeySerde(keySerde()).withValueSerde(edgeValueSerde()));
             case BOTH:
-                throw new UnsupportedOperationException();
+                return edgesGroupedByEitherEndpoint()
+                    .mapValues(v -> {
+                        EV result = null;
+                        for (EdgeWithValue<K, EV> edge : v) {
+                            result = result != null ? reducer.apply(result, edge.value()) : edge.value();
+                        }
+                        return result;
+                    },
+                    Materialized.<K, EV, KeyValueStore<Bytes, byte[]>>as(generateStoreName()).withKeySerde(keySerde()).withValueSerde(edgeValueSerde()));
             default:
                 throw new IllegalArgumentException("Illegal edge direction");
         }
     }
 
+    /**
+     * Reduces the values of the edges of each vertex in the given direction over a composite-key store of
+     * the grouped edges, as {@link #groupReduceOnEdges(StreamsBuilder, EdgesFunctionWithVertexValue, EdgeDirection)}
+     * does.  Unlike {@link #reduceOnEdges(Reducer, EdgeDirection)}, only vertices in the vertices table have
+     * a result.
+     */
+    public KTable<K, EV> reduceOnEdges(StreamsBuilder builder,
+                                       Reducer<EV> reducer,
+                                       EdgeDirection direction) throws IllegalArgumentException {
+        return groupReduceOnEdges(builder, (vertexValue, edges) -> {
+            EV result = null;
+            for (EdgeWithValue<K, EV> edge : edges) {
+                result = result != null ? reducer.apply(result, edge.value()) : edge.value();
+            }
+            return result;
+        }, direction, edgeValueSerde());
+    }
+
     public KTable<K, VV> reduceOnNeighbors(Reducer<VV> reducer,
                                            EdgeDirection direction) throws IllegalArgumentException {
         switch (direction) {
@@ -544,10 +735,165 @@ public class KGraph<K, VV, EV> {
                             .withKeySerde(keySerde()).withValueSerde(vertexValueSerde()));
                 return neighborsReducedBySource;
             case BOTH:
-                throw new UnsupportedOperationException();
+                return neighborsGroupedByEitherEndpoint()
+                    .mapValues(v -> v.values().stream().reduce(reducer::apply).orElse(null),
+                        Materialized.<K, VV, KeyValueStore<Bytes, byte[]>>as(generateStoreName())
+                            .withKeySerde(keySerde()).withValueSerde(vertexValueSerde()));
+            default:
+                throw new IllegalArgumentException("Illegal edge direction");
+        }
+    }
+
+    /**
+     * Reduces the neighbor values of each vertex in the given direction incrementally, as
+     * {@link #reduceOnNeighbors(StreamsBuilder, Reducer, Reducer, EdgeDirection)} does, without an inverse
+     * reducer: a replaced or removed neighbor value recomputes the reduction from the neighbors of the vertex.
+     */
+    public KTable<K, VV> reduceOnNeighbors(StreamsBuilder builder,
+                                           Reducer<VV> reducer,
+                                           EdgeDirection direction) throws IllegalArgumentException {
+        return reduceOnNeighbors(builder, reducer, null, direction);
+    }
+
+    /**
+     * Reduces the neighbor values of each vertex in the given direction incrementally.  Unlike
+     * {@link #reduceOnNeighbors(Reducer, EdgeDirection)}, the neighbors of a vertex are not kept as one map per
+     * vertex: the value of each neighbor is kept under a composite key of the vertex and the neighbor, along
+     * with a running reduction.  An edge update or a change of a vertex value sends the value along each
+     * affected edge, and updates the reduction with the reducer and, for a replaced or removed value, the
+     * inverse reducer, which must undo the reducer, such as subtraction for a sum.  If the inverse reducer is
+     * null, the reduction is recomputed from the neighbors of the vertex instead.  Vertices without neighbors
+     * have no result, and the result of a vertex that loses all of its neighbors is not removed.
+     */
+    public KTable<K, VV> reduceOnNeighbors(StreamsBuilder builder,
+                                           Reducer<VV> reducer,
+                                           Reducer<VV> inverseReducer,
+                                           EdgeDirection direction) throws IllegalArgumentException {
+        // The neighbor values are sent from the other endpoint of each edge
+        EdgeDirection neighborDirection;
+        switch (direction) {
+            case IN:
+                neighborDirection = EdgeDirection.OUT;
+                break;
+            case OUT:
+                neighborDirection = EdgeDirection.IN;
+                break;
+            case BOTH:
+                neighborDirection = EdgeDirection.BOTH;
+                break;
             default:
                 throw new IllegalArgumentException("Illegal edge direction");
         }
+        String edgesStoreName = generateStoreName();
+        String neighborsStoreName = generateStoreName();
+        String reductionsStoreName = generateStoreName();
+        builder.addStateStore(Stores.keyValueStoreBuilder(Stores.persistentKeyValueStore(edgesStoreName),
+            Serdes.Bytes(), Serdes.ByteArray()));
+        builder.addStateStore(Stores.keyValueStoreBuilder(Stores.persistentKeyValueStore(neighborsStoreName),
+            Serdes.Bytes(), Serdes.ByteArray()));
+        builder.addStateStore(Stores.keyValueStoreBuilder(Stores.persistentKeyValueStore(reductionsStoreName),
+            keySerde(), new KryoSerde<>()));
+
+        GraphSerialized<K, VV, VV> neighborsSerialized =
+            GraphSerialized.with(keySerde(), vertexValueSerde(), vertexValueSerde());
+        return vertexAndEdgeUpdates(neighborDirection)
+            .transform(() -> new NeighborValuesTransformer<>(edgesStoreName, serialized), edgesStoreName)
+            // The join repartitions the neighbor values by the vertex they are reduced for
+            .leftJoin(vertices, (neighbor, vertexValue) -> neighbor,
+                Joined.with(keySerde(), new KryoSerde<>(), vertexValueSerde()))
+            .transformValues(() -> new NeighborReduceTransformer<>(neighborsStoreName, reductionsStoreName,
+                neighborsSerialized, reducer, inverseReducer), neighborsStoreName, reductionsStoreName)
+            .filter((k, result) -> result != null)
+            .groupByKey(Grouped.with(keySerde(), vertexValueSerde()))
+            .reduce((v1, v2) -> v2, Materialized.<K, VV, KeyValueStore<Bytes, byte[]>>as(generateStoreName())
+                .withKeySerde(keySerde()).withValueSerde(vertexValueSerde()));
+    }
+
+    /**
+     * Groups the in- and out-edges of each vertex in a single aggregation over the edges, without an
+     * undirected copy of the edges table.  The aggregate is keyed by edge, so an update replaces the
+     * previous value of an edge and a deletion removes it.
+     */
+    private KTable<K, Iterable<EdgeWithValue<K, EV>>> edgesGroupedByEitherEndpoint() {
+        return edges
+            .toStream()
+            .flatMap(new EmitEdgeToEndpoints<>(EdgeDirection.BOTH))
+            .groupByKey(Grouped.with(keySerde(), new KryoSerde<>()))
+            .aggregate(
+                HashMap::new,
+                (aggKey, value, aggregate) -> {
+                    Edge<K> edge = new Edge<>(value.source(), value.target());
+                    if (value.value() != null) {
+                        aggregate.put(edge, value.value());
+                    } else {
+                        aggregate.remove(edge);
+                    }
+                    return aggregate;
+                },
+                Materialized.<K, Map<Edge<K>, EV>, KeyValueStore<Bytes, byte[]>>with(keySerde(), new KryoSerde<>()))
+            .mapValues(aggregate -> {
+                List<EdgeWithValue<K, EV>> result = new ArrayList<>(aggregate.size());
+                for (Map.Entry<Edge<K>, EV> entry : aggregate.entrySet()) {
+                    result.add(new EdgeWithValue<>(entry.getKey(), entry.getValue()));
+                }
+                return result;
+            });
+    }
+
+    /**
+     * Groups the neighbors of each vertex in both directions, joining each edge with the value of each
+     * of its endpoints in a single pass.
+     */
+    private KTable<K, Map<EdgeWithValue<K, EV>, VV>> neighborsGroupedByEitherEndpoint() {
+        return edges
+            .toStream()
+            .filter((edge, value) -> value != null)
+            .flatMap(new EmitEdgeToEndpoints<>(EdgeDirection.BOTH))
+            .join(vertices, Tuple2::new, Joined.with(keySerde(), new KryoSerde<>(), vertexValueSerde()))
+            .map((neighbor, value) -> new KeyValue<>(
+                value._1.source().equals(neighbor) ? value._1.target() : value._1.source(), value))
+            .groupByKey(Grouped.with(keySerde(), new KryoSerde<>()))
+            .aggregate(
+                HashMap::new,
+                (aggKey, value, aggregate) -> {
+                    aggregate.put(value._1, value._2);
+                    return aggregate;
+                },
+                Materialized.with(keySerde(), new KryoSerde<>()));
+    }
+
+    private static final class EmitEdgeToEndpoints<K, EV>
+        implements KeyValueMapper<Edge<K>, EV, Iterable<KeyValue<K, EdgeWithValue<K, EV>>>> {
+
+        private final EdgeDirection direction;
+
+        EmitEdgeToEndpoints(EdgeDirection direction) {
+            this.direction = direction;
+        }
+
+        @Override
+        public Iterable<KeyValue<K, EdgeWithValue<K, EV>>> apply(Edge<K> edge, EV value) {
+            List<KeyValue<K, EdgeWithValue<K, EV>>> result = new ArrayList<>(2);
+            EdgeWithValue<K, EV> edgeWithValue = new EdgeWithValue<>(edge, value);
+            switch (direction) {
+                case IN:
+                    result.add(new KeyValue<>(edge.target(), edgeWithValue));
+                    break;
+                case OUT:
+                    result.add(new KeyValue<>(edge.source(), edgeWithValue));
+                    break;
+                case BOTH:
+                    result.add(new KeyValue<>(edge.source(), edgeWithValue));
+                    // A self-loop is only added once
+                    if (!edge.target().equals(edge.source())) {
+                        result.add(new KeyValue<>(edge.target(), edgeWithValue));
+                    }
+                    break;
+                default:
+                    throw new IllegalArgumentException("Illegal edge direction");
+            }
+            return result;
+        }
     }
 
     private static final class ApplyEdgeLeftJoinFunction<K, VV, EV, T>
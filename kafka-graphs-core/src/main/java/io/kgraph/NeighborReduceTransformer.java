@@ -0,0 +1,115 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.kgraph;
+
+import java.util.Objects;
+
+import org.apache.kafka.common.utils.Bytes;
+import org.apache.kafka.streams.kstream.Reducer;
+import org.apache.kafka.streams.kstream.ValueTransformerWithKey;
+import org.apache.kafka.streams.processor.ProcessorContext;
+import org.apache.kafka.streams.state.KeyValueStore;
+
+import io.vavr.Tuple2;
+
+/**
+ * Maintains a running reduction of the neighbor values of each vertex.
+ *
+ * <p>The value of each neighbor is kept per edge in a {@link GroupedEdgesStore}, along with the
+ * number of neighbor values and their reduction.  A new neighbor value is added to the reduction.
+ * When a value is replaced or removed, it is taken out of the reduction with the inverse reducer
+ * if there is one; otherwise the reduction is recomputed from the neighbor values of the vertex.
+ * The reduction is returned whenever it changes, and null is returned for a vertex without
+ * neighbors.
+ */
+final class NeighborReduceTransformer<K, VV> implements ValueTransformerWithKey<K, EdgeWithValue<K, VV>, VV> {
+
+    private final String neighborsStoreName;
+    private final String reductionsStoreName;
+    private final GraphSerialized<K, VV, VV> serialized;
+    private final Reducer<VV> reducer;
+    private final Reducer<VV> inverseReducer;
+
+    private GroupedEdgesStore<K, VV> neighbors;
+    private KeyValueStore<K, Tuple2<Long, VV>> reductions;
+
+    NeighborReduceTransformer(String neighborsStoreName, String reductionsStoreName,
+                              GraphSerialized<K, VV, VV> serialized, Reducer<VV> reducer, Reducer<VV> inverseReducer) {
+        this.neighborsStoreName = neighborsStoreName;
+        this.reductionsStoreName = reductionsStoreName;
+        this.serialized = serialized;
+        this.reducer = reducer;
+        this.inverseReducer = inverseReducer;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public void init(final ProcessorContext context) {
+        this.neighbors = new GroupedEdgesStore<>(
+            (KeyValueStore<Bytes, byte[]>) context.getStateStore(neighborsStoreName), neighborsStoreName, serialized);
+        this.reductions = (KeyValueStore<K, Tuple2<Long, VV>>) context.getStateStore(reductionsStoreName);
+    }
+
+    @Override
+    public VV transform(final K readOnlyKey, final EdgeWithValue<K, VV> neighbor) {
+        VV oldValue = neighbors.get(readOnlyKey, neighbor.source(), neighbor.target());
+        VV newValue = neighbor.value();
+        if (Objects.equals(oldValue, newValue)) {
+            return null;
+        }
+        neighbors.update(readOnlyKey, neighbor);
+
+        Tuple2<Long, VV> reduction = reductions.get(readOnlyKey);
+        long count = reduction != null ? reduction._1 : 0L;
+        VV result = reduction != null ? reduction._2 : null;
+        count += (newValue != null ? 1 : 0) - (oldValue != null ? 1 : 0);
+        if (count == 0) {
+            reductions.delete(readOnlyKey);
+            return null;
+        }
+        if (oldValue == null) {
+            result = result != null ? reducer.apply(result, newValue) : newValue;
+        } else if (inverseReducer != null) {
+            result = inverseReducer.apply(result, oldValue);
+            if (newValue != null) {
+                result = reducer.apply(result, newValue);
+            }
+        } else {
+            result = recompute(readOnlyKey);
+        }
+        reductions.put(readOnlyKey, new Tuple2<>(count, result));
+        return result;
+    }
+
+    private VV recompute(K key) {
+        try {
+            VV result = null;
+            for (EdgeWithValue<K, VV> neighbor : neighbors.edges(key)) {
+                result = result != null ? reducer.apply(result, neighbor.value()) : neighbor.value();
+            }
+            return result;
+        } finally {
+            neighbors.closeIterators();
+        }
+    }
+
+    @Override
+    public void close() {
+    }
+}
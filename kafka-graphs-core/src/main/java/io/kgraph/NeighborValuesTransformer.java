@@ -0,0 +1,87 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.kgraph;
+
+import org.apache.kafka.common.utils.Bytes;
+import org.apache.kafka.streams.KeyValue;
+import org.apache.kafka.streams.kstream.Transformer;
+import org.apache.kafka.streams.processor.ProcessorContext;
+import org.apache.kafka.streams.state.KeyValueStore;
+
+import io.vavr.Tuple2;
+
+/**
+ * Sends the value of a vertex to each vertex that has it as a neighbor, when the value changes or
+ * an edge between them is added or removed.
+ *
+ * <p>Each input carries the current value of the vertex and, for an edge update, the edge, which
+ * is kept in a {@link GroupedEdgesStore} so that a change of value can be sent along the edges of
+ * the vertex.  Each output is keyed by the other endpoint of an edge, and carries the edge with the
+ * value of the neighbor, or with a null value if the edge or the neighbor was removed.
+ */
+final class NeighborValuesTransformer<K, VV, EV>
+    implements Transformer<K, Tuple2<VV, EdgeWithValue<K, EV>>, KeyValue<K, EdgeWithValue<K, VV>>> {
+
+    private final String storeName;
+    private final GraphSerialized<K, VV, EV> serialized;
+
+    private ProcessorContext context;
+    private GroupedEdgesStore<K, EV> edges;
+
+    NeighborValuesTransformer(String storeName, GraphSerialized<K, VV, EV> serialized) {
+        this.storeName = storeName;
+        this.serialized = serialized;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public void init(final ProcessorContext context) {
+        this.context = context;
+        this.edges = new GroupedEdgesStore<>(
+            (KeyValueStore<Bytes, byte[]>) context.getStateStore(storeName), storeName, serialized);
+    }
+
+    @Override
+    public KeyValue<K, EdgeWithValue<K, VV>> transform(final K key, final Tuple2<VV, EdgeWithValue<K, EV>> value) {
+        VV vertexValue = value._1;
+        EdgeWithValue<K, EV> edge = value._2;
+        if (edge != null) {
+            edges.update(key, edge);
+            forward(key, edge, edge.value() != null ? vertexValue : null);
+        } else {
+            try {
+                for (EdgeWithValue<K, EV> vertexEdge : edges.edges(key)) {
+                    forward(key, vertexEdge, vertexValue);
+                }
+            } finally {
+                edges.closeIterators();
+            }
+        }
+        return null;
+    }
+
+    private void forward(K key, EdgeWithValue<K, EV> edge, VV vertexValue) {
+        K neighbor = key.equals(edge.source()) ? edge.target() : edge.source();
+        context.forward(neighbor, new EdgeWithValue<>(edge.source(), edge.target(), vertexValue));
+    }
+
+    @Override
+    public void close() {
+    }
+}
@@ -0,0 +1,173 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.kgraph;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.apache.kafka.common.serialization.Serializer;
+import org.apache.kafka.common.utils.Bytes;
+import org.apache.kafka.streams.KeyValue;
+import org.apache.kafka.streams.kstream.Transformer;
+import org.apache.kafka.streams.processor.ProcessorContext;
+import org.apache.kafka.streams.state.KeyValueIterator;
+import org.apache.kafka.streams.state.KeyValueStore;
+
+/**
+ * Estimates the number of triangles at each vertex of a stream of undirected edges, keeping
+ * only a fixed-size sample of the edges (TRIEST-IMPR).
+ *
+ * <p>The sample is a reservoir of edges.  Each arriving edge closes a triangle with every common
+ * neighbor of its endpoints in the sample, and each such triangle is counted for its three
+ * vertices with a weight that corrects for the probability that both of its other edges are in
+ * the sample.  The weighted counts are emitted as increments, and are unbiased estimates of the
+ * number of triangles at each vertex.
+ *
+ * <p>Each edge is normalized so that its source is the endpoint with the smaller serialized form.
+ * An edge that is already in the sample, such as an update of it or its reverse, is skipped, so
+ * that every edge takes at most one slot of the sample.
+ */
+final class TriangleSampleTransformer<K, EV>
+    implements Transformer<Integer, EdgeWithValue<K, EV>, KeyValue<K, Double>> {
+
+    private static final Integer EDGE_COUNT = 0;
+
+    private final String sampleStoreName;
+    private final String countStoreName;
+    private final int sampleSize;
+    private final Serializer<K> keySerializer;
+    private final Random random = new Random();
+
+    private ProcessorContext context;
+    private KeyValueStore<Integer, Edge<K>> sampleStore;
+    private KeyValueStore<Integer, Long> countStore;
+    private final Map<K, Set<K>> neighbors = new HashMap<>();
+
+    TriangleSampleTransformer(String sampleStoreName, String countStoreName, int sampleSize,
+                              Serializer<K> keySerializer) {
+        this.sampleStoreName = sampleStoreName;
+        this.countStoreName = countStoreName;
+        this.sampleSize = sampleSize;
+        this.keySerializer = keySerializer;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public void init(final ProcessorContext context) {
+        this.context = context;
+        this.sampleStore = (KeyValueStore<Integer, Edge<K>>) context.getStateStore(sampleStoreName);
+        this.countStore = (KeyValueStore<Integer, Long>) context.getStateStore(countStoreName);
+        // The sample is indexed in memory, as it is bounded by the sample size
+        try (KeyValueIterator<Integer, Edge<K>> iterator = sampleStore.all()) {
+            while (iterator.hasNext()) {
+                addToSample(iterator.next().value);
+            }
+        }
+    }
+
+    @Override
+    public KeyValue<K, Double> transform(Integer key, EdgeWithValue<K, EV> edge) {
+        K source = edge.source();
+        K target = edge.target();
+        if (source.equals(target)) {
+            return null;
+        }
+        if (Bytes.BYTES_LEXICO_COMPARATOR.compare(
+            keySerializer.serialize(null, source), keySerializer.serialize(null, target)) > 0) {
+            K tmp = source;
+            source = target;
+            target = tmp;
+        }
+        if (neighbors.getOrDefault(source, Collections.emptySet()).contains(target)) {
+            return null;
+        }
+        Long previousCount = countStore.get(EDGE_COUNT);
+        long count = (previousCount != null ? previousCount : 0L) + 1;
+        countStore.put(EDGE_COUNT, count);
+
+        List<K> common = commonNeighbors(source, target);
+        if (!common.isEmpty()) {
+            double weight = Math.max(1.0,
+                (double) (count - 1) * (count - 2) / ((double) sampleSize * (sampleSize - 1)));
+            for (K vertex : common) {
+                context.forward(vertex, weight);
+            }
+            context.forward(source, weight * common.size());
+            context.forward(target, weight * common.size());
+        }
+
+        if (count <= sampleSize) {
+            sampleStore.put((int) (count - 1), new Edge<>(source, target));
+            addToSample(new Edge<>(source, target));
+        } else if (random.nextDouble() < (double) sampleSize / count) {
+            int slot = random.nextInt(sampleSize);
+            removeFromSample(sampleStore.get(slot));
+            sampleStore.put(slot, new Edge<>(source, target));
+            addToSample(new Edge<>(source, target));
+        }
+        return null;
+    }
+
+    private List<K> commonNeighbors(K source, K target) {
+        Set<K> sourceNeighbors = neighbors.getOrDefault(source, Collections.emptySet());
+        Set<K> targetNeighbors = neighbors.getOrDefault(target, Collections.emptySet());
+        if (sourceNeighbors.size() > targetNeighbors.size()) {
+            Set<K> tmp = sourceNeighbors;
+            sourceNeighbors = targetNeighbors;
+            targetNeighbors = tmp;
+        }
+        List<K> common = new ArrayList<>();
+        for (K vertex : sourceNeighbors) {
+            if (targetNeighbors.contains(vertex)) {
+                common.add(vertex);
+            }
+        }
+        return common;
+    }
+
+    private void addToSample(Edge<K> edge) {
+        neighbors.computeIfAbsent(edge.source(), k -> new HashSet<>()).add(edge.target());
+        neighbors.computeIfAbsent(edge.target(), k -> new HashSet<>()).add(edge.source());
+    }
+
+    private void removeFromSample(Edge<K> edge) {
+        removeNeighbor(edge.source(), edge.target());
+        removeNeighbor(edge.target(), edge.source());
+    }
+
+    private void removeNeighbor(K vertex, K neighbor) {
+        Set<K> vertexNeighbors = neighbors.get(vertex);
+        if (vertexNeighbors != null) {
+            vertexNeighbors.remove(neighbor);
+            if (vertexNeighbors.isEmpty()) {
+                neighbors.remove(vertex);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.kgraph;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.kafka.streams.KeyValue;
+import org.apache.kafka.streams.kstream.Transformer;
+import org.apache.kafka.streams.processor.ProcessorContext;
+import org.apache.kafka.streams.state.KeyValueStore;
+
+/**
+ * Maintains the weakly connected components of a stream of edges in a disjoint-set forest.
+ *
+ * <p>Each edge is processed as it arrives: the components of its endpoints are found and, if
+ * they differ, the smaller component is merged into the larger one, with union by size and path
+ * compression.  The members of each component are kept in a circular list, so that only the
+ * members of the smaller component are emitted with their new component, and a vertex changes
+ * component at most a logarithmic number of times.  The root of each tree identifies its
+ * component, and a new vertex is emitted with itself as its component.
+ */
+final class UnionFindTransformer<K, EV>
+    implements Transformer<Integer, EdgeWithValue<K, EV>, KeyValue<K, K>> {
+
+    private final String storeName;
+
+    private ProcessorContext context;
+    private KeyValueStore<K, Node<K>> store;
+
+    UnionFindTransformer(String storeName) {
+        this.storeName = storeName;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public void init(final ProcessorContext context) {
+        this.context = context;
+        this.store = (KeyValueStore<K, Node<K>>) context.getStateStore(storeName);
+    }
+
+    @Override
+    public KeyValue<K, K> transform(Integer key, EdgeWithValue<K, EV> edge) {
+        K sourceRoot = find(add(edge.source()));
+        K targetRoot = find(add(edge.target()));
+        if (sourceRoot.equals(targetRoot)) {
+            return null;
+        }
+        Node<K> source = store.get(sourceRoot);
+        Node<K> target = store.get(targetRoot);
+        if (source.size >= target.size) {
+            union(sourceRoot, source, targetRoot, target);
+        } else {
+            union(targetRoot, target, sourceRoot, source);
+        }
+        return null;
+    }
+
+    private K add(K vertex) {
+        if (store.get(vertex) == null) {
+            store.put(vertex, new Node<>(vertex, vertex, 1L));
+            context.forward(vertex, vertex);
+        }
+        return vertex;
+    }
+
+    private K find(K vertex) {
+        List<K> path = new ArrayList<>();
+        K current = vertex;
+        Node<K> node = store.get(current);
+        while (!node.parent.equals(current)) {
+            path.add(current);
+            current = node.parent;
+            node = store.get(current);
+        }
+        // Point every vertex on the path directly at the root
+        for (int i = 0; i < path.size() - 1; i++) {
+            K member = path.get(i);
+            Node<K> child = store.get(member);
+            store.put(member, new Node<>(current, child.next, child.size));
+        }
+        return current;
+    }
+
+    private void union(K root, Node<K> larger, K childRoot, Node<K> smaller) {
+        // Relabel the members of the smaller component before splicing the two member lists
+        K member = childRoot;
+        do {
+            context.forward(member, root);
+            member = store.get(member).next;
+        } while (!member.equals(childRoot));
+
+        store.put(childRoot, new Node<>(root, larger.next, smaller.size));
+        store.put(root, new Node<>(root, smaller.next, larger.size + smaller.size));
+    }
+
+    @Override
+    public void close() {
+    }
+
+    /**
+     * A vertex in the disjoint-set forest.  The size is only current for a root.
+     */
+    static final class Node<K> {
+        final K parent;
+        final K next;
+        final long size;
+
+        Node(K parent, K next, long size) {
+            this.parent = parent;
+            this.next = next;
+            this.size = size;
+        }
+    }
+}
@@ -18,16 +18,24 @@
 
 package io.kgraph.library;
 
+import java.util.Map;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import io.kgraph.EdgeWithValue;
 import io.kgraph.VertexWithValue;
 import io.kgraph.pregel.ComputeFunction;
+import io.kgraph.pregel.combiners.LongMinCombiner;
 
 public class ConnectedComponents<EV> implements ComputeFunction<Long, Long, EV, Long> {
     private static final Logger log = LoggerFactory.getLogger(ConnectedComponents.class);
 
+    @Override
+    public void init(Map<String, ?> configs, InitCallback cb) {
+        cb.registerMessageCombiner(new LongMinCombiner<Long>());
+    }
+
     @Override
     public void compute(
         int superstep,
@@ -27,6 +27,7 @@ import io.kgraph.EdgeWithValue;
 import io.kgraph.VertexWithValue;
 import io.kgraph.pregel.ComputeFunction;
 import io.kgraph.pregel.aggregators.DoubleSumAggregator;
+import io.kgraph.pregel.combiners.DoubleSumCombiner;
 import io.vavr.Tuple2;
 
 public class PageRank<K> implements ComputeFunction<K, Tuple2<Double, Double>, Double, Double> {
@@ -49,6 +50,7 @@ public class PageRank<K> implements ComputeFunction<K, Tuple2<Double, Double>, D
         srcVertexId = (K) configs.get(SRC_VERTEX_ID);
 
         cb.registerAggregator(RUNNING_SUM, DoubleSumAggregator.class, true);
+        cb.registerMessageCombiner(new DoubleSumCombiner<K>());
     }
 
     @Override
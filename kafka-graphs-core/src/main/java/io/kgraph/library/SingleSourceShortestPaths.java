@@ -26,6 +26,7 @@ import org.slf4j.LoggerFactory;
 import io.kgraph.EdgeWithValue;
 import io.kgraph.VertexWithValue;
 import io.kgraph.pregel.ComputeFunction;
+import io.kgraph.pregel.combiners.DoubleMinCombiner;
 
 public class SingleSourceShortestPaths implements ComputeFunction<Long, Double, Double, Double> {
     private static final Logger log = LoggerFactory.getLogger(SingleSourceShortestPaths.class);
@@ -37,6 +38,17 @@ public class SingleSourceShortestPaths implements ComputeFunction<Long, Double,
     @Override
     public void init(Map<String, ?> configs, InitCallback cb) {
         srcVertexId = (Long) configs.get(SRC_VERTEX_ID);
+
+        cb.registerMessageCombiner(new DoubleMinCombiner<Long>());
+    }
+
+    @Override
+    public void seed(VertexWithValue<Long, Double> vertex, Double previousValue, SeedCallback<Double, Double> cb) {
+        // Send the previous distance along the edges again, as they may have changed
+        if (previousValue != null && previousValue < Double.POSITIVE_INFINITY) {
+            cb.setVertexValue(Double.POSITIVE_INFINITY);
+            cb.sendMessage(previousValue);
+        }
     }
 
     @Override
@@ -57,13 +69,15 @@ public class SingleSourceShortestPaths implements ComputeFunction<Long, Double,
 
         if (minDistance < vertex.value()) {
             cb.setNewVertexValue(minDistance);
-            for (EdgeWithValue<Long, Double> edge : edges) {
-                double distance = minDistance + edge.value();
-                log.debug(">>> Vertex {} sent to {} = {}", vertex.id(), edge.target(), distance);
-                cb.sendMessageTo(edge.target(), distance);
-            }
+            cb.sendMessageToAllNeighbors(minDistance);
         }
 
         cb.voteToHalt();
     }
+
+    @Override
+    public Double scatter(Double distance, EdgeWithValue<Long, Double> edge) {
+        log.debug(">>> Vertex {} sent to {} = {}", edge.source(), edge.target(), distance + edge.value());
+        return distance + edge.value();
+    }
 }
@@ -0,0 +1,177 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.kgraph.pregel;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.function.Function;
+
+import io.kgraph.EdgeWithValue;
+
+/**
+ * A cache of the outgoing edges of the vertices of one stream task, so that the edges store is
+ * read and deserialized once per vertex rather than once per superstep and iteration.
+ *
+ * <p>Each adjacency list is kept as parallel arrays of targets and values, with the targets of
+ * long keys unboxed.  The least recently used lists are evicted once the cache holds more than
+ * the given number of edges.  The cache must be invalidated whenever the edges of a vertex change;
+ * it is not thread-safe.
+ */
+public class AdjacencyCache<K, EV> {
+
+    private final int maxEdges;
+    private final LinkedHashMap<K, Adjacency<K, EV>> cache = new LinkedHashMap<>(16, 0.75f, true);
+    private long edges;
+
+    public AdjacencyCache(int maxEdges) {
+        this.maxEdges = maxEdges;
+    }
+
+    public int size() {
+        return cache.size();
+    }
+
+    public long edges() {
+        return edges;
+    }
+
+    /**
+     * Returns the outgoing edges of the given vertex, loading them with the given function if
+     * they are not cached.  The function may return null if the vertex has no edges.
+     */
+    public Adjacency<K, EV> get(K source, Function<K, Map<K, EV>> loader) {
+        Adjacency<K, EV> adjacency = cache.get(source);
+        if (adjacency == null) {
+            adjacency = Adjacency.of(source, loader.apply(source));
+            // Lists larger than the whole cache are not kept
+            if (weight(adjacency) <= maxEdges) {
+                cache.put(source, adjacency);
+                edges += weight(adjacency);
+                evict();
+            }
+        }
+        return adjacency;
+    }
+
+    public void invalidate(K source) {
+        Adjacency<K, EV> adjacency = cache.remove(source);
+        if (adjacency != null) {
+            edges -= weight(adjacency);
+        }
+    }
+
+    public void clear() {
+        cache.clear();
+        edges = 0;
+    }
+
+    private void evict() {
+        Iterator<Adjacency<K, EV>> iter = cache.values().iterator();
+        while (edges > maxEdges && iter.hasNext()) {
+            edges -= weight(iter.next());
+            iter.remove();
+        }
+    }
+
+    // Vertices without edges still take an entry
+    private static int weight(Adjacency<?, ?> adjacency) {
+        return Math.max(adjacency.size(), 1);
+    }
+
+    /**
+     * The outgoing edges of a vertex.
+     */
+    public static final class Adjacency<K, EV> implements Iterable<EdgeWithValue<K, EV>> {
+
+        private final K source;
+        // Either the long targets or the boxed ones are set
+        private final long[] longTargets;
+        private final Object[] targets;
+        private final Object[] values;
+
+        private Adjacency(K source, long[] longTargets, Object[] targets, Object[] values) {
+            this.source = source;
+            this.longTargets = longTargets;
+            this.targets = targets;
+            this.values = values;
+        }
+
+        static <K, EV> Adjacency<K, EV> of(K source, Map<K, EV> edges) {
+            int size = edges != null ? edges.size() : 0;
+            boolean longKeys = source instanceof Long;
+            long[] longTargets = longKeys ? new long[size] : null;
+            Object[] targets = longKeys ? null : new Object[size];
+            Object[] values = new Object[size];
+            if (size > 0) {
+                int i = 0;
+                for (Map.Entry<K, EV> edge : edges.entrySet()) {
+                    if (longKeys) {
+                        longTargets[i] = (Long) edge.getKey();
+                    } else {
+                        targets[i] = edge.getKey();
+                    }
+                    values[i++] = edge.getValue();
+                }
+            }
+            return new Adjacency<>(source, longTargets, targets, values);
+        }
+
+        public K source() {
+            return source;
+        }
+
+        public int size() {
+            return values.length;
+        }
+
+        @SuppressWarnings("unchecked")
+        public K target(int index) {
+            return longTargets != null ? (K) Long.valueOf(longTargets[index]) : (K) targets[index];
+        }
+
+        @SuppressWarnings("unchecked")
+        public EV value(int index) {
+            return (EV) values[index];
+        }
+
+        @Override
+        public Iterator<EdgeWithValue<K, EV>> iterator() {
+            return new Iterator<EdgeWithValue<K, EV>>() {
+                private int index = 0;
+
+                @Override
+                public boolean hasNext() {
+                    return index < values.length;
+                }
+
+                @Override
+                public EdgeWithValue<K, EV> next() {
+                    if (index >= values.length) {
+                        throw new NoSuchElementException();
+                    }
+                    EdgeWithValue<K, EV> edge = new EdgeWithValue<>(source, target(index), value(index));
+                    index++;
+                    return edge;
+                }
+            };
+        }
+    }
+}
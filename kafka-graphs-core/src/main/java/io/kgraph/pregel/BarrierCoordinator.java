@@ -0,0 +1,119 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.kgraph.pregel;
+
+import java.io.Closeable;
+import java.util.Map;
+
+/**
+ * Coordinates the supersteps of a Pregel computation across workers.
+ *
+ * <p>A coordinator holds the shared Pregel state, the barriers for each stage of a superstep,
+ * and the aggregates written by each partition.  Each stream task joins the coordinator as a
+ * {@link Worker}, which provides group membership and leader election.
+ */
+public interface BarrierCoordinator extends Closeable {
+
+    /**
+     * Join the group of workers for this computation.
+     *
+     * @param workerName the name of the worker, which must be unique to a stream thread
+     * @return a handle for the worker, which must be closed when the worker stops
+     */
+    Worker join(String workerName) throws Exception;
+
+    /**
+     * Returns the current shared state, or the given initial state if none has been set.
+     */
+    PregelState state(PregelState initialState) throws Exception;
+
+    void setState(PregelState pregelState) throws Exception;
+
+    /**
+     * Returns whether the barrier for the given state has been marked ready by the leader.
+     */
+    boolean isReady(PregelState pregelState) throws Exception;
+
+    boolean hasChild(PregelState pregelState, String child) throws Exception;
+
+    void addChild(PregelState pregelState, String child, boolean ephemeral) throws Exception;
+
+    void removeChild(PregelState pregelState, String child) throws Exception;
+
+    /**
+     * Returns the aggregates written for the given superstep, keyed by child name.
+     */
+    Map<String, byte[]> aggregates(int superstep) throws Exception;
+
+    byte[] aggregate(int superstep, String child) throws Exception;
+
+    void setAggregate(int superstep, String child, byte[] data) throws Exception;
+
+    /**
+     * Returns the last superstep that was checkpointed, or -1 if there is none.
+     */
+    int checkpoint() throws Exception;
+
+    void setCheckpoint(int superstep) throws Exception;
+
+    /**
+     * Removes all barriers, and the aggregates of the given superstep and later ones, so that the
+     * computation can be resumed from a checkpoint at the given superstep.
+     */
+    void rollback(int superstep) throws Exception;
+
+    /**
+     * Registers a listener that is called, possibly from another thread, whenever the shared
+     * state or a barrier may have changed.
+     */
+    void addListener(Runnable listener) throws Exception;
+
+    void removeListener(Runnable listener);
+
+    /**
+     * Removes all state for this computation.
+     */
+    void clear() throws Exception;
+
+    /**
+     * A worker taking part in the computation.
+     */
+    interface Worker extends Closeable {
+
+        boolean isLeader() throws Exception;
+
+        int groupSize() throws Exception;
+
+        /**
+         * Called by the leader in the receive stage to check whether all workers have received
+         * their messages, in which case the barrier for the send stage is marked ready.
+         *
+         * @return the next state, or the given state if the barrier is not yet complete
+         */
+        PregelState maybeCreateReadyToSendNode(PregelState pregelState) throws Exception;
+
+        /**
+         * Called by the leader in the send stage to check whether all partitions have sent
+         * their messages, in which case the barrier for the receive stage is marked ready.
+         *
+         * @return the next state, or the given state if the barrier is not yet complete
+         */
+        PregelState maybeCreateReadyToReceiveNode(PregelState pregelState) throws Exception;
+    }
+}
@@ -41,10 +41,11 @@ import io.kgraph.pregel.aggregators.Aggregator;
 public interface ComputeFunction<K, VV, EV, Message> {
 
     /**
-     * Initialize the ComputeFunction, this is the place to register aggregators.
+     * Initialize the ComputeFunction, this is the place to register aggregators
+     * and an optional message combiner.
      *
      * @param configs configuration parameters
-     * @param cb a callback for registering aggregators
+     * @param cb a callback for registering aggregators and message combiners
      */
     default void init(Map<String, ?> configs, InitCallback cb) {
     }
@@ -68,6 +69,20 @@ public interface ComputeFunction<K, VV, EV, Message> {
     default void preSuperstep(int superstep, Aggregators aggregators) {
     }
 
+    /**
+     * Seed a vertex in an incremental computation, which starts from the solution set of a previous
+     * run rather than from the initial vertex values.  Only the vertices affected by changes to the
+     * graph since that run, namely new or updated vertices and the sources of updated edges, are
+     * active in the first superstep, and this method is called for each of them before compute().
+     * By default the vertex starts from its previous value, or from its initial value if it is new.
+     *
+     * @param vertex the vertex with its initial value
+     * @param previousValue the value of the vertex at the end of the previous run, or null if it is new
+     * @param cb a callback for setting the value and the messages with which the vertex starts
+     */
+    default void seed(VertexWithValue<K, VV> vertex, VV previousValue, SeedCallback<VV, Message> cb) {
+    }
+
     /**
      * The function for computing a new vertex value or sending messages to the next superstep.
      *
@@ -83,6 +98,21 @@ public interface ComputeFunction<K, VV, EV, Message> {
                  Iterable<EdgeWithValue<K, EV>> edges,
                  Callback<K, VV, EV, Message> cb);
 
+    /**
+     * Computes the message for the target of an edge from a message sent with
+     * {@link Callback#sendMessageToAllNeighbors}.  The edges of a high-degree vertex may be split
+     * across partitions, in which case this is called in the task of the target rather than of the
+     * vertex, so it should only depend on the message and the edge.  By default the message is sent
+     * unchanged.
+     *
+     * @param message the message sent to all neighbors
+     * @param edge the edge along which the message is sent
+     * @return the message for the target of the edge, or null to send nothing along the edge
+     */
+    default Message scatter(Message message, EdgeWithValue<K, EV> edge) {
+        return message;
+    }
+
     /**
      * Finish computation.  This method is executed exactly once after computation
      * for all vertices in the partition is complete.
@@ -98,6 +128,8 @@ public interface ComputeFunction<K, VV, EV, Message> {
 
         protected final Map<String, AggregatorWrapper<?>> aggregators;
 
+        protected MessageCombiner<?, ?> messageCombiner;
+
         public InitCallback(Map<String, AggregatorWrapper<?>> aggregators) {
             this.aggregators = aggregators;
         }
@@ -112,6 +144,28 @@ public interface ComputeFunction<K, VV, EV, Message> {
                                            boolean persistent) {
             aggregators.put(name, new AggregatorWrapper<>(aggregatorClass, persistent));
         }
+
+        public <K, Message> void registerMessageCombiner(MessageCombiner<K, Message> messageCombiner) {
+            this.messageCombiner = messageCombiner;
+        }
+    }
+
+    final class SeedCallback<VV, Message> {
+
+        protected VV vertexValue;
+
+        protected boolean hasVertexValue = false;
+
+        protected final List<Message> messages = new ArrayList<>();
+
+        public void setVertexValue(VV vertexValue) {
+            this.vertexValue = vertexValue;
+            this.hasVertexValue = true;
+        }
+
+        public void sendMessage(Message message) {
+            messages.add(message);
+        }
     }
 
     interface ReadAggregators {
@@ -173,26 +227,123 @@ public interface ComputeFunction<K, VV, EV, Message> {
 
         protected final K key;
 
+        protected final VertexEdges<K, EV> edges;
+
+        /**
+         * @deprecated edges are changed through {@link #edges}; this is only set by the
+         * constructors that take a store
+         */
+        @Deprecated
         protected final KeyValueStore<K, Map<K, EV>> edgesStore;
 
         protected VV newVertexValue = null;
 
+        protected final MessageCombiner<K, Message> messageCombiner;
+
+        protected final AdjacencyCache<K, EV> adjacencyCache;
+
         protected final Map<K, List<Message>> outgoingMessages = new HashMap<>();
 
+        protected final List<Message> messagesToAllNeighbors = new ArrayList<>();
+
+        protected boolean edgesChanged = false;
+
         protected boolean voteToHalt = false;
 
+        public Callback(K key,
+                        VertexEdges<K, EV> edges,
+                        Map<String, ?> previousAggregates,
+                        Map<String, Aggregator<?>> aggregators) {
+            this(key, edges, previousAggregates, aggregators, null);
+        }
+
+        public Callback(K key,
+                        VertexEdges<K, EV> edges,
+                        Map<String, ?> previousAggregates,
+                        Map<String, Aggregator<?>> aggregators,
+                        MessageCombiner<K, Message> messageCombiner) {
+            this(key, edges, previousAggregates, aggregators, messageCombiner, null);
+        }
+
+        public Callback(K key,
+                        VertexEdges<K, EV> edges,
+                        Map<String, ?> previousAggregates,
+                        Map<String, Aggregator<?>> aggregators,
+                        MessageCombiner<K, Message> messageCombiner,
+                        AdjacencyCache<K, EV> adjacencyCache) {
+            this(key, edges, null, previousAggregates, aggregators, messageCombiner, adjacencyCache);
+        }
+
+        /**
+         * @deprecated use {@link #Callback(Object, VertexEdges, Map, Map)} with {@link VertexEdges#of}
+         */
+        @Deprecated
         public Callback(K key,
                         KeyValueStore<K, Map<K, EV>> edgesStore,
                         Map<String, ?> previousAggregates,
                         Map<String, Aggregator<?>> aggregators) {
+            this(key, edgesStore, previousAggregates, aggregators, null);
+        }
+
+        /**
+         * @deprecated use {@link #Callback(Object, VertexEdges, Map, Map, MessageCombiner)} with
+         * {@link VertexEdges#of}
+         */
+        @Deprecated
+        public Callback(K key,
+                        KeyValueStore<K, Map<K, EV>> edgesStore,
+                        Map<String, ?> previousAggregates,
+                        Map<String, Aggregator<?>> aggregators,
+                        MessageCombiner<K, Message> messageCombiner) {
+            this(key, edgesStore, previousAggregates, aggregators, messageCombiner, null);
+        }
+
+        /**
+         * @deprecated use {@link #Callback(Object, VertexEdges, Map, Map, MessageCombiner, AdjacencyCache)}
+         * with {@link VertexEdges#of}
+         */
+        @Deprecated
+        public Callback(K key,
+                        KeyValueStore<K, Map<K, EV>> edgesStore,
+                        Map<String, ?> previousAggregates,
+                        Map<String, Aggregator<?>> aggregators,
+                        MessageCombiner<K, Message> messageCombiner,
+                        AdjacencyCache<K, EV> adjacencyCache) {
+            this(key, VertexEdges.of(edgesStore), edgesStore, previousAggregates, aggregators, messageCombiner,
+                adjacencyCache);
+        }
+
+        private Callback(K key,
+                         VertexEdges<K, EV> edges,
+                         KeyValueStore<K, Map<K, EV>> edgesStore,
+                         Map<String, ?> previousAggregates,
+                         Map<String, Aggregator<?>> aggregators,
+                         MessageCombiner<K, Message> messageCombiner,
+                         AdjacencyCache<K, EV> adjacencyCache) {
             super(previousAggregates, aggregators);
             this.key = key;
+            this.edges = edges;
             this.edgesStore = edgesStore;
+            this.messageCombiner = messageCombiner;
+            this.adjacencyCache = adjacencyCache;
         }
 
         public final void sendMessageTo(K target, Message m) {
             List<Message> messages = outgoingMessages.computeIfAbsent(target, k -> new ArrayList<>());
-            messages.add(m);
+            if (messageCombiner != null && !messages.isEmpty()) {
+                messages.set(0, messageCombiner.combine(target, messages.get(0), m));
+            } else {
+                messages.add(m);
+            }
+        }
+
+        /**
+         * Sends a message along all the out-edges of this vertex, as computed for each edge by
+         * {@link ComputeFunction#scatter}.  Unlike sending to each target in turn, this lets the
+         * edges of a high-degree vertex be split across partitions.
+         */
+        public final void sendMessageToAllNeighbors(Message m) {
+            messagesToAllNeighbors.add(m);
         }
 
         public final void setNewVertexValue(VV vertexValue) {
@@ -200,30 +351,28 @@ public interface ComputeFunction<K, VV, EV, Message> {
         }
 
         public final void addEdge(K target, EV value) {
-            Map<K, EV> edges = edgesStore.get(key);
-            if (edges == null) {
-                edges = new HashMap<>();
+            if (edges.addEdge(key, target, value)) {
+                invalidateEdges();
             }
-            edges.put(target, value);
-            edgesStore.put(key, edges);
         }
 
         public final void removeEdge(K target) {
-            Map<K, EV> edges = edgesStore.get(key);
-            if (edges == null) {
-                return;
+            if (edges.removeEdge(key, target)) {
+                invalidateEdges();
             }
-            edges.remove(target);
-            edgesStore.put(key, edges);
         }
 
         public final void setNewEdgeValue(K target, EV value) {
-            Map<K, EV> edges = edgesStore.get(key);
-            if (edges == null) {
-                return;
+            if (edges.setEdgeValue(key, target, value)) {
+                invalidateEdges();
+            }
+        }
+
+        private void invalidateEdges() {
+            edgesChanged = true;
+            if (adjacencyCache != null) {
+                adjacencyCache.invalidate(key);
             }
-            edges.replace(target, value);
-            edgesStore.put(key, edges);
         }
 
         public void voteToHalt() {
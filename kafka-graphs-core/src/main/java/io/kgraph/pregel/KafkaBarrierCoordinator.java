@@ -0,0 +1,231 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.kgraph.pregel;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutionException;
+
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.AdminClientConfig;
+import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.config.TopicConfig;
+import org.apache.kafka.common.errors.TopicExistsException;
+import org.apache.kafka.common.errors.WakeupException;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.kgraph.utils.ClientUtils;
+
+/**
+ * A barrier coordinator backed by a single-partition, compacted Kafka topic.
+ *
+ * <p>Each path is a record key, and a removed path is a tombstone.  Every instance reads the
+ * topic into a local view in a background thread; its own writes are applied to the view as
+ * soon as they are acknowledged, so that a worker always sees its own updates.
+ *
+ * <p>Kafka has no sessions, so instances write heartbeats to the topic instead.  The ephemeral
+ * paths of an instance that stops writing heartbeats, e.g. because it crashed, are removed by the
+ * other instances after the session timeout, so that a dead worker neither keeps the leadership
+ * nor counts towards the group.  The timeout should be well above the longest expected pause of
+ * an instance, as a paused instance may otherwise have its barrier entries removed.
+ */
+public class KafkaBarrierCoordinator extends KeyValueBarrierCoordinator {
+    private static final Logger log = LoggerFactory.getLogger(KafkaBarrierCoordinator.class);
+
+    private static final Duration POLL_TIMEOUT = Duration.ofMillis(100);
+
+    public static final long DEFAULT_SESSION_TIMEOUT_MS = 10000L;
+
+    private final String topic;
+    private final TopicPartition topicPartition;
+    private final Producer<String, byte[]> producer;
+    private final Consumer<String, byte[]> consumer;
+    private final NavigableMap<String, byte[]> entries = new ConcurrentSkipListMap<>();
+    // Offsets of our own writes that the reader has not caught up to yet
+    private final Map<String, Long> pendingWrites = new ConcurrentHashMap<>();
+    // The offset of the last record applied by the reader
+    private volatile long appliedOffset = -1L;
+    private final Thread reader;
+    private volatile boolean running = true;
+
+    public KafkaBarrierCoordinator(String bootstrapServers, String applicationId) {
+        this(bootstrapServers, applicationId, (short) 1);
+    }
+
+    public KafkaBarrierCoordinator(String bootstrapServers, String applicationId, short replicationFactor) {
+        this(bootstrapServers, applicationId, replicationFactor, DEFAULT_SESSION_TIMEOUT_MS);
+    }
+
+    public KafkaBarrierCoordinator(String bootstrapServers, String applicationId, short replicationFactor,
+                                   long sessionTimeoutMs) {
+        super(applicationId, sessionTimeoutMs);
+        this.topic = "pregelBarriers-" + applicationId;
+        this.topicPartition = new TopicPartition(topic, 0);
+        createTopic(bootstrapServers, replicationFactor);
+
+        this.producer = new KafkaProducer<>(ClientUtils.producerConfig(
+            bootstrapServers, StringSerializer.class, ByteArraySerializer.class, new Properties()));
+        Properties consumerProps = new Properties();
+        consumerProps.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        this.consumer = new KafkaConsumer<>(ClientUtils.consumerConfig(
+            bootstrapServers, topic + "-" + UUID.randomUUID(), StringDeserializer.class, ByteArrayDeserializer.class, consumerProps));
+        consumer.assign(Collections.singletonList(topicPartition));
+        consumer.seekToBeginning(Collections.singletonList(topicPartition));
+
+        // Catch up with the existing state before handing out any workers
+        long endOffset = consumer.endOffsets(Collections.singletonList(topicPartition)).get(topicPartition);
+        while (consumer.position(topicPartition) < endOffset) {
+            apply(consumer.poll(POLL_TIMEOUT));
+        }
+
+        this.reader = new Thread(this::read, "pregel-barriers-" + applicationId);
+        reader.setDaemon(true);
+        reader.start();
+    }
+
+    private void createTopic(String bootstrapServers, short replicationFactor) {
+        Properties props = new Properties();
+        props.put(AdminClientConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        NewTopic newTopic = new NewTopic(topic, 1, replicationFactor)
+            .configs(Collections.singletonMap(TopicConfig.CLEANUP_POLICY_CONFIG, TopicConfig.CLEANUP_POLICY_COMPACT));
+        try (AdminClient adminClient = AdminClient.create(props)) {
+            adminClient.createTopics(Collections.singletonList(newTopic)).all().get();
+        } catch (ExecutionException e) {
+            if (!(e.getCause() instanceof TopicExistsException)) {
+                throw toRuntimeException(e.getCause());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static RuntimeException toRuntimeException(Throwable e) {
+        return e instanceof RuntimeException ? (RuntimeException) e : new RuntimeException(e);
+    }
+
+    private void read() {
+        try {
+            while (running) {
+                apply(consumer.poll(POLL_TIMEOUT));
+            }
+        } catch (WakeupException e) {
+            // ignore, closing
+        } catch (Exception e) {
+            log.error("Stopped reading barrier topic {}", topic, e);
+        } finally {
+            consumer.close();
+        }
+    }
+
+    private void apply(ConsumerRecords<String, byte[]> records) {
+        if (records.isEmpty()) {
+            return;
+        }
+        synchronized (this) {
+            for (ConsumerRecord<String, byte[]> record : records) {
+                appliedOffset = record.offset();
+                Long pending = pendingWrites.get(record.key());
+                if (pending != null) {
+                    if (record.offset() < pending) {
+                        // Our own, newer write has already been applied
+                        continue;
+                    }
+                    pendingWrites.remove(record.key(), pending);
+                }
+                apply(record.key(), record.value());
+            }
+        }
+        notifyListeners();
+    }
+
+    private void apply(String path, byte[] data) {
+        if (data != null) {
+            entries.put(path, data);
+        } else {
+            entries.remove(path);
+        }
+    }
+
+    private void write(String path, byte[] data) throws Exception {
+        RecordMetadata metadata = producer.send(new ProducerRecord<>(topic, 0, path, data)).get();
+        synchronized (this) {
+            // If the reader has already applied our write, it may also have applied newer records,
+            // such as the removal of the path by another instance
+            if (metadata.offset() <= appliedOffset) {
+                return;
+            }
+            Long pending = pendingWrites.get(path);
+            if (pending == null || pending < metadata.offset()) {
+                pendingWrites.put(path, metadata.offset());
+                apply(path, data);
+            }
+        }
+        notifyListeners();
+    }
+
+    @Override
+    protected NavigableMap<String, byte[]> entries() {
+        return entries;
+    }
+
+    @Override
+    protected void put(String path, byte[] data) throws Exception {
+        write(path, data);
+    }
+
+    @Override
+    protected void delete(String path) throws Exception {
+        write(path, null);
+    }
+
+    @Override
+    public void close() {
+        super.close();
+        running = false;
+        consumer.wakeup();
+        try {
+            reader.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        producer.close();
+    }
+}
@@ -0,0 +1,548 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.kgraph.pregel;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.curator.utils.ZKPaths;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.kgraph.GraphAlgorithmState;
+
+/**
+ * A barrier coordinator that keeps the same tree of paths as {@link ZKBarrierCoordinator},
+ * but in a flat, sorted key-value view.
+ *
+ * <p>Only leaf paths are stored; a path is considered to exist if it has any descendants.
+ * Ephemeral paths are tracked locally and removed when the worker or coordinator is closed.
+ * Leadership goes to the worker that joined first among the live workers.
+ *
+ * <p>On rollback the group and leader paths are removed and the generation is incremented.
+ * Workers that are still alive register again for the new generation when they next check for
+ * leadership, so that workers that died without leaving are no longer counted or elected.
+ *
+ * <p>With a positive session timeout, a coordinator with workers writes a heartbeat every third
+ * of the timeout.  Ephemeral paths record the coordinator that owns them, and are removed by the
+ * other coordinators once its heartbeat has not changed for the whole timeout, as measured on
+ * their own clocks.  A worker registers again if its paths were removed while it was still alive.
+ * Without a session timeout, the paths of a coordinator that dies without being closed remain
+ * until the computation is cleared.
+ */
+public abstract class KeyValueBarrierCoordinator implements BarrierCoordinator {
+    private static final Logger log = LoggerFactory.getLogger(KeyValueBarrierCoordinator.class);
+
+    private static final byte[] EMPTY = new byte[0];
+
+    protected final String applicationId;
+    private final String instanceId = UUID.randomUUID().toString();
+    private final byte[] owner = instanceId.getBytes(StandardCharsets.UTF_8);
+    private final long sessionTimeoutMs;
+    private final AtomicLong workerIds = new AtomicLong();
+    private final Map<String, Integer> localMembers = new HashMap<>();
+    private final Set<String> ephemeralPaths = ConcurrentHashMap.newKeySet();
+    private final Set<KeyValueWorker> workers = ConcurrentHashMap.newKeySet();
+    private final Set<Runnable> listeners = new CopyOnWriteArraySet<>();
+    // The last heartbeat seen from each other session, and the local time it was first seen
+    private final Map<String, Heartbeat> heartbeats = new HashMap<>();
+    private final Object sessionLock = new Object();
+    private ScheduledExecutorService sessions;
+    private long heartbeat = 0L;
+
+    protected KeyValueBarrierCoordinator(String applicationId) {
+        this(applicationId, 0L);
+    }
+
+    /**
+     * @param sessionTimeoutMs the time after which the ephemeral paths of a coordinator that stopped
+     *                         sending heartbeats are removed, or 0 to only remove them on close
+     */
+    protected KeyValueBarrierCoordinator(String applicationId, long sessionTimeoutMs) {
+        this.applicationId = applicationId;
+        this.sessionTimeoutMs = sessionTimeoutMs;
+    }
+
+    /**
+     * Returns a sorted view of all paths and their data.
+     */
+    protected abstract NavigableMap<String, byte[]> entries();
+
+    protected abstract void put(String path, byte[] data) throws Exception;
+
+    protected abstract void delete(String path) throws Exception;
+
+    /**
+     * Called by implementations after any path has been changed.
+     */
+    protected void notifyListeners() {
+        for (Runnable listener : listeners) {
+            listener.run();
+        }
+    }
+
+    @Override
+    public void addListener(Runnable listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public void removeListener(Runnable listener) {
+        listeners.remove(listener);
+    }
+
+    protected byte[] get(String path) {
+        return entries().get(path);
+    }
+
+    /**
+     * Returns the immediate children of the given path, or null if the path does not exist.
+     */
+    protected Map<String, byte[]> children(String path) {
+        String prefix = path + ZKPaths.PATH_SEPARATOR;
+        // '0' is the character that follows the path separator
+        SortedMap<String, byte[]> descendants = entries().subMap(prefix, path + '0');
+        if (descendants.isEmpty()) {
+            return null;
+        }
+        Map<String, byte[]> children = new HashMap<>();
+        for (Map.Entry<String, byte[]> entry : descendants.entrySet()) {
+            String relativePath = entry.getKey().substring(prefix.length());
+            int index = relativePath.indexOf(ZKPaths.PATH_SEPARATOR);
+            if (index < 0) {
+                children.put(relativePath, entry.getValue());
+            } else {
+                children.putIfAbsent(relativePath.substring(0, index), null);
+            }
+        }
+        return children;
+    }
+
+    private void create(String path, byte[] data, boolean ephemeral) throws Exception {
+        if (get(path) == null) {
+            log.debug("adding child {}", path);
+            // Ephemeral paths record their owner, so that they can be removed once its session expires
+            put(path, ephemeral ? owner : data);
+        }
+        if (ephemeral) {
+            ephemeralPaths.add(path);
+        }
+    }
+
+    private void remove(String path) throws Exception {
+        ephemeralPaths.remove(path);
+        if (get(path) != null) {
+            log.debug("removing child {}", path);
+            delete(path);
+        }
+    }
+
+    private String rootPath() {
+        return ZKUtils.PREGEL_PATH + applicationId;
+    }
+
+    private int generation() {
+        byte[] data = get(ZKPaths.makePath(rootPath(), ZKUtils.GENERATION));
+        return data != null ? ByteBuffer.wrap(data).getInt() : 0;
+    }
+
+    private String sessionPath(String instanceId) {
+        return ZKPaths.makePath(rootPath(), ZKUtils.SESSIONS, instanceId);
+    }
+
+    @Override
+    public Worker join(String workerName) throws Exception {
+        KeyValueWorker worker = new KeyValueWorker(workerName);
+        workers.add(worker);
+        startSession();
+        return worker;
+    }
+
+    private void startSession() throws Exception {
+        if (sessionTimeoutMs <= 0) {
+            return;
+        }
+        synchronized (sessionLock) {
+            if (sessions != null) {
+                return;
+            }
+            put(sessionPath(instanceId), ByteBuffer.allocate(8).putLong(heartbeat).array());
+            sessions = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "pregel-sessions-" + applicationId);
+                thread.setDaemon(true);
+                return thread;
+            });
+            long intervalMs = Math.max(sessionTimeoutMs / 3, 1L);
+            sessions.scheduleWithFixedDelay(this::heartbeat, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void heartbeat() {
+        try {
+            put(sessionPath(instanceId), ByteBuffer.allocate(8).putLong(++heartbeat).array());
+            expireSessions();
+            for (KeyValueWorker worker : workers) {
+                worker.register();
+            }
+        } catch (Exception e) {
+            log.warn("Could not send heartbeat for application {}", applicationId, e);
+        }
+    }
+
+    private void expireSessions() throws Exception {
+        long now = System.currentTimeMillis();
+        Map<String, byte[]> children = children(ZKPaths.makePath(rootPath(), ZKUtils.SESSIONS));
+        if (children == null) {
+            return;
+        }
+        heartbeats.keySet().retainAll(children.keySet());
+        for (Map.Entry<String, byte[]> child : children.entrySet()) {
+            String session = child.getKey();
+            if (session.equals(instanceId) || child.getValue() == null) {
+                continue;
+            }
+            Heartbeat last = heartbeats.get(session);
+            if (last == null || !Arrays.equals(last.data, child.getValue())) {
+                heartbeats.put(session, new Heartbeat(child.getValue(), now));
+            } else if (now - last.seenMs > sessionTimeoutMs) {
+                expireSession(session);
+                heartbeats.remove(session);
+            }
+        }
+    }
+
+    private void expireSession(String session) throws Exception {
+        log.info("Expiring session {} of application {}", session, applicationId);
+        byte[] expired = session.getBytes(StandardCharsets.UTF_8);
+        List<String> paths = new ArrayList<>();
+        for (Map.Entry<String, byte[]> entry : entries().entrySet()) {
+            if (Arrays.equals(entry.getValue(), expired)) {
+                paths.add(entry.getKey());
+            }
+        }
+        for (String path : paths) {
+            delete(path);
+        }
+        delete(sessionPath(session));
+    }
+
+    @Override
+    public PregelState state(PregelState initialState) throws Exception {
+        byte[] data = get(ZKPaths.makePath(rootPath(), ZKUtils.SUPERSTEP));
+        return data != null ? PregelState.fromBytes(data) : initialState;
+    }
+
+    @Override
+    public void setState(PregelState pregelState) throws Exception {
+        put(ZKPaths.makePath(rootPath(), ZKUtils.SUPERSTEP), pregelState.toBytes());
+    }
+
+    @Override
+    public boolean isReady(PregelState pregelState) throws Exception {
+        return get(ZKPaths.makePath(ZKUtils.barrierPath(applicationId, pregelState), ZKUtils.READY)) != null;
+    }
+
+    @Override
+    public boolean hasChild(PregelState pregelState, String child) throws Exception {
+        return get(ZKPaths.makePath(ZKUtils.barrierPath(applicationId, pregelState), child)) != null;
+    }
+
+    @Override
+    public void addChild(PregelState pregelState, String child, boolean ephemeral) throws Exception {
+        create(ZKPaths.makePath(ZKUtils.barrierPath(applicationId, pregelState), child), EMPTY, ephemeral);
+    }
+
+    @Override
+    public void removeChild(PregelState pregelState, String child) throws Exception {
+        remove(ZKPaths.makePath(ZKUtils.barrierPath(applicationId, pregelState), child));
+    }
+
+    @Override
+    public Map<String, byte[]> aggregates(int superstep) throws Exception {
+        Map<String, byte[]> children = children(ZKUtils.aggregatePath(applicationId, superstep));
+        Map<String, byte[]> result = new HashMap<>();
+        if (children != null) {
+            for (Map.Entry<String, byte[]> entry : children.entrySet()) {
+                if (entry.getValue() != null) {
+                    result.put(entry.getKey(), entry.getValue());
+                }
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public byte[] aggregate(int superstep, String child) throws Exception {
+        return get(ZKPaths.makePath(ZKUtils.aggregatePath(applicationId, superstep), child));
+    }
+
+    @Override
+    public void setAggregate(int superstep, String child, byte[] data) throws Exception {
+        put(ZKPaths.makePath(ZKUtils.aggregatePath(applicationId, superstep), child), data);
+    }
+
+    @Override
+    public int checkpoint() throws Exception {
+        byte[] data = get(ZKPaths.makePath(rootPath(), ZKUtils.CHECKPOINT));
+        return data != null ? ByteBuffer.wrap(data).getInt() : -1;
+    }
+
+    @Override
+    public void setCheckpoint(int superstep) throws Exception {
+        put(ZKPaths.makePath(rootPath(), ZKUtils.CHECKPOINT), ByteBuffer.allocate(4).putInt(superstep).array());
+    }
+
+    @Override
+    public void rollback(int superstep) throws Exception {
+        removeDescendants(ZKPaths.makePath(rootPath(), ZKUtils.GROUP));
+        removeDescendants(ZKPaths.makePath(rootPath(), ZKUtils.LEADER));
+        int generation = generation() + 1;
+        log.info("Starting generation {} of application {}", generation, applicationId);
+        put(ZKPaths.makePath(rootPath(), ZKUtils.GENERATION), ByteBuffer.allocate(4).putInt(generation).array());
+        removeDescendants(ZKPaths.makePath(rootPath(), ZKUtils.BARRIERS));
+        String aggregatesPath = ZKPaths.makePath(rootPath(), ZKUtils.AGGREGATES);
+        Map<String, byte[]> children = children(aggregatesPath);
+        if (children != null) {
+            for (String child : children.keySet()) {
+                if (Integer.parseInt(child) >= superstep) {
+                    removeDescendants(ZKPaths.makePath(aggregatesPath, child));
+                }
+            }
+        }
+    }
+
+    @Override
+    public void clear() throws Exception {
+        removeDescendants(rootPath());
+    }
+
+    private void removeDescendants(String path) throws Exception {
+        String prefix = path + ZKPaths.PATH_SEPARATOR;
+        List<String> paths = new ArrayList<>(entries().subMap(prefix, path + '0').keySet());
+        for (String descendant : paths) {
+            remove(descendant);
+        }
+    }
+
+    @Override
+    public void close() {
+        ScheduledExecutorService sessions;
+        synchronized (sessionLock) {
+            sessions = this.sessions;
+        }
+        if (sessions != null) {
+            sessions.shutdownNow();
+            try {
+                sessions.awaitTermination(sessionTimeoutMs, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        for (String path : new ArrayList<>(ephemeralPaths)) {
+            try {
+                remove(path);
+            } catch (Exception e) {
+                log.warn("Could not remove {}", path, e);
+            }
+        }
+        if (sessions != null) {
+            try {
+                remove(sessionPath(instanceId));
+            } catch (Exception e) {
+                log.warn("Could not remove session {}", instanceId, e);
+            }
+        }
+    }
+
+    private void addReady(PregelState pregelState) throws Exception {
+        String path = ZKPaths.makePath(ZKUtils.barrierPath(applicationId, pregelState.next()), ZKUtils.READY);
+        log.debug("adding ready {}", path);
+        create(path, EMPTY, false);
+    }
+
+    private static int size(Map<String, byte[]> children) {
+        int size = children.size();
+        if (children.containsKey(ZKUtils.READY)) size--;
+        return size;
+    }
+
+    private static final class Heartbeat {
+        private final byte[] data;
+        private final long seenMs;
+
+        Heartbeat(byte[] data, long seenMs) {
+            this.data = data;
+            this.seenMs = seenMs;
+        }
+    }
+
+    private final class KeyValueWorker implements Worker {
+        private final String workerName;
+        private final String candidateName;
+        private int generation = -1;
+        private boolean closed = false;
+        private String groupPath;
+        private String leaderPath;
+
+        KeyValueWorker(String workerName) throws Exception {
+            this.workerName = workerName;
+            // Leader candidates sort by join time, so the earliest live worker leads
+            this.candidateName = String.format("%016x-%s-%016x",
+                System.currentTimeMillis(), instanceId, workerIds.incrementAndGet());
+            rejoin();
+        }
+
+        /**
+         * Registers the worker for the current generation, if not already registered.
+         */
+        private synchronized void rejoin() throws Exception {
+            int current = generation();
+            if (closed || current == generation) {
+                return;
+            }
+            log.debug("Registering worker {} for generation {} of application {}", workerName, current, applicationId);
+            leave();
+            groupPath = ZKPaths.makePath(rootPath(), ZKUtils.GROUP, String.valueOf(current), workerName);
+            leaderPath = ZKPaths.makePath(rootPath(), ZKUtils.LEADER, String.valueOf(current), candidateName);
+            synchronized (localMembers) {
+                localMembers.merge(groupPath, 1, Integer::sum);
+                create(groupPath, EMPTY, true);
+            }
+            create(leaderPath, EMPTY, true);
+            generation = current;
+        }
+
+        private void leave() throws Exception {
+            if (leaderPath == null) {
+                return;
+            }
+            remove(leaderPath);
+            synchronized (localMembers) {
+                if (localMembers.merge(groupPath, -1, Integer::sum) <= 0) {
+                    localMembers.remove(groupPath);
+                    remove(groupPath);
+                }
+            }
+            groupPath = null;
+            leaderPath = null;
+        }
+
+        /**
+         * Registers the worker again if its paths were removed, e.g. after its session was
+         * expired by mistake during a long pause.
+         */
+        synchronized void register() throws Exception {
+            rejoin();
+            if (closed) {
+                return;
+            }
+            if (get(groupPath) == null) {
+                create(groupPath, EMPTY, true);
+            }
+            if (get(leaderPath) == null) {
+                create(leaderPath, EMPTY, true);
+            }
+        }
+
+        @Override
+        public synchronized boolean isLeader() throws Exception {
+            rejoin();
+            if (leaderPath == null) {
+                return false;
+            }
+            String leaderRoot = ZKPaths.makePath(rootPath(), ZKUtils.LEADER, String.valueOf(generation));
+            SortedMap<String, byte[]> candidates = entries().subMap(leaderRoot + ZKPaths.PATH_SEPARATOR, leaderRoot + '0');
+            return !candidates.isEmpty() && candidates.firstKey().equals(leaderPath);
+        }
+
+        @Override
+        public synchronized int groupSize() throws Exception {
+            rejoin();
+            if (groupPath == null) {
+                return 0;
+            }
+            Map<String, byte[]> members = children(ZKPaths.makePath(rootPath(), ZKUtils.GROUP, String.valueOf(generation)));
+            return members != null ? members.size() : 0;
+        }
+
+        @Override
+        public PregelState maybeCreateReadyToSendNode(PregelState pregelState) throws Exception {
+            if (pregelState.superstep() < 0) {
+                return pregelState.next();
+            }
+            Map<String, byte[]> children = children(ZKUtils.barrierPath(applicationId, pregelState));
+            if (children == null) {
+                return pregelState;
+            }
+            if (size(children) == groupSize()) {
+                Map<String, byte[]> nextChildren = children(ZKUtils.barrierPath(applicationId, pregelState.next()));
+                if (nextChildren == null || size(nextChildren) == 0) {
+                    return pregelState.state(GraphAlgorithmState.State.COMPLETED);
+                } else {
+                    // only advance superstep if there is more work to do
+                    addReady(pregelState);
+                    return pregelState.next();
+                }
+            }
+            return pregelState;
+        }
+
+        @Override
+        public PregelState maybeCreateReadyToReceiveNode(PregelState pregelState) throws Exception {
+            if (pregelState.superstep() < 0) {
+                return pregelState.next();
+            }
+            Map<String, byte[]> children = children(ZKUtils.barrierPath(applicationId, pregelState));
+            if (children == null) {
+                return pregelState;
+            }
+            if (size(children) == 0) {
+                addReady(pregelState);
+                return pregelState.next();
+            }
+            return pregelState;
+        }
+
+        @Override
+        public synchronized void close() {
+            closed = true;
+            workers.remove(this);
+            try {
+                leave();
+            } catch (Exception e) {
+                log.warn("Could not unregister worker {}", workerName, e);
+            }
+        }
+    }
+}
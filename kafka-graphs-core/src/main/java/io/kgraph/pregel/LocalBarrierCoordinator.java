@@ -0,0 +1,54 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.kgraph.pregel;
+
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * An in-JVM barrier coordinator, for computations whose stream threads all run in one process.
+ *
+ * <p>It has no session timeout, as its workers can only die together with the process; a worker
+ * that is abandoned without being closed keeps its paths until the computation is cleared.
+ */
+public class LocalBarrierCoordinator extends KeyValueBarrierCoordinator {
+
+    private final NavigableMap<String, byte[]> entries = new ConcurrentSkipListMap<>();
+
+    public LocalBarrierCoordinator(String applicationId) {
+        super(applicationId);
+    }
+
+    @Override
+    protected NavigableMap<String, byte[]> entries() {
+        return entries;
+    }
+
+    @Override
+    protected void put(String path, byte[] data) {
+        entries.put(path, data);
+        notifyListeners();
+    }
+
+    @Override
+    protected void delete(String path) {
+        entries.remove(path);
+        notifyListeners();
+    }
+}
@@ -0,0 +1,687 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.kgraph.pregel;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.apache.kafka.common.serialization.Deserializer;
+import org.apache.kafka.streams.KeyValue;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.kgraph.EdgeWithValue;
+import io.kgraph.GraphAlgorithmState.State;
+import io.kgraph.GraphSerialized;
+import io.kgraph.VertexWithValue;
+import io.kgraph.pregel.PregelComputation.AggregatorWrapper;
+import io.kgraph.pregel.PregelState.Stage;
+import io.kgraph.pregel.aggregators.Aggregator;
+import io.kgraph.utils.AdjacencySerde;
+import io.kgraph.utils.ClientUtils;
+
+/**
+ * Runs a Pregel computation within a single JVM, for graphs that fit in memory.
+ *
+ * <p>Any {@link ComputeFunction} runs as it would in a {@link PregelComputation}, with its
+ * aggregators, message combiner, master computation and pre- and post-superstep hooks, but
+ * without a topology, a barrier coordinator or a workset topic.  When the computation is first
+ * run the vertices are numbered, and the edges are laid out in primitive arrays of the numbers of
+ * their targets, grouped by source, with their values alongside.  Changing the value of an edge
+ * writes through to these arrays; only the adjacency lists of vertices whose edges are added or
+ * removed are kept as maps.
+ *
+ * <p>The vertices are split into partitions by their numbers, and each partition computes a
+ * superstep in a task on a fork-join pool.  Messages are buffered by the partitions of their
+ * sources and targets, so that the partitions never share a buffer, and are delivered, combined,
+ * by the partition of the target in the next superstep.  A message to a vertex that does not exist
+ * adds it, without a value, between supersteps.
+ *
+ * <p>The graph is loaded from the vertices and edges grouped by source topics of a
+ * {@link PregelGraphAlgorithm}, from text files in the format read by
+ * {@link io.kgraph.utils.GraphUtils}, or vertex by vertex, and must be loaded before the
+ * computation is run.
+ */
+public class LocalPregelEngine<K, VV, EV, Message> implements Closeable {
+    private static final Logger log = LoggerFactory.getLogger(LocalPregelEngine.class);
+
+    /**
+     * The number of threads that compute supersteps; by default the number of processors.
+     */
+    public static final String PARALLELISM = "pregel.local.parallelism";
+
+    /**
+     * The number of partitions of the vertices; by default four per thread, to balance the load.
+     */
+    public static final String NUM_PARTITIONS = "pregel.local.partitions";
+
+    // Keeps a vertex active without a message
+    private static final Object ACTIVATE = new Object();
+
+    private final Map<String, ?> configs;
+    private final Optional<Message> initialMessage;
+    private final ComputeFunction<K, VV, EV, Message> computeFunction;
+    private final Map<String, AggregatorWrapper<?>> registeredAggregators = new ConcurrentHashMap<>();
+    private final MessageCombiner<K, Message> messageCombiner;
+    private final ForkJoinPool pool;
+    private final int numPartitions;
+
+    private Map<K, VV> loadedVertices = new LinkedHashMap<>();
+    private Map<K, Map<K, EV>> loadedEdges = new LinkedHashMap<>();
+
+    // The graph, once built
+    private Map<K, Integer> index;
+    private Object[] keys;
+    private Object[] values;
+    private int size;
+    private int numInitialVertices;
+    private int[] offsets;
+    private int[] targets;
+    private Object[] edgeValues;
+    private final Map<Integer, Map<K, EV>> changedEdges = new ConcurrentHashMap<>();
+    private final LocalEdges vertexEdges = new LocalEdges();
+    private final Queue<KeyValue<K, Object>> messagesToNewVertices = new ConcurrentLinkedQueue<>();
+
+    private volatile PregelState state = new PregelState(State.CREATED, -1, Stage.SEND);
+
+    @SuppressWarnings("unchecked")
+    public LocalPregelEngine(Map<String, ?> configs,
+                             Optional<Message> initialMessage,
+                             ComputeFunction<K, VV, EV, Message> cf) {
+        this.configs = configs;
+        this.initialMessage = initialMessage;
+        this.computeFunction = cf;
+
+        int parallelism = intConfig(configs, PARALLELISM, Runtime.getRuntime().availableProcessors());
+        this.pool = new ForkJoinPool(parallelism);
+        this.numPartitions = intConfig(configs, NUM_PARTITIONS, 4 * parallelism);
+
+        ComputeFunction.InitCallback cb = new ComputeFunction.InitCallback(registeredAggregators);
+        cf.init(configs, cb);
+        this.messageCombiner = (MessageCombiner<K, Message>) cb.messageCombiner;
+    }
+
+    private static int intConfig(Map<String, ?> configs, String name, int defaultValue) {
+        Object value = configs.get(name);
+        return value != null ? Integer.parseInt(value.toString()) : defaultValue;
+    }
+
+    /**
+     * Adds or replaces a vertex, or removes it if the value is null.
+     */
+    public void addVertex(K key, VV value) {
+        checkNotBuilt();
+        if (value != null) {
+            loadedVertices.put(key, value);
+        } else {
+            loadedVertices.remove(key);
+        }
+    }
+
+    /**
+     * Adds or replaces the out-edges of a vertex, or removes them if the edges are null.
+     */
+    public void addEdges(K source, Map<K, EV> edges) {
+        checkNotBuilt();
+        if (edges != null) {
+            loadedEdges.put(source, edges);
+        } else {
+            loadedEdges.remove(source);
+        }
+    }
+
+    /**
+     * Adds or replaces an edge, or removes it if the value is null.
+     */
+    public void addEdge(K source, K target, EV value) {
+        checkNotBuilt();
+        if (value != null) {
+            loadedEdges.computeIfAbsent(source, k -> new HashMap<>()).put(target, value);
+        } else {
+            Map<K, EV> edges = loadedEdges.get(source);
+            if (edges != null) {
+                edges.remove(target);
+            }
+        }
+    }
+
+    /**
+     * Loads the vertices and the edges grouped by source from the topics of a {@link PregelGraphAlgorithm},
+     * up to their current end offsets.
+     */
+    public void loadFromTopics(String bootstrapServers,
+                               String verticesTopic,
+                               String edgesGroupedBySourceTopic,
+                               GraphSerialized<K, VV, EV> serialized,
+                               Properties additional) {
+        Deserializer<K> keyDeserializer = serialized.keySerde().deserializer();
+        Deserializer<VV> vertexValueDeserializer = serialized.vertexValueSerde().deserializer();
+        Deserializer<Map<K, EV>> edgesDeserializer =
+            new AdjacencySerde<>(serialized.keySerde(), serialized.edgeValueSerde()).deserializer();
+        ClientUtils.readTopic(bootstrapServers, "local-pregel-", additional, verticesTopic, (key, value) ->
+            addVertex(keyDeserializer.deserialize(verticesTopic, key),
+                value != null ? vertexValueDeserializer.deserialize(verticesTopic, value) : null));
+        ClientUtils.readTopic(bootstrapServers, "local-pregel-", additional, edgesGroupedBySourceTopic, (key, value) ->
+            addEdges(keyDeserializer.deserialize(edgesGroupedBySourceTopic, key),
+                value != null ? edgesDeserializer.deserialize(edgesGroupedBySourceTopic, value) : null));
+    }
+
+    /**
+     * Loads vertices and edges from text files with a vertex or an edge per line, as read by
+     * {@link io.kgraph.utils.GraphUtils}.  Either stream may be null.
+     */
+    public void loadFromFiles(InputStream vertices,
+                              InputStream edges,
+                              Function<String, K> keyParser,
+                              Function<String, VV> vertexValueParser,
+                              Function<String, EV> edgeValueParser) throws IOException {
+        if (vertices != null) {
+            try (BufferedReader reader =
+                     new BufferedReader(new InputStreamReader(vertices, StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    String[] tokens = line.trim().split("\\s");
+                    VV value = tokens.length > 1 ? vertexValueParser.apply(tokens[1]) : null;
+                    addVertex(keyParser.apply(tokens[0]), value);
+                }
+            }
+        }
+        if (edges != null) {
+            try (BufferedReader reader =
+                     new BufferedReader(new InputStreamReader(edges, StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    String[] tokens = line.trim().split("\\s");
+                    EV value = tokens.length > 2 ? edgeValueParser.apply(tokens[2]) : null;
+                    addEdge(keyParser.apply(tokens[0]), keyParser.apply(tokens[1]), value);
+                }
+            }
+        }
+    }
+
+    private void checkNotBuilt() {
+        if (index != null) {
+            throw new IllegalStateException("The graph cannot be changed once the computation has run");
+        }
+    }
+
+    /**
+     * Numbers the vertices, those with values first, and lays out the edges by source.
+     */
+    private void build() {
+        if (index != null) {
+            return;
+        }
+        index = new HashMap<>();
+        keys = new Object[16];
+        values = new Object[16];
+        for (Map.Entry<K, VV> entry : loadedVertices.entrySet()) {
+            values[addIndex(entry.getKey())] = entry.getValue();
+        }
+        numInitialVertices = size;
+        long numEdges = 0;
+        for (Map.Entry<K, Map<K, EV>> entry : loadedEdges.entrySet()) {
+            indexOf(entry.getKey());
+            for (K target : entry.getValue().keySet()) {
+                indexOf(target);
+            }
+            numEdges += entry.getValue().size();
+        }
+        if (numEdges > Integer.MAX_VALUE) {
+            throw new IllegalStateException("Too many edges: " + numEdges);
+        }
+
+        offsets = new int[size + 1];
+        for (Map.Entry<K, Map<K, EV>> entry : loadedEdges.entrySet()) {
+            offsets[index.get(entry.getKey()) + 1] = entry.getValue().size();
+        }
+        for (int i = 0; i < size; i++) {
+            offsets[i + 1] += offsets[i];
+        }
+        targets = new int[(int) numEdges];
+        edgeValues = new Object[(int) numEdges];
+        for (Map.Entry<K, Map<K, EV>> entry : loadedEdges.entrySet()) {
+            int start = offsets[index.get(entry.getKey())];
+            // The targets of a vertex are sorted, so that an edge is found by a binary search
+            List<Map.Entry<K, EV>> sorted = new ArrayList<>(entry.getValue().entrySet());
+            sorted.sort((e1, e2) -> Integer.compare(index.get(e1.getKey()), index.get(e2.getKey())));
+            for (int i = 0; i < sorted.size(); i++) {
+                targets[start + i] = index.get(sorted.get(i).getKey());
+                edgeValues[start + i] = sorted.get(i).getValue();
+            }
+        }
+        loadedVertices = null;
+        loadedEdges = null;
+        log.info("Built local graph with {} vertices and {} edges", size, numEdges);
+    }
+
+    private int indexOf(K key) {
+        Integer idx = index.get(key);
+        return idx != null ? idx : addIndex(key);
+    }
+
+    private int addIndex(K key) {
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, 2 * size);
+            values = Arrays.copyOf(values, 2 * size);
+        }
+        keys[size] = key;
+        index.put(key, size);
+        return size++;
+    }
+
+    /**
+     * Runs the computation for at most the given number of supersteps after the first.
+     */
+    @SuppressWarnings("unchecked")
+    public PregelState run(int maxIterations) {
+        build();
+        // Buffers of messages by the partitions of their sources and targets; the last row holds
+        // the messages to vertices added between supersteps
+        MessageBuffer[][] current = newBuffers();
+        MessageBuffer[][] next = newBuffers();
+        List<Map<String, Aggregator<?>>> partitionAggregators = Collections.emptyList();
+        Map<String, ?> previousAggregates = new HashMap<>();
+        long pendingVertices = numInitialVertices;
+
+        for (int superstep = 0; ; superstep++) {
+            Map<String, Aggregator<?>> aggregators = initAggregators(newAggregators(), previousAggregates);
+            for (Map<String, Aggregator<?>> partition : partitionAggregators) {
+                if (partition != null) {
+                    mergeAggregators(aggregators, partition);
+                }
+            }
+            ComputeFunction.MasterCallback cb = new ComputeFunction.MasterCallback(aggregators);
+            computeFunction.masterCompute(superstep, cb);
+            previousAggregates = aggregators.entrySet().stream()
+                .collect(Collectors.toMap(Map.Entry::getKey, e -> e.getValue().getAggregate()));
+            if (cb.haltComputation) {
+                log.info("Pregel computation halted after {} iterations", superstep);
+                state = new PregelState(State.CANCELLED, superstep, Stage.RECEIVE);
+                break;
+            } else if (superstep > maxIterations || pendingVertices == 0) {
+                log.info("Pregel computation converged after {} iterations", superstep);
+                state = new PregelState(State.COMPLETED, superstep, Stage.RECEIVE);
+                break;
+            }
+            state = new PregelState(State.RUNNING, superstep, Stage.SEND);
+
+            partitionAggregators = computeSuperstep(superstep, previousAggregates, current, next);
+            KeyValue<K, Object> message;
+            while ((message = messagesToNewVertices.poll()) != null) {
+                int target = indexOf(message.key);
+                next[numPartitions][target % numPartitions].add(target, message.value);
+            }
+            pendingVertices = 0;
+            for (MessageBuffer[] row : next) {
+                for (MessageBuffer buffer : row) {
+                    pendingVertices += buffer.size;
+                }
+            }
+            MessageBuffer[][] tmp = current;
+            current = next;
+            next = tmp;
+        }
+        return state;
+    }
+
+    private MessageBuffer[][] newBuffers() {
+        MessageBuffer[][] buffers = new MessageBuffer[numPartitions + 1][numPartitions];
+        for (MessageBuffer[] row : buffers) {
+            for (int p = 0; p < numPartitions; p++) {
+                row[p] = new MessageBuffer();
+            }
+        }
+        return buffers;
+    }
+
+    private List<Map<String, Aggregator<?>>> computeSuperstep(int superstep,
+                                                              Map<String, ?> previousAggregates,
+                                                              MessageBuffer[][] current,
+                                                              MessageBuffer[][] next) {
+        List<ForkJoinTask<Map<String, Aggregator<?>>>> tasks = new ArrayList<>(numPartitions);
+        for (int p = 0; p < numPartitions; p++) {
+            int partition = p;
+            tasks.add(pool.submit(() -> computePartition(superstep, partition, previousAggregates, current, next)));
+        }
+        List<Map<String, Aggregator<?>>> result = new ArrayList<>(numPartitions);
+        for (ForkJoinTask<Map<String, Aggregator<?>>> task : tasks) {
+            result.add(task.join());
+        }
+        return result;
+    }
+
+    /**
+     * Computes the vertices of a partition that have messages, and returns the aggregators of the
+     * partition, or null if no vertex was computed.
+     */
+    @SuppressWarnings("unchecked")
+    private Map<String, Aggregator<?>> computePartition(int superstep,
+                                                        int partition,
+                                                        Map<String, ?> previousAggregates,
+                                                        MessageBuffer[][] current,
+                                                        MessageBuffer[][] next) {
+        // The vertices of the partition are numbered partition, partition + numPartitions, ...
+        int numSlots = size > partition ? (size - 1 - partition) / numPartitions + 1 : 0;
+        List<List<Message>> inbox = new ArrayList<>(Collections.nCopies(numSlots, null));
+        int[] active = new int[16];
+        int numActive = 0;
+        if (superstep == 0) {
+            for (int idx = partition; idx < numInitialVertices; idx += numPartitions) {
+                if (numActive == active.length) {
+                    active = Arrays.copyOf(active, 2 * numActive);
+                }
+                inbox.set(idx / numPartitions, new ArrayList<>(initialMessages()));
+                active[numActive++] = idx;
+            }
+        } else {
+            for (MessageBuffer[] row : current) {
+                MessageBuffer buffer = row[partition];
+                for (int i = 0; i < buffer.size; i++) {
+                    int idx = buffer.targets[i];
+                    List<Message> messages = inbox.get(idx / numPartitions);
+                    if (messages == null) {
+                        messages = new ArrayList<>();
+                        inbox.set(idx / numPartitions, messages);
+                        if (numActive == active.length) {
+                            active = Arrays.copyOf(active, 2 * numActive);
+                        }
+                        active[numActive++] = idx;
+                    }
+                    Object message = buffer.messages[i];
+                    if (message == ACTIVATE) {
+                        continue;
+                    }
+                    if (messageCombiner != null && !messages.isEmpty()) {
+                        messages.set(0, messageCombiner.combine((K) keys[idx], messages.get(0), (Message) message));
+                    } else {
+                        messages.add((Message) message);
+                    }
+                }
+                buffer.clear();
+            }
+        }
+        if (numActive == 0) {
+            return null;
+        }
+
+        Map<String, Aggregator<?>> aggregators = newAggregators();
+        computeFunction.preSuperstep(superstep, new ComputeFunction.Aggregators(previousAggregates, aggregators));
+        MessageBuffer[] outbox = next[partition];
+        for (int i = 0; i < numActive; i++) {
+            int idx = active[i];
+            compute(superstep, idx, inbox.get(idx / numPartitions), previousAggregates, aggregators, outbox);
+        }
+        computeFunction.postSuperstep(superstep, new ComputeFunction.Aggregators(previousAggregates, aggregators));
+        return aggregators;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void compute(int superstep,
+                         int idx,
+                         List<Message> messages,
+                         Map<String, ?> previousAggregates,
+                         Map<String, Aggregator<?>> aggregators,
+                         MessageBuffer[] outbox) {
+        K key = (K) keys[idx];
+        VV value = (VV) values[idx];
+        if (value == null) {
+            log.warn("No vertex value for {}", key);
+        }
+        ComputeFunction.Callback<K, VV, EV, Message> cb = new ComputeFunction.Callback<>(
+            key, vertexEdges, previousAggregates, aggregators, messageCombiner);
+        // Look up the edges on each iteration, as the compute function may change them
+        Iterable<EdgeWithValue<K, EV>> edges = () -> edges(idx);
+        computeFunction.compute(superstep, new VertexWithValue<>(key, value), messages, edges, cb);
+        if (cb.newVertexValue != null) {
+            values[idx] = cb.newVertexValue;
+        }
+        if (!cb.messagesToAllNeighbors.isEmpty()) {
+            Iterator<EdgeWithValue<K, EV>> iter = edges(idx);
+            while (iter.hasNext()) {
+                EdgeWithValue<K, EV> edge = iter.next();
+                for (Message message : cb.messagesToAllNeighbors) {
+                    Message scattered = computeFunction.scatter(message, edge);
+                    if (scattered != null) {
+                        cb.sendMessageTo(edge.target(), scattered);
+                    }
+                }
+            }
+        }
+        for (Map.Entry<K, List<Message>> entry : cb.outgoingMessages.entrySet()) {
+            for (Message message : entry.getValue()) {
+                send(outbox, entry.getKey(), message);
+            }
+        }
+        if (!cb.voteToHalt) {
+            outbox[idx % numPartitions].add(idx, ACTIVATE);
+        }
+    }
+
+    private void send(MessageBuffer[] outbox, K target, Object message) {
+        Integer idx = index.get(target);
+        if (idx != null) {
+            outbox[idx % numPartitions].add(idx, message);
+        } else {
+            messagesToNewVertices.add(new KeyValue<>(target, message));
+        }
+    }
+
+    private List<Message> initialMessages() {
+        return initialMessage.map(Collections::singletonList).orElse(Collections.emptyList());
+    }
+
+    private Map<String, Aggregator<?>> newAggregators() {
+        Map<String, Aggregator<?>> result = new HashMap<>();
+        for (Map.Entry<String, AggregatorWrapper<?>> entry : registeredAggregators.entrySet()) {
+            result.put(entry.getKey(), ClientUtils.getConfiguredInstance(entry.getValue().getAggregatorClass(), configs));
+        }
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Aggregator<?>> initAggregators(Map<String, Aggregator<?>> aggregators, Map<String, ?> values) {
+        for (Map.Entry<String, Aggregator<?>> entry : aggregators.entrySet()) {
+            Object value = values.get(entry.getKey());
+            if (value != null && registeredAggregators.get(entry.getKey()).isPersistent()) {
+                ((Aggregator<Object>) entry.getValue()).aggregate(value);
+            }
+        }
+        return aggregators;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void mergeAggregators(Map<String, Aggregator<?>> aggregators, Map<String, Aggregator<?>> other) {
+        for (Map.Entry<String, Aggregator<?>> entry : other.entrySet()) {
+            ((Aggregator<Object>) aggregators.get(entry.getKey())).aggregate(entry.getValue().getAggregate());
+        }
+    }
+
+    /**
+     * Returns the out-edges of a vertex, from its changed adjacency list if it has one.
+     */
+    @SuppressWarnings("unchecked")
+    private Iterator<EdgeWithValue<K, EV>> edges(int idx) {
+        K source = (K) keys[idx];
+        Map<K, EV> changed = changedEdges.get(idx);
+        if (changed != null) {
+            Iterator<Map.Entry<K, EV>> iter = changed.entrySet().iterator();
+            return new Iterator<EdgeWithValue<K, EV>>() {
+                @Override
+                public boolean hasNext() {
+                    return iter.hasNext();
+                }
+
+                @Override
+                public EdgeWithValue<K, EV> next() {
+                    Map.Entry<K, EV> entry = iter.next();
+                    return new EdgeWithValue<>(source, entry.getKey(), entry.getValue());
+                }
+            };
+        }
+        int start = idx < offsets.length - 1 ? offsets[idx] : 0;
+        int end = idx < offsets.length - 1 ? offsets[idx + 1] : 0;
+        return new Iterator<EdgeWithValue<K, EV>>() {
+            private int i = start;
+
+            @Override
+            public boolean hasNext() {
+                return i < end;
+            }
+
+            @Override
+            public EdgeWithValue<K, EV> next() {
+                if (i >= end) {
+                    throw new NoSuchElementException();
+                }
+                EdgeWithValue<K, EV> edge = new EdgeWithValue<>(source, (K) keys[targets[i]], (EV) edgeValues[i]);
+                i++;
+                return edge;
+            }
+        };
+    }
+
+    public PregelState state() {
+        return state;
+    }
+
+    /**
+     * Returns the vertices that have values.
+     */
+    @SuppressWarnings("unchecked")
+    public Iterable<KeyValue<K, VV>> result() {
+        build();
+        List<KeyValue<K, VV>> result = new ArrayList<>();
+        for (int idx = 0; idx < size; idx++) {
+            if (values[idx] != null) {
+                result.add(new KeyValue<>((K) keys[idx], (VV) values[idx]));
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public void close() {
+        pool.shutdown();
+    }
+
+    private static final class MessageBuffer {
+        private int[] targets = new int[16];
+        private Object[] messages = new Object[16];
+        private int size;
+
+        void add(int target, Object message) {
+            if (size == targets.length) {
+                targets = Arrays.copyOf(targets, 2 * size);
+                messages = Arrays.copyOf(messages, 2 * size);
+            }
+            targets[size] = target;
+            messages[size] = message;
+            size++;
+        }
+
+        void clear() {
+            Arrays.fill(messages, 0, size, null);
+            size = 0;
+        }
+    }
+
+    /**
+     * The edges of the graph, for the callbacks of the compute function, which only change the
+     * edges of the vertex being computed.  Changing the value of an edge writes through to the
+     * edge arrays, while adding or removing an edge copies the adjacency list of the vertex into
+     * a map.
+     */
+    private final class LocalEdges implements VertexEdges<K, EV> {
+
+        @Override
+        public boolean addEdge(K source, K target, EV value) {
+            mutableEdges(index.get(source)).put(target, value);
+            return true;
+        }
+
+        @Override
+        public boolean removeEdge(K source, K target) {
+            int idx = index.get(source);
+            Map<K, EV> changed = changedEdges.get(idx);
+            if (changed != null) {
+                return changed.remove(target) != null;
+            }
+            return find(idx, target) >= 0 && mutableEdges(idx).remove(target) != null;
+        }
+
+        @Override
+        public boolean setEdgeValue(K source, K target, EV value) {
+            int idx = index.get(source);
+            Map<K, EV> changed = changedEdges.get(idx);
+            if (changed != null) {
+                return changed.replace(target, value) != null;
+            }
+            int i = find(idx, target);
+            if (i >= 0) {
+                edgeValues[i] = value;
+            }
+            return i >= 0;
+        }
+
+        // Returns the position of an edge in the edge arrays, or a negative number if there is none
+        private int find(int idx, K target) {
+            Integer targetIdx = index.get(target);
+            if (targetIdx == null || idx >= offsets.length - 1) {
+                return -1;
+            }
+            return Arrays.binarySearch(targets, offsets[idx], offsets[idx + 1], targetIdx);
+        }
+
+        @SuppressWarnings("unchecked")
+        private Map<K, EV> mutableEdges(int idx) {
+            return changedEdges.computeIfAbsent(idx, k -> {
+                Map<K, EV> edges = new HashMap<>();
+                if (idx < offsets.length - 1) {
+                    for (int i = offsets[idx]; i < offsets[idx + 1]; i++) {
+                        edges.put((K) keys[targets[i]], (EV) edgeValues[i]);
+                    }
+                }
+                return edges;
+            });
+        }
+    }
+}
@@ -0,0 +1,44 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.kgraph.pregel;
+
+/**
+ * Combines messages sent to the same target vertex into a single message.
+ *
+ * <p>A combiner must be commutative and associative, as there are no guarantees about
+ * which messages are combined or in which order.  Combiners are applied by the sender
+ * before messages are written to the workset topic, and again by the receiver before
+ * the messages are passed to the compute function.
+ *
+ * @param <K> The type of the vertex key (the vertex identifier).
+ * @param <Message> The type of the message sent between vertices along the edges.
+ */
+@FunctionalInterface
+public interface MessageCombiner<K, Message> {
+
+    /**
+     * Combine two messages sent to the same target vertex.
+     *
+     * @param target the target vertex
+     * @param message1 the first message
+     * @param message2 the second message
+     * @return the combined message
+     */
+    Message combine(K target, Message message1, Message message2);
+}
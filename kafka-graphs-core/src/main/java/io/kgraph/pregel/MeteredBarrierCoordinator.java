@@ -0,0 +1,171 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.kgraph.pregel;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * A coordinator that counts the operations on another coordinator.
+ */
+final class MeteredBarrierCoordinator implements BarrierCoordinator {
+
+    private final BarrierCoordinator inner;
+    private final PregelMetrics metrics;
+
+    MeteredBarrierCoordinator(BarrierCoordinator inner, PregelMetrics metrics) {
+        this.inner = inner;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public Worker join(String workerName) throws Exception {
+        metrics.recordCoordinatorOp();
+        return new MeteredWorker(inner.join(workerName));
+    }
+
+    @Override
+    public PregelState state(PregelState initialState) throws Exception {
+        metrics.recordCoordinatorOp();
+        return inner.state(initialState);
+    }
+
+    @Override
+    public void setState(PregelState pregelState) throws Exception {
+        metrics.recordCoordinatorOp();
+        inner.setState(pregelState);
+    }
+
+    @Override
+    public boolean isReady(PregelState pregelState) throws Exception {
+        metrics.recordCoordinatorOp();
+        return inner.isReady(pregelState);
+    }
+
+    @Override
+    public boolean hasChild(PregelState pregelState, String child) throws Exception {
+        metrics.recordCoordinatorOp();
+        return inner.hasChild(pregelState, child);
+    }
+
+    @Override
+    public void addChild(PregelState pregelState, String child, boolean ephemeral) throws Exception {
+        metrics.recordCoordinatorOp();
+        inner.addChild(pregelState, child, ephemeral);
+    }
+
+    @Override
+    public void removeChild(PregelState pregelState, String child) throws Exception {
+        metrics.recordCoordinatorOp();
+        inner.removeChild(pregelState, child);
+    }
+
+    @Override
+    public Map<String, byte[]> aggregates(int superstep) throws Exception {
+        metrics.recordCoordinatorOp();
+        return inner.aggregates(superstep);
+    }
+
+    @Override
+    public byte[] aggregate(int superstep, String child) throws Exception {
+        metrics.recordCoordinatorOp();
+        return inner.aggregate(superstep, child);
+    }
+
+    @Override
+    public void setAggregate(int superstep, String child, byte[] data) throws Exception {
+        metrics.recordCoordinatorOp();
+        inner.setAggregate(superstep, child, data);
+    }
+
+    @Override
+    public int checkpoint() throws Exception {
+        metrics.recordCoordinatorOp();
+        return inner.checkpoint();
+    }
+
+    @Override
+    public void setCheckpoint(int superstep) throws Exception {
+        metrics.recordCoordinatorOp();
+        inner.setCheckpoint(superstep);
+    }
+
+    @Override
+    public void rollback(int superstep) throws Exception {
+        inner.rollback(superstep);
+    }
+
+    @Override
+    public void addListener(Runnable listener) throws Exception {
+        inner.addListener(listener);
+    }
+
+    @Override
+    public void removeListener(Runnable listener) {
+        inner.removeListener(listener);
+    }
+
+    @Override
+    public void clear() throws Exception {
+        inner.clear();
+    }
+
+    @Override
+    public void close() throws IOException {
+        inner.close();
+    }
+
+    private final class MeteredWorker implements Worker {
+
+        private final Worker inner;
+
+        MeteredWorker(Worker inner) {
+            this.inner = inner;
+        }
+
+        @Override
+        public boolean isLeader() throws Exception {
+            metrics.recordCoordinatorOp();
+            return inner.isLeader();
+        }
+
+        @Override
+        public int groupSize() throws Exception {
+            metrics.recordCoordinatorOp();
+            return inner.groupSize();
+        }
+
+        @Override
+        public PregelState maybeCreateReadyToSendNode(PregelState pregelState) throws Exception {
+            metrics.recordCoordinatorOp();
+            return inner.maybeCreateReadyToSendNode(pregelState);
+        }
+
+        @Override
+        public PregelState maybeCreateReadyToReceiveNode(PregelState pregelState) throws Exception {
+            metrics.recordCoordinatorOp();
+            return inner.maybeCreateReadyToReceiveNode(pregelState);
+        }
+
+        @Override
+        public void close() throws IOException {
+            inner.close();
+        }
+    }
+}
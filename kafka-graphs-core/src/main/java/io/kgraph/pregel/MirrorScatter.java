@@ -0,0 +1,48 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.kgraph.pregel;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The messages that a high-degree vertex sends to its mirror in another partition, which are
+ * turned into messages for the targets of the edges of the mirror by {@link ComputeFunction#scatter}.
+ * The edges of the mirror are sent along with the messages when they have changed, and replace the
+ * edges kept by the task of the partition; an empty map removes the mirror.
+ */
+final class MirrorScatter<K, EV, Message> {
+
+    private final Map<K, EV> edges;
+    private final List<Message> messages;
+
+    MirrorScatter(Map<K, EV> edges, List<Message> messages) {
+        this.edges = edges;
+        this.messages = messages;
+    }
+
+    Map<K, EV> edges() {
+        return edges;
+    }
+
+    List<Message> messages() {
+        return messages;
+    }
+}
@@ -22,6 +22,7 @@ import java.io.Closeable;
 import java.lang.reflect.Field;
 import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
@@ -30,31 +31,31 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Properties;
+import java.util.Queue;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import org.apache.curator.framework.CuratorFramework;
-import org.apache.curator.framework.recipes.cache.TreeCache;
-import org.apache.curator.framework.recipes.leader.LeaderLatch;
-import org.apache.curator.framework.recipes.nodes.GroupMember;
-import org.apache.curator.framework.recipes.shared.SharedValue;
-import org.apache.curator.utils.ZKPaths;
 import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
 import org.apache.kafka.clients.producer.Callback;
 import org.apache.kafka.clients.producer.KafkaProducer;
 import org.apache.kafka.clients.producer.Producer;
 import org.apache.kafka.clients.producer.ProducerConfig;
 import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
 import org.apache.kafka.common.TopicPartition;
 import org.apache.kafka.common.errors.RecordTooLargeException;
 import org.apache.kafka.common.serialization.Serdes;
-import org.apache.kafka.common.serialization.Serializer;
 import org.apache.kafka.common.utils.Bytes;
-import org.apache.kafka.common.utils.Utils;
 import org.apache.kafka.streams.KeyValue;
 import org.apache.kafka.streams.StreamsBuilder;
 import org.apache.kafka.streams.kstream.Consumed;
@@ -69,12 +70,13 @@ import org.apache.kafka.streams.processor.ProcessorContext;
 import org.apache.kafka.streams.processor.PunctuationType;
 import org.apache.kafka.streams.processor.internals.AbstractTask;
 import org.apache.kafka.streams.processor.internals.ProcessorContextImpl;
+import org.apache.kafka.streams.processor.internals.RecordCollector;
 import org.apache.kafka.streams.processor.internals.StreamTask;
+import org.apache.kafka.streams.state.KeyValueIterator;
 import org.apache.kafka.streams.state.KeyValueStore;
 import org.apache.kafka.streams.state.ReadOnlyKeyValueStore;
 import org.apache.kafka.streams.state.StoreBuilder;
 import org.apache.kafka.streams.state.Stores;
-import org.apache.zookeeper.CreateMode;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -84,10 +86,11 @@ import io.kgraph.GraphSerialized;
 import io.kgraph.VertexWithValue;
 import io.kgraph.pregel.PregelState.Stage;
 import io.kgraph.pregel.aggregators.Aggregator;
+import io.kgraph.utils.AdjacencySerde;
 import io.kgraph.utils.ClientUtils;
-import io.kgraph.utils.KryoSerde;
 import io.kgraph.utils.KryoSerializer;
 import io.kgraph.utils.KryoUtils;
+import io.kgraph.utils.LongHashSet;
 import io.vavr.Tuple2;
 import io.vavr.Tuple3;
 import io.vavr.Tuple4;
@@ -95,13 +98,114 @@ import io.vavr.Tuple4;
 public class PregelComputation<K, VV, EV, Message> implements Closeable {
     private static final Logger log = LoggerFactory.getLogger(PregelComputation.class);
 
+    /**
+     * Minimum interval in milliseconds between barrier checks
+     */
+    public static final String BARRIER_POLL_MIN_MS = "pregel.barrier.poll.min.ms";
+    /**
+     * Default minimum interval between barrier checks
+     */
+    public static final long BARRIER_POLL_MIN_MS_DEFAULT = 10L;
+    /**
+     * Maximum interval in milliseconds between barrier checks, when no coordinator events arrive
+     */
+    public static final String BARRIER_POLL_MAX_MS = "pregel.barrier.poll.max.ms";
+    /**
+     * Default maximum interval between barrier checks
+     */
+    public static final long BARRIER_POLL_MAX_MS_DEFAULT = 1000L;
+    /**
+     * Number of supersteps that a partition may compute ahead of the barrier, or 0 for strict BSP.
+     * <p>
+     * In asynchronous mode a vertex is computed as soon as its messages arrive, against its latest
+     * value, and is computed again if more messages arrive for the same superstep.  This only suits
+     * compute functions that converge regardless of message order, such as ConnectedComponents,
+     * SingleSourceShortestPaths or LabelPropagation, and that do not depend on the aggregates of the
+     * previous superstep, which may not yet be available.
+     */
+    public static final String ASYNC_STALENESS = "pregel.async.staleness";
+    /**
+     * Default staleness, which disables asynchronous mode
+     */
+    public static final int ASYNC_STALENESS_DEFAULT = 0;
+    /**
+     * Number of most recent supersteps for which metrics are kept
+     */
+    public static final String METRICS_RETAINED_SUPERSTEPS = "pregel.metrics.retained.supersteps";
+    /**
+     * Default number of supersteps for which metrics are kept
+     */
+    public static final int METRICS_RETAINED_SUPERSTEPS_DEFAULT = 100;
+    /**
+     * Maximum number of edges that each task keeps deserialized in memory, or 0 to always read the edges store
+     */
+    public static final String ADJACENCY_CACHE_MAX_EDGES = "pregel.adjacency.cache.max.edges";
+    /**
+     * Default maximum number of cached edges per task
+     */
+    public static final int ADJACENCY_CACHE_MAX_EDGES_DEFAULT = 1_000_000;
+    /**
+     * Whether messages to vertices whose tasks run in the same instance are delivered in memory
+     * rather than through the workset topic.
+     * <p>
+     * Each task has an inbox of messages for its partition, which it moves into its local workset
+     * on every punctuation.  The barrier waits for the number of messages sent to the inbox of each
+     * partition, alongside the last written offsets of the workset topic.  Local messages are not
+     * written to Kafka, so they are lost if a task is moved to another instance during a superstep,
+     * and the barrier then waits for them forever.  It should therefore only be enabled when tasks
+     * do not move during a computation, e.g. with a single instance.
+     * Messages always go through the topic in asynchronous mode.
+     */
+    public static final String LOCAL_MESSAGES = "pregel.local.messages";
+    /**
+     * Default for delivering local messages in memory
+     */
+    public static final boolean LOCAL_MESSAGES_DEFAULT = false;
+    /**
+     * The out-degree above which the edges of a vertex are split across partitions, or 0 to never
+     * split them.
+     * <p>
+     * The messages a vertex sends with {@link ComputeFunction.Callback#sendMessageToAllNeighbors}
+     * are normally sent along each of its edges by its own task.  The edges of a vertex above this
+     * degree are instead split into mirrors, one for the targets in each partition, which are kept
+     * by the tasks of those partitions.  The vertex then sends each message once to every mirror,
+     * where it is turned into messages for the targets by {@link ComputeFunction#scatter}, so that
+     * the time of a superstep does not depend on the largest vertex.  The edges of a mirror are sent
+     * along with the first message after they have been loaded or changed.
+     */
+    public static final String VERTEX_CUT_DEGREE_THRESHOLD = "pregel.vertex.cut.degree.threshold";
+    /**
+     * Default for the out-degree above which the edges of a vertex are split across partitions
+     */
+    public static final int VERTEX_CUT_DEGREE_THRESHOLD_DEFAULT = 0;
+    /**
+     * Number of supersteps between checkpoints, or 0 to never checkpoint.
+     * <p>
+     * At a checkpoint every task waits for the changelog writes of its local workset to be
+     * acknowledged before its worker joins the barrier of the receive stage, so that the messages
+     * of the superstep are in the changelog.  The messages of the last checkpoint are kept until the next one, as
+     * are the values of the solution set at the checkpoint that have been overwritten since, and
+     * the aggregates of the previous superstep stay in the coordinator.  When a computation is
+     * restarted with the same application id, {@link #run} resumes it from the last checkpoint
+     * rather than from superstep 0, and a task that starts in the middle of a superstep waits for
+     * it to be resumed.  The computation is not resumed automatically when a task fails; it is
+     * resumed once {@link #run} is called again.  Supersteps after the checkpoint are computed again, which assumes that the
+     * compute function is deterministic.  Checkpoints are only taken in strict BSP.
+     */
+    public static final String CHECKPOINT_INTERVAL = "pregel.checkpoint.interval";
+    /**
+     * Default number of supersteps between checkpoints
+     */
+    public static final int CHECKPOINT_INTERVAL_DEFAULT = 0;
+
     private static final String ALL_PARTITIONS = "all";
     private static final String LAST_WRITTEN_OFFSETS = "last.written.offsets";
+    private static final String LOCAL_MESSAGE_COUNTS = "local.message.counts";
 
     private final String hostAndPort;
     private final String applicationId;
     private final String bootstrapServers;
-    private final CuratorFramework curator;
+    private final BarrierCoordinator coordinator;
 
     private final String verticesTopic;
     private KTable<K, VV> vertices;
@@ -116,29 +220,64 @@ public class PregelComputation<K, VV, EV, Message> implements Closeable {
     private final String workSetTopic;
     private KStream<K, Tuple3<Integer, K, List<Message>>> workSet;
 
+    private String previousSolutionSetTopic;
+    private Map<TopicPartition, Long> previousGraphOffsets;
+
     private final int numPartitions;
 
     private final GraphSerialized<K, VV, EV> serialized;
+    private final WorkSetSerde<K, Message> workSetSerde;
+    private final SolutionSetSerde<VV> solutionSetSerde;
+    private final AdjacencySerde<K, EV> edgesSerde;
 
     private final Map<String, ?> configs;
     private final Optional<Message> initialMessage;
     private final ComputeFunction<K, VV, EV, Message> computeFunction;
     private final Map<String, AggregatorWrapper<?>> registeredAggregators;
+    private final MessageCombiner<K, Message> messageCombiner;
+    private final long minPollIntervalMs;
+    private final long maxPollIntervalMs;
+    private final int staleness;
+    private final boolean longKeys;
+    private final int adjacencyCacheMaxEdges;
+    private final boolean localMessages;
+    private final int vertexCutDegreeThreshold;
+    private final int checkpointInterval;
+    private final PregelMetrics metrics;
 
     private Producer<K, Tuple3<Integer, K, List<Message>>> producer;
 
     private volatile int maxIterations = Integer.MAX_VALUE;
     private volatile CompletableFuture<KTable<K, VV>> futureResult;
 
-    private final String edgesStoreName;
-    private final String verticesStoreName;
-    private final String localworkSetStoreName;
-    private final String localSolutionSetStoreName;
+    // Store names and the processors below are package-private for the benchmarks
+    final String edgesStoreName;
+    final String verticesStoreName;
+    final String localworkSetStoreName;
+    final String mirrorsStoreName;
+    final String checkpointStoreName;
+    final String localSolutionSetStoreName;
+    final String previousSolutionSetStoreName;
 
     private final Map<Integer, Map<Integer, Set<K>>> activeVertices = new ConcurrentHashMap<>();
     private final Map<Integer, Map<Integer, Boolean>> didPreSuperstep = new ConcurrentHashMap<>();
     private final Map<TopicPartition, Long> positions = new ConcurrentHashMap<>();
+    private final Map<TopicPartition, Long> solutionSetPositions = new ConcurrentHashMap<>();
+    private final Map<TopicPartition, Long> graphPositions = new ConcurrentHashMap<>();
+    private final Map<Integer, Long> seedOffsets = new ConcurrentHashMap<>();
+    private final Set<Integer> localTasks = ConcurrentHashMap.newKeySet();
+    private final Set<Integer> flushedTasks = ConcurrentHashMap.newKeySet();
+    private final Set<Integer> syncedTasks = ConcurrentHashMap.newKeySet();
+    private final Map<TopicPartition, Long> solutionSetWrittenOffsets = new ConcurrentHashMap<>();
     private final Map<Integer, Map<Integer, Long>> lastWrittenOffsets = new ConcurrentHashMap<>();
+    private final Map<Integer, Queue<LocalMessages<K>>> localInboxes = new ConcurrentHashMap<>();
+    // The partitions with mirrors of each split vertex
+    private final Map<K, Mirrors> mirroredVertices = new ConcurrentHashMap<>();
+    private final Map<Integer, Map<Integer, Map<Integer, Long>>> localMessagesSent = new ConcurrentHashMap<>();
+    private final Map<Integer, Map<Integer, AtomicLong>> localMessagesReceived = new ConcurrentHashMap<>();
+    private final Map<Integer, Map<Integer, AtomicInteger>> inFlightSends = new ConcurrentHashMap<>();
+    private final Map<Integer, Set<Integer>> activatedPartitions = new ConcurrentHashMap<>();
+    private final Map<Integer, Set<Integer>> checkpointedTasks = new ConcurrentHashMap<>();
     private final Map<Integer, Map<Integer, Map<String, Aggregator<?>>>> aggregators = new ConcurrentHashMap<>();
     private final Map<Integer, Map<String, ?>> previousAggregates = new ConcurrentHashMap<>();
 
@@ -159,11 +298,36 @@ public class PregelComputation<K, VV, EV, Message> implements Closeable {
         Optional<Message> initialMessage,
         ComputeFunction<K, VV, EV, Message> cf
     ) {
+        this(hostAndPort, applicationId, bootstrapServers, new ZKBarrierCoordinator(curator, applicationId),
+            verticesTopic, edgesGroupedBySourceTopic, graphOffsets, serialized, solutionSetTopic, solutionSetStore,
+            workSetTopic, numPartitions, configs, initialMessage, cf);
+    }
+
+    @SuppressWarnings("unchecked")
+    public PregelComputation(
+        String hostAndPort,
+        String applicationId,
+        String bootstrapServers,
+        BarrierCoordinator coordinator,
+        String verticesTopic,
+        String edgesGroupedBySourceTopic,
+        Map<TopicPartition, Long> graphOffsets,
+        GraphSerialized<K, VV, EV> serialized,
+        String solutionSetTopic,
+        String solutionSetStore,
+        String workSetTopic,
+        int numPartitions,
+        Map<String, ?> configs,
+        Optional<Message> initialMessage,
+        ComputeFunction<K, VV, EV, Message> cf
+    ) {
 
         this.hostAndPort = hostAndPort;
         this.applicationId = applicationId;
         this.bootstrapServers = bootstrapServers;
-        this.curator = curator;
+        this.metrics = new PregelMetrics(applicationId,
+            (int) longConfig(configs, METRICS_RETAINED_SUPERSTEPS, METRICS_RETAINED_SUPERSTEPS_DEFAULT));
+        this.coordinator = new MeteredBarrierCoordinator(coordinator, metrics);
         this.verticesTopic = verticesTopic;
         this.edgesGroupedBySourceTopic = edgesGroupedBySourceTopic;
         this.graphOffsets = graphOffsets;
@@ -172,19 +336,72 @@ public class PregelComputation<K, VV, EV, Message> implements Closeable {
         this.workSetTopic = workSetTopic;
         this.numPartitions = numPartitions;
         this.serialized = serialized;
+        this.workSetSerde = new WorkSetSerde<>(serialized.keySerde());
+        this.solutionSetSerde = new SolutionSetSerde<>(serialized.vertexValueSerde());
+        this.edgesSerde = new AdjacencySerde<>(serialized.keySerde(), serialized.edgeValueSerde());
         this.configs = configs;
         this.initialMessage = initialMessage;
         this.computeFunction = cf;
         this.registeredAggregators = new ConcurrentHashMap<>();
+        this.minPollIntervalMs = longConfig(configs, BARRIER_POLL_MIN_MS, BARRIER_POLL_MIN_MS_DEFAULT);
+        this.maxPollIntervalMs = Math.max(minPollIntervalMs,
+            longConfig(configs, BARRIER_POLL_MAX_MS, BARRIER_POLL_MAX_MS_DEFAULT));
+        this.staleness = (int) longConfig(configs, ASYNC_STALENESS, ASYNC_STALENESS_DEFAULT);
+        this.longKeys = serialized.keySerde() instanceof Serdes.LongSerde;
+        this.adjacencyCacheMaxEdges = (int) longConfig(configs, ADJACENCY_CACHE_MAX_EDGES, ADJACENCY_CACHE_MAX_EDGES_DEFAULT);
+        this.localMessages = staleness == 0 && booleanConfig(configs, LOCAL_MESSAGES, LOCAL_MESSAGES_DEFAULT);
+        this.vertexCutDegreeThreshold =
+            (int) longConfig(configs, VERTEX_CUT_DEGREE_THRESHOLD, VERTEX_CUT_DEGREE_THRESHOLD_DEFAULT);
+        this.checkpointInterval =
+            staleness == 0 ? (int) longConfig(configs, CHECKPOINT_INTERVAL, CHECKPOINT_INTERVAL_DEFAULT) : 0;
 
         this.edgesStoreName = "edgesStore-" + applicationId;
         this.verticesStoreName = "verticesStore-" + applicationId;
         this.localworkSetStoreName = "localworkSetStore-" + applicationId;
+        this.mirrorsStoreName = "mirrorsStore-" + applicationId;
+        this.checkpointStoreName = "checkpointStore-" + applicationId;
         this.localSolutionSetStoreName = "localSolutionSetStore-" + applicationId;
+        this.previousSolutionSetStoreName = "previousSolutionSetStore-" + applicationId;
 
         ComputeFunction.InitCallback cb = new ComputeFunction.InitCallback(registeredAggregators);
         cf.init(configs, cb);
         cb.registerAggregator(LAST_WRITTEN_OFFSETS, MapOfLongMaxAggregator.class);
+        cb.registerAggregator(LOCAL_MESSAGE_COUNTS, MapOfLongSumAggregator.class);
+        this.messageCombiner = (MessageCombiner<K, Message>) cb.messageCombiner;
+    }
+
+    /**
+     * Makes this an incremental computation, which starts from the solution set of a previous run
+     * over the same vertices and edges topics, and must be called before {@link #prepare}.
+     *
+     * <p>Vertices start from their values in the previous solution set, which is read into a global
+     * table.  Only the vertices with records past the previous graph offsets, and the sources of
+     * adjacency lists past those offsets, are active in superstep 0, after being seeded by
+     * {@link ComputeFunction#seed}.  This suits compute functions whose results can be updated from
+     * the affected vertices alone, such as ConnectedComponents or SingleSourceShortestPaths when
+     * vertices and edges are only added.
+     *
+     * @param previousSolutionSetTopic the solution set topic of the previous run
+     * @param previousGraphOffsets the graph offsets of the previous run
+     * @return this computation
+     */
+    public PregelComputation<K, VV, EV, Message> incremental(String previousSolutionSetTopic,
+                                                             Map<TopicPartition, Long> previousGraphOffsets) {
+        this.previousSolutionSetTopic = previousSolutionSetTopic;
+        this.previousGraphOffsets = previousGraphOffsets;
+        return this;
+    }
+
+    public boolean isIncremental() {
+        return previousSolutionSetTopic != null;
+    }
+
+    public long minPollIntervalMs() {
+        return minPollIntervalMs;
+    }
+
+    public PregelMetrics metrics() {
+        return metrics;
     }
 
     public KTable<K, VV> vertices() {
@@ -209,17 +426,33 @@ public class PregelComputation<K, VV, EV, Message> implements Closeable {
             streamsConfig != null ? streamsConfig : new Properties()
         );
         producerConfig.setProperty(ProducerConfig.CLIENT_ID_CONFIG, applicationId + "-producer");
-        this.producer = new KafkaProducer<>(producerConfig);
+        this.producer = new KafkaProducer<>(producerConfig, serialized.keySerde().serializer(), workSetSerde);
 
-        final StoreBuilder<KeyValueStore<Integer, Map<K, Map<K, List<Message>>>>> workSetStoreBuilder =
+        final StoreBuilder<KeyValueStore<Bytes, byte[]>> workSetStoreBuilder =
             Stores.keyValueStoreBuilder(Stores.persistentKeyValueStore(localworkSetStoreName),
-                Serdes.Integer(), new KryoSerde<>()
+                Serdes.Bytes(), Serdes.ByteArray()
             );
         builder.addStateStore(workSetStoreBuilder);
 
+        if (isVertexCut()) {
+            final StoreBuilder<KeyValueStore<K, Map<K, EV>>> mirrorsStoreBuilder =
+                Stores.keyValueStoreBuilder(Stores.persistentKeyValueStore(mirrorsStoreName),
+                    serialized.keySerde(), edgesSerde
+                );
+            builder.addStateStore(mirrorsStoreBuilder);
+        }
+
+        if (isCheckpointed()) {
+            final StoreBuilder<KeyValueStore<Bytes, byte[]>> checkpointStoreBuilder =
+                Stores.keyValueStoreBuilder(Stores.persistentKeyValueStore(checkpointStoreName),
+                    Serdes.Bytes(), Serdes.ByteArray()
+                );
+            builder.addStateStore(checkpointStoreBuilder);
+        }
+
         final StoreBuilder<KeyValueStore<K, Tuple4<Integer, VV, Integer, VV>>> solutionSetStoreBuilder =
             Stores.keyValueStoreBuilder(Stores.persistentKeyValueStore(localSolutionSetStoreName),
-                serialized.keySerde(), new KryoSerde<>()
+                serialized.keySerde(), solutionSetSerde
             );
         builder.addStateStore(solutionSetStoreBuilder);
 
@@ -234,47 +467,83 @@ public class PregelComputation<K, VV, EV, Message> implements Closeable {
             .table(
                 edgesGroupedBySourceTopic,
                 Materialized.<K, Map<K, EV>, KeyValueStore<Bytes, byte[]>>as(edgesStoreName)
-                    .withKeySerde(serialized.keySerde()).withValueSerde(new KryoSerde<>())
+                    .withKeySerde(serialized.keySerde()).withValueSerde(edgesSerde)
             );
 
+        if (isVertexCut()) {
+            // The mirrors of a split vertex are rebuilt once its edges are updated
+            this.edgesGroupedBySource
+                .toStream()
+                .foreach((k, v) -> mirroredVertices.computeIfPresent(k, (key, mirrors) -> mirrors.stale()));
+        }
+
         this.solutionSet = builder
-            .table(solutionSetTopic, Consumed.<K, Tuple4<Integer, VV, Integer, VV>>with(serialized.keySerde(), new KryoSerde<>()))
-            .mapValues(v -> v._4, Materialized.as(solutionSetStore));
-
-        // Initalize solution set
-        this.vertices
-            .toStream()
-            .mapValues(v -> new Tuple4<>(-1, v, 0, v))
-            .to(solutionSetTopic, Produced.with(serialized.keySerde(), new KryoSerde<>()));
-
-        // Initialize workset
-        this.vertices
-            .toStream()
-            .peek((k, v) -> {
-                try {
-                    int partition = PregelComputation.vertexToPartition(k, serialized.keySerde().serializer(), numPartitions);
-                    ZKUtils.addChild(curator, applicationId, new PregelState(State.CREATED, 0, Stage.SEND), childPath(partition));
-                } catch (Exception e) {
-                    throw toRuntimeException(e);
-                }
+            .table(solutionSetTopic, Consumed.with(serialized.keySerde(), solutionSetSerde))
+            .transformValues(SolutionSetPositions::new, Materialized.as(solutionSetStore));
+
+        if (isIncremental()) {
+            // The previous solution set is read in full before any vertices are processed
+            builder.globalTable(previousSolutionSetTopic, Consumed.with(serialized.keySerde(), solutionSetSerde),
+                Materialized.<K, Tuple4<Integer, VV, Integer, VV>, KeyValueStore<Bytes, byte[]>>as(previousSolutionSetStoreName)
+                    .withKeySerde(serialized.keySerde()).withValueSerde(solutionSetSerde));
+
+            // Initialize solution set from the previous run
+            this.vertices
+                .toStream()
+                .transformValues(InitSolutionSet::new)
+                .to(solutionSetTopic, Produced.with(serialized.keySerde(), solutionSetSerde, this::vertexToPartition));
+
+            // Initialize workset with the vertices affected by changes since the previous run
+            this.vertices
+                .toStream()
+                .transformValues(() -> new ChangedSincePreviousRun<VV>())
+                .merge(this.edgesGroupedBySource
+                    .toStream()
+                    .transformValues(() -> new ChangedSincePreviousRun<Map<K, EV>>()))
+                .filter((k, changed) -> changed)
+                .process(SeedVertices::new);
+        } else {
+            // Initalize solution set
+            this.vertices
+                .toStream()
+                .mapValues(v -> new Tuple4<>(-1, v, 0, v))
+                .to(solutionSetTopic, Produced.with(serialized.keySerde(), solutionSetSerde, this::vertexToPartition));
+
+            // Track how far the graph topics have been processed, as partitions are activated while processing
+            this.edgesGroupedBySource
+                .toStream()
+                .transformValues(() -> new GraphPositions<Map<K, EV>>());
+
+            // Initialize workset
+            this.vertices
+                .toStream()
+                .transformValues(() -> new GraphPositions<VV>())
+                .peek((k, v) -> {
+                    try {
+                        int partition = vertexToPartition(k);
+                        activatePartition(0, partition);
+                    } catch (Exception e) {
+                        throw toRuntimeException(e);
+                    }
 
-            })
-            .mapValues((k, v) -> new Tuple3<>(0, k, initialMessage.map(Collections::singletonList).orElse(Collections.emptyList())))
-            .peek((k, v) -> log.trace("workset 0 before topic: (" + k + ", " + v + ")"))
-            .<K, Tuple3<Integer, K, List<Message>>>to(workSetTopic, Produced.with(serialized.keySerde(), new KryoSerde<>()));
+                })
+                .mapValues((k, v) -> new Tuple3<>(0, k, initialMessages()))
+                .peek((k, v) -> log.trace("workset 0 before topic: (" + k + ", " + v + ")"))
+                .to(workSetTopic, Produced.with(serialized.keySerde(), workSetSerde, this::vertexToPartition));
+        }
 
         this.workSet = builder
-            .stream(workSetTopic, Consumed.with(serialized.keySerde(), new KryoSerde<Tuple3<Integer, K, List<Message>>>()))
+            .stream(workSetTopic, Consumed.with(serialized.keySerde(), workSetSerde))
             .peek((k, v) -> log.trace("workset 1 after topic: (" + k + ", " + v + ")"));
 
         KStream<K, Tuple2<Integer, Map<K, List<Message>>>> syncedWorkSet = workSet
-            .transform(BarrierSync::new, localworkSetStoreName)
+            .transform(BarrierSync::new, withOptionalStores(localworkSetStoreName, localSolutionSetStoreName))
             .peek((k, v) -> log.trace("workset 2 after join: (" + k + ", " + v + ")"));
 
         KStream<K, Tuple3<Integer, Tuple4<Integer, VV, Integer, VV>, Map<K, List<Message>>>> superstepComputation =
             syncedWorkSet
-                .transformValues(VertexComputeUdf::new, localSolutionSetStoreName, vertices.queryableStoreName(),
-                    edgesGroupedBySource.queryableStoreName());
+                .transformValues(VertexComputeUdf::new,
+                    withOptionalStores(localSolutionSetStoreName, verticesStoreName, edgesStoreName));
 
         // Compute the solution set delta
         KStream<K, Tuple4<Integer, VV, Integer, VV>> solutionSetDelta = superstepComputation
@@ -282,24 +551,65 @@ public class PregelComputation<K, VV, EV, Message> implements Closeable {
             .peek((k, v) -> log.trace("solution set: (" + k + ", " + v + ")"));
 
         solutionSetDelta
-            .to(solutionSetTopic, Produced.with(serialized.keySerde(), new KryoSerde<>()));
+            .to(solutionSetTopic, Produced.with(serialized.keySerde(), solutionSetSerde, this::vertexToPartition));
 
         // Compute the inbox of each vertex for the next step (new workset)
         KStream<K, Tuple2<Integer, Map<K, List<Message>>>> newworkSet = superstepComputation
             .mapValues(v -> new Tuple2<>(v._1, v._3))
             .peek((k, v) -> log.trace("workset new: (" + k + ", " + v + ")"));
 
-        newworkSet.process(() -> new SendMessages(producer));
+        newworkSet.process(SendMessages::new);
+    }
+
+    private boolean isVertexCut() {
+        return vertexCutDegreeThreshold > 0;
+    }
+
+    private boolean isCheckpointed() {
+        return checkpointInterval > 0;
+    }
+
+    private boolean isCheckpoint(int superstep) {
+        return isCheckpointed() && superstep > 0 && superstep % checkpointInterval == 0;
+    }
+
+    // The last checkpoint at or before the given superstep, or 0 if there is none
+    private int lastCheckpoint(int superstep) {
+        return isCheckpointed() ? superstep - superstep % checkpointInterval : 0;
+    }
+
+    private String[] withOptionalStores(String... storeNames) {
+        List<String> result = new ArrayList<>(Arrays.asList(storeNames));
+        if (isVertexCut()) {
+            result.add(mirrorsStoreName);
+        }
+        if (isCheckpointed()) {
+            result.add(checkpointStoreName);
+        }
+        return result.toArray(new String[0]);
+    }
+
+    private List<Message> initialMessages() {
+        return initialMessage.map(Collections::singletonList).orElse(Collections.emptyList());
     }
 
     public PregelState run(int maxIterations, CompletableFuture<KTable<K, VV>> futureResult) {
         this.maxIterations = maxIterations;
         this.futureResult = futureResult;
+        flushedTasks.clear();
+        syncedTasks.clear();
+        solutionSetWrittenOffsets.clear();
 
         PregelState pregelState = new PregelState(State.RUNNING, -1, Stage.SEND);
-        try (SharedValue sharedValue = new SharedValue(curator, ZKPaths.makePath(ZKUtils.PREGEL_PATH + applicationId, ZKUtils.SUPERSTEP), pregelState.toBytes())) {
-            sharedValue.start();
-            setPregelState(sharedValue, pregelState);
+        try {
+            int checkpoint = isCheckpointed() ? coordinator.checkpoint() : -1;
+            if (checkpoint > 0) {
+                log.info("Resuming pregel computation from the checkpoint at superstep {}", checkpoint);
+                // The barriers and aggregates after the checkpoint are written again
+                coordinator.rollback(checkpoint);
+                pregelState = new PregelState(State.RUNNING, checkpoint, Stage.RECEIVE);
+            }
+            setPregelState(pregelState);
             return pregelState;
         } catch (Exception e) {
             throw toRuntimeException(e);
@@ -308,10 +618,8 @@ public class PregelComputation<K, VV, EV, Message> implements Closeable {
 
     public PregelState state() {
         PregelState pregelState = new PregelState(State.RUNNING, -1, Stage.SEND);
-        try (SharedValue sharedValue = new SharedValue(curator, ZKPaths.makePath(ZKUtils.PREGEL_PATH + applicationId, ZKUtils.SUPERSTEP), pregelState.toBytes())) {
-            sharedValue.start();
-            pregelState = PregelState.fromBytes(sharedValue.getValue());
-            return pregelState;
+        try {
+            return coordinator.state(pregelState);
         } catch (Exception e) {
             throw toRuntimeException(e);
         }
@@ -356,169 +664,531 @@ public class PregelComputation<K, VV, EV, Message> implements Closeable {
     private Map<String, ?> previousAggregates(int superstep) {
         return previousAggregates.computeIfAbsent(superstep, k -> {
             try {
-                String path = ZKPaths.makePath(ZKUtils.aggregatePath(applicationId, superstep - 1), ALL_PARTITIONS);
-                if (curator.checkExists().forPath(path) == null) {
-                    return new HashMap<>();
-                }
-                byte[] data = curator.getData().forPath(path);
-                return data.length > 0 ? KryoUtils.deserialize(data) : new HashMap<>();
+                byte[] data = coordinator.aggregate(superstep - 1, ALL_PARTITIONS);
+                return data != null && data.length > 0 ? KryoUtils.deserialize(data) : new HashMap<>();
             } catch (Exception e) {
                 throw toRuntimeException(e);
             }
         });
     }
 
+    private void activatePartition(int superstep, int partition) throws Exception {
+        // Only the first activation of a partition in a superstep goes to the coordinator
+        Set<Integer> activated = activatedPartitions.computeIfAbsent(superstep, k -> ConcurrentHashMap.newKeySet());
+        if (!activated.contains(partition)) {
+            log.debug("adding partition {} for step {}", partition, superstep);
+            coordinator.addChild(new PregelState(State.RUNNING, superstep, Stage.SEND), childPath(partition), false);
+            activated.add(partition);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Set<K> newVertexSet() {
+        // Most graphs use long ids, which are kept unboxed in the sets of vertices per superstep
+        return longKeys ? (Set<K>) new LongHashSet() : new HashSet<>();
+    }
+
     private Map<String, Aggregator<?>> aggregators(int partition, int superstep) {
         Map<Integer, Map<String, Aggregator<?>>> stepAggregators =
             aggregators.computeIfAbsent(superstep, k -> new ConcurrentHashMap<>());
         return stepAggregators.computeIfAbsent(partition, k -> newAggregators());
     }
 
-    private final class BarrierSync
+    private void deactivatePartition(int superstep, int partition) throws Exception {
+        // Wait until all sends for the partition have been acknowledged, so that the
+        // next barrier and the last written offsets are complete before deactivating
+        AtomicInteger sends = inFlightSends(superstep, partition);
+        do {
+            producer.flush();
+        } while (sends.get() > 0);
+        log.debug("removing partition {} for step {}", partition, superstep);
+        metrics.superstepFinished(superstep, partition);
+        ComputeFunction.Aggregators aggregators = new ComputeFunction.Aggregators(
+            previousAggregates(superstep), aggregators(partition, superstep));
+        computeFunction.postSuperstep(superstep, aggregators);
+        aggregators.aggregate(LAST_WRITTEN_OFFSETS, lastWrittenOffsets.get(superstep));
+        aggregators.aggregate(LOCAL_MESSAGE_COUNTS, localMessagesSent(superstep, partition));
+        // The aggregate must be written before the child is removed, as the leader reduces
+        // the aggregates as soon as it sees the barrier empty
+        writeAggregate(superstep, partition);
+        coordinator.removeChild(new PregelState(State.RUNNING, superstep, Stage.SEND), childPath(partition));
+    }
+
+    private Map<Integer, Long> localMessagesSent(int superstep, int partition) {
+        Map<Integer, Map<Integer, Long>> stepSent = localMessagesSent.computeIfAbsent(superstep, k -> new ConcurrentHashMap<>());
+        return stepSent.computeIfAbsent(partition, k -> new ConcurrentHashMap<>());
+    }
+
+    private AtomicLong localMessagesReceived(int superstep, int partition) {
+        Map<Integer, AtomicLong> stepReceived = localMessagesReceived.computeIfAbsent(superstep, k -> new ConcurrentHashMap<>());
+        return stepReceived.computeIfAbsent(partition, k -> new AtomicLong(0L));
+    }
+
+    private AtomicInteger inFlightSends(int superstep, int partition) {
+        Map<Integer, AtomicInteger> stepSends = inFlightSends.computeIfAbsent(superstep, k -> new ConcurrentHashMap<>());
+        return stepSends.computeIfAbsent(partition, k -> new AtomicInteger(0));
+    }
+
+    private void writeAggregate(int superstep, int partition) throws Exception {
+        Map<Integer, Map<String, Aggregator<?>>> stepAggregators = aggregators.get(superstep);
+        if (stepAggregators != null) {
+            Map<String, Aggregator<?>> partitionAggregators = stepAggregators.get(partition);
+            if (partitionAggregators != null) {
+                coordinator.setAggregate(superstep, childPath(partition), KryoUtils.serialize(partitionAggregators));
+            }
+        }
+    }
+
+    final class BarrierSync
         implements Transformer<K, Tuple3<Integer, K, List<Message>>,
         KeyValue<K, Tuple2<Integer, Map<K, List<Message>>>>> {
 
         private ProcessorContext context;
-        private KeyValueStore<Integer, Map<K, Map<K, List<Message>>>> localworkSetStore;
+        private KeyValueStore<Bytes, byte[]> localworkSetStore;
+        private KeyValueStore<K, Map<K, EV>> mirrorsStore;
+        private KeyValueStore<Bytes, byte[]> checkpointStore;
+        private KeyValueStore<K, Tuple4<Integer, VV, Integer, VV>> localSolutionSetStore;
         private Consumer<byte[], byte[]> internalConsumer;
-        private LeaderLatch leaderLatch;
-        private GroupMember group;
-        private SharedValue sharedValue;
-        private TreeCache barrierCache;
+        private String workerName;
+        private BarrierCoordinator.Worker worker;
         private PregelState pregelState = new PregelState(State.CREATED, -1, Stage.SEND);
 
+        private final AtomicBoolean changed = new AtomicBoolean(true);
+        private final Runnable listener = () -> changed.set(true);
+        private boolean received = false;
+        private long pollIntervalMs = minPollIntervalMs;
+        private long nextPollMs = 0L;
+
         private final Map<Integer, Set<K>> forwardedVertices = new HashMap<>();
+        private final Map<Integer, Set<K>> pendingVertices = new HashMap<>();
+        private final Set<Integer> receivedSupersteps = new HashSet<>();
+        private final Set<Integer> deactivatedSupersteps = new HashSet<>();
+        private boolean joined = false;
+        private int resumedSuperstep = -1;
+        // Records before this offset were sent before the computation was resumed
+        private long resumeOffset = -1L;
 
         @SuppressWarnings("unchecked")
         @Override
         public void init(final ProcessorContext context) {
             try {
                 this.context = context;
-                this.localworkSetStore = (KeyValueStore<Integer, Map<K, Map<K, List<Message>>>>) context.getStateStore(localworkSetStoreName);
+                this.localworkSetStore = (KeyValueStore<Bytes, byte[]>) context.getStateStore(localworkSetStoreName);
+                if (isVertexCut()) {
+                    this.mirrorsStore = (KeyValueStore<K, Map<K, EV>>) context.getStateStore(mirrorsStoreName);
+                }
+                if (isCheckpointed()) {
+                    this.checkpointStore = (KeyValueStore<Bytes, byte[]>) context.getStateStore(checkpointStoreName);
+                }
+                this.localSolutionSetStore =
+                    (KeyValueStore<K, Tuple4<Integer, VV, Integer, VV>>) context.getStateStore(localSolutionSetStoreName);
                 this.internalConsumer = internalConsumer(context);
+                // Graph records committed before a restart are not processed again
+                for (String topic : Arrays.asList(verticesTopic, edgesGroupedBySourceTopic)) {
+                    TopicPartition tp = new TopicPartition(topic, context.taskId().partition);
+                    OffsetAndMetadata committed = internalConsumer.committed(tp);
+                    if (committed != null) {
+                        graphPositions.merge(tp, committed.offset(), Math::max);
+                    }
+                }
 
                 String threadId = String.valueOf(Thread.currentThread().getId());
                 // Worker name needs to be unique to a StreamThread but common to StreamTasks that share a StreamThread
-                String workerName = hostAndPort != null ? hostAndPort + "#" + threadId : "local:#" + threadId;
-                log.debug("Registering worker {} for application {}", workerName, applicationId);
-                group = new GroupMember(curator, ZKPaths.makePath(ZKUtils.PREGEL_PATH + applicationId, ZKUtils.GROUP), workerName);
-                group.start();
-                leaderLatch = new LeaderLatch(curator, ZKPaths.makePath(ZKUtils.PREGEL_PATH + applicationId, ZKUtils.LEADER));
-                leaderLatch.start();
-                sharedValue = new SharedValue(curator, ZKPaths.makePath(ZKUtils.PREGEL_PATH + applicationId, ZKUtils.SUPERSTEP), pregelState.toBytes());
-                sharedValue.start();
-
-                // TODO make interval configurable
-                this.context.schedule(Duration.ofMillis(1000), PunctuationType.WALL_CLOCK_TIME, (timestamp) -> {
-                    try {
-                        pregelState = PregelState.fromBytes(sharedValue.getValue());
-                        State state = pregelState.state();
-
-                        if (state == State.CREATED) {
-                            return;
-                        } else if (state == State.COMPLETED || state == State.CANCELLED) {
-                            if (futureResult != null && !futureResult.isDone()) {
-                                if (pregelState.superstep() > maxIterations || state == State.CANCELLED) {
-                                    log.info("Pregel computation halted after {} iterations", pregelState.superstep());
-                                } else {
-                                    log.info("Pregel computation converged after {} iterations", pregelState.superstep());
-                                }
-                                this.context.commit();
-                                futureResult.complete(result());
-                            }
-                            return;
-                        }
+                workerName = hostAndPort != null ? hostAndPort + "#" + threadId : "local:#" + threadId;
+                worker = coordinator.join(workerName);
+                metrics.register(context);
+                localTasks.add(context.taskId().partition);
+                if (localMessages) {
+                    localInboxes.computeIfAbsent(context.taskId().partition, k -> new ConcurrentLinkedQueue<>());
+                }
 
-                        if (leaderLatch.hasLeadership()) {
-                            if (barrierCache == null) {
-                                barrierCache = new TreeCache(curator, ZKPaths.makePath(ZKUtils.PREGEL_PATH + applicationId, ZKUtils.BARRIERS));
-                                barrierCache.start();
-                            }
+                coordinator.addListener(listener);
 
-                            if (pregelState.stage() == Stage.RECEIVE) {
-                                int groupSize = group.getCurrentMembers().size();
-                                PregelState nextPregelState = ZKUtils.maybeCreateReadyToSendNode(curator, applicationId, pregelState, barrierCache, groupSize);
-                                if (!pregelState.equals(nextPregelState)) {
-                                    pregelState = nextPregelState;
-                                    setPregelState(sharedValue, pregelState);
-                                } else {
-                                    log.debug("Not ready to create snd: state {}", pregelState);
-                                }
-                            } else if (pregelState.stage() == Stage.SEND) {
-                                PregelState nextPregelState = ZKUtils.maybeCreateReadyToReceiveNode(curator, applicationId, pregelState, barrierCache);
-                                if (!pregelState.equals(nextPregelState)) {
-                                    pregelState = masterCompute(nextPregelState);
-                                    setPregelState(sharedValue, pregelState);
-                                } else {
-                                    log.debug("Not ready to create rcv: state {}", pregelState);
-                                }
-                            }
+                // Stage transitions are triggered by coordinator events; otherwise the barrier is
+                // polled with a backoff, as the workset topic may still be catching up
+                this.context.schedule(Duration.ofMillis(minPollIntervalMs), PunctuationType.WALL_CLOCK_TIME, this::punctuate);
+            } catch (Exception e) {
+                throw toRuntimeException(e);
+            }
+        }
+
+        private void punctuate(long timestamp) {
+            receiveLocalMessages();
+            boolean triggered = changed.getAndSet(false) || received;
+            if (!triggered && timestamp < nextPollMs) {
+                return;
+            }
+            received = false;
+            PregelState previousState = pregelState;
+            try {
+                sync();
+            } catch (Exception e) {
+                throw toRuntimeException(e);
+            }
+            if (triggered || !pregelState.equals(previousState)) {
+                pollIntervalMs = minPollIntervalMs;
+            } else {
+                pollIntervalMs = Math.min(pollIntervalMs * 2, maxPollIntervalMs);
+            }
+            nextPollMs = timestamp + pollIntervalMs;
+        }
+
+        private void sync() throws Exception {
+            PregelState previousState = pregelState;
+            pregelState = coordinator.state(pregelState);
+            State state = pregelState.state();
+            metrics.superstepStarted(pregelState.superstep(), context.taskId().partition);
+
+            if (staleness > 0 && !pregelState.equals(previousState)) {
+                // Aggregates that were read ahead of the barrier may have been missing
+                previousAggregates.computeIfPresent(pregelState.superstep(), (k, v) -> v.isEmpty() ? null : v);
+            }
+
+            if (state == State.CREATED) {
+                return;
+            } else if (state == State.COMPLETED || state == State.CANCELLED) {
+                if (futureResult != null && !futureResult.isDone()) {
+                    if (!isSolutionSetSynced()) {
+                        // Check again on the next punctuation rather than backing off
+                        changed.set(true);
+                        return;
+                    }
+                    if (pregelState.superstep() > maxIterations || state == State.CANCELLED) {
+                        log.info("Pregel computation halted after {} iterations", pregelState.superstep());
+                    } else {
+                        log.info("Pregel computation converged after {} iterations", pregelState.superstep());
+                    }
+                    futureResult.complete(result());
+                }
+                return;
+            }
+
+            if (!joined) {
+                if (isCheckpointed() && pregelState.superstep() > 0) {
+                    // A task that starts in the middle of a computation can only join it once it
+                    // has been resumed from the last checkpoint
+                    if (pregelState.stage() != Stage.RECEIVE || pregelState.superstep() != coordinator.checkpoint()) {
+                        log.debug("Waiting for computation to be resumed: state {}", pregelState);
+                        return;
+                    }
+                    resume(pregelState.superstep());
+                }
+                joined = true;
+            }
+
+            if (worker.isLeader()) {
+                if (pregelState.stage() == Stage.RECEIVE) {
+                    PregelState nextPregelState = worker.maybeCreateReadyToSendNode(pregelState);
+                    if (!pregelState.equals(nextPregelState)) {
+                        pregelState = nextPregelState;
+                        setPregelState(pregelState);
+                        if (pregelState.state() == State.RUNNING && isCheckpoint(pregelState.superstep())) {
+                            // Every worker has committed the messages of the superstep
+                            coordinator.setCheckpoint(pregelState.superstep());
                         }
+                    } else {
+                        log.debug("Not ready to create snd: state {}", pregelState);
+                    }
+                } else if (pregelState.stage() == Stage.SEND) {
+                    PregelState nextPregelState = worker.maybeCreateReadyToReceiveNode(pregelState);
+                    if (!pregelState.equals(nextPregelState)) {
+                        pregelState = masterCompute(nextPregelState);
+                        setPregelState(pregelState);
+                    } else {
+                        log.debug("Not ready to create rcv: state {}", pregelState);
+                    }
+                }
+            }
 
-                        if (pregelState.stage() == Stage.RECEIVE) {
-                            if (pregelState.superstep() == 0) {
-                                if (!ZKUtils.hasChild(curator, applicationId, pregelState, workerName)) {
-                                    Set<TopicPartition> workSetTps = localPartitions(internalConsumer, workSetTopic);
-                                    Set<TopicPartition> solutionSetTps = localPartitions(internalConsumer, solutionSetTopic);
-                                    if (isTopicSynced(internalConsumer, verticesTopic, 0, null, graphOffsets::get)
-                                        && isTopicSynced(internalConsumer, edgesGroupedBySourceTopic, 0, null, graphOffsets::get)) {
-                                        ZKUtils.addChild(curator, applicationId, pregelState, workerName, CreateMode.EPHEMERAL);
-                                        // Ensure vertices and edges are read into tables first
-                                        internalConsumer.seekToBeginning(workSetTps);
-                                        internalConsumer.resume(workSetTps);
-                                        internalConsumer.seekToBeginning(solutionSetTps);
-                                        internalConsumer.resume(solutionSetTps);
-                                    } else {
-                                        internalConsumer.pause(workSetTps);
-                                        internalConsumer.pause(solutionSetTps);
-                                    }
-                                }
-                            }
-                            if (ZKUtils.isReady(curator, applicationId, pregelState)) {
-                                if (!ZKUtils.hasChild(curator, applicationId, pregelState, workerName)) {
-                                    // Try to ensure we have all messages; however the consumer may not yet
-                                    // be in sync so we do another check in the next stage
-                                    Function<TopicPartition, Long> lastWritten = lastWrittenOffsets(pregelState.superstep());
-                                    if (isTopicSynced(internalConsumer, workSetTopic, pregelState.superstep(), positions, lastWritten)) {
-                                        ZKUtils.addChild(curator, applicationId, pregelState, workerName, CreateMode.EPHEMERAL);
-                                    }
-                                }
-                            }
-                        } else if (pregelState.stage() == Stage.SEND) {
-                            if (ZKUtils.isReady(curator, applicationId, pregelState)) {
-                                Map<K, Map<K, List<Message>>> messages = localworkSetStore.get(pregelState.superstep());
-                                if (hasVerticesToForward(messages)) {
-                                    // This check is to ensure we have all messages produced in the last stage;
-                                    // we may get new messages as well but that is fine
-                                    Function<TopicPartition, Long> lastWritten = lastWrittenOffsets(pregelState.superstep());
-                                    if (isTopicSynced(internalConsumer, workSetTopic, pregelState.superstep(), positions, lastWritten)) {
-                                        forwardVertices(messages);
-                                    }
-                                }
-
-                                // clean up previous step
-                                int previousStep = pregelState.superstep() - 1;
-                                activeVertices.remove(previousStep);
-                                forwardedVertices.remove(previousStep);
-                                didPreSuperstep.remove(previousStep);
-                                lastWrittenOffsets.remove(previousStep);
-                                aggregators.remove(previousStep);
-                                previousAggregates.remove(previousStep);
-                                localworkSetStore.delete(previousStep);
-                            }
+            if (pregelState.stage() == Stage.RECEIVE) {
+                if (pregelState.superstep() == 0) {
+                    if (!coordinator.hasChild(pregelState, workerName)) {
+                        Set<TopicPartition> workSetTps = localPartitions(internalConsumer, workSetTopic);
+                        Set<TopicPartition> solutionSetTps = localPartitions(internalConsumer, solutionSetTopic);
+                        if (isGraphSynced()) {
+                            coordinator.addChild(pregelState, workerName, true);
+                            // Ensure vertices and edges are read into tables first
+                            internalConsumer.seekToBeginning(workSetTps);
+                            internalConsumer.resume(workSetTps);
+                            internalConsumer.seekToBeginning(solutionSetTps);
+                            internalConsumer.resume(solutionSetTps);
+                        } else {
+                            internalConsumer.pause(workSetTps);
+                            internalConsumer.pause(solutionSetTps);
                         }
-                    } catch (Exception e) {
-                        throw toRuntimeException(e);
+                    }
+                }
+                if (coordinator.isReady(pregelState) || pregelState.superstep() == resumedSuperstep) {
+                    if (!coordinator.hasChild(pregelState, workerName)) {
+                        // Try to ensure we have all messages; however the consumer may not yet
+                        // be in sync so we do another check in the next stage
+                        int superstep = pregelState.superstep();
+                        if ((receivedSupersteps.contains(superstep) || hasAllMessages(superstep))
+                            && isCheckpointCommitted(superstep)) {
+                            coordinator.addChild(pregelState, workerName, true);
+                        }
+                    }
+                }
+            } else if (pregelState.stage() == Stage.SEND) {
+                if (coordinator.isReady(pregelState)) {
+                    if (hasVerticesToForward(pregelState.superstep())) {
+                        // This check is to ensure we have all messages produced in the last stage;
+                        // we may get new messages as well but that is fine.  In asynchronous mode
+                        // vertices are forwarded again if more messages arrive
+                        if ((staleness > 0 && pregelState.superstep() > 0) || hasReceivedAllMessages(pregelState.superstep())) {
+                            forwardVertices(pregelState.superstep());
+                        }
+                    }
+                    if (staleness > 0) {
+                        maybeDeactivatePartition(pregelState.superstep());
+                    }
+
+                    // clean up previous step
+                    int previousStep = pregelState.superstep() - 1;
+                    activeVertices.remove(previousStep);
+                    forwardedVertices.remove(previousStep);
+                    pendingVertices.remove(previousStep);
+                    receivedSupersteps.remove(previousStep);
+                    deactivatedSupersteps.remove(previousStep);
+                    didPreSuperstep.remove(previousStep);
+                    lastWrittenOffsets.remove(previousStep);
+                    localMessagesSent.remove(previousStep);
+                    localMessagesReceived.remove(previousStep);
+                    inFlightSends.remove(previousStep);
+                    activatedPartitions.remove(previousStep);
+                    checkpointedTasks.remove(previousStep);
+                    aggregators.remove(previousStep);
+                    previousAggregates.remove(previousStep);
+                    if (isCheckpoint(previousStep)) {
+                        // The checkpoint is complete, so the one before it is no longer needed
+                        deleteCheckpoint(previousStep - checkpointInterval);
+                    } else {
+                        deleteMessages(previousStep);
+                    }
+                }
+            }
+
+            if (staleness > 0) {
+                forwardAhead();
+            }
+        }
+
+        // At a checkpoint a worker only joins the barrier once the changelogs of each of its tasks
+        // hold the messages of the superstep
+        private boolean isCheckpointCommitted(int superstep) {
+            if (!isCheckpoint(superstep)) {
+                return true;
+            }
+            int task = context.taskId().partition;
+            Set<Integer> committed = checkpointedTasks.computeIfAbsent(superstep, k -> ConcurrentHashMap.newKeySet());
+            if (!committed.contains(task)) {
+                // The stores are not cached, so every write has been sent to the changelogs; wait
+                // for them to be acknowledged, as a restore after a failure reads them back
+                recordCollector().flush();
+                context.commit();
+                committed.add(task);
+            }
+            for (TopicPartition tp : localPartitions(internalConsumer, workSetTopic)) {
+                if (!committed.contains(tp.partition())) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void resume(int superstep) throws Exception {
+            int partition = context.taskId().partition;
+            log.info("Resuming partition {} from the checkpoint at superstep {}", partition, superstep);
+            // Messages sent after the checkpoint are sent again, so the rest of the topic is skipped
+            TopicPartition tp = new TopicPartition(workSetTopic, partition);
+            resumeOffset = internalConsumer.endOffsets(Collections.singleton(tp)).get(tp);
+
+            // Restore the values of the solution set at the checkpoint
+            List<Bytes> keys = new ArrayList<>();
+            try (KeyValueIterator<Bytes, byte[]> iter = checkpointStore.all()) {
+                while (iter.hasNext()) {
+                    KeyValue<Bytes, byte[]> entry = iter.next();
+                    if (WorkSetKeys.superstep(entry.key) == superstep) {
+                        K vertex = serialized.keySerde().deserializer().deserialize(workSetTopic, WorkSetKeys.target(entry.key));
+                        localSolutionSetStore.put(vertex, solutionSetSerde.deserializer().deserialize(solutionSetTopic, entry.value));
+                    }
+                    keys.add(entry.key);
+                }
+            }
+            for (Bytes key : keys) {
+                checkpointStore.delete(key);
+            }
+
+            // Only the messages of the checkpoint are kept
+            keys.clear();
+            try (KeyValueIterator<Bytes, byte[]> iter = localworkSetStore.all()) {
+                while (iter.hasNext()) {
+                    Bytes key = iter.next().key;
+                    if (WorkSetKeys.superstep(key) != superstep) {
+                        keys.add(key);
+                    }
+                }
+            }
+            for (Bytes key : keys) {
+                localworkSetStore.delete(key);
+            }
+            forwardedVertices.clear();
+            pendingVertices.clear();
+            receivedSupersteps.clear();
+            deactivatedSupersteps.clear();
+
+            // All messages of the checkpoint were committed before it was taken
+            receivedSupersteps.add(superstep);
+            if (hasVerticesToForward(superstep)) {
+                activatePartition(superstep, partition);
+            }
+            checkpointedTasks.computeIfAbsent(superstep, k -> ConcurrentHashMap.newKeySet()).add(partition);
+            resumedSuperstep = superstep;
+        }
+
+        private boolean isGraphSynced() {
+            if (isIncremental()) {
+                // Wait until every graph record has been processed, and the resulting seeds have
+                // been acknowledged, so that their offsets are known
+                if (isTopicSynced(internalConsumer, verticesTopic, 0, graphPositions, graphOffsets::get)
+                    && isTopicSynced(internalConsumer, edgesGroupedBySourceTopic, 0, graphPositions, graphOffsets::get)) {
+                    producer.flush();
+                    return true;
+                }
+                return false;
+            }
+            // Fetched graph records may not have been processed yet, so processed offsets are compared
+            return isTopicSynced(internalConsumer, verticesTopic, 0, graphPositions, graphOffsets::get)
+                && isTopicSynced(internalConsumer, edgesGroupedBySourceTopic, 0, graphPositions, graphOffsets::get);
+        }
+
+        // The result is complete once every local task has flushed its last solution set updates,
+        // and the solution set store has read them back
+        private boolean isSolutionSetSynced() {
+            int task = context.taskId().partition;
+            if (!flushedTasks.contains(task)) {
+                // Wait for the solution set records of the task to be acknowledged
+                RecordCollector recordCollector = recordCollector();
+                recordCollector.flush();
+                recordCollector.offsets().forEach((tp, offset) -> {
+                    if (tp.topic().equals(solutionSetTopic)) {
+                        solutionSetWrittenOffsets.merge(tp, offset, Math::max);
                     }
                 });
-            } catch (Exception e) {
-                throw toRuntimeException(e);
+                flushedTasks.add(task);
             }
+            if (!flushedTasks.containsAll(localTasks)) {
+                return false;
+            }
+            if (!syncedTasks.contains(task)) {
+                Set<TopicPartition> partitions = localPartitions(internalConsumer, solutionSetTopic);
+                for (Map.Entry<TopicPartition, Long> endOffset : internalConsumer.endOffsets(partitions).entrySet()) {
+                    TopicPartition tp = endOffset.getKey();
+                    Long lastWrittenOffset = solutionSetWrittenOffsets.get(tp);
+                    long end = lastWrittenOffset != null ? Math.max(endOffset.getValue(), lastWrittenOffset + 1) : endOffset.getValue();
+                    long position = solutionSetPosition(tp);
+                    if (position < end) {
+                        log.debug("Solution set not synced: partition {}, pos {}, end {}", tp, position, end);
+                        return false;
+                    }
+                }
+                syncedTasks.add(task);
+            }
+            return syncedTasks.containsAll(localTasks);
+        }
+
+        private RecordCollector recordCollector() {
+            // The record collector of the task sends to its sink topics and the changelogs of its stores
+            return ((RecordCollector.Supplier) context).recordCollector();
+        }
+
+        private long solutionSetPosition(TopicPartition tp) {
+            // Records processed before this run are not seen by the store, but have been committed
+            OffsetAndMetadata committed = internalConsumer.committed(tp);
+            long position = committed != null ? committed.offset() : 0L;
+            return Math.max(position, solutionSetPositions.getOrDefault(tp, 0L));
+        }
+
+        private void forwardAhead() {
+            // The superstep that is currently being sent, or was last sent while receiving
+            int current = pregelState.stage() == Stage.SEND ? pregelState.superstep() : pregelState.superstep() - 1;
+            // Superstep 0 is never run ahead, as it waits for the graph to be loaded
+            int last = Math.min(current + staleness, maxIterations);
+            for (int superstep = Math.max(current + 1, 1); superstep <= last; superstep++) {
+                if (hasVerticesToForward(superstep)) {
+                    forwardVertices(superstep);
+                }
+            }
+        }
+
+        private void maybeDeactivatePartition(int superstep) throws Exception {
+            // A partition is done with a superstep once all its messages have arrived and have been
+            // computed, however far ahead of the barrier that happened
+            Set<K> forwarded = forwardedVertices.get(superstep);
+            if (forwarded == null || forwarded.isEmpty() || deactivatedSupersteps.contains(superstep)) {
+                return;
+            }
+            if (!hasVerticesToForward(superstep) && hasReceivedAllMessages(superstep)) {
+                // There is no record context in a punctuation, but the task has the workset partition
+                deactivatePartition(superstep, context.taskId().partition);
+                deactivatedSupersteps.add(superstep);
+            }
+        }
+
+        private boolean hasReceivedAllMessages(int superstep) {
+            // Once caught up no more messages can arrive for the superstep, while the end of the
+            // topic keeps moving as the next superstep is sent
+            if (receivedSupersteps.contains(superstep)) {
+                return true;
+            }
+            if (hasAllMessages(superstep)) {
+                receivedSupersteps.add(superstep);
+                return true;
+            }
+            return false;
+        }
+
+        private boolean hasAllMessages(int superstep) {
+            if (!hasAllLocalMessages(superstep)) {
+                return false;
+            }
+            Function<TopicPartition, Long> lastWritten = lastWrittenOffsets(superstep);
+            if (superstep > 0 && lastWritten != null) {
+                // The offsets of all messages for this superstep are known, so there is no need
+                // to wait for the end of the topic, which moves as the next superstep is sent
+                return isTopicCaughtUp(internalConsumer, workSetTopic, superstep, positions, lastWritten);
+            }
+            return isTopicSynced(internalConsumer, workSetTopic, superstep, positions, lastWritten);
+        }
+
+        @SuppressWarnings("unchecked")
+        private boolean hasAllLocalMessages(int superstep) {
+            // Messages for superstep 0 are only written to the topic
+            if (!localMessages || superstep == 0) {
+                return true;
+            }
+            Map<Integer, Long> sent = (Map<Integer, Long>) previousAggregates(superstep).get(LOCAL_MESSAGE_COUNTS);
+            if (sent == null) {
+                return true;
+            }
+            for (TopicPartition tp : localPartitions(internalConsumer, workSetTopic)) {
+                long received = localMessagesReceived(superstep, tp.partition()).get();
+                if (received < sent.getOrDefault(tp.partition(), 0L)) {
+                    log.debug("Not received all local messages, step {}, partition {}, received {}, sent {}",
+                        superstep, tp.partition(), received, sent.get(tp.partition()));
+                    return false;
+                }
+            }
+            return true;
         }
 
         @SuppressWarnings("unchecked")
         private Function<TopicPartition, Long> lastWrittenOffsets(int superstep) {
             if (superstep == 0) {
+                if (isIncremental()) {
+                    // Only the seeded vertices have messages for superstep 0
+                    return tp -> seedOffsets.get(tp.partition());
+                }
                 // Use the vertices lastWrittenOffsets for superstep 0
                 return tp -> graphOffsets.get(new TopicPartition(verticesTopic, tp.partition()));
             }
@@ -544,20 +1214,14 @@ public class PregelComputation<K, VV, EV, Message> implements Closeable {
         }
 
         private Map<String, Aggregator<?>> reduceAggregates(int superstep) throws Exception {
-            String rootPath = ZKUtils.aggregatePath(applicationId, superstep);
             Map<String, Aggregator<?>> newAggregators = newAggregators();
             newAggregators = initAggregators(newAggregators, previousAggregates(superstep));
-            boolean exists = curator.checkExists().forPath(rootPath) != null;
-            if (!exists) return newAggregators;
-            List<String> children = curator.getChildren().forPath(rootPath);
-            if (children != null) {
-                for (String path : children) {
-                    if (!path.endsWith(ALL_PARTITIONS)) {
-                        byte[] data = curator.getData().forPath(ZKPaths.makePath(rootPath, path));
-                        if (data.length > 0) {
-                            Map<String, Aggregator<?>> aggregators = KryoUtils.deserialize(data);
-                            newAggregators = mergeAggregators(newAggregators, aggregators);
-                        }
+            for (Map.Entry<String, byte[]> child : coordinator.aggregates(superstep).entrySet()) {
+                if (!child.getKey().endsWith(ALL_PARTITIONS)) {
+                    byte[] data = child.getValue();
+                    if (data.length > 0) {
+                        Map<String, Aggregator<?>> aggregators = KryoUtils.deserialize(data);
+                        newAggregators = mergeAggregators(newAggregators, aggregators);
                     }
                 }
             }
@@ -565,111 +1229,390 @@ public class PregelComputation<K, VV, EV, Message> implements Closeable {
         }
 
         private void saveAggregates(int superstep, Map<String, Aggregator<?>> newAggregators) throws Exception {
-            String rootPath = ZKUtils.aggregatePath(applicationId, superstep);
             Set<Map.Entry<String, Aggregator<?>>> entries = newAggregators.entrySet();
             Map<String, ?> newAggregates = entries.stream()
                 .collect(Collectors.toMap(Map.Entry::getKey, entry -> entry.getValue().getAggregate()));
-            ZKUtils.addChild(curator, rootPath, ALL_PARTITIONS, CreateMode.PERSISTENT, KryoUtils.serialize(newAggregates));
+            coordinator.setAggregate(superstep, ALL_PARTITIONS, KryoUtils.serialize(newAggregates));
         }
 
-        private boolean hasVerticesToForward(Map<K, Map<K, List<Message>>> messages) {
-            if (messages == null) return false;
-            for (Map.Entry<K, Map<K, List<Message>>> entry : messages.entrySet()) {
-                Set<K> forwarded = forwardedVertices.get(pregelState.superstep());
-                if (forwarded == null || !forwarded.contains(entry.getKey())) {
-                    return true;
+        private Set<K> pendingVertices(int superstep) {
+            Set<K> pending = pendingVertices.get(superstep);
+            if (pending == null) {
+                // Rebuild from the store, e.g. after a restart, so that no messages are lost
+                pending = newVertexSet();
+                Set<K> forwarded = forwardedVertices.getOrDefault(superstep, Collections.emptySet());
+                Bytes prefix = WorkSetKeys.prefix(superstep);
+                byte[] lastTarget = null;
+                try (KeyValueIterator<Bytes, byte[]> iter = localworkSetStore.range(prefix, WorkSetKeys.upperBound(prefix))) {
+                    while (iter.hasNext()) {
+                        Bytes key = iter.next().key;
+                        if (!WorkSetKeys.hasPrefix(key, prefix)) {
+                            continue;
+                        }
+                        byte[] target = WorkSetKeys.target(key);
+                        if (!Arrays.equals(target, lastTarget)) {
+                            K vertex = serialized.keySerde().deserializer().deserialize(workSetTopic, target);
+                            if (!forwarded.contains(vertex)) {
+                                pending.add(vertex);
+                            }
+                            lastTarget = target;
+                        }
+                    }
                 }
+                pendingVertices.put(superstep, pending);
             }
-            return false;
+            return pending;
         }
 
-        private void forwardVertices(Map<K, Map<K, List<Message>>> messages) {
-            List<Map.Entry<K, Map<K, List<Message>>>> toForward = new ArrayList<>();
-            for (Map.Entry<K, Map<K, List<Message>>> entry : messages.entrySet()) {
-                Set<K> forwarded = forwardedVertices.computeIfAbsent(pregelState.superstep(), k -> new HashSet<>());
-                if (!forwarded.contains(entry.getKey())) {
-                    forwarded.add(entry.getKey());
-                    activateVertex(entry);
-                    toForward.add(entry);
-                }
+        private boolean hasVerticesToForward(int superstep) {
+            return !pendingVertices(superstep).isEmpty();
+        }
+
+        private void forwardVertices(int superstep) {
+            Set<K> pending = pendingVertices(superstep);
+            Set<K> forwarded = forwardedVertices.computeIfAbsent(superstep, k -> newVertexSet());
+            List<K> toForward = new ArrayList<>(pending);
+            pending.clear();
+            for (K vertex : toForward) {
+                forwarded.add(vertex);
+                activateVertex(superstep, vertex);
             }
-            for (Map.Entry<K, Map<K, List<Message>>> entry : toForward) {
-                context.forward(entry.getKey(), new Tuple2<>(pregelState.superstep(), entry.getValue()));
+            for (K vertex : toForward) {
+                context.forward(vertex, new Tuple2<>(superstep, messages(superstep, vertex)));
             }
             context.commit();
         }
 
-        private void activateVertex(Map.Entry<K, Map<K, List<Message>>> entry) {
-            int partition = vertexToPartition(entry.getKey(), serialized.keySerde().serializer(), numPartitions);
-            Map<Integer, Set<K>> active = activeVertices.computeIfAbsent(
-                pregelState.superstep(), k -> new ConcurrentHashMap<>());
-            Set<K> vertices = active.computeIfAbsent(partition, k -> ConcurrentHashMap.newKeySet());
-            vertices.add(entry.getKey());
-            log.debug("vertex {} for partition {} for step {} is active", entry.getKey(), partition, pregelState.superstep());
+        private Map<K, List<Message>> messages(int superstep, K vertex) {
+            Map<K, List<Message>> messages = new HashMap<>();
+            Bytes prefix = WorkSetKeys.prefix(superstep, serialize(vertex));
+            try (KeyValueIterator<Bytes, byte[]> iter = localworkSetStore.range(prefix, WorkSetKeys.upperBound(prefix))) {
+                while (iter.hasNext()) {
+                    KeyValue<Bytes, byte[]> entry = iter.next();
+                    if (!WorkSetKeys.hasPrefix(entry.key, prefix)) {
+                        continue;
+                    }
+                    K source = serialized.keySerde().deserializer().deserialize(workSetTopic, WorkSetKeys.source(entry.key));
+                    messages.put(source, KryoUtils.deserialize(entry.value));
+                }
+            }
+            return messageCombiner != null ? combine(vertex, messages) : messages;
+        }
+
+        private Map<K, List<Message>> combine(K vertex, Map<K, List<Message>> messages) {
+            Message combined = null;
+            for (List<Message> list : messages.values()) {
+                for (Message message : list) {
+                    combined = combined != null ? messageCombiner.combine(vertex, combined, message) : message;
+                }
+            }
+            return Collections.singletonMap(vertex, combined != null
+                ? Collections.singletonList(combined) : Collections.emptyList());
+        }
+
+        private void deleteMessages(int superstep) {
+            if (superstep < 0) {
+                return;
+            }
+            List<Bytes> keys = new ArrayList<>();
+            Bytes prefix = WorkSetKeys.prefix(superstep);
+            try (KeyValueIterator<Bytes, byte[]> iter = localworkSetStore.range(prefix, WorkSetKeys.upperBound(prefix))) {
+                while (iter.hasNext()) {
+                    Bytes key = iter.next().key;
+                    if (WorkSetKeys.hasPrefix(key, prefix)) {
+                        keys.add(key);
+                    }
+                }
+            }
+            for (Bytes key : keys) {
+                localworkSetStore.delete(key);
+            }
+        }
+
+        private void deleteCheckpoint(int superstep) {
+            if (superstep <= 0) {
+                return;
+            }
+            deleteMessages(superstep);
+            List<Bytes> keys = new ArrayList<>();
+            Bytes prefix = WorkSetKeys.prefix(superstep);
+            try (KeyValueIterator<Bytes, byte[]> iter = checkpointStore.range(prefix, WorkSetKeys.upperBound(prefix))) {
+                while (iter.hasNext()) {
+                    Bytes key = iter.next().key;
+                    if (WorkSetKeys.hasPrefix(key, prefix)) {
+                        keys.add(key);
+                    }
+                }
+            }
+            for (Bytes key : keys) {
+                checkpointStore.delete(key);
+            }
+        }
+
+        private void activateVertex(int superstep, K vertex) {
+            int partition = vertexToPartition(vertex);
+            Map<Integer, Set<K>> active = activeVertices.computeIfAbsent(superstep, k -> new ConcurrentHashMap<>());
+            // The vertices of a partition are only ever activated and deactivated by its own task
+            Set<K> vertices = active.computeIfAbsent(partition, k -> newVertexSet());
+            vertices.add(vertex);
+            metrics.record(superstep, partition, PregelMetrics.Metric.ACTIVE_VERTICES, 1);
+            log.debug("vertex {} for partition {} for step {} is active", vertex, partition, superstep);
         }
 
         @Override
         public KeyValue<K, Tuple2<Integer, Map<K, List<Message>>>> transform(
             final K readOnlyKey, final Tuple3<Integer, K, List<Message>> value
         ) {
-            Map<K, Map<K, List<Message>>> messages = localworkSetStore.get(value._1);
-            if (messages == null) {
-                messages = new HashMap<>();
-            }
-            Map<K, List<Message>> messagesForSuperstep = messages.computeIfAbsent(readOnlyKey, k -> new HashMap<>());
-            if (value._3 != null) {
-                messagesForSuperstep.put(value._2, value._3);
+            if (context.offset() < resumeOffset) {
+                log.debug("Skipping message sent before resume: {}", value);
+            } else if (isMirror(readOnlyKey)) {
+                scatter(value._1, readOnlyKey, value._3);
+            } else {
+                receive(value._1, readOnlyKey, value._2,
+                    value._3 != null ? KryoUtils.serialize(value._3) : null, value._3 != null ? value._3.size() : 0);
             }
-            localworkSetStore.put(value._1, messages);
             positions.merge(new TopicPartition(context.topic(), context.partition()), context.offset() + 1, Math::max);
+            return null;
+        }
 
-            Set<K> forwarded = forwardedVertices.get(value._1);
-            if (forwarded != null) {
-                forwarded.remove(readOnlyKey);
+        private void receiveLocalMessages() {
+            Queue<LocalMessages<K>> inbox = localInboxes.get(context.taskId().partition);
+            if (inbox == null) {
+                return;
+            }
+            LocalMessages<K> messages;
+            while ((messages = inbox.poll()) != null) {
+                if (isMirror(messages.target)) {
+                    scatter(messages.superstep, messages.target, KryoUtils.deserialize(messages.messages));
+                } else {
+                    receive(messages.superstep, messages.target, messages.source, messages.messages, messages.count);
+                }
+                localMessagesReceived(messages.superstep, context.taskId().partition).incrementAndGet();
             }
+        }
 
-            return null;
+        // A vertex only has messages sent to another partition than its own for its mirror there
+        private boolean isMirror(K vertex) {
+            return isVertexCut() && vertexToPartition(vertex) != context.taskId().partition;
+        }
+
+        @SuppressWarnings("unchecked")
+        private void scatter(int superstep, K vertex, List<?> messages) {
+            MirrorScatter<K, EV, Message> scatter = (MirrorScatter<K, EV, Message>) messages.get(0);
+            Map<K, EV> edges = scatter.edges();
+            if (edges != null) {
+                if (edges.isEmpty()) {
+                    mirrorsStore.delete(vertex);
+                } else {
+                    mirrorsStore.put(vertex, edges);
+                }
+            } else {
+                edges = mirrorsStore.get(vertex);
+            }
+            if (edges == null) {
+                return;
+            }
+            for (Map.Entry<K, EV> edge : edges.entrySet()) {
+                List<Message> edgeMessages = scatterMessages(vertex, edge.getKey(), edge.getValue(), scatter.messages());
+                if (!edgeMessages.isEmpty()) {
+                    receive(superstep, edge.getKey(), vertex, KryoUtils.serialize(edgeMessages), edgeMessages.size());
+                }
+            }
+        }
+
+        private void receive(int superstep, K target, K source, byte[] messages, int count) {
+            // Each message list is stored under its own (superstep, target, source) key, so that
+            // an append only costs the size of the message rather than the size of the inbox
+            Set<K> pending = pendingVertices(superstep);
+            Bytes key = WorkSetKeys.key(superstep, serialize(target), serialize(source));
+            if (messages != null) {
+                localworkSetStore.put(key, messages);
+            } else {
+                messages = KryoUtils.serialize(Collections.emptyList());
+                localworkSetStore.putIfAbsent(key, messages);
+            }
+            int partition = context.taskId().partition;
+            metrics.record(superstep, partition, PregelMetrics.Metric.MESSAGES_RECEIVED, count);
+            metrics.record(superstep, partition, PregelMetrics.Metric.BYTES_RECEIVED, messages.length);
+            received = true;
+
+            Set<K> forwarded = forwardedVertices.get(superstep);
+            if (forwarded != null) {
+                forwarded.remove(target);
+            }
+            pending.add(target);
         }
 
         @Override
         public void close() {
-            if (barrierCache != null) {
-                barrierCache.close();
+            coordinator.removeListener(listener);
+            metrics.unregister(context);
+            localTasks.remove(context.taskId().partition);
+            Queue<LocalMessages<K>> inbox = localInboxes.remove(context.taskId().partition);
+            if (inbox != null && !inbox.isEmpty()) {
+                log.warn("Dropped {} undelivered local messages for partition {}", inbox.size(), context.taskId().partition);
             }
-            if (sharedValue != null) {
+            if (worker != null) {
                 try {
-                    sharedValue.close();
+                    worker.close();
                 } catch (Exception e) {
                     // ignore
                 }
             }
-            if (leaderLatch != null) {
-                try {
-                    leaderLatch.close();
-                } catch (Exception e) {
-                    // ignore
-                }
+        }
+    }
+
+    private final class InitSolutionSet implements ValueTransformerWithKey<K, VV, Tuple4<Integer, VV, Integer, VV>> {
+
+        private ReadOnlyKeyValueStore<K, Tuple4<Integer, VV, Integer, VV>> previousSolutionSetStore;
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public void init(final ProcessorContext context) {
+            this.previousSolutionSetStore =
+                (ReadOnlyKeyValueStore<K, Tuple4<Integer, VV, Integer, VV>>) context.getStateStore(previousSolutionSetStoreName);
+        }
+
+        @Override
+        public Tuple4<Integer, VV, Integer, VV> transform(final K readOnlyKey, final VV value) {
+            Tuple4<Integer, VV, Integer, VV> previous = previousSolutionSetStore.get(readOnlyKey);
+            VV vertexValue = previous != null ? previous._4 : value;
+            return new Tuple4<>(-1, vertexValue, 0, vertexValue);
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    private final class ChangedSincePreviousRun<V> implements ValueTransformerWithKey<K, V, Boolean> {
+
+        private ProcessorContext context;
+
+        @Override
+        public void init(final ProcessorContext context) {
+            this.context = context;
+        }
+
+        @Override
+        public Boolean transform(final K readOnlyKey, final V value) {
+            // Track how far the graph topics have been processed, as seeds are sent while processing
+            TopicPartition tp = new TopicPartition(context.topic(), context.partition());
+            graphPositions.merge(tp, context.offset() + 1, Math::max);
+            Long previousOffset = previousGraphOffsets.get(tp);
+            return value != null && (previousOffset == null || context.offset() > previousOffset);
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    private final class GraphPositions<V> implements ValueTransformerWithKey<K, V, V> {
+
+        private ProcessorContext context;
+
+        @Override
+        public void init(final ProcessorContext context) {
+            this.context = context;
+        }
+
+        @Override
+        public V transform(final K readOnlyKey, final V value) {
+            graphPositions.merge(new TopicPartition(context.topic(), context.partition()), context.offset() + 1, Math::max);
+            return value;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    private final class SeedVertices implements Processor<K, Boolean> {
+
+        @Override
+        public void init(final ProcessorContext context) {
+        }
+
+        @Override
+        public void process(final K readOnlyKey, final Boolean changed) {
+            try {
+                int partition = vertexToPartition(readOnlyKey);
+                activatePartition(0, partition);
+                // A vertex may be seeded more than once, but its messages are stored under the same key
+                ProducerRecord<K, Tuple3<Integer, K, List<Message>>> producerRecord = new ProducerRecord<>(
+                    workSetTopic, partition, readOnlyKey, new Tuple3<>(0, readOnlyKey, initialMessages()));
+                producer.send(producerRecord, (metadata, error) -> {
+                    if (error == null) {
+                        seedOffsets.merge(metadata.partition(), metadata.offset(), Math::max);
+                    } else {
+                        log.error("Failed to send record to {}: {}", workSetTopic, error);
+                    }
+                });
+            } catch (Exception e) {
+                throw toRuntimeException(e);
             }
-            if (group != null) {
-                group.close();
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    private final class SolutionSetPositions implements ValueTransformerWithKey<K, Tuple4<Integer, VV, Integer, VV>, VV> {
+
+        private ProcessorContext context;
+
+        @Override
+        public void init(final ProcessorContext context) {
+            this.context = context;
+        }
+
+        @Override
+        public VV transform(final K readOnlyKey, final Tuple4<Integer, VV, Integer, VV> value) {
+            // Track how far the solution set store has read, so that results are not returned early
+            if (context.topic() != null) {
+                solutionSetPositions.merge(new TopicPartition(context.topic(), context.partition()), context.offset() + 1, Math::max);
             }
+            return value != null ? value._4 : null;
+        }
+
+        @Override
+        public void close() {
         }
     }
 
-    private final class VertexComputeUdf
+    final class VertexComputeUdf
         implements ValueTransformerWithKey<K, Tuple2<Integer, Map<K, List<Message>>>,
         Tuple3<Integer, Tuple4<Integer, VV, Integer, VV>, Map<K, List<Message>>>> {
 
         private KeyValueStore<K, Tuple4<Integer, VV, Integer, VV>> localSolutionSetStore;
         private ReadOnlyKeyValueStore<K, VV> verticesStore;
         private KeyValueStore<K, Map<K, EV>> edgesStore;
+        private VertexEdges<K, EV> vertexEdges;
+        private KeyValueStore<K, Map<K, EV>> mirrorsStore;
+        private KeyValueStore<Bytes, byte[]> checkpointStore;
+        private ReadOnlyKeyValueStore<K, Tuple4<Integer, VV, Integer, VV>> previousSolutionSetStore;
+        private AdjacencyCache<K, EV> adjacencyCache;
 
         @SuppressWarnings("unchecked")
         @Override
         public void init(final ProcessorContext context) {
             this.localSolutionSetStore = (KeyValueStore<K, Tuple4<Integer, VV, Integer, VV>>) context.getStateStore(localSolutionSetStoreName);
-            this.verticesStore = (ReadOnlyKeyValueStore<K, VV>) context.getStateStore(vertices.queryableStoreName());
-            this.edgesStore = (KeyValueStore<K, Map<K, EV>>) context.getStateStore(edgesGroupedBySource.queryableStoreName());
+            this.verticesStore = (ReadOnlyKeyValueStore<K, VV>) context.getStateStore(verticesStoreName);
+            this.edgesStore = (KeyValueStore<K, Map<K, EV>>) context.getStateStore(edgesStoreName);
+            this.vertexEdges = VertexEdges.of(edgesStore);
+            this.adjacencyCache = new AdjacencyCache<>(adjacencyCacheMaxEdges);
+            if (isVertexCut()) {
+                this.mirrorsStore = (KeyValueStore<K, Map<K, EV>>) context.getStateStore(mirrorsStoreName);
+            }
+            if (isCheckpointed()) {
+                this.checkpointStore = (KeyValueStore<Bytes, byte[]>) context.getStateStore(checkpointStoreName);
+            }
+            if (isIncremental()) {
+                this.previousSolutionSetStore =
+                    (ReadOnlyKeyValueStore<K, Tuple4<Integer, VV, Integer, VV>>) context.getStateStore(previousSolutionSetStoreName);
+            }
         }
 
         @Override
@@ -677,32 +1620,70 @@ public class PregelComputation<K, VV, EV, Message> implements Closeable {
             final K readOnlyKey, final Tuple2<Integer, Map<K, List<Message>>> value
         ) {
             int superstep = value._1;
+            Map<K, List<Message>> messages = value._2;
             Tuple4<Integer, VV, Integer, VV> vertex = localSolutionSetStore.get(readOnlyKey);
+            boolean seeded = false;
             if (vertex == null) {
                 VV vertexValue = verticesStore.get(readOnlyKey);
-                if (vertexValue == null) {
+                Tuple4<Integer, VV, Integer, VV> previous =
+                    previousSolutionSetStore != null ? previousSolutionSetStore.get(readOnlyKey) : null;
+                VV previousValue = previous != null ? previous._4 : null;
+                VV startValue = previous != null ? previousValue : vertexValue;
+                if (superstep == 0 && isIncremental()) {
+                    ComputeFunction.SeedCallback<VV, Message> cb = new ComputeFunction.SeedCallback<>();
+                    computeFunction.seed(new VertexWithValue<>(readOnlyKey, vertexValue), previousValue, cb);
+                    if (cb.hasVertexValue) {
+                        startValue = cb.vertexValue;
+                        seeded = true;
+                    }
+                    if (!cb.messages.isEmpty()) {
+                        List<Message> selfMessages = new ArrayList<>(messages.getOrDefault(readOnlyKey, Collections.emptyList()));
+                        selfMessages.addAll(cb.messages);
+                        messages = new HashMap<>(messages);
+                        messages.put(readOnlyKey, selfMessages);
+                    }
+                }
+                if (startValue == null) {
                     log.warn("No vertex value for {}", readOnlyKey);
                 }
-                vertex = new Tuple4<>(-1, vertexValue, 0, vertexValue);
+                vertex = new Tuple4<>(-1, startValue, 0, startValue);
             }
-            Map<K, List<Message>> messages = value._2;
             Tuple3<Integer, Tuple4<Integer, VV, Integer, VV>, Map<K, List<Message>>> result =
                 apply(superstep, readOnlyKey, vertex, messages);
+            if (result._2 == null && seeded) {
+                // Keep the seeded value even if the compute function does not change it
+                result = new Tuple3<>(result._1, vertex, result._3);
+            }
             if (result._2 != null) {
+                if (checkpointStore != null) {
+                    keepCheckpointValue(superstep, readOnlyKey, vertex);
+                }
                 localSolutionSetStore.put(readOnlyKey, result._2);
             }
             return result;
         }
 
+        // The value of a vertex at the last checkpoint is kept before it is first overwritten
+        private void keepCheckpointValue(int superstep, K key, Tuple4<Integer, VV, Integer, VV> vertex) {
+            int checkpoint = lastCheckpoint(superstep);
+            if (checkpoint == 0) {
+                return;
+            }
+            Bytes checkpointKey = WorkSetKeys.prefix(checkpoint, serialize(key));
+            if (checkpointStore.get(checkpointKey) == null) {
+                checkpointStore.put(checkpointKey, solutionSetSerde.serializer().serialize(solutionSetTopic, vertex));
+            }
+        }
+
         private Tuple3<Integer, Tuple4<Integer, VV, Integer, VV>, Map<K, List<Message>>> apply(
             int superstep,
             K key,
             Tuple4<Integer, VV, Integer, VV> vertex,
             Map<K, List<Message>> incomingMessages
         ) {
-            // Find the value that applies to this step
-            VV oldVertexValue = vertex._3 <= superstep ? vertex._4 : vertex._2;
-            int partition = vertexToPartition(key, serialized.keySerde().serializer(), numPartitions);
+            // Find the value that applies to this step; in asynchronous mode always use the latest
+            VV oldVertexValue = vertex._3 <= superstep || staleness > 0 ? vertex._4 : vertex._2;
+            int partition = vertexToPartition(key);
 
             Map<Integer, Boolean> didFlags = didPreSuperstep.computeIfAbsent(superstep, k -> new ConcurrentHashMap<>());
             Boolean flag = didFlags.getOrDefault(partition, false);
@@ -713,23 +1694,33 @@ public class PregelComputation<K, VV, EV, Message> implements Closeable {
                 didFlags.put(partition, true);
             }
 
-            ComputeFunction.Callback<K, VV, EV, Message> cb = new ComputeFunction.Callback<>(key, edgesStore,
-                previousAggregates(superstep), aggregators(partition, superstep));
+            Mirrors mirrors = mirroredVertices.get(key);
+            if (mirrors != null && mirrors.stale) {
+                // The edges were updated from the edges topic
+                adjacencyCache.invalidate(key);
+            }
+            ComputeFunction.Callback<K, VV, EV, Message> cb = new ComputeFunction.Callback<>(key, vertexEdges,
+                previousAggregates(superstep), aggregators(partition, superstep), messageCombiner, adjacencyCache);
             Iterable<Message> messages = () -> incomingMessages.values().stream()
                 .flatMap(List::stream)
                 .iterator();
-            Iterable<EdgeWithValue<K, EV>> edges = () -> {
-                Map<K, EV> outgoingEdges = edgesStore.get(key);
-                if (outgoingEdges == null) {
-                    outgoingEdges = Collections.emptyMap();
-                }
-                return outgoingEdges.entrySet().stream()
-                    .map(e -> new EdgeWithValue<>(key, e.getKey(), e.getValue()))
-                    .iterator();
-            };
+            // Look up the edges on each iteration, as the compute function may change them
+            Iterable<EdgeWithValue<K, EV>> edges = () -> adjacencyCache.get(key, edgesStore::get).iterator();
+            long start = System.nanoTime();
             computeFunction.compute(superstep, new VertexWithValue<>(key, oldVertexValue), messages, edges, cb);
-            Tuple4<Integer, VV, Integer, VV> newVertex = cb.newVertexValue != null
-                ? new Tuple4<>(superstep, oldVertexValue, superstep + 1, cb.newVertexValue) : null;
+            metrics.record(superstep, partition, PregelMetrics.Metric.COMPUTE_TIME_NS, System.nanoTime() - start);
+            if (cb.edgesChanged) {
+                mirroredVertices.computeIfPresent(key, (k, m) -> m.stale());
+            }
+            if (!cb.messagesToAllNeighbors.isEmpty()) {
+                sendToAllNeighbors(superstep, partition, key, cb);
+            }
+            Tuple4<Integer, VV, Integer, VV> newVertex = null;
+            if (cb.newVertexValue != null) {
+                // In asynchronous mode the vertex may already have been computed in a later step
+                int step = staleness > 0 ? Math.max(superstep, vertex._1) : superstep;
+                newVertex = new Tuple4<>(step, oldVertexValue, step + 1, cb.newVertexValue);
+            }
             Map<K, List<Message>> outgoingMessages = cb.outgoingMessages;
             if (!cb.voteToHalt) {
                 // Send to self to keep active
@@ -738,18 +1729,163 @@ public class PregelComputation<K, VV, EV, Message> implements Closeable {
             return new Tuple3<>(superstep + 1, newVertex, outgoingMessages);
         }
 
+        private void sendToAllNeighbors(int superstep, int partition, K key, ComputeFunction.Callback<K, VV, EV, Message> cb) {
+            List<Message> messages = cb.messagesToAllNeighbors;
+            Mirrors mirrors = mirroredVertices.get(key);
+            if (mirrors == null || mirrors.stale) {
+                AdjacencyCache.Adjacency<K, EV> edges = adjacencyCache.get(key, edgesStore::get);
+                if (!isVertexCut() || edges.size() <= vertexCutDegreeThreshold) {
+                    if (mirrors != null) {
+                        // The vertex is no longer split, so its mirrors are removed
+                        removeMirrors(superstep, partition, key, mirrors.partitions);
+                        mirroredVertices.remove(key);
+                    }
+                    for (EdgeWithValue<K, EV> edge : edges) {
+                        sendScattered(cb, key, edge.target(), edge.value(), messages);
+                    }
+                    return;
+                }
+                // Split the edges by the partition of their targets, and send every other partition
+                // its mirror, so that mirrors left over from earlier edges are removed
+                List<Map<K, EV>> shards = new ArrayList<>(numPartitions);
+                for (int p = 0; p < numPartitions; p++) {
+                    shards.add(new HashMap<>());
+                }
+                for (EdgeWithValue<K, EV> edge : edges) {
+                    shards.get(vertexToPartition(edge.target())).put(edge.target(), edge.value());
+                }
+                Set<Integer> partitions = new HashSet<>();
+                for (int p = 0; p < numPartitions; p++) {
+                    Map<K, EV> shard = shards.get(p);
+                    if (p == partition) {
+                        if (shard.isEmpty()) {
+                            mirrorsStore.delete(key);
+                        } else {
+                            mirrorsStore.put(key, shard);
+                        }
+                    } else {
+                        sendToMirror(superstep, partition, key, p, new MirrorScatter<>(shard, messages));
+                    }
+                    if (!shard.isEmpty()) {
+                        partitions.add(p);
+                    }
+                }
+                mirroredVertices.put(key, new Mirrors(partitions, false));
+                for (Map.Entry<K, EV> edge : shards.get(partition).entrySet()) {
+                    sendScattered(cb, key, edge.getKey(), edge.getValue(), messages);
+                }
+                return;
+            }
+            for (int p : mirrors.partitions) {
+                if (p == partition) {
+                    Map<K, EV> shard = mirrorsStore.get(key);
+                    if (shard != null) {
+                        for (Map.Entry<K, EV> edge : shard.entrySet()) {
+                            sendScattered(cb, key, edge.getKey(), edge.getValue(), messages);
+                        }
+                    }
+                } else {
+                    sendToMirror(superstep, partition, key, p, new MirrorScatter<>(null, messages));
+                }
+            }
+        }
+
+        private void removeMirrors(int superstep, int partition, K key, Set<Integer> partitions) {
+            for (int p : partitions) {
+                if (p == partition) {
+                    mirrorsStore.delete(key);
+                } else {
+                    sendToMirror(superstep, partition, key, p,
+                        new MirrorScatter<>(Collections.emptyMap(), Collections.emptyList()));
+                }
+            }
+        }
+
+        private void sendScattered(ComputeFunction.Callback<K, VV, EV, Message> cb, K source, K target, EV value,
+                                   List<Message> messages) {
+            for (Message message : scatterMessages(source, target, value, messages)) {
+                cb.sendMessageTo(target, message);
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private void sendToMirror(int superstep, int partition, K key, int mirrorPartition,
+                                  MirrorScatter<K, EV, Message> scatter) {
+            try {
+                // The mirror is addressed by the key of the vertex, in the partition of the mirror
+                send(superstep, partition, key, key, mirrorPartition, Collections.singletonList((Message) scatter));
+            } catch (Exception e) {
+                throw toRuntimeException(e);
+            }
+        }
+
         @Override
         public void close() {
+            adjacencyCache.clear();
         }
     }
 
-    private final class SendMessages implements Processor<K, Tuple2<Integer, Map<K, List<Message>>>> {
+    private void send(int superstep, int partition, K readOnlyKey, K vertex, int targetPartition,
+                      List<Message> messages) throws Exception {
+        Queue<LocalMessages<K>> inbox = localMessages ? localInboxes.get(targetPartition) : null;
+        if (inbox != null) {
+            // Messages are serialized as they are sent, as they would be by the producer
+            activatePartition(superstep + 1, targetPartition);
+            localMessagesSent(superstep, partition).merge(targetPartition, 1L, Long::sum);
+            inbox.add(new LocalMessages<>(superstep + 1, vertex, readOnlyKey, messages.size(), KryoUtils.serialize(messages)));
+            metrics.record(superstep, partition, PregelMetrics.Metric.MESSAGES_SENT, messages.size());
+            metrics.record(superstep, partition, PregelMetrics.Metric.LOCAL_MESSAGES_SENT, messages.size());
+            return;
+        }
+        Tuple3<Integer, K, List<Message>> tuple = new Tuple3<>(superstep + 1, readOnlyKey, messages);
+        ProducerRecord<K, Tuple3<Integer, K, List<Message>>> producerRecord =
+            new ProducerRecord<>(workSetTopic, targetPartition, vertex, tuple);
+        inFlightSends(superstep, partition).incrementAndGet();
+        producer.send(producerRecord, callback(superstep, partition, readOnlyKey, vertex, targetPartition, messages));
+    }
 
-        private final Producer<K, Tuple3<Integer, K, List<Message>>> producer;
+    private Callback callback(int superstep, int partition, K readOnlyKey, K vertex, int targetPartition,
+                              List<Message> messages) {
+        return (metadata, error) -> {
+            try {
+                onCompletion(superstep, partition, readOnlyKey, vertex, targetPartition, messages, metadata, error);
+            } finally {
+                inFlightSends(superstep, partition).decrementAndGet();
+            }
+        };
+    }
+
+    private void onCompletion(int superstep, int partition, K readOnlyKey, K vertex, int targetPartition,
+                              List<Message> messages, RecordMetadata metadata, Exception error) {
+        if (error == null) {
+            try {
+                // Activate partition for next step
+                activatePartition(superstep + 1, targetPartition);
+
+                Map<Integer, Long> endOffsets = lastWrittenOffsets.computeIfAbsent(superstep, k -> new ConcurrentHashMap<>());
+                endOffsets.merge(metadata.partition(), metadata.offset(), Math::max);
 
-        public SendMessages(Producer<K, Tuple3<Integer, K, List<Message>>> producer) {
-            this.producer = producer;
+                metrics.record(superstep, partition, PregelMetrics.Metric.MESSAGES_SENT, messages.size());
+                metrics.record(superstep, partition, PregelMetrics.Metric.BYTES_SENT,
+                    Math.max(metadata.serializedKeySize(), 0) + Math.max(metadata.serializedValueSize(), 0));
+            } catch (Exception e) {
+                throw toRuntimeException(e);
+            }
+        } else if (error instanceof RecordTooLargeException && messages.size() > 1) {
+            log.warn("Record too large, retrying with smaller messages");
+            try {
+                for (Message message : messages) {
+                    send(superstep, partition, readOnlyKey, vertex, targetPartition, Collections.singletonList(message));
+                }
+            } catch (Exception e) {
+                throw toRuntimeException(e);
+            }
+        } else {
+            log.error("Failed to send record to {}: {}", workSetTopic, error);
         }
+    }
+
+    private final class SendMessages implements Processor<K, Tuple2<Integer, Map<K, List<Message>>>> {
 
         @Override
         public void init(final ProcessorContext context) {
@@ -759,83 +1895,30 @@ public class PregelComputation<K, VV, EV, Message> implements Closeable {
         public void process(final K readOnlyKey, final Tuple2<Integer, Map<K, List<Message>>> value) {
             try {
                 int superstep = value._1 - 1;
+                int partition = vertexToPartition(readOnlyKey);
                 for (Map.Entry<K, List<Message>> entry : value._2.entrySet()) {
                     // List of messages may be empty in case of sending to self
-                    Tuple3<Integer, K, List<Message>> tuple = new Tuple3<>(superstep + 1, readOnlyKey, entry.getValue());
-                    ProducerRecord<K, Tuple3<Integer, K, List<Message>>> producerRecord =
-                        new ProducerRecord<>(workSetTopic, entry.getKey(), tuple);
-                    Callback cb = callback(superstep, readOnlyKey, entry.getKey(), entry.getValue());
-                    producer.send(producerRecord, cb);
-                }
-                producer.flush();
-                // Deactivate this vertex
+                    send(superstep, partition, readOnlyKey, entry.getKey(), vertexToPartition(entry.getKey()), entry.getValue());
+                }
+                // Sends are not flushed here, so that they can be batched by the producer;
+                // the flush happens once the last vertex of the partition has been computed
                 deactivateVertex(superstep, readOnlyKey);
             } catch (Exception e) {
                 throw toRuntimeException(e);
             }
         }
 
-        private Callback callback(int superstep, K readOnlyKey, K vertex, List<Message> messages) {
-            return (metadata, error) -> {
-                if (error == null) {
-                    try {
-                        // Activate partition for next step
-                        int p = vertexToPartition(vertex, serialized.keySerde().serializer(), numPartitions);
-                        log.debug("adding partition {} for vertex {}", p, vertex);
-                        ZKUtils.addChild(curator, applicationId, new PregelState(State.RUNNING, superstep + 1, Stage.SEND), childPath(p));
-
-                        Map<Integer, Long> endOffsets = lastWrittenOffsets.computeIfAbsent(superstep, k -> new ConcurrentHashMap<>());
-                        endOffsets.merge(metadata.partition(), metadata.offset(), Math::max);
-                    } catch (Exception e) {
-                        throw toRuntimeException(e);
-                    }
-                } else if (error instanceof RecordTooLargeException && messages.size() > 1) {
-                    log.warn("Record too large, retrying with smaller messages");
-                    for (Message message : messages) {
-                        List<Message> singleton = Collections.singletonList(message);
-                        Tuple3<Integer, K, List<Message>> tuple = new Tuple3<>(superstep + 1, readOnlyKey, singleton);
-                        ProducerRecord<K, Tuple3<Integer, K, List<Message>>> record =
-                            new ProducerRecord<>(workSetTopic, vertex, tuple);
-                        producer.send(record, callback(superstep, readOnlyKey, vertex, singleton));
-                    }
-                } else {
-                    log.error("Failed to send record to {}: {}", workSetTopic, error);
-                }
-            };
-        }
-
         private void deactivateVertex(int superstep, K vertex) throws Exception {
-            int partition = vertexToPartition(vertex, serialized.keySerde().serializer(), numPartitions);
+            int partition = vertexToPartition(vertex);
             Map<Integer, Set<K>> active = activeVertices.get(superstep);
             Set<K> vertices = active.get(partition);
             vertices.remove(vertex);
             log.debug("vertex {} for partition {} for step {} is NOT active", vertex, partition, superstep);
-            if (vertices.isEmpty()) {
-                // Deactivate partition
-                log.debug("removing partition {} for last vertex {}", partition, vertex);
-                ZKUtils.removeChild(curator, applicationId, new PregelState(State.RUNNING, superstep, Stage.SEND), childPath(partition));
-                ComputeFunction.Aggregators aggregators = new ComputeFunction.Aggregators(
-                    previousAggregates(superstep), aggregators(partition, superstep));
-                computeFunction.postSuperstep(superstep, aggregators);
-                aggregators.aggregate(LAST_WRITTEN_OFFSETS, lastWrittenOffsets.get(superstep));
-                writeAggregate(superstep, partition);
-            }
-        }
-
-        private void writeAggregate(int superstep, int partition) throws Exception {
-            Map<Integer, Map<String, Aggregator<?>>> stepAggregators = aggregators.get(superstep);
-            if (stepAggregators != null) {
-                Map<String, Aggregator<?>> partitionAggregators = stepAggregators.get(partition);
-                if (partitionAggregators != null) {
-                    String rootPath = ZKUtils.aggregatePath(applicationId, superstep);
-                    String childPath = childPath(partition);
-                    byte[] childData = KryoUtils.serialize(partitionAggregators);
-                    if (ZKUtils.hasChild(curator, rootPath, childPath)) {
-                        ZKUtils.updateChild(curator, rootPath, childPath, childData);
-                    } else {
-                        ZKUtils.addChild(curator, rootPath, childPath, CreateMode.PERSISTENT, childData);
-                    }
-                }
+            // In asynchronous mode more messages may still arrive for the partition,
+            // so it is deactivated by the barrier sync instead
+            if (vertices.isEmpty() && staleness == 0) {
+                log.debug("last vertex {} for partition {} for step {}", vertex, partition, superstep);
+                deactivatePartition(superstep, partition);
             }
         }
 
@@ -851,8 +1934,13 @@ public class PregelComputation<K, VV, EV, Message> implements Closeable {
                 producer.close();
             }
 
-            // Clean up ZK
-            ZKUtils.removeRoot(curator, applicationId);
+            // Clean up barriers and aggregates
+            coordinator.clear();
+        } catch (Exception e) {
+            // ignore
+        }
+        try {
+            coordinator.close();
         } catch (Exception e) {
             // ignore
         }
@@ -908,15 +1996,108 @@ public class PregelComputation<K, VV, EV, Message> implements Closeable {
         }
     }
 
-    private static <K> int vertexToPartition(K vertex, Serializer<K> serializer, int numPartitions) {
-        // TODO make configurable, currently this is tied to DefaultStreamPartitioner
-        byte[] keyBytes = serializer.serialize(null, vertex);
-        int partition = Utils.toPositive(Utils.murmur2(keyBytes)) % numPartitions;
-        return partition;
+    public static class MapOfLongSumAggregator implements Aggregator<Map<Integer, Long>> {
+
+        private Map<Integer, Long> value = new HashMap<>();
+
+        @Override
+        public Map<Integer, Long> getAggregate() {
+            return value;
+        }
+
+        @Override
+        public void setAggregate(Map<Integer, Long> value) {
+            this.value = value;
+        }
+
+        @Override
+        public void aggregate(Map<Integer, Long> value) {
+            if (value != null) {
+                for (Map.Entry<Integer, Long> entry : value.entrySet()) {
+                    this.value.merge(entry.getKey(), entry.getValue(), Long::sum);
+                }
+            }
+        }
+
+        @Override
+        public void reset() {
+            value = new HashMap<>();
+        }
+    }
+
+    /**
+     * The partitions holding a mirror of a split vertex, and whether the edges of the vertex have
+     * changed since the mirrors were built.
+     */
+    private static final class Mirrors {
+        private final Set<Integer> partitions;
+        private final boolean stale;
+
+        Mirrors(Set<Integer> partitions, boolean stale) {
+            this.partitions = partitions;
+            this.stale = stale;
+        }
+
+        Mirrors stale() {
+            return stale ? this : new Mirrors(partitions, true);
+        }
+    }
+
+    /**
+     * The messages from one vertex to another, delivered in memory to the inbox of a local task.
+     */
+    private static final class LocalMessages<K> {
+        private final int superstep;
+        private final K target;
+        private final K source;
+        private final int count;
+        private final byte[] messages;
+
+        LocalMessages(int superstep, K target, K source, int count, byte[] messages) {
+            this.superstep = superstep;
+            this.target = target;
+            this.source = source;
+            this.count = count;
+            this.messages = messages;
+        }
+    }
+
+    private byte[] serialize(K vertex) {
+        return serialized.keySerde().serializer().serialize(workSetTopic, vertex);
+    }
+
+    private List<Message> scatterMessages(K source, K target, EV value, List<Message> messages) {
+        EdgeWithValue<K, EV> edge = new EdgeWithValue<>(source, target, value);
+        List<Message> result = new ArrayList<>(messages.size());
+        for (Message message : messages) {
+            Message scattered = computeFunction.scatter(message, edge);
+            if (scattered == null) {
+                continue;
+            }
+            if (messageCombiner != null && !result.isEmpty()) {
+                result.set(0, messageCombiner.combine(target, result.get(0), scattered));
+            } else {
+                result.add(scattered);
+            }
+        }
+        return result;
     }
 
-    private static void setPregelState(SharedValue sharedValue, PregelState pregelState) throws Exception {
-        sharedValue.setValue(pregelState.toBytes());
+    private int vertexToPartition(K vertex) {
+        return serialized.vertexPartitioner().partition(vertex, numPartitions);
+    }
+
+    private int vertexToPartition(String topic, K vertex, Object value, int numPartitions) {
+        // The partitioner assigns vertices to the partitions of the computation, which every topic must have
+        if (numPartitions != this.numPartitions) {
+            throw new IllegalStateException("Topic " + topic + " has " + numPartitions
+                + " partitions, but the computation has " + this.numPartitions);
+        }
+        return vertexToPartition(vertex);
+    }
+
+    private void setPregelState(PregelState pregelState) throws Exception {
+        coordinator.setState(pregelState);
         log.info("Set new pregel state {}", pregelState);
     }
 
@@ -965,6 +2146,22 @@ public class PregelComputation<K, VV, EV, Message> implements Closeable {
         return synced;
     }
 
+    private static boolean isTopicCaughtUp(Consumer<byte[], byte[]> consumer, String topic, int superstep,
+                                           Map<TopicPartition, Long> positions,
+                                           Function<TopicPartition, Long> lastWrittenOffsets) {
+        for (TopicPartition tp : localPartitions(consumer, topic)) {
+            Long lastWrittenOffset = lastWrittenOffsets.apply(tp);
+            long position = positions.getOrDefault(tp, 0L);
+            if (lastWrittenOffset != null && position <= lastWrittenOffset) {
+                log.debug("Not caught up topic {}, step {}, partition {}, pos {}, last written {}",
+                    topic, superstep, tp, position, lastWrittenOffset);
+                return false;
+            }
+        }
+        log.debug("Caught up topic {}, step {}", topic, superstep);
+        return true;
+    }
+
     private static Set<TopicPartition> localPartitions(Consumer<byte[], byte[]> consumer, String topic) {
         Set<TopicPartition> result = new HashSet<>();
         Set<TopicPartition> assignment = consumer.assignment();
@@ -984,6 +2181,26 @@ public class PregelComputation<K, VV, EV, Message> implements Closeable {
         return positions;
     }
 
+    private static long longConfig(Map<String, ?> configs, String key, long defaultValue) {
+        Object value = configs.get(key);
+        if (value instanceof Number) {
+            return ((Number) value).longValue();
+        } else if (value != null) {
+            return Long.parseLong(value.toString());
+        }
+        return defaultValue;
+    }
+
+    private static boolean booleanConfig(Map<String, ?> configs, String key, boolean defaultValue) {
+        Object value = configs.get(key);
+        if (value instanceof Boolean) {
+            return (Boolean) value;
+        } else if (value != null) {
+            return Boolean.parseBoolean(value.toString());
+        }
+        return defaultValue;
+    }
+
     private static String childPath(int partition) {
         return "partition-" + partition;
     }
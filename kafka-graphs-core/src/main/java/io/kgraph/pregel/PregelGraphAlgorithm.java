@@ -28,6 +28,7 @@ import org.apache.kafka.common.TopicPartition;
 import org.apache.kafka.streams.KafkaStreams;
 import org.apache.kafka.streams.KeyValue;
 import org.apache.kafka.streams.StreamsBuilder;
+import org.apache.kafka.streams.StreamsConfig;
 import org.apache.kafka.streams.Topology;
 import org.apache.kafka.streams.kstream.KTable;
 import org.apache.kafka.streams.state.QueryableStoreTypes;
@@ -49,6 +50,7 @@ public class PregelGraphAlgorithm<K, VV, EV, Message>
     protected final String bootstrapServers;
     protected final String zookeeperConnect;
     protected final CuratorFramework curator;
+    protected final BarrierCoordinator coordinator;
     protected final String verticesTopic;
     protected final String edgesGroupedBySourceTopic;
     protected final Map<TopicPartition, Long> graphOffsets;
@@ -144,11 +146,114 @@ public class PregelGraphAlgorithm<K, VV, EV, Message>
                                 Map<String, ?> configs,
                                 Optional<Message> initialMessage,
                                 ComputeFunction<K, VV, EV, Message> cf) {
+        this(hostAndPort,
+            applicationId,
+            bootstrapServers,
+            curator,
+            new ZKBarrierCoordinator(curator, applicationId),
+            verticesTopic,
+            edgesGroupedBySourceTopic,
+            graphOffsets,
+            serialized,
+            solutionSetTopic,
+            solutionSetStore,
+            workSetTopic,
+            numPartitions,
+            replicationFactor,
+            configs,
+            initialMessage,
+            cf);
+    }
+
+    public PregelGraphAlgorithm(String hostAndPort,
+                                String applicationId,
+                                String bootstrapServers,
+                                BarrierCoordinator coordinator,
+                                String verticesTopic,
+                                String edgesGroupedBySourceTopic,
+                                Map<TopicPartition, Long> graphOffsets,
+                                GraphSerialized<K, VV, EV> serialized,
+                                int numPartitions,
+                                short replicationFactor,
+                                Map<String, ?> configs,
+                                Optional<Message> initialMessage,
+                                ComputeFunction<K, VV, EV, Message> cf) {
+        this(hostAndPort,
+            applicationId,
+            bootstrapServers,
+            coordinator,
+            verticesTopic,
+            edgesGroupedBySourceTopic,
+            graphOffsets,
+            serialized,
+            "solutionSet-" + applicationId,
+            "solutionSetStore-" + applicationId,
+            "workSet-" + applicationId,
+            numPartitions,
+            replicationFactor,
+            configs,
+            initialMessage,
+            cf);
+    }
+
+    public PregelGraphAlgorithm(String hostAndPort,
+                                String applicationId,
+                                String bootstrapServers,
+                                BarrierCoordinator coordinator,
+                                String verticesTopic,
+                                String edgesGroupedBySourceTopic,
+                                Map<TopicPartition, Long> graphOffsets,
+                                GraphSerialized<K, VV, EV> serialized,
+                                String solutionSetTopic,
+                                String solutionSetStore,
+                                String workSetTopic,
+                                int numPartitions,
+                                short replicationFactor,
+                                Map<String, ?> configs,
+                                Optional<Message> initialMessage,
+                                ComputeFunction<K, VV, EV, Message> cf) {
+        this(hostAndPort,
+            applicationId,
+            bootstrapServers,
+            coordinator instanceof ZKBarrierCoordinator ? ((ZKBarrierCoordinator) coordinator).curator() : null,
+            coordinator,
+            verticesTopic,
+            edgesGroupedBySourceTopic,
+            graphOffsets,
+            serialized,
+            solutionSetTopic,
+            solutionSetStore,
+            workSetTopic,
+            numPartitions,
+            replicationFactor,
+            configs,
+            initialMessage,
+            cf);
+    }
+
+    private PregelGraphAlgorithm(String hostAndPort,
+                                 String applicationId,
+                                 String bootstrapServers,
+                                 CuratorFramework curator,
+                                 BarrierCoordinator coordinator,
+                                 String verticesTopic,
+                                 String edgesGroupedBySourceTopic,
+                                 Map<TopicPartition, Long> graphOffsets,
+                                 GraphSerialized<K, VV, EV> serialized,
+                                 String solutionSetTopic,
+                                 String solutionSetStore,
+                                 String workSetTopic,
+                                 int numPartitions,
+                                 short replicationFactor,
+                                 Map<String, ?> configs,
+                                 Optional<Message> initialMessage,
+                                 ComputeFunction<K, VV, EV, Message> cf) {
         this.hostAndPort = hostAndPort;
         this.applicationId = applicationId;
         this.bootstrapServers = bootstrapServers;
         this.zookeeperConnect = null;
         this.curator = curator;
+        this.coordinator = coordinator;
         this.verticesTopic = verticesTopic;
         this.edgesGroupedBySourceTopic = edgesGroupedBySourceTopic;
         this.graphOffsets = graphOffsets;
@@ -160,13 +265,40 @@ public class PregelGraphAlgorithm<K, VV, EV, Message>
         this.replicationFactor = replicationFactor;
 
         this.computation = new PregelComputation<>(hostAndPort, applicationId,
-            bootstrapServers, curator, verticesTopic, edgesGroupedBySourceTopic, graphOffsets,
+            bootstrapServers, coordinator, verticesTopic, edgesGroupedBySourceTopic, graphOffsets,
             serialized, solutionSetTopic, solutionSetStore, workSetTopic, numPartitions,
             configs, initialMessage, cf);
     }
 
+    /**
+     * Makes this an incremental computation that starts from the solution set of a previous run,
+     * and must be called before {@link #configure}.
+     *
+     * @see PregelComputation#incremental
+     */
+    public PregelGraphAlgorithm<K, VV, EV, Message> incremental(String previousSolutionSetTopic,
+                                                                Map<TopicPartition, Long> previousGraphOffsets) {
+        computation.incremental(previousSolutionSetTopic, previousGraphOffsets);
+        return this;
+    }
+
+    public String solutionSetTopic() {
+        return solutionSetTopic;
+    }
+
+    public Map<TopicPartition, Long> graphOffsets() {
+        return graphOffsets;
+    }
+
     @Override
     public GraphAlgorithmState<Void> configure(StreamsBuilder builder, Properties streamsConfig) {
+        // Barriers are checked in wall-clock punctuations, which only run between polls
+        if (!streamsConfig.containsKey(StreamsConfig.POLL_MS_CONFIG)) {
+            Properties props = new Properties();
+            props.putAll(streamsConfig);
+            props.put(StreamsConfig.POLL_MS_CONFIG, computation.minPollIntervalMs());
+            streamsConfig = props;
+        }
         ClientUtils.createTopic(solutionSetTopic, numPartitions, replicationFactor, streamsConfig);
         ClientUtils.createTopic(workSetTopic, numPartitions, replicationFactor, streamsConfig);
 
@@ -197,6 +329,10 @@ public class PregelGraphAlgorithm<K, VV, EV, Message>
         return new GraphAlgorithmState<>(streams, state.state(), state.superstep(), state.runningTime(), futureResult);
     }
 
+    public PregelMetrics metrics() {
+        return computation.metrics();
+    }
+
     @Override
     public Iterable<KeyValue<K, VV>> result() {
         return () -> streams.store(solutionSetStore, QueryableStoreTypes.<K, VV>keyValueStore()).all();
@@ -0,0 +1,228 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.kgraph.pregel;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.kafka.common.MetricName;
+import org.apache.kafka.common.metrics.Sensor;
+import org.apache.kafka.common.metrics.stats.Total;
+import org.apache.kafka.streams.StreamsMetrics;
+import org.apache.kafka.streams.processor.ProcessorContext;
+
+/**
+ * The metrics of a Pregel computation, kept per superstep and partition.
+ *
+ * <p>Each stream task also registers a sensor per metric with the Kafka Streams metrics registry,
+ * in the {@value #GROUP} group and tagged with the application id and task id, so that the
+ * running totals are available through JMX and any configured metrics reporters.
+ */
+public class PregelMetrics {
+
+    public static final String GROUP = "pregel-metrics";
+
+    /**
+     * The partition under which metrics that are not specific to a partition are recorded.
+     */
+    public static final int ALL_PARTITIONS = -1;
+
+    public enum Metric {
+        COMPUTE_TIME_NS("compute-time-ns", "The time spent in the compute function, in nanoseconds"),
+        MESSAGES_SENT("messages-sent", "The number of messages sent to the next superstep"),
+        LOCAL_MESSAGES_SENT("local-messages-sent", "The number of messages sent in memory to a local partition"),
+        MESSAGES_RECEIVED("messages-received", "The number of messages received for the superstep"),
+        BYTES_SENT("bytes-sent", "The serialized size of the records written to the workset topic"),
+        BYTES_RECEIVED("bytes-received", "The serialized size of the messages added to the local workset"),
+        ACTIVE_VERTICES("active-vertices", "The number of vertices computed in the superstep"),
+        BARRIER_WAIT_MS("barrier-wait-ms", "The time from finishing a superstep until the next one started"),
+        COORDINATOR_OPS("coordinator-ops", "The number of operations on the barrier coordinator");
+
+        private final String metricName;
+        private final String description;
+
+        Metric(String metricName, String description) {
+            this.metricName = metricName;
+            this.description = description;
+        }
+
+        public String metricName() {
+            return metricName;
+        }
+
+        public String description() {
+            return description;
+        }
+    }
+
+    private static final Metric[] METRICS = Metric.values();
+
+    private final String applicationId;
+    private final int retainedSupersteps;
+
+    private final ConcurrentNavigableMap<Integer, Map<Integer, LongAdder[]>> supersteps = new ConcurrentSkipListMap<>();
+    private final Map<Integer, TaskSensors> sensors = new ConcurrentHashMap<>();
+    private final Map<Integer, ConcurrentNavigableMap<Integer, Long>> barrierWaits = new ConcurrentHashMap<>();
+    private volatile int currentSuperstep = -1;
+
+    public PregelMetrics(String applicationId, int retainedSupersteps) {
+        this.applicationId = applicationId;
+        this.retainedSupersteps = retainedSupersteps;
+    }
+
+    public void record(int superstep, int partition, Metric metric, long value) {
+        counters(superstep, partition)[metric.ordinal()].add(value);
+        TaskSensors taskSensors = sensors.get(partition);
+        if (taskSensors != null) {
+            taskSensors.sensors[metric.ordinal()].record(value);
+        }
+    }
+
+    public void recordCoordinatorOp() {
+        record(Math.max(currentSuperstep, 0), ALL_PARTITIONS, Metric.COORDINATOR_OPS, 1);
+    }
+
+    /**
+     * Called when the given superstep has been observed, which ends any barrier wait of the
+     * partition for an earlier superstep.
+     */
+    public void superstepStarted(int superstep, int partition) {
+        if (superstep > currentSuperstep) {
+            currentSuperstep = superstep;
+        }
+        ConcurrentNavigableMap<Integer, Long> waits = barrierWaits.get(partition);
+        if (waits != null) {
+            long now = System.currentTimeMillis();
+            Iterator<Map.Entry<Integer, Long>> iter = waits.headMap(superstep).entrySet().iterator();
+            while (iter.hasNext()) {
+                Map.Entry<Integer, Long> wait = iter.next();
+                record(wait.getKey(), partition, Metric.BARRIER_WAIT_MS, now - wait.getValue());
+                iter.remove();
+            }
+        }
+    }
+
+    /**
+     * Called when the partition has finished the given superstep, and so waits on the barrier.
+     */
+    public void superstepFinished(int superstep, int partition) {
+        barrierWaits.computeIfAbsent(partition, k -> new ConcurrentSkipListMap<>())
+            .putIfAbsent(superstep, System.currentTimeMillis());
+    }
+
+    private LongAdder[] counters(int superstep, int partition) {
+        Map<Integer, LongAdder[]> partitions = supersteps.get(superstep);
+        if (partitions == null) {
+            partitions = supersteps.computeIfAbsent(superstep, k -> new ConcurrentHashMap<>());
+            // Only the latest supersteps are kept
+            supersteps.headMap(superstep - retainedSupersteps + 1).clear();
+        }
+        return partitions.computeIfAbsent(partition, k -> {
+            LongAdder[] counters = new LongAdder[METRICS.length];
+            for (int i = 0; i < counters.length; i++) {
+                counters[i] = new LongAdder();
+            }
+            return counters;
+        });
+    }
+
+    /**
+     * Returns the metrics of each partition, keyed by superstep and then by partition.
+     */
+    public NavigableMap<Integer, Map<Integer, Map<Metric, Long>>> snapshot() {
+        NavigableMap<Integer, Map<Integer, Map<Metric, Long>>> result = new TreeMap<>();
+        for (Map.Entry<Integer, Map<Integer, LongAdder[]>> step : supersteps.entrySet()) {
+            Map<Integer, Map<Metric, Long>> partitions = new TreeMap<>();
+            for (Map.Entry<Integer, LongAdder[]> partition : step.getValue().entrySet()) {
+                Map<Metric, Long> values = new EnumMap<>(Metric.class);
+                for (Metric metric : METRICS) {
+                    values.put(metric, partition.getValue()[metric.ordinal()].sum());
+                }
+                partitions.put(partition.getKey(), values);
+            }
+            result.put(step.getKey(), partitions);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the metrics of each superstep, summed over all partitions.
+     */
+    public NavigableMap<Integer, Map<Metric, Long>> totals() {
+        NavigableMap<Integer, Map<Metric, Long>> result = new TreeMap<>();
+        for (Map.Entry<Integer, Map<Integer, Map<Metric, Long>>> step : snapshot().entrySet()) {
+            Map<Metric, Long> values = new EnumMap<>(Metric.class);
+            for (Map<Metric, Long> partition : step.getValue().values()) {
+                partition.forEach((metric, value) -> values.merge(metric, value, Long::sum));
+            }
+            result.put(step.getKey(), values);
+        }
+        return result;
+    }
+
+    /**
+     * Registers the sensors of the task of the given context with the Kafka Streams metrics.
+     */
+    public void register(ProcessorContext context) {
+        sensors.computeIfAbsent(context.taskId().partition, k -> new TaskSensors(context));
+    }
+
+    public void unregister(ProcessorContext context) {
+        TaskSensors taskSensors = sensors.remove(context.taskId().partition);
+        if (taskSensors != null) {
+            taskSensors.close();
+        }
+    }
+
+    private final class TaskSensors {
+        private final StreamsMetrics streamsMetrics;
+        private final Sensor[] sensors = new Sensor[METRICS.length];
+
+        TaskSensors(ProcessorContext context) {
+            this.streamsMetrics = context.metrics();
+            String taskId = context.taskId().toString();
+            Map<String, String> tags = new HashMap<>();
+            tags.put("application-id", applicationId);
+            tags.put("task-id", taskId);
+            for (Metric metric : METRICS) {
+                // Sensor names are global to the metrics registry
+                Sensor sensor = streamsMetrics.addSensor(
+                    GROUP + "." + applicationId + "." + taskId + "." + metric.metricName(), Sensor.RecordingLevel.INFO);
+                sensor.add(new MetricName(metric.metricName() + "-total", GROUP, metric.description(),
+                    Collections.unmodifiableMap(tags)), new Total());
+                sensors[metric.ordinal()] = sensor;
+            }
+        }
+
+        void close() {
+            for (Sensor sensor : sensors) {
+                streamsMetrics.removeSensor(sensor);
+            }
+        }
+    }
+}
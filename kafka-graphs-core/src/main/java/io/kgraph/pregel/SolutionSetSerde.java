@@ -0,0 +1,58 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.kgraph.pregel;
+
+import org.apache.kafka.common.serialization.Serde;
+
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+
+import io.kgraph.utils.CompactSerde;
+import io.vavr.Tuple4;
+
+/**
+ * A serde for solution set records of (superstep, old value, next superstep, new value), with the
+ * values written with the vertex value serde of the graph.
+ */
+final class SolutionSetSerde<VV> extends CompactSerde<Tuple4<Integer, VV, Integer, VV>> {
+
+    private final Serde<VV> vertexValueSerde;
+
+    SolutionSetSerde(Serde<VV> vertexValueSerde) {
+        this.vertexValueSerde = vertexValueSerde;
+    }
+
+    @Override
+    protected void write(String topic, Output output, Tuple4<Integer, VV, Integer, VV> data) {
+        // The initial superstep is -1
+        output.writeVarInt(data._1, false);
+        write(topic, output, vertexValueSerde, data._2);
+        output.writeVarInt(data._3, false);
+        write(topic, output, vertexValueSerde, data._4);
+    }
+
+    @Override
+    protected Tuple4<Integer, VV, Integer, VV> read(String topic, Input input) {
+        int superstep = input.readVarInt(false);
+        VV oldValue = read(topic, input, vertexValueSerde);
+        int nextSuperstep = input.readVarInt(false);
+        VV newValue = read(topic, input, vertexValueSerde);
+        return new Tuple4<>(superstep, oldValue, nextSuperstep, newValue);
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.kgraph.pregel;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.kafka.streams.state.KeyValueStore;
+
+/**
+ * The out-edges of the vertices, as changed through the {@link ComputeFunction.Callback} of the
+ * vertex being computed.
+ *
+ * @param <K> The type of the vertex key (the vertex identifier).
+ * @param <EV> The type of the edge value.
+ */
+public interface VertexEdges<K, EV> {
+
+    /**
+     * Adds an edge, or replaces the value of an existing edge.
+     *
+     * @return whether the edges of the source vertex were changed
+     */
+    boolean addEdge(K source, K target, EV value);
+
+    /**
+     * Removes an edge, if it exists.
+     *
+     * @return whether the edges of the source vertex were changed
+     */
+    boolean removeEdge(K source, K target);
+
+    /**
+     * Replaces the value of an edge, if it exists.
+     *
+     * @return whether the edges of the source vertex were changed
+     */
+    boolean setEdgeValue(K source, K target, EV value);
+
+    /**
+     * Returns the edges held in a store of the adjacency lists of the vertices, each of which is
+     * read and written in full when it is changed.
+     */
+    static <K, EV> VertexEdges<K, EV> of(KeyValueStore<K, Map<K, EV>> store) {
+        return new VertexEdges<K, EV>() {
+            @Override
+            public boolean addEdge(K source, K target, EV value) {
+                Map<K, EV> edges = store.get(source);
+                if (edges == null) {
+                    edges = new HashMap<>();
+                }
+                edges.put(target, value);
+                store.put(source, edges);
+                return true;
+            }
+
+            @Override
+            public boolean removeEdge(K source, K target) {
+                Map<K, EV> edges = store.get(source);
+                if (edges == null || edges.remove(target) == null) {
+                    return false;
+                }
+                store.put(source, edges);
+                return true;
+            }
+
+            @Override
+            public boolean setEdgeValue(K source, K target, EV value) {
+                Map<K, EV> edges = store.get(source);
+                if (edges == null || edges.replace(target, value) == null) {
+                    return false;
+                }
+                store.put(source, edges);
+                return true;
+            }
+        };
+    }
+}
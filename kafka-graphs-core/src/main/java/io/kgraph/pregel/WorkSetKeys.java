@@ -0,0 +1,114 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.kgraph.pregel;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import org.apache.kafka.common.utils.Bytes;
+
+/**
+ * Composite keys for the local workset store.
+ *
+ * <p>A key is laid out as (superstep, target length, target, source) so that all messages for a
+ * superstep, and all messages for a target within a superstep, are contiguous in the store and
+ * can be read with a range scan.
+ */
+final class WorkSetKeys {
+    private static final int SUPERSTEP_SIZE = 4;
+    private static final int LENGTH_SIZE = 4;
+
+    private WorkSetKeys() {
+    }
+
+    public static Bytes key(int superstep, byte[] target, byte[] source) {
+        ByteBuffer buf = ByteBuffer.allocate(SUPERSTEP_SIZE + LENGTH_SIZE + target.length + source.length);
+        buf.putInt(superstep);
+        buf.putInt(target.length);
+        buf.put(target);
+        buf.put(source);
+        return Bytes.wrap(buf.array());
+    }
+
+    public static Bytes prefix(int superstep) {
+        ByteBuffer buf = ByteBuffer.allocate(SUPERSTEP_SIZE);
+        buf.putInt(superstep);
+        return Bytes.wrap(buf.array());
+    }
+
+    public static Bytes prefix(int superstep, byte[] target) {
+        ByteBuffer buf = ByteBuffer.allocate(SUPERSTEP_SIZE + LENGTH_SIZE + target.length);
+        buf.putInt(superstep);
+        buf.putInt(target.length);
+        buf.put(target);
+        return Bytes.wrap(buf.array());
+    }
+
+    /**
+     * Returns the smallest key that is greater than all keys starting with the given prefix,
+     * for use as the (inclusive) upper bound of a range scan.
+     */
+    public static Bytes upperBound(Bytes prefix) {
+        byte[] bytes = prefix.get();
+        byte[] upper = Arrays.copyOf(bytes, bytes.length);
+        for (int i = upper.length - 1; i >= 0; i--) {
+            if (upper[i] != (byte) 0xFF) {
+                upper[i]++;
+                return Bytes.wrap(Arrays.copyOf(upper, i + 1));
+            }
+        }
+        // Only a prefix of superstep -1 can be all ones, and no key sorts after all keys starting with it
+        throw new IllegalArgumentException("Cannot bound prefix");
+    }
+
+    public static boolean hasPrefix(Bytes key, Bytes prefix) {
+        byte[] k = key.get();
+        byte[] p = prefix.get();
+        if (k.length < p.length) {
+            return false;
+        }
+        for (int i = 0; i < p.length; i++) {
+            if (k[i] != p[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public static int superstep(Bytes key) {
+        return ByteBuffer.wrap(key.get()).getInt();
+    }
+
+    public static byte[] target(Bytes key) {
+        ByteBuffer buf = ByteBuffer.wrap(key.get());
+        buf.position(SUPERSTEP_SIZE);
+        int length = buf.getInt();
+        byte[] target = new byte[length];
+        buf.get(target);
+        return target;
+    }
+
+    public static byte[] source(Bytes key) {
+        ByteBuffer buf = ByteBuffer.wrap(key.get());
+        buf.position(SUPERSTEP_SIZE);
+        int length = buf.getInt();
+        int offset = SUPERSTEP_SIZE + LENGTH_SIZE + length;
+        return Arrays.copyOfRange(key.get(), offset, key.get().length);
+    }
+}
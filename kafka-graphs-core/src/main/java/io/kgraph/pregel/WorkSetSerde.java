@@ -0,0 +1,76 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.kgraph.pregel;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.kafka.common.serialization.Serde;
+
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+
+import io.kgraph.utils.CompactSerde;
+import io.kgraph.utils.KryoUtils;
+import io.vavr.Tuple3;
+
+/**
+ * A serde for workset records of (superstep, source, messages).
+ *
+ * <p>The source is written with the key serde of the graph; messages have no serde of their own,
+ * so each one is written with Kryo.
+ */
+final class WorkSetSerde<K, Message> extends CompactSerde<Tuple3<Integer, K, List<Message>>> {
+
+    private final Serde<K> keySerde;
+
+    WorkSetSerde(Serde<K> keySerde) {
+        this.keySerde = keySerde;
+    }
+
+    @Override
+    protected void write(String topic, Output output, Tuple3<Integer, K, List<Message>> data) {
+        output.writeVarInt(data._1, true);
+        write(topic, output, keySerde, data._2);
+        List<Message> messages = data._3;
+        if (messages == null) {
+            output.writeVarInt(0, true);
+        } else {
+            output.writeVarInt(messages.size() + 1, true);
+            for (Message message : messages) {
+                KryoUtils.writeObject(output, message);
+            }
+        }
+    }
+
+    @Override
+    protected Tuple3<Integer, K, List<Message>> read(String topic, Input input) {
+        int superstep = input.readVarInt(true);
+        K source = read(topic, input, keySerde);
+        int size = input.readVarInt(true);
+        List<Message> messages = null;
+        if (size > 0) {
+            messages = new ArrayList<>(size - 1);
+            for (int i = 0; i < size - 1; i++) {
+                messages.add(KryoUtils.readObject(input));
+            }
+        }
+        return new Tuple3<>(superstep, source, messages);
+    }
+}
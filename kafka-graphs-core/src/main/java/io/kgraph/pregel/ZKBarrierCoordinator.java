@@ -0,0 +1,353 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.kgraph.pregel;
+
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.framework.recipes.cache.TreeCache;
+import org.apache.curator.framework.recipes.leader.LeaderLatch;
+import org.apache.curator.framework.recipes.nodes.GroupMember;
+import org.apache.curator.framework.recipes.shared.SharedCount;
+import org.apache.curator.framework.recipes.shared.SharedCountListener;
+import org.apache.curator.framework.recipes.shared.SharedCountReader;
+import org.apache.curator.framework.recipes.shared.SharedValue;
+import org.apache.curator.framework.recipes.shared.SharedValueListener;
+import org.apache.curator.framework.recipes.shared.SharedValueReader;
+import org.apache.curator.framework.recipes.shared.VersionedValue;
+import org.apache.curator.framework.state.ConnectionState;
+import org.apache.curator.utils.ZKPaths;
+import org.apache.zookeeper.CreateMode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.kgraph.GraphAlgorithmState;
+
+/**
+ * A barrier coordinator backed by ZooKeeper.
+ *
+ * <p>Workers join the group and the leader election of the current generation, which is
+ * incremented on rollback.  Workers that are still alive join the new generation when they next
+ * check for leadership, while workers that died without leaving are no longer counted or elected.
+ */
+public class ZKBarrierCoordinator implements BarrierCoordinator {
+    private static final Logger log = LoggerFactory.getLogger(ZKBarrierCoordinator.class);
+
+    private final CuratorFramework curator;
+    private final String applicationId;
+    private final Set<Runnable> listeners = new CopyOnWriteArraySet<>();
+    private SharedValue sharedValue;
+    private TreeCache barrierCache;
+    private SharedCount generation;
+
+    public ZKBarrierCoordinator(CuratorFramework curator, String applicationId) {
+        this.curator = curator;
+        this.applicationId = applicationId;
+    }
+
+    public CuratorFramework curator() {
+        return curator;
+    }
+
+    @Override
+    public Worker join(String workerName) throws Exception {
+        return new ZKWorker(workerName);
+    }
+
+    private synchronized SharedValue sharedValue(PregelState initialState) throws Exception {
+        if (sharedValue == null) {
+            sharedValue = new SharedValue(curator, ZKPaths.makePath(ZKUtils.PREGEL_PATH + applicationId, ZKUtils.SUPERSTEP), initialState.toBytes());
+            sharedValue.getListenable().addListener(new SharedValueListener() {
+                @Override
+                public void valueHasChanged(SharedValueReader sharedValue, byte[] newValue) {
+                    notifyListeners();
+                }
+
+                @Override
+                public void stateChanged(CuratorFramework client, ConnectionState newState) {
+                }
+            });
+            sharedValue.start();
+        }
+        return sharedValue;
+    }
+
+    private synchronized TreeCache barrierCache() throws Exception {
+        if (barrierCache == null) {
+            barrierCache = new TreeCache(curator, ZKPaths.makePath(ZKUtils.PREGEL_PATH + applicationId, ZKUtils.BARRIERS));
+            barrierCache.getListenable().addListener((client, event) -> notifyListeners());
+            barrierCache.start();
+        }
+        return barrierCache;
+    }
+
+    private synchronized SharedCount generation() throws Exception {
+        if (generation == null) {
+            generation = new SharedCount(curator, ZKPaths.makePath(ZKUtils.PREGEL_PATH + applicationId, ZKUtils.GENERATION), 0);
+            generation.addListener(new SharedCountListener() {
+                @Override
+                public void countHasChanged(SharedCountReader sharedCount, int newCount) {
+                    notifyListeners();
+                }
+
+                @Override
+                public void stateChanged(CuratorFramework client, ConnectionState newState) {
+                }
+            });
+            generation.start();
+        }
+        return generation;
+    }
+
+    private void notifyListeners() {
+        for (Runnable listener : listeners) {
+            listener.run();
+        }
+    }
+
+    @Override
+    public void addListener(Runnable listener) throws Exception {
+        listeners.add(listener);
+        sharedValue(new PregelState(GraphAlgorithmState.State.CREATED, -1, PregelState.Stage.SEND));
+        barrierCache();
+    }
+
+    @Override
+    public void removeListener(Runnable listener) {
+        listeners.remove(listener);
+    }
+
+    @Override
+    public PregelState state(PregelState initialState) throws Exception {
+        return PregelState.fromBytes(sharedValue(initialState).getValue());
+    }
+
+    @Override
+    public void setState(PregelState pregelState) throws Exception {
+        sharedValue(pregelState).setValue(pregelState.toBytes());
+    }
+
+    @Override
+    public boolean isReady(PregelState pregelState) throws Exception {
+        return ZKUtils.isReady(curator, applicationId, pregelState);
+    }
+
+    @Override
+    public boolean hasChild(PregelState pregelState, String child) throws Exception {
+        return ZKUtils.hasChild(curator, applicationId, pregelState, child);
+    }
+
+    @Override
+    public void addChild(PregelState pregelState, String child, boolean ephemeral) throws Exception {
+        ZKUtils.addChild(curator, applicationId, pregelState, child, ephemeral ? CreateMode.EPHEMERAL : CreateMode.PERSISTENT);
+    }
+
+    @Override
+    public void removeChild(PregelState pregelState, String child) throws Exception {
+        ZKUtils.removeChild(curator, applicationId, pregelState, child);
+    }
+
+    @Override
+    public Map<String, byte[]> aggregates(int superstep) throws Exception {
+        String rootPath = ZKUtils.aggregatePath(applicationId, superstep);
+        Map<String, byte[]> result = new HashMap<>();
+        if (curator.checkExists().forPath(rootPath) == null) {
+            return result;
+        }
+        List<String> children = curator.getChildren().forPath(rootPath);
+        if (children != null) {
+            for (String child : children) {
+                result.put(child, curator.getData().forPath(ZKPaths.makePath(rootPath, child)));
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public byte[] aggregate(int superstep, String child) throws Exception {
+        String path = ZKPaths.makePath(ZKUtils.aggregatePath(applicationId, superstep), child);
+        if (curator.checkExists().forPath(path) == null) {
+            return null;
+        }
+        return curator.getData().forPath(path);
+    }
+
+    @Override
+    public void setAggregate(int superstep, String child, byte[] data) throws Exception {
+        String rootPath = ZKUtils.aggregatePath(applicationId, superstep);
+        if (ZKUtils.hasChild(curator, rootPath, child)) {
+            ZKUtils.updateChild(curator, rootPath, child, data);
+        } else {
+            ZKUtils.addChild(curator, rootPath, child, CreateMode.PERSISTENT, data);
+        }
+    }
+
+    @Override
+    public int checkpoint() throws Exception {
+        String path = ZKPaths.makePath(ZKUtils.PREGEL_PATH + applicationId, ZKUtils.CHECKPOINT);
+        if (curator.checkExists().forPath(path) == null) {
+            return -1;
+        }
+        return ByteBuffer.wrap(curator.getData().forPath(path)).getInt();
+    }
+
+    @Override
+    public void setCheckpoint(int superstep) throws Exception {
+        String rootPath = ZKUtils.PREGEL_PATH + applicationId;
+        byte[] data = ByteBuffer.allocate(4).putInt(superstep).array();
+        if (ZKUtils.hasChild(curator, rootPath, ZKUtils.CHECKPOINT)) {
+            ZKUtils.updateChild(curator, rootPath, ZKUtils.CHECKPOINT, data);
+        } else {
+            ZKUtils.addChild(curator, rootPath, ZKUtils.CHECKPOINT, CreateMode.PERSISTENT, data);
+        }
+    }
+
+    @Override
+    public void rollback(int superstep) throws Exception {
+        SharedCount generation = generation();
+        VersionedValue<Integer> current;
+        do {
+            current = generation.getVersionedValue();
+        } while (!generation.trySetCount(current, current.getValue() + 1));
+        log.info("Starting generation {} of application {}", current.getValue() + 1, applicationId);
+        String barriersPath = ZKPaths.makePath(ZKUtils.PREGEL_PATH + applicationId, ZKUtils.BARRIERS);
+        if (curator.checkExists().forPath(barriersPath) != null) {
+            for (String child : curator.getChildren().forPath(barriersPath)) {
+                ZKUtils.removeTree(curator, barriersPath, child);
+            }
+        }
+        String aggregatesPath = ZKPaths.makePath(ZKUtils.PREGEL_PATH + applicationId, ZKUtils.AGGREGATES);
+        if (curator.checkExists().forPath(aggregatesPath) != null) {
+            for (String child : curator.getChildren().forPath(aggregatesPath)) {
+                if (Integer.parseInt(child) >= superstep) {
+                    ZKUtils.removeTree(curator, aggregatesPath, child);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void clear() throws Exception {
+        ZKUtils.removeRoot(curator, applicationId);
+    }
+
+    @Override
+    public synchronized void close() {
+        listeners.clear();
+        if (barrierCache != null) {
+            barrierCache.close();
+            barrierCache = null;
+        }
+        if (sharedValue != null) {
+            try {
+                sharedValue.close();
+            } catch (Exception e) {
+                // ignore
+            }
+            sharedValue = null;
+        }
+        if (generation != null) {
+            try {
+                generation.close();
+            } catch (Exception e) {
+                // ignore
+            }
+            generation = null;
+        }
+    }
+
+    private final class ZKWorker implements Worker {
+        private final String workerName;
+        private int generation = -1;
+        private boolean closed = false;
+        private GroupMember group;
+        private LeaderLatch leaderLatch;
+
+        ZKWorker(String workerName) throws Exception {
+            this.workerName = workerName;
+            rejoin();
+        }
+
+        /**
+         * Joins the group and leader election of the current generation, if not already joined.
+         */
+        private synchronized void rejoin() throws Exception {
+            int current = generation().getCount();
+            if (closed || current == generation) {
+                return;
+            }
+            log.debug("Registering worker {} for generation {} of application {}", workerName, current, applicationId);
+            leave();
+            String rootPath = ZKUtils.PREGEL_PATH + applicationId;
+            group = new GroupMember(curator, ZKPaths.makePath(rootPath, ZKUtils.GROUP, String.valueOf(current)), workerName);
+            group.start();
+            leaderLatch = new LeaderLatch(curator, ZKPaths.makePath(rootPath, ZKUtils.LEADER, String.valueOf(current)));
+            leaderLatch.start();
+            generation = current;
+        }
+
+        private void leave() {
+            if (leaderLatch != null) {
+                try {
+                    leaderLatch.close();
+                } catch (Exception e) {
+                    // ignore
+                }
+                leaderLatch = null;
+            }
+            if (group != null) {
+                group.close();
+                group = null;
+            }
+        }
+
+        @Override
+        public synchronized boolean isLeader() throws Exception {
+            rejoin();
+            return leaderLatch != null && leaderLatch.hasLeadership();
+        }
+
+        @Override
+        public synchronized int groupSize() throws Exception {
+            rejoin();
+            return group != null ? group.getCurrentMembers().size() : 0;
+        }
+
+        @Override
+        public PregelState maybeCreateReadyToSendNode(PregelState pregelState) throws Exception {
+            return ZKUtils.maybeCreateReadyToSendNode(curator, applicationId, pregelState, barrierCache(), groupSize());
+        }
+
+        @Override
+        public PregelState maybeCreateReadyToReceiveNode(PregelState pregelState) throws Exception {
+            return ZKUtils.maybeCreateReadyToReceiveNode(curator, applicationId, pregelState, barrierCache());
+        }
+
+        @Override
+        public synchronized void close() {
+            closed = true;
+            leave();
+        }
+    }
+}
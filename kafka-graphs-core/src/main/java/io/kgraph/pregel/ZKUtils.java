@@ -40,9 +40,12 @@ public class ZKUtils {
 
     public static final String AGGREGATES = "aggregates";
     public static final String BARRIERS = "barriers";
+    public static final String CHECKPOINT = "checkpoint";
+    public static final String GENERATION = "generation";
     public static final String GROUP = "group";
     public static final String LEADER = "leader";
     public static final String READY = "ready";
+    public static final String SESSIONS = "sessions";
     public static final String SUPERSTEP = "superstep";
 
     public static CuratorFramework createCurator(String zookeeperConnect) {
@@ -184,6 +187,17 @@ public class ZKUtils {
         }
     }
 
+    public static void removeTree(CuratorFramework curator, String rootPath,
+                                  String child) throws Exception {
+        String path = ZKPaths.makePath(rootPath, child);
+        try {
+            log.debug("removing tree {}", path);
+            curator.delete().guaranteed().deletingChildrenIfNeeded().forPath(path);
+        } catch (KeeperException.NoNodeException e) {
+            // ignore
+        }
+    }
+
     public static void removeRoot(CuratorFramework curator, String id) throws Exception {
         String path = PREGEL_PATH + id;
         try {
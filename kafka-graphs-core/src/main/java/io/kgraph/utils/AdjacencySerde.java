@@ -0,0 +1,162 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.kgraph.utils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.kafka.common.serialization.Serde;
+import org.apache.kafka.common.serialization.Serdes;
+
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+
+/**
+ * A serde for the edges grouped by source, which packs each adjacency list into a block of
+ * targets followed by a block of edge values.
+ *
+ * <p>Long targets are sorted and written as varint deltas, and long, integer and double edge
+ * values without nulls are written as a primitive array.  Other keys and values are written
+ * with the serdes of the graph.  The deserialized map is a {@link PackedAdjacency} view over the
+ * serialized bytes.
+ */
+public class AdjacencySerde<K, EV> extends CompactSerde<Map<K, EV>> {
+
+    static final byte GENERIC = 0;
+    static final byte SORTED_LONGS = 1;
+    static final byte DOUBLES = 2;
+    static final byte LONGS = 3;
+    static final byte INTS = 4;
+
+    private final Serde<K> keySerde;
+    private final Serde<EV> valueSerde;
+
+    public AdjacencySerde(Serde<K> keySerde, Serde<EV> valueSerde) {
+        this.keySerde = keySerde;
+        this.valueSerde = valueSerde;
+    }
+
+    @Override
+    protected void write(String topic, Output output, Map<K, EV> data) {
+        byte keyLayout = keySerde instanceof Serdes.LongSerde && !data.containsKey(null) ? SORTED_LONGS : GENERIC;
+        byte valueLayout = valueLayout(data);
+        List<Map.Entry<K, EV>> edges;
+        if (keyLayout == SORTED_LONGS) {
+            edges = new ArrayList<>(data.entrySet());
+            edges.sort((e1, e2) -> Long.compare((Long) e1.getKey(), (Long) e2.getKey()));
+        } else {
+            // Keep the order in which a deserialized hash map would iterate the edges
+            edges = new ArrayList<>(new HashMap<>(data).entrySet());
+        }
+        output.writeVarInt(edges.size(), true);
+        output.writeByte(keyLayout);
+        output.writeByte(valueLayout);
+
+        // The targets are written to a separate buffer first, as the reader needs their length
+        Output targets = KryoUtils.borrowOutput();
+        try {
+            long previous = 0L;
+            for (int i = 0; i < edges.size(); i++) {
+                K target = edges.get(i).getKey();
+                if (keyLayout == SORTED_LONGS) {
+                    long id = (Long) target;
+                    if (i == 0) {
+                        targets.writeVarLong(id, false);
+                    } else {
+                        targets.writeVarLong(id - previous, true);
+                    }
+                    previous = id;
+                } else {
+                    write(topic, targets, keySerde, target);
+                }
+            }
+            output.writeVarInt(targets.position(), true);
+            output.writeBytes(targets.getBuffer(), 0, targets.position());
+        } finally {
+            KryoUtils.releaseOutput(targets);
+        }
+
+        for (Map.Entry<K, EV> edge : edges) {
+            EV value = edge.getValue();
+            switch (valueLayout) {
+                case DOUBLES:
+                    output.writeDouble((Double) value);
+                    break;
+                case LONGS:
+                    output.writeVarLong((Long) value, false);
+                    break;
+                case INTS:
+                    output.writeVarInt((Integer) value, false);
+                    break;
+                default:
+                    write(topic, output, valueSerde, value);
+                    break;
+            }
+        }
+    }
+
+    private byte valueLayout(Map<K, EV> data) {
+        if (data.containsValue(null)) {
+            return GENERIC;
+        } else if (valueSerde instanceof Serdes.DoubleSerde) {
+            return DOUBLES;
+        } else if (valueSerde instanceof Serdes.LongSerde) {
+            return LONGS;
+        } else if (valueSerde instanceof Serdes.IntegerSerde) {
+            return INTS;
+        } else {
+            return GENERIC;
+        }
+    }
+
+    @Override
+    protected Map<K, EV> read(String topic, Input input) {
+        int size = input.readVarInt(true);
+        byte keyLayout = input.readByte();
+        byte valueLayout = input.readByte();
+        int targetsLength = input.readVarInt(true);
+        return new PackedAdjacency<>(this, topic, input.getBuffer(), input.position(), targetsLength,
+            input.limit(), size, keyLayout, valueLayout);
+    }
+
+    @SuppressWarnings("unchecked")
+    K readTarget(String topic, Input input, byte keyLayout, int index, long previous) {
+        if (keyLayout == SORTED_LONGS) {
+            return (K) Long.valueOf(index == 0 ? input.readVarLong(false) : previous + input.readVarLong(true));
+        } else {
+            return read(topic, input, keySerde);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    EV readValue(String topic, Input input, byte valueLayout) {
+        switch (valueLayout) {
+            case DOUBLES:
+                return (EV) Double.valueOf(input.readDouble());
+            case LONGS:
+                return (EV) Long.valueOf(input.readVarLong(false));
+            case INTS:
+                return (EV) Integer.valueOf(input.readVarInt(false));
+            default:
+                return read(topic, input, valueSerde);
+        }
+    }
+}
@@ -0,0 +1,248 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.kgraph.utils;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.apache.kafka.common.serialization.Serializer;
+import org.apache.kafka.common.utils.Bytes;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.kgraph.Edge;
+import io.kgraph.GraphSerialized;
+
+/**
+ * Prepares a graph for a Pregel computation by reading the initial vertices and edges topics
+ * directly, rather than through a Kafka Streams topology.
+ *
+ * <p>Each topic is read partition by partition up to its end offsets at the start of the load.
+ * Records are sorted by key with an external sort that spills to local disk, and the last value
+ * of each vertex and edge is kept, as in a table.  The vertices and the edges grouped by source
+ * are then written to the prepared topics, and the returned future completes with the offset of
+ * the last record written to each partition.
+ */
+public class BulkGraphLoader<K, VV, EV> {
+    private static final Logger log = LoggerFactory.getLogger(BulkGraphLoader.class);
+
+    /**
+     * The default number of bytes of records to sort in memory before spilling to disk.
+     */
+    public static final long MAX_BUFFER_BYTES_DEFAULT = 256L * 1024 * 1024;
+
+    private static final byte[] EMPTY = new byte[0];
+
+    private final String bootstrapServers;
+    private final Properties additional;
+    private final GraphSerialized<K, VV, EV> serialized;
+    private final long maxBufferBytes;
+
+    public BulkGraphLoader(String bootstrapServers, Properties additional, GraphSerialized<K, VV, EV> serialized) {
+        this(bootstrapServers, additional, serialized, MAX_BUFFER_BYTES_DEFAULT);
+    }
+
+    public BulkGraphLoader(String bootstrapServers,
+                           Properties additional,
+                           GraphSerialized<K, VV, EV> serialized,
+                           long maxBufferBytes) {
+        this.bootstrapServers = bootstrapServers;
+        this.additional = additional;
+        this.serialized = serialized;
+        this.maxBufferBytes = maxBufferBytes;
+    }
+
+    public CompletableFuture<Map<TopicPartition, Long>> load(String initialVerticesTopic,
+                                                             String initialEdgesTopic,
+                                                             String verticesTopic,
+                                                             String edgesGroupedBySourceTopic,
+                                                             int numPartitions,
+                                                             short replicationFactor) {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return loadGraph(initialVerticesTopic, initialEdgesTopic,
+                    verticesTopic, edgesGroupedBySourceTopic, numPartitions, replicationFactor);
+            } catch (Exception e) {
+                throw toRuntimeException(e);
+            }
+        }, executor).whenComplete((v, t) -> executor.shutdown());
+    }
+
+    private Map<TopicPartition, Long> loadGraph(String initialVerticesTopic,
+                                                String initialEdgesTopic,
+                                                String verticesTopic,
+                                                String edgesGroupedBySourceTopic,
+                                                int numPartitions,
+                                                short replicationFactor) throws Exception {
+        log.info("Started loading graph");
+        Properties adminConfig = new Properties();
+        adminConfig.putAll(additional);
+        adminConfig.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        ClientUtils.createTopic(verticesTopic, numPartitions, replicationFactor, adminConfig);
+        ClientUtils.createTopic(edgesGroupedBySourceTopic, numPartitions, replicationFactor, adminConfig);
+
+        Properties consumerConfig = ClientUtils.consumerConfig(bootstrapServers,
+            "bulk-graph-loader-" + ClientUtils.generateRandomString(8),
+            ByteArrayDeserializer.class, ByteArrayDeserializer.class, additional);
+        consumerConfig.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        Properties producerConfig = ClientUtils.producerConfig(bootstrapServers,
+            ByteArraySerializer.class, ByteArraySerializer.class, additional);
+
+        Map<TopicPartition, Long> lastWrittenOffsets = new ConcurrentHashMap<>();
+        AtomicReference<Exception> error = new AtomicReference<>();
+        File directory = ClientUtils.tempDirectory("kgraph-load");
+        try (Consumer<byte[], byte[]> consumer = new KafkaConsumer<>(consumerConfig);
+             Producer<byte[], byte[]> producer = new KafkaProducer<>(producerConfig)) {
+
+            long vertexCount;
+            try (SpillingSorter sorter = new SpillingSorter(directory, maxBufferBytes)) {
+                ClientUtils.readTopic(consumer, initialVerticesTopic, (key, value) -> sorter.add(key, EMPTY, value));
+                vertexCount = writeVertices(sorter.sorted(), producer, verticesTopic, numPartitions,
+                    lastWrittenOffsets, error);
+            }
+
+            long edgeCount;
+            try (SpillingSorter sorter = new SpillingSorter(directory, maxBufferBytes)) {
+                Deserializer<Edge<K>> edgeDeserializer = new KryoDeserializer<>();
+                Serializer<K> keySerializer = serialized.keySerde().serializer();
+                ClientUtils.readTopic(consumer, initialEdgesTopic, (key, value) -> {
+                    Edge<K> edge = edgeDeserializer.deserialize(initialEdgesTopic, key);
+                    sorter.add(keySerializer.serialize(initialEdgesTopic, edge.source()),
+                        keySerializer.serialize(initialEdgesTopic, edge.target()), value);
+                });
+                if (sorter.numRuns() > 0) {
+                    log.info("Merging {} sorted runs of edges", sorter.numRuns() + 1);
+                }
+                edgeCount = writeEdges(sorter.sorted(), producer, edgesGroupedBySourceTopic, numPartitions,
+                    lastWrittenOffsets, error);
+            }
+
+            producer.flush();
+            if (error.get() != null) {
+                throw error.get();
+            }
+            log.info("Finished loading graph: {} vertices, {} adjacency lists", vertexCount, edgeCount);
+        } finally {
+            if (!directory.delete()) {
+                directory.deleteOnExit();
+            }
+        }
+        return lastWrittenOffsets;
+    }
+
+    private long writeVertices(Iterator<SpillingSorter.Entry> entries, Producer<byte[], byte[]> producer,
+                               String topic, int numPartitions, Map<TopicPartition, Long> lastWrittenOffsets,
+                               AtomicReference<Exception> error) {
+        long count = 0L;
+        SpillingSorter.Entry last = null;
+        while (entries.hasNext()) {
+            SpillingSorter.Entry entry = entries.next();
+            if (last != null && !Arrays.equals(last.key, entry.key)) {
+                count += send(producer, topic, numPartitions, last.key, last.value, lastWrittenOffsets, error);
+            }
+            last = entry;
+        }
+        if (last != null) {
+            count += send(producer, topic, numPartitions, last.key, last.value, lastWrittenOffsets, error);
+        }
+        return count;
+    }
+
+    private long writeEdges(Iterator<SpillingSorter.Entry> entries, Producer<byte[], byte[]> producer,
+                            String topic, int numPartitions, Map<TopicPartition, Long> lastWrittenOffsets,
+                            AtomicReference<Exception> error) {
+        AdjacencySerde<K, EV> edgesSerde = new AdjacencySerde<>(serialized.keySerde(), serialized.edgeValueSerde());
+        Deserializer<K> keyDeserializer = serialized.keySerde().deserializer();
+        Deserializer<EV> valueDeserializer = serialized.edgeValueSerde().deserializer();
+        long count = 0L;
+        byte[] source = null;
+        Map<Bytes, byte[]> targets = new HashMap<>();
+        while (true) {
+            SpillingSorter.Entry entry = entries.hasNext() ? entries.next() : null;
+            if (source != null && (entry == null || !Arrays.equals(source, entry.key))) {
+                if (!targets.isEmpty()) {
+                    Map<K, EV> edges = new HashMap<>();
+                    for (Map.Entry<Bytes, byte[]> target : targets.entrySet()) {
+                        edges.put(keyDeserializer.deserialize(topic, target.getKey().get()),
+                            valueDeserializer.deserialize(topic, target.getValue()));
+                    }
+                    count += send(producer, topic, numPartitions, source, edgesSerde.serialize(topic, edges),
+                        lastWrittenOffsets, error);
+                }
+                targets.clear();
+            }
+            if (entry == null) {
+                break;
+            }
+            source = entry.key;
+            // A null value deletes the edge, as in the edges table
+            if (entry.value != null) {
+                targets.put(Bytes.wrap(entry.subKey), entry.value);
+            } else {
+                targets.remove(Bytes.wrap(entry.subKey));
+            }
+        }
+        return count;
+    }
+
+    private int send(Producer<byte[], byte[]> producer, String topic, int numPartitions, byte[] key, byte[] value,
+                     Map<TopicPartition, Long> lastWrittenOffsets, AtomicReference<Exception> error) {
+        // A deleted vertex is not written
+        if (value == null) {
+            return 0;
+        }
+        K vertex = serialized.keySerde().deserializer().deserialize(topic, key);
+        int partition = serialized.vertexPartitioner().partition(vertex, numPartitions);
+        producer.send(new ProducerRecord<>(topic, partition, key, value), (metadata, e) -> {
+            if (e == null) {
+                lastWrittenOffsets.merge(
+                    new TopicPartition(metadata.topic(), metadata.partition()), metadata.offset(), Math::max);
+            } else {
+                log.error("Failed to send record to {}", topic, e);
+                error.compareAndSet(null, e);
+            }
+        });
+        return 1;
+    }
+
+    private static RuntimeException toRuntimeException(Exception e) {
+        return e instanceof RuntimeException ? (RuntimeException) e : new RuntimeException(e);
+    }
+}
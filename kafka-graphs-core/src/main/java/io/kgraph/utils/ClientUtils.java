@@ -20,17 +20,26 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Random;
+import java.util.stream.Collectors;
 
 import org.apache.kafka.clients.admin.AdminClient;
 import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.clients.consumer.Consumer;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
 import org.apache.kafka.clients.producer.ProducerConfig;
 import org.apache.kafka.common.Configurable;
 import org.apache.kafka.common.KafkaException;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
 import org.apache.kafka.common.serialization.Serde;
 import org.apache.kafka.common.utils.Utils;
 import org.apache.kafka.streams.StreamsConfig;
@@ -40,6 +49,15 @@ import org.slf4j.LoggerFactory;
 public class ClientUtils {
     private static final Logger log = LoggerFactory.getLogger(ClientUtils.class);
 
+    private static final Duration POLL_TIMEOUT = Duration.ofMillis(100);
+
+    /**
+     * Handles the key and value of each record read by {@link #readTopic}.
+     */
+    public interface RecordHandler<E extends Exception> {
+        void handle(byte[] key, byte[] value) throws E;
+    }
+
     /**
      * Create a temporary relative directory in the default temporary-file directory with the given
      * prefix.
@@ -183,6 +201,50 @@ public class ClientUtils {
         adminClient.close();
     }
 
+    /**
+     * Reads every partition of a topic from the beginning up to its end offset at the time of the call,
+     * with a new consumer that does not commit its offsets.
+     *
+     * @param groupIdPrefix the prefix of the random group id of the consumer
+     */
+    public static <E extends Exception> void readTopic(String bootstrapServers, String groupIdPrefix,
+                                                       Properties additional, String topic,
+                                                       RecordHandler<E> handler) throws E {
+        Properties consumerConfig = consumerConfig(bootstrapServers, groupIdPrefix + generateRandomString(8),
+            ByteArrayDeserializer.class, ByteArrayDeserializer.class, additional);
+        consumerConfig.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        try (Consumer<byte[], byte[]> consumer = new KafkaConsumer<>(consumerConfig)) {
+            readTopic(consumer, topic, handler);
+        }
+    }
+
+    /**
+     * Reads every partition of a topic from the beginning up to its end offset at the time of the call,
+     * one partition at a time.  The consumer is left without any assigned partitions.
+     */
+    public static <E extends Exception> void readTopic(Consumer<byte[], byte[]> consumer, String topic,
+                                                       RecordHandler<E> handler) throws E {
+        List<PartitionInfo> infos = consumer.partitionsFor(topic);
+        List<TopicPartition> partitions = infos.stream()
+            .map(info -> new TopicPartition(info.topic(), info.partition()))
+            .collect(Collectors.toList());
+        Map<TopicPartition, Long> endOffsets = consumer.endOffsets(partitions);
+        for (TopicPartition partition : partitions) {
+            long endOffset = endOffsets.get(partition);
+            consumer.assign(Collections.singletonList(partition));
+            consumer.seekToBeginning(Collections.singletonList(partition));
+            while (consumer.position(partition) < endOffset) {
+                for (ConsumerRecord<byte[], byte[]> record : consumer.poll(POLL_TIMEOUT)) {
+                    if (record.offset() < endOffset) {
+                        handler.handle(record.key(), record.value());
+                    }
+                }
+            }
+            log.debug("Read partition {} up to offset {}", partition, endOffset);
+        }
+        consumer.assign(Collections.emptyList());
+    }
+
     public static String generateRandomString(int len) {
         int leftLimit = 97; // letter 'a'
         int rightLimit = 122; // letter 'z'
@@ -0,0 +1,136 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.kgraph.utils;
+
+import java.util.Map;
+
+import org.apache.kafka.common.serialization.Deserializer;
+import org.apache.kafka.common.serialization.Serde;
+import org.apache.kafka.common.serialization.Serdes;
+import org.apache.kafka.common.serialization.Serializer;
+
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+
+/**
+ * Base class for serdes with a fixed binary layout, written into pooled buffers.
+ *
+ * <p>Unlike {@link KryoSerde}, no class names are written; nested values are written with the
+ * serdes of the graph, each prefixed by its length.
+ */
+public abstract class CompactSerde<T> implements Serde<T>, Serializer<T>, Deserializer<T> {
+
+    protected abstract void write(String topic, Output output, T data);
+
+    protected abstract T read(String topic, Input input);
+
+    @Override
+    public byte[] serialize(String topic, T data) {
+        if (data == null) {
+            return null;
+        }
+        Output output = KryoUtils.borrowOutput();
+        try {
+            write(topic, output, data);
+            return output.toBytes();
+        } finally {
+            KryoUtils.releaseOutput(output);
+        }
+    }
+
+    @Override
+    public T deserialize(String topic, byte[] data) {
+        if (data == null) {
+            return null;
+        }
+        return read(topic, new Input(data));
+    }
+
+    /**
+     * Writes a nested value; longs, integers and doubles are written directly, so that small
+     * ids take a single byte.
+     */
+    protected static <V> void write(String topic, Output output, Serde<V> serde, V value) {
+        if (serde instanceof Serdes.LongSerde) {
+            output.writeBoolean(value != null);
+            if (value != null) {
+                output.writeVarLong((Long) value, false);
+            }
+        } else if (serde instanceof Serdes.IntegerSerde) {
+            output.writeBoolean(value != null);
+            if (value != null) {
+                output.writeVarInt((Integer) value, false);
+            }
+        } else if (serde instanceof Serdes.DoubleSerde) {
+            output.writeBoolean(value != null);
+            if (value != null) {
+                output.writeDouble((Double) value);
+            }
+        } else {
+            writeBytes(output, value != null ? serde.serializer().serialize(topic, value) : null);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    protected static <V> V read(String topic, Input input, Serde<V> serde) {
+        if (serde instanceof Serdes.LongSerde) {
+            return input.readBoolean() ? (V) Long.valueOf(input.readVarLong(false)) : null;
+        } else if (serde instanceof Serdes.IntegerSerde) {
+            return input.readBoolean() ? (V) Integer.valueOf(input.readVarInt(false)) : null;
+        } else if (serde instanceof Serdes.DoubleSerde) {
+            return input.readBoolean() ? (V) Double.valueOf(input.readDouble()) : null;
+        } else {
+            byte[] bytes = readBytes(input);
+            return bytes != null ? serde.deserializer().deserialize(topic, bytes) : null;
+        }
+    }
+
+    protected static void writeBytes(Output output, byte[] bytes) {
+        // The length is shifted by one so that null can be told apart from empty
+        if (bytes == null) {
+            output.writeVarInt(0, true);
+        } else {
+            output.writeVarInt(bytes.length + 1, true);
+            output.writeBytes(bytes);
+        }
+    }
+
+    protected static byte[] readBytes(Input input) {
+        int length = input.readVarInt(true);
+        return length > 0 ? input.readBytes(length - 1) : null;
+    }
+
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+    }
+
+    @Override
+    public Serializer<T> serializer() {
+        return this;
+    }
+
+    @Override
+    public Deserializer<T> deserializer() {
+        return this;
+    }
+
+    @Override
+    public void close() {
+    }
+}
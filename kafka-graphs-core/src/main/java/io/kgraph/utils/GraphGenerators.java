@@ -39,14 +39,8 @@ public class GraphGenerators {
 
     public static KGraph<Long, Long, Long> completeGraph(
         StreamsBuilder builder, Properties producerConfig, int numVertices) {
-        List<KeyValue<Edge<Long>, Long>> edgeList = new ArrayList<>();
-        for (long i = 0; i < numVertices; i++) {
-            for (long j = 0; j < numVertices; j++) {
-                if (i != j) edgeList.add(new KeyValue<>(new Edge<>(i, j), 1L));
-            }
-        }
         KTable<Edge<Long>, Long> edges = StreamUtils.tableFromCollection(
-            builder, producerConfig, new KryoSerde<>(), Serdes.Long(), edgeList);
+            builder, producerConfig, new KryoSerde<>(), Serdes.Long(), completeGraphEdges(numVertices));
 
         return KGraph.fromEdges(edges, v -> 1L,
             GraphSerialized.with(Serdes.Long(), Serdes.Long(), Serdes.Long()));
@@ -55,14 +49,8 @@ public class GraphGenerators {
     public static KGraph<Long, Tuple2<Long, Long>, Long> gridGraph(
         StreamsBuilder builder, Properties producerConfig, int numRows, int numCols) {
         BiFunction<Long, Long, Long> posToIdx = (row, col) -> row * numCols + col;
-        List<KeyValue<Long, Tuple2<Long, Long>>> vertexList = new ArrayList<>();
-        for (long row = 0; row < numRows; row++) {
-            for (long col = 0; col < numCols; col++) {
-                vertexList.add(new KeyValue<>(posToIdx.apply(row, col), new Tuple2<>(row, col)));
-            }
-        }
         KTable<Long, Tuple2<Long, Long>> vertices = StreamUtils.tableFromCollection(
-            builder, producerConfig, Serdes.Long(), new KryoSerde<>(), vertexList);
+            builder, producerConfig, Serdes.Long(), new KryoSerde<>(), gridGraphVertices(numRows, numCols));
 
         KTable<Edge<Long>, Long> edges = vertices
             .toStream()
@@ -86,14 +74,56 @@ public class GraphGenerators {
 
     public static KGraph<Long, Long, Long> starGraph(
         StreamsBuilder builder, Properties producerConfig, int numVertices) {
-        List<KeyValue<Edge<Long>, Long>> edgeList = new ArrayList<>();
-        for (long i = 1; i < numVertices; i++) {
-            edgeList.add(new KeyValue<>(new Edge<>(i, 0L), 1L));
-        }
         KTable<Edge<Long>, Long> edges = StreamUtils.tableFromCollection(
-            builder, producerConfig, new KryoSerde<>(), Serdes.Long(), edgeList);
+            builder, producerConfig, new KryoSerde<>(), Serdes.Long(), starGraphEdges(numVertices));
 
         return KGraph.fromEdges(edges, v -> 1L,
             GraphSerialized.with(Serdes.Long(), Serdes.Long(), Serdes.Long()));
     }
+
+    // The methods below only generate the records of a graph, e.g. to pipe into a topology without a broker
+
+    public static List<KeyValue<Edge<Long>, Long>> completeGraphEdges(int numVertices) {
+        List<KeyValue<Edge<Long>, Long>> edgeList = new ArrayList<>();
+        for (long i = 0; i < numVertices; i++) {
+            for (long j = 0; j < numVertices; j++) {
+                if (i != j) edgeList.add(new KeyValue<>(new Edge<>(i, j), 1L));
+            }
+        }
+        return edgeList;
+    }
+
+    public static List<KeyValue<Long, Tuple2<Long, Long>>> gridGraphVertices(int numRows, int numCols) {
+        List<KeyValue<Long, Tuple2<Long, Long>>> vertexList = new ArrayList<>();
+        for (long row = 0; row < numRows; row++) {
+            for (long col = 0; col < numCols; col++) {
+                vertexList.add(new KeyValue<>(row * numCols + col, new Tuple2<>(row, col)));
+            }
+        }
+        return vertexList;
+    }
+
+    public static List<KeyValue<Edge<Long>, Long>> gridGraphEdges(int numRows, int numCols) {
+        List<KeyValue<Edge<Long>, Long>> edgeList = new ArrayList<>();
+        for (long row = 0; row < numRows; row++) {
+            for (long col = 0; col < numCols; col++) {
+                long idx = row * numCols + col;
+                if (row + 1 < numRows) {
+                    edgeList.add(new KeyValue<>(new Edge<>(idx, idx + numCols), 1L));
+                }
+                if (col + 1 < numCols) {
+                    edgeList.add(new KeyValue<>(new Edge<>(idx, idx + 1), 1L));
+                }
+            }
+        }
+        return edgeList;
+    }
+
+    public static List<KeyValue<Edge<Long>, Long>> starGraphEdges(int numVertices) {
+        List<KeyValue<Edge<Long>, Long>> edgeList = new ArrayList<>();
+        for (long i = 1; i < numVertices; i++) {
+            edgeList.add(new KeyValue<>(new Edge<>(i, 0L), 1L));
+        }
+        return edgeList;
+    }
 }
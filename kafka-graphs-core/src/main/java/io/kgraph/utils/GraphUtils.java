@@ -37,6 +37,7 @@ import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.StreamSupport;
 
+import org.apache.kafka.clients.CommonClientConfigs;
 import org.apache.kafka.clients.producer.KafkaProducer;
 import org.apache.kafka.clients.producer.Producer;
 import org.apache.kafka.clients.producer.ProducerConfig;
@@ -60,6 +61,7 @@ import io.kgraph.Edge;
 import io.kgraph.EdgeWithValue;
 import io.kgraph.GraphSerialized;
 import io.kgraph.KGraph;
+import io.kgraph.VertexPartitioner;
 
 public class GraphUtils {
     private static final Logger log = LoggerFactory.getLogger(GraphUtils.class);
@@ -204,7 +206,8 @@ public class GraphUtils {
             streamsConfig
         );
         edgeProducerConfig.setProperty(ProducerConfig.CLIENT_ID_CONFIG, "pregel-edge-producer");
-        Producer<K, Map<K, EV>> edgeProducer = new KafkaProducer<>(edgeProducerConfig);
+        Producer<K, Map<K, EV>> edgeProducer = new KafkaProducer<>(edgeProducerConfig,
+            graph.keySerde().serializer(), new AdjacencySerde<>(graph.keySerde(), graph.edgeValueSerde()));
 
         graph.vertices()
             .toStream()
@@ -212,7 +215,8 @@ public class GraphUtils {
                 vertexCount.incrementAndGet();
                 lastWriteMs.set(System.currentTimeMillis());
             })
-            .process(() -> new SendMessages<>(verticesTopic, vertexProducer, lastWrittenOffsets));
+            .process(() -> new SendMessages<>(verticesTopic, vertexProducer,
+                graph.serialized().vertexPartitioner(), numPartitions, lastWrittenOffsets));
         graph.edgesGroupedBySource()
             .toStream()
             .peek((k, v) -> {
@@ -221,7 +225,8 @@ public class GraphUtils {
             })
             .mapValues(v -> StreamSupport.stream(v.spliterator(), false)
                 .collect(Collectors.toMap(EdgeWithValue::target, EdgeWithValue::value)))
-            .process(() -> new SendMessages<>(edgesGroupedBySourceTopic, edgeProducer, lastWrittenOffsets));
+            .process(() -> new SendMessages<>(edgesGroupedBySourceTopic, edgeProducer,
+                graph.serialized().vertexPartitioner(), numPartitions, lastWrittenOffsets));
 
         Topology topology = builder.build();
         log.debug("Graph description {}", topology.describe());
@@ -251,18 +256,45 @@ public class GraphUtils {
         });
     }
 
+    /**
+     * Writes the vertices and the edges grouped by source like {@link #groupEdgesBySourceAndRepartition},
+     * but reads the initial topics directly with a {@link BulkGraphLoader} instead of running a topology.
+     * The returned offsets are exact once the future completes.
+     */
+    public static <K, VV, EV> CompletableFuture<Map<TopicPartition, Long>> bulkGroupEdgesBySource(
+        Properties props,
+        String initialVerticesTopic,
+        String initialEdgesTopic,
+        GraphSerialized<K, VV, EV> serialized,
+        String verticesTopic,
+        String edgesGroupedBySourceTopic,
+        int numPartitions,
+        short replicationFactor
+    ) {
+        BulkGraphLoader<K, VV, EV> loader = new BulkGraphLoader<>(
+            props.getProperty(CommonClientConfigs.BOOTSTRAP_SERVERS_CONFIG), props, serialized);
+        return loader.load(initialVerticesTopic, initialEdgesTopic, verticesTopic, edgesGroupedBySourceTopic,
+            numPartitions, replicationFactor);
+    }
+
     private static final class SendMessages<K, V> implements Processor<K, V> {
 
         private final String topic;
         private final Producer<K, V> producer;
+        private final VertexPartitioner<K> partitioner;
+        private final int numPartitions;
         private final Map<TopicPartition, Long> lastWrittenOffsets;
 
         public SendMessages(String topic,
                             Producer<K, V> producer,
+                            VertexPartitioner<K> partitioner,
+                            int numPartitions,
                             Map<TopicPartition, Long> lastWrittenOffsets
         ) {
             this.topic = topic;
             this.producer = producer;
+            this.partitioner = partitioner;
+            this.numPartitions = numPartitions;
             this.lastWrittenOffsets = lastWrittenOffsets;
         }
 
@@ -274,7 +306,7 @@ public class GraphUtils {
         public void process(final K readOnlyKey, final V value) {
             try {
                 ProducerRecord<K, V> producerRecord =
-                    new ProducerRecord<>(topic, readOnlyKey, value);
+                    new ProducerRecord<>(topic, partitioner.partition(readOnlyKey, numPartitions), readOnlyKey, value);
                 producer.send(producerRecord, (metadata, error) -> {
                     if (error == null) {
                         try {
@@ -24,8 +24,9 @@ import com.esotericsoftware.kryo.io.Output;
 import com.esotericsoftware.kryo.pool.KryoFactory;
 import com.esotericsoftware.kryo.pool.KryoPool;
 
-import java.io.ByteArrayOutputStream;
+import java.util.ArrayDeque;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -74,24 +75,54 @@ public class KryoUtils {
 
     private static final KryoPool pool = new KryoPool.Builder(factory).softReferences().build();
 
+    private static final int INITIAL_BUFFER_SIZE = 4096;
+    // Larger buffers are not kept, so that a single large record does not pin memory
+    private static final int MAX_POOLED_BUFFER_SIZE = 1024 * 1024;
+
+    // A stack per thread, as serializers may be nested
+    private static final ThreadLocal<Deque<Output>> outputs = ThreadLocal.withInitial(ArrayDeque::new);
+
+    /**
+     * Returns an empty output for the current thread, which should be given back with
+     * {@link #releaseOutput(Output)} once its bytes have been copied.
+     */
+    public static Output borrowOutput() {
+        Output output = outputs.get().pollFirst();
+        return output != null ? output : new Output(INITIAL_BUFFER_SIZE, -1);
+    }
+
+    public static void releaseOutput(Output output) {
+        if (output.getBuffer().length <= MAX_POOLED_BUFFER_SIZE) {
+            output.clear();
+            outputs.get().offerFirst(output);
+        }
+    }
+
     public static byte[] serialize(final Object obj) {
+        Output output = borrowOutput();
+        try {
+            writeObject(output, obj);
+            return output.toBytes();
+        } finally {
+            releaseOutput(output);
+        }
+    }
 
-        return pool.run(kryo -> {
-            ByteArrayOutputStream stream = new ByteArrayOutputStream();
-            Output output = new Output(stream);
+    public static void writeObject(final Output output, final Object obj) {
+        pool.run(kryo -> {
             kryo.writeClassAndObject(output, obj);
-            output.close();
-            return stream.toByteArray();
+            return null;
         });
     }
 
     @SuppressWarnings("unchecked")
+    public static <V> V readObject(final Input input) {
+        return pool.run(kryo -> (V) kryo.readClassAndObject(input));
+    }
+
     public static <V> V deserialize(final byte[] objectData) {
 
-        return pool.run(kryo -> {
-            Input input = new Input(objectData);
-            return (V) kryo.readClassAndObject(input);
-        });
+        return readObject(new Input(objectData));
     }
 
     public static <V> V deepCopy(final V obj) {
@@ -0,0 +1,207 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.kgraph.utils;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A set of longs kept in a single open-addressing array, without boxing or per-entry objects.
+ *
+ * <p>The boxed {@link java.util.Set} methods are supported so that the set can stand in for a
+ * {@code Set<Long>}; iterators do not support removal.  This class is not thread-safe.
+ */
+public class LongHashSet extends AbstractSet<Long> {
+    private static final int MIN_CAPACITY = 16;
+    private static final float LOAD_FACTOR = 0.75f;
+
+    // 0 marks a free slot, so it is tracked separately
+    private long[] keys;
+    private boolean hasZero;
+    private int size;
+    private int mask;
+    private int resizeAt;
+
+    public LongHashSet() {
+        this(MIN_CAPACITY);
+    }
+
+    public LongHashSet(int expectedSize) {
+        int capacity = MIN_CAPACITY;
+        while (capacity * LOAD_FACTOR < expectedSize) {
+            capacity <<= 1;
+        }
+        allocate(capacity);
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        mask = capacity - 1;
+        resizeAt = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private int slot(long key) {
+        int i = hash(key) & mask;
+        while (keys[i] != 0L && keys[i] != key) {
+            i = (i + 1) & mask;
+        }
+        return i;
+    }
+
+    public boolean add(long key) {
+        if (key == 0L) {
+            if (hasZero) {
+                return false;
+            }
+            hasZero = true;
+            size++;
+            return true;
+        }
+        int i = slot(key);
+        if (keys[i] == key) {
+            return false;
+        }
+        keys[i] = key;
+        if (++size > resizeAt) {
+            rehash(keys.length << 1);
+        }
+        return true;
+    }
+
+    public boolean contains(long key) {
+        if (key == 0L) {
+            return hasZero;
+        }
+        return keys[slot(key)] == key;
+    }
+
+    public boolean remove(long key) {
+        if (key == 0L) {
+            if (!hasZero) {
+                return false;
+            }
+            hasZero = false;
+            size--;
+            return true;
+        }
+        int gap = slot(key);
+        if (keys[gap] != key) {
+            return false;
+        }
+        keys[gap] = 0L;
+        size--;
+        // Shift back any following keys that can no longer be reached past the gap
+        int i = (gap + 1) & mask;
+        while (keys[i] != 0L) {
+            int ideal = hash(keys[i]) & mask;
+            if (((i - ideal) & mask) >= ((i - gap) & mask)) {
+                keys[gap] = keys[i];
+                keys[i] = 0L;
+                gap = i;
+            }
+            i = (i + 1) & mask;
+        }
+        return true;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        allocate(capacity);
+        for (long key : oldKeys) {
+            if (key != 0L) {
+                keys[slot(key)] = key;
+            }
+        }
+    }
+
+    @Override
+    public boolean add(Long key) {
+        return add(key.longValue());
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return o instanceof Long && contains(((Long) o).longValue());
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        return o instanceof Long && remove(((Long) o).longValue());
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void clear() {
+        if (size > 0) {
+            if (keys.length > MIN_CAPACITY) {
+                allocate(MIN_CAPACITY);
+            } else {
+                Arrays.fill(keys, 0L);
+            }
+            hasZero = false;
+            size = 0;
+        }
+    }
+
+    @Override
+    public Iterator<Long> iterator() {
+        return new Iterator<Long>() {
+            private boolean zeroPending = hasZero;
+            private int index = nextIndex(0);
+
+            private int nextIndex(int from) {
+                int i = from;
+                while (i < keys.length && keys[i] == 0L) {
+                    i++;
+                }
+                return i;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return zeroPending || index < keys.length;
+            }
+
+            @Override
+            public Long next() {
+                if (zeroPending) {
+                    zeroPending = false;
+                    return 0L;
+                }
+                if (index >= keys.length) {
+                    throw new NoSuchElementException();
+                }
+                long key = keys[index];
+                index = nextIndex(index + 1);
+                return key;
+            }
+        };
+    }
+}
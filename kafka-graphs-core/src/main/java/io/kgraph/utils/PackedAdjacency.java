@@ -0,0 +1,139 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.kgraph.utils;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import com.esotericsoftware.kryo.io.Input;
+
+/**
+ * A read view over an adjacency list written by {@link AdjacencySerde}.
+ *
+ * <p>Iterating the view decodes the edges from the serialized bytes, without building a hash map.
+ * Lookups scan the edges; the first modification copies them into a {@link HashMap}, which then
+ * backs the view.
+ */
+public class PackedAdjacency<K, EV> extends AbstractMap<K, EV> {
+
+    private final AdjacencySerde<K, EV> serde;
+    private final String topic;
+    private final byte[] data;
+    private final int targetsOffset;
+    private final int valuesOffset;
+    private final int limit;
+    private final int size;
+    private final byte keyLayout;
+    private final byte valueLayout;
+
+    private Map<K, EV> modified;
+
+    PackedAdjacency(AdjacencySerde<K, EV> serde, String topic, byte[] data, int targetsOffset, int targetsLength,
+                    int limit, int size, byte keyLayout, byte valueLayout) {
+        this.serde = serde;
+        this.topic = topic;
+        this.data = data;
+        this.targetsOffset = targetsOffset;
+        this.valuesOffset = targetsOffset + targetsLength;
+        this.limit = limit;
+        this.size = size;
+        this.keyLayout = keyLayout;
+        this.valueLayout = valueLayout;
+    }
+
+    @Override
+    public int size() {
+        return modified != null ? modified.size() : size;
+    }
+
+    @Override
+    public Set<Entry<K, EV>> entrySet() {
+        if (modified != null) {
+            return modified.entrySet();
+        }
+        return new AbstractSet<Entry<K, EV>>() {
+            @Override
+            public Iterator<Entry<K, EV>> iterator() {
+                return new EdgeIterator();
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    @Override
+    public EV put(K key, EV value) {
+        return modified().put(key, value);
+    }
+
+    @Override
+    public EV remove(Object key) {
+        return modified().remove(key);
+    }
+
+    @Override
+    public void clear() {
+        modified().clear();
+    }
+
+    private Map<K, EV> modified() {
+        if (modified == null) {
+            Map<K, EV> map = new HashMap<>((int) (size / 0.75f) + 1);
+            for (Entry<K, EV> edge : entrySet()) {
+                map.put(edge.getKey(), edge.getValue());
+            }
+            modified = map;
+        }
+        return modified;
+    }
+
+    private final class EdgeIterator implements Iterator<Entry<K, EV>> {
+        private final Input targets = new Input(data, targetsOffset, valuesOffset - targetsOffset);
+        private final Input values = new Input(data, valuesOffset, limit - valuesOffset);
+        private int index = 0;
+        private long previous = 0L;
+
+        @Override
+        public boolean hasNext() {
+            return index < size;
+        }
+
+        @Override
+        public Entry<K, EV> next() {
+            if (index >= size) {
+                throw new NoSuchElementException();
+            }
+            K target = serde.readTarget(topic, targets, keyLayout, index, previous);
+            if (keyLayout == AdjacencySerde.SORTED_LONGS) {
+                previous = (Long) target;
+            }
+            EV value = serde.readValue(topic, values, valueLayout);
+            index++;
+            return new SimpleImmutableEntry<>(target, value);
+        }
+    }
+}
@@ -0,0 +1,468 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.kgraph.utils;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.DoubleSerializer;
+import org.apache.kafka.common.serialization.LongSerializer;
+import org.apache.kafka.common.serialization.Serializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.kgraph.Edge;
+
+/**
+ * Imports vertices and edges with long ids from files into topics, in the formats read by
+ * {@link io.kgraph.KGraph}: vertices are keyed by id, and edges by a Kryo-serialized {@link Edge}.
+ *
+ * <p>The file is memory-mapped and split into chunks that are parsed on separate threads into
+ * primitive buffers.  Records are written by a single producer, which batches and compresses them
+ * per partition.  Text files have a vertex or edge per line, with whitespace-separated ids and an
+ * optional value, as read by {@link GraphUtils#verticesToTopic} and {@link GraphUtils#edgesToTopic}.
+ * Binary files have fixed-size big-endian records: an id, or a source and target id, each
+ * followed by a value if the import has values.
+ */
+public class ParallelImporter implements Closeable {
+    private static final Logger log = LoggerFactory.getLogger(ParallelImporter.class);
+
+    public enum Format {
+        TEXT,
+        BINARY
+    }
+
+    public enum ValueType {
+        NONE,
+        LONG,
+        DOUBLE
+    }
+
+    private static final int BATCH_SIZE = 64 * 1024;
+    // Chunks are mapped separately, so each must fit in a mapped buffer
+    private static final long MAX_CHUNK_SIZE = Integer.MAX_VALUE;
+    private static final int CHUNKS_PER_THREAD = 4;
+    private static final long REPORT_INTERVAL_MS = 10000L;
+
+    private final Producer<byte[], byte[]> producer;
+    private final int numThreads;
+    private final Format format;
+    private final ValueType valueType;
+
+    private final Serializer<Long> idSerializer = new LongSerializer();
+    private final Serializer<Edge<Long>> edgeSerializer = new KryoSerializer<>();
+    private final Serializer<Long> longSerializer = new LongSerializer();
+    private final Serializer<Double> doubleSerializer = new DoubleSerializer();
+
+    public ParallelImporter(String bootstrapServers, Properties additional,
+                            int numThreads, Format format, ValueType valueType) {
+        this(new KafkaProducer<>(producerConfig(bootstrapServers, additional)), numThreads, format, valueType);
+    }
+
+    public ParallelImporter(Producer<byte[], byte[]> producer, int numThreads, Format format, ValueType valueType) {
+        this.producer = producer;
+        this.numThreads = numThreads;
+        this.format = format;
+        this.valueType = valueType;
+    }
+
+    /**
+     * Returns a producer configuration for bulk loads, which the given properties override.
+     */
+    public static Properties producerConfig(String bootstrapServers, Properties additional) {
+        Properties defaults = new Properties();
+        defaults.put(ProducerConfig.BATCH_SIZE_CONFIG, 256 * 1024);
+        defaults.put(ProducerConfig.LINGER_MS_CONFIG, 50);
+        defaults.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, "lz4");
+        defaults.put(ProducerConfig.BUFFER_MEMORY_CONFIG, 256L * 1024 * 1024);
+        defaults.putAll(additional);
+        return ClientUtils.producerConfig(bootstrapServers, ByteArraySerializer.class, ByteArraySerializer.class, defaults);
+    }
+
+    public Report importVertices(File file, String topic) throws IOException {
+        return importFile(file, topic, false);
+    }
+
+    public Report importEdges(File file, String topic) throws IOException {
+        return importFile(file, topic, true);
+    }
+
+    @Override
+    public void close() {
+        producer.close();
+    }
+
+    private Report importFile(File file, String topic, boolean edges) throws IOException {
+        long start = System.currentTimeMillis();
+        Progress progress = new Progress(file.length());
+        AtomicReference<Exception> error = new AtomicReference<>();
+        ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+        ScheduledExecutorService reporter = Executors.newSingleThreadScheduledExecutor();
+        reporter.scheduleAtFixedRate(() -> log.info("Importing {}: {}", file, progress.report(start)),
+            REPORT_INTERVAL_MS, REPORT_INTERVAL_MS, TimeUnit.MILLISECONDS);
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            int recordSize = format == Format.BINARY ? recordSize(edges) : 0;
+            List<long[]> chunks = chunks(channel, numThreads * CHUNKS_PER_THREAD, recordSize);
+            List<Future<?>> futures = new ArrayList<>();
+            for (long[] chunk : chunks) {
+                futures.add(executor.submit(() -> {
+                    MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, chunk[0], chunk[1] - chunk[0]);
+                    Batch batch = new Batch(edges);
+                    if (format == Format.BINARY) {
+                        readBinary(buffer, batch, b -> send(topic, b, progress, error));
+                    } else {
+                        readText(buffer, batch, b -> send(topic, b, progress, error));
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            producer.flush();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw toRuntimeException(e);
+        } catch (ExecutionException e) {
+            throw toRuntimeException(e.getCause() instanceof Exception ? (Exception) e.getCause() : e);
+        } finally {
+            executor.shutdownNow();
+            reporter.shutdownNow();
+        }
+        if (error.get() != null) {
+            throw toRuntimeException(error.get());
+        }
+        Report report = progress.toReport(start);
+        log.info("Imported {} into {}: {}", file, topic, report);
+        return report;
+    }
+
+    private int recordSize(boolean edges) {
+        return (edges ? 16 : 8) + (valueType != ValueType.NONE ? 8 : 0);
+    }
+
+    /**
+     * Splits the file into about the given number of chunks, each ending at a line boundary, or
+     * at a record boundary if the record size is positive.
+     */
+    static List<long[]> chunks(FileChannel channel, int count, int recordSize) throws IOException {
+        long size = channel.size();
+        long chunkSize = Math.min(Math.max(size / Math.max(count, 1), 1), MAX_CHUNK_SIZE - 1024 * 1024);
+        if (recordSize > 0) {
+            chunkSize = Math.max(chunkSize / recordSize, 1) * recordSize;
+        }
+        List<long[]> chunks = new ArrayList<>();
+        long start = 0;
+        while (start < size) {
+            long end = Math.min(start + chunkSize, size);
+            if (recordSize == 0 && end < size) {
+                end = nextLine(channel, end, size);
+            }
+            chunks.add(new long[]{start, end});
+            start = end;
+        }
+        return chunks;
+    }
+
+    // Returns the position after the next newline at or after the given position
+    private static long nextLine(FileChannel channel, long position, long size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(4096);
+        long pos = position;
+        while (pos < size) {
+            buffer.clear();
+            int read = channel.read(buffer, pos);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == '\n') {
+                    return pos + i + 1;
+                }
+            }
+            pos += read;
+        }
+        return size;
+    }
+
+    void readText(ByteBuffer buffer, Batch batch, BatchConsumer consumer) {
+        long[] fields = new long[3];
+        double[] doubleValue = new double[1];
+        while (buffer.hasRemaining()) {
+            int lineStart = buffer.position();
+            int numFields = 0;
+            boolean hasValue = false;
+            while (buffer.hasRemaining()) {
+                byte b = buffer.get(buffer.position());
+                if (b == '\n') {
+                    buffer.get();
+                    break;
+                } else if (isWhitespace(b)) {
+                    buffer.get();
+                } else {
+                    int ids = batch.edges ? 2 : 1;
+                    if (numFields < ids) {
+                        fields[numFields++] = parseLong(buffer);
+                    } else if (numFields == ids && valueType != ValueType.NONE) {
+                        if (valueType == ValueType.DOUBLE) {
+                            doubleValue[0] = parseDouble(buffer);
+                        } else {
+                            fields[numFields] = parseLong(buffer);
+                        }
+                        numFields++;
+                        hasValue = true;
+                    } else {
+                        skipToken(buffer);
+                    }
+                }
+            }
+            if (numFields == 0) {
+                continue;
+            }
+            if (numFields < (batch.edges ? 2 : 1)) {
+                throw new IllegalArgumentException("Invalid line at offset " + lineStart);
+            }
+            batch.add(fields[0], fields[1], hasValue, valueType == ValueType.DOUBLE
+                ? Double.doubleToRawLongBits(doubleValue[0]) : fields[batch.edges ? 2 : 1]);
+            if (batch.size == BATCH_SIZE) {
+                consumer.accept(batch);
+                batch.clear();
+            }
+        }
+        if (batch.size > 0) {
+            consumer.accept(batch);
+            batch.clear();
+        }
+    }
+
+    void readBinary(ByteBuffer buffer, Batch batch, BatchConsumer consumer) {
+        boolean hasValue = valueType != ValueType.NONE;
+        int recordSize = recordSize(batch.edges);
+        while (buffer.remaining() >= recordSize) {
+            long id = buffer.getLong();
+            long target = batch.edges ? buffer.getLong() : 0L;
+            // Double values are kept as their raw bits
+            long value = hasValue ? buffer.getLong() : 0L;
+            batch.add(id, target, hasValue, value);
+            if (batch.size == BATCH_SIZE) {
+                consumer.accept(batch);
+                batch.clear();
+            }
+        }
+        if (batch.size > 0) {
+            consumer.accept(batch);
+            batch.clear();
+        }
+    }
+
+    private void send(String topic, Batch batch, Progress progress, AtomicReference<Exception> error) {
+        if (error.get() != null) {
+            throw toRuntimeException(error.get());
+        }
+        for (int i = 0; i < batch.size; i++) {
+            byte[] key = batch.edges
+                ? edgeSerializer.serialize(topic, new Edge<>(batch.ids[i], batch.targets[i]))
+                : idSerializer.serialize(topic, batch.ids[i]);
+            byte[] value = null;
+            if (batch.hasValues[i]) {
+                value = valueType == ValueType.DOUBLE
+                    ? doubleSerializer.serialize(topic, Double.longBitsToDouble(batch.values[i]))
+                    : longSerializer.serialize(topic, batch.values[i]);
+            }
+            progress.bytes.addAndGet(key.length + (value != null ? value.length : 0));
+            producer.send(new ProducerRecord<>(topic, key, value), (metadata, e) -> {
+                if (e != null) {
+                    error.compareAndSet(null, e);
+                }
+            });
+        }
+        progress.records.addAndGet(batch.size);
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\t' || b == '\r';
+    }
+
+    private static long parseLong(ByteBuffer buffer) {
+        boolean negative = false;
+        if (buffer.get(buffer.position()) == '-') {
+            negative = true;
+            buffer.get();
+        }
+        long result = 0L;
+        int digits = 0;
+        while (buffer.hasRemaining()) {
+            byte b = buffer.get(buffer.position());
+            if (b < '0' || b > '9') {
+                break;
+            }
+            result = result * 10 + (b - '0');
+            digits++;
+            buffer.get();
+        }
+        if (digits == 0 || (buffer.hasRemaining() && !isDelimiter(buffer.get(buffer.position())))) {
+            throw new NumberFormatException("Invalid number at offset " + buffer.position());
+        }
+        return negative ? -result : result;
+    }
+
+    private static double parseDouble(ByteBuffer buffer) {
+        int start = buffer.position();
+        skipToken(buffer);
+        byte[] token = new byte[buffer.position() - start];
+        for (int i = 0; i < token.length; i++) {
+            token[i] = buffer.get(start + i);
+        }
+        return Double.parseDouble(new String(token, StandardCharsets.US_ASCII));
+    }
+
+    private static void skipToken(ByteBuffer buffer) {
+        while (buffer.hasRemaining() && !isDelimiter(buffer.get(buffer.position()))) {
+            buffer.get();
+        }
+    }
+
+    private static boolean isDelimiter(byte b) {
+        return b == '\n' || isWhitespace(b);
+    }
+
+    interface BatchConsumer {
+        void accept(Batch batch);
+    }
+
+    /**
+     * Parsed records, kept in primitive arrays until they are sent.
+     */
+    static final class Batch {
+        final boolean edges;
+        final long[] ids = new long[BATCH_SIZE];
+        final long[] targets;
+        final long[] values = new long[BATCH_SIZE];
+        final boolean[] hasValues = new boolean[BATCH_SIZE];
+        int size;
+
+        Batch(boolean edges) {
+            this.edges = edges;
+            this.targets = edges ? new long[BATCH_SIZE] : null;
+        }
+
+        void add(long id, long target, boolean hasValue, long value) {
+            ids[size] = id;
+            if (edges) {
+                targets[size] = target;
+            }
+            hasValues[size] = hasValue;
+            values[size] = value;
+            size++;
+        }
+
+        void clear() {
+            size = 0;
+        }
+    }
+
+    private static final class Progress {
+        final long fileSize;
+        final AtomicLong records = new AtomicLong();
+        final AtomicLong bytes = new AtomicLong();
+
+        Progress(long fileSize) {
+            this.fileSize = fileSize;
+        }
+
+        String report(long start) {
+            return toReport(start).toString();
+        }
+
+        Report toReport(long start) {
+            return new Report(records.get(), bytes.get(), fileSize, System.currentTimeMillis() - start);
+        }
+    }
+
+    /**
+     * The number of records imported, and how long it took.
+     */
+    public static final class Report {
+        private final long records;
+        private final long bytes;
+        private final long fileSize;
+        private final long elapsedMs;
+
+        Report(long records, long bytes, long fileSize, long elapsedMs) {
+            this.records = records;
+            this.bytes = bytes;
+            this.fileSize = fileSize;
+            this.elapsedMs = elapsedMs;
+        }
+
+        public long records() {
+            return records;
+        }
+
+        /**
+         * The serialized size of the keys and values sent.
+         */
+        public long bytes() {
+            return bytes;
+        }
+
+        public long fileSize() {
+            return fileSize;
+        }
+
+        public long elapsedMs() {
+            return elapsedMs;
+        }
+
+        public double recordsPerSecond() {
+            return elapsedMs > 0 ? records * 1000.0 / elapsedMs : 0.0;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d records, %d bytes from a %d byte file in %d ms (%.0f records/s)",
+                records, bytes, fileSize, elapsedMs, recordsPerSecond());
+        }
+    }
+
+    private static RuntimeException toRuntimeException(Exception e) {
+        return e instanceof RuntimeException ? (RuntimeException) e : new RuntimeException(e);
+    }
+}
@@ -0,0 +1,257 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.kgraph.utils;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+
+import org.apache.kafka.common.utils.Bytes;
+
+/**
+ * Sorts entries by key, keeping entries with the same key in the order they were added.
+ *
+ * <p>Entries are buffered in memory up to a size limit, after which the buffer is sorted and
+ * spilled to a file.  The sorted entries are read by merging the spilled runs.
+ */
+final class SpillingSorter implements Closeable {
+
+    private static final int ENTRY_OVERHEAD = 64;
+
+    private static final Comparator<Entry> ORDER = (e1, e2) -> {
+        int cmp = Bytes.BYTES_LEXICO_COMPARATOR.compare(e1.key, e2.key);
+        return cmp != 0 ? cmp : Long.compare(e1.seq, e2.seq);
+    };
+
+    private final File directory;
+    private final long maxBufferBytes;
+    private final List<Entry> buffer = new ArrayList<>();
+    private final List<Run> runs = new ArrayList<>();
+    private final List<DataInputStream> readers = new ArrayList<>();
+    private long bufferBytes = 0L;
+    private long seq = 0L;
+
+    SpillingSorter(File directory, long maxBufferBytes) {
+        this.directory = directory;
+        this.maxBufferBytes = maxBufferBytes;
+    }
+
+    /**
+     * Adds an entry; a null value is kept, so that it can mark a deletion.
+     */
+    void add(byte[] key, byte[] subKey, byte[] value) throws IOException {
+        Entry entry = new Entry(key, subKey, value, seq++);
+        buffer.add(entry);
+        bufferBytes += entry.size();
+        if (bufferBytes >= maxBufferBytes) {
+            spill();
+        }
+    }
+
+    int numRuns() {
+        return runs.size();
+    }
+
+    /**
+     * Returns the entries added so far in sorted order.  No entries may be added afterwards.
+     */
+    Iterator<Entry> sorted() throws IOException {
+        buffer.sort(ORDER);
+        if (runs.isEmpty()) {
+            return buffer.iterator();
+        }
+        List<Iterator<Entry>> iterators = new ArrayList<>();
+        iterators.add(buffer.iterator());
+        for (Run run : runs) {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(run.file), 64 * 1024));
+            readers.add(in);
+            iterators.add(new RunIterator(in, run.count));
+        }
+        return new MergeIterator(iterators);
+    }
+
+    private void spill() throws IOException {
+        buffer.sort(ORDER);
+        File file = File.createTempFile("run-", ".bin", directory);
+        file.deleteOnExit();
+        try (DataOutputStream out =
+                 new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 64 * 1024))) {
+            for (Entry entry : buffer) {
+                entry.writeTo(out);
+            }
+        }
+        runs.add(new Run(file, buffer.size()));
+        buffer.clear();
+        bufferBytes = 0L;
+    }
+
+    @Override
+    public void close() {
+        for (DataInputStream reader : readers) {
+            try {
+                reader.close();
+            } catch (IOException e) {
+                // ignore
+            }
+        }
+        for (Run run : runs) {
+            if (!run.file.delete()) {
+                run.file.deleteOnExit();
+            }
+        }
+        buffer.clear();
+        readers.clear();
+        runs.clear();
+    }
+
+    static final class Entry {
+        final byte[] key;
+        final byte[] subKey;
+        final byte[] value;
+        final long seq;
+
+        Entry(byte[] key, byte[] subKey, byte[] value, long seq) {
+            this.key = key;
+            this.subKey = subKey;
+            this.value = value;
+            this.seq = seq;
+        }
+
+        long size() {
+            return key.length + subKey.length + (value != null ? value.length : 0) + ENTRY_OVERHEAD;
+        }
+
+        void writeTo(DataOutputStream out) throws IOException {
+            out.writeInt(key.length);
+            out.write(key);
+            out.writeInt(subKey.length);
+            out.write(subKey);
+            out.writeInt(value != null ? value.length : -1);
+            if (value != null) {
+                out.write(value);
+            }
+            out.writeLong(seq);
+        }
+
+        static Entry readFrom(DataInputStream in) throws IOException {
+            byte[] key = new byte[in.readInt()];
+            in.readFully(key);
+            byte[] subKey = new byte[in.readInt()];
+            in.readFully(subKey);
+            int valueLength = in.readInt();
+            byte[] value = null;
+            if (valueLength >= 0) {
+                value = new byte[valueLength];
+                in.readFully(value);
+            }
+            return new Entry(key, subKey, value, in.readLong());
+        }
+    }
+
+    private static final class Run {
+        final File file;
+        final int count;
+
+        Run(File file, int count) {
+            this.file = file;
+            this.count = count;
+        }
+    }
+
+    private static final class RunIterator implements Iterator<Entry> {
+        private final DataInputStream in;
+        private int remaining;
+
+        RunIterator(DataInputStream in, int count) {
+            this.in = in;
+            this.remaining = count;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return remaining > 0;
+        }
+
+        @Override
+        public Entry next() {
+            if (remaining <= 0) {
+                throw new NoSuchElementException();
+            }
+            try {
+                remaining--;
+                return Entry.readFrom(in);
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        }
+    }
+
+    private static final class MergeIterator implements Iterator<Entry> {
+        private final PriorityQueue<Head> heads =
+            new PriorityQueue<>((h1, h2) -> ORDER.compare(h1.entry, h2.entry));
+
+        MergeIterator(List<Iterator<Entry>> iterators) {
+            for (Iterator<Entry> iterator : iterators) {
+                if (iterator.hasNext()) {
+                    heads.add(new Head(iterator.next(), iterator));
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !heads.isEmpty();
+        }
+
+        @Override
+        public Entry next() {
+            Head head = heads.poll();
+            if (head == null) {
+                throw new NoSuchElementException();
+            }
+            Entry entry = head.entry;
+            if (head.iterator.hasNext()) {
+                heads.add(new Head(head.iterator.next(), head.iterator));
+            }
+            return entry;
+        }
+    }
+
+    private static final class Head {
+        final Entry entry;
+        final Iterator<Entry> iterator;
+
+        Head(Entry entry, Iterator<Entry> iterator) {
+            this.entry = entry;
+            this.iterator = iterator;
+        }
+    }
+}
@@ -0,0 +1,248 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.kgraph.utils;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.apache.kafka.common.serialization.IntegerSerializer;
+import org.apache.kafka.common.serialization.Serde;
+import org.apache.kafka.common.serialization.Serdes;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.kgraph.AssignedVertexPartitioner;
+import io.kgraph.Edge;
+import io.kgraph.HashVertexPartitioner;
+
+/**
+ * Assigns the vertices of a graph to partitions in a single streaming pass, with the linear
+ * deterministic greedy (LDG) or the Fennel heuristic, so that most edges have both endpoints in the
+ * same partition.
+ *
+ * <p>The initial edges topic is read partition by partition up to its end offsets, and the
+ * neighbors of each vertex are kept in memory, ignoring edge directions.  The vertices are then
+ * placed in the order in which they first appear, each in the partition that holds the most of its
+ * already placed neighbors, less a penalty for the size of the partition: LDG scales the neighbor
+ * count by the remaining capacity of the partition, while Fennel subtracts the marginal cost of
+ * growing the partition.  No partition holds more than the slack times its share of the vertices.
+ *
+ * <p>The assignment is written to a topic keyed by vertex, from which {@link #load} reads it back
+ * into an {@link AssignedVertexPartitioner}, to be given to
+ * {@link io.kgraph.GraphSerialized#withVertexPartitioner} when the graph is prepared and run.
+ */
+public class StreamingGraphPartitioner<K> {
+    private static final Logger log = LoggerFactory.getLogger(StreamingGraphPartitioner.class);
+
+    public enum Heuristic {
+        LDG,
+        FENNEL
+    }
+
+    /**
+     * The default maximum size of a partition, relative to an equal share of the vertices.
+     */
+    public static final double SLACK_DEFAULT = 1.1;
+
+    private static final double FENNEL_GAMMA = 1.5;
+
+    private final String bootstrapServers;
+    private final Properties additional;
+    private final Serde<K> keySerde;
+    private final Heuristic heuristic;
+    private final double slack;
+
+    public StreamingGraphPartitioner(String bootstrapServers, Properties additional, Serde<K> keySerde,
+                                     Heuristic heuristic) {
+        this(bootstrapServers, additional, keySerde, heuristic, SLACK_DEFAULT);
+    }
+
+    public StreamingGraphPartitioner(String bootstrapServers, Properties additional, Serde<K> keySerde,
+                                     Heuristic heuristic, double slack) {
+        if (slack < 1.0) {
+            throw new IllegalArgumentException("Slack must be at least 1");
+        }
+        this.bootstrapServers = bootstrapServers;
+        this.additional = additional;
+        this.keySerde = keySerde;
+        this.heuristic = heuristic;
+        this.slack = slack;
+    }
+
+    public CompletableFuture<Result<K>> partition(String initialEdgesTopic,
+                                                  String assignmentTopic,
+                                                  int numPartitions,
+                                                  short replicationFactor) {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return partitionGraph(initialEdgesTopic, assignmentTopic, numPartitions, replicationFactor);
+            } catch (Exception e) {
+                throw toRuntimeException(e);
+            }
+        }, executor).whenComplete((v, t) -> executor.shutdown());
+    }
+
+    private Result<K> partitionGraph(String initialEdgesTopic,
+                                     String assignmentTopic,
+                                     int numPartitions,
+                                     short replicationFactor) throws Exception {
+        log.info("Started partitioning graph");
+        // The last value of each edge is kept, as in the edges table
+        Set<Edge<K>> edges = new LinkedHashSet<>();
+        Deserializer<Edge<K>> edgeDeserializer = new KryoDeserializer<>();
+        ClientUtils.readTopic(bootstrapServers, "graph-partitioner-", additional, initialEdgesTopic, (key, value) -> {
+            Edge<K> edge = edgeDeserializer.deserialize(initialEdgesTopic, key);
+            if (value != null) {
+                edges.add(edge);
+            } else {
+                edges.remove(edge);
+            }
+        });
+
+        Map<K, Set<K>> neighbors = new LinkedHashMap<>();
+        for (Edge<K> edge : edges) {
+            neighbors.computeIfAbsent(edge.source(), k -> new LinkedHashSet<>()).add(edge.target());
+            neighbors.computeIfAbsent(edge.target(), k -> new LinkedHashSet<>()).add(edge.source());
+        }
+        Map<K, Integer> assignments = assign(neighbors, numPartitions);
+
+        long cutEdges = edges.stream()
+            .filter(edge -> !assignments.get(edge.source()).equals(assignments.get(edge.target())))
+            .count();
+        double edgeCutRatio = edges.isEmpty() ? 0.0 : (double) cutEdges / edges.size();
+
+        Properties adminConfig = new Properties();
+        adminConfig.putAll(additional);
+        adminConfig.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        ClientUtils.createTopic(assignmentTopic, numPartitions, replicationFactor, adminConfig);
+        Properties producerConfig = ClientUtils.producerConfig(bootstrapServers,
+            keySerde.serializer().getClass(), IntegerSerializer.class, additional);
+        try (Producer<K, Integer> producer =
+                 new KafkaProducer<>(producerConfig, keySerde.serializer(), new IntegerSerializer())) {
+            for (Map.Entry<K, Integer> entry : assignments.entrySet()) {
+                producer.send(new ProducerRecord<>(assignmentTopic, entry.getValue(), entry.getKey(), entry.getValue()));
+            }
+            producer.flush();
+        }
+        log.info("Finished partitioning graph: {} vertices, {} edges, edge cut ratio {}",
+            assignments.size(), edges.size(), edgeCutRatio);
+        return new Result<>(new AssignedVertexPartitioner<>(assignments,
+            new HashVertexPartitioner<>(keySerde.serializer())), edgeCutRatio);
+    }
+
+    // visible for testing
+    Map<K, Integer> assign(Map<K, Set<K>> neighbors, int numPartitions) {
+        int numVertices = neighbors.size();
+        long numEdges = neighbors.values().stream().mapToLong(Set::size).sum() / 2;
+        int capacity = (int) Math.ceil(slack * numVertices / numPartitions);
+        // Fennel's alpha balances the cost of the partition sizes against the number of cut edges
+        double alpha = numVertices > 0
+            ? Math.sqrt(numPartitions) * numEdges / Math.pow(numVertices, FENNEL_GAMMA)
+            : 0.0;
+
+        Map<K, Integer> assignments = new HashMap<>();
+        int[] sizes = new int[numPartitions];
+        int[] placedNeighbors = new int[numPartitions];
+        for (Map.Entry<K, Set<K>> entry : neighbors.entrySet()) {
+            Arrays.fill(placedNeighbors, 0);
+            for (K neighbor : entry.getValue()) {
+                Integer partition = assignments.get(neighbor);
+                if (partition != null) {
+                    placedNeighbors[partition]++;
+                }
+            }
+            int best = -1;
+            double bestScore = Double.NEGATIVE_INFINITY;
+            for (int i = 0; i < numPartitions; i++) {
+                if (sizes[i] >= capacity) {
+                    continue;
+                }
+                double score = heuristic == Heuristic.LDG
+                    ? placedNeighbors[i] * (1.0 - (double) sizes[i] / capacity)
+                    : placedNeighbors[i] - alpha * FENNEL_GAMMA * Math.pow(sizes[i], FENNEL_GAMMA - 1);
+                // Ties go to the smallest partition
+                int cmp = Double.compare(score, bestScore);
+                if (cmp > 0 || (cmp == 0 && sizes[i] < sizes[best])) {
+                    best = i;
+                    bestScore = score;
+                }
+            }
+            assignments.put(entry.getKey(), best);
+            sizes[best]++;
+        }
+        return assignments;
+    }
+
+    /**
+     * Reads an assignment written by {@link #partition} into a partitioner, which assigns vertices
+     * that are not in the assignment by the hash of their key.
+     */
+    public static <K> AssignedVertexPartitioner<K> load(String bootstrapServers,
+                                                        Properties additional,
+                                                        String assignmentTopic,
+                                                        Serde<K> keySerde) {
+        Map<K, Integer> assignments = new HashMap<>();
+        Deserializer<K> keyDeserializer = keySerde.deserializer();
+        Deserializer<Integer> valueDeserializer = Serdes.Integer().deserializer();
+        ClientUtils.readTopic(bootstrapServers, "graph-partitioner-", additional, assignmentTopic, (key, value) ->
+            assignments.put(keyDeserializer.deserialize(assignmentTopic, key),
+                valueDeserializer.deserialize(assignmentTopic, value)));
+        return new AssignedVertexPartitioner<>(assignments, new HashVertexPartitioner<>(keySerde.serializer()));
+    }
+
+    /**
+     * The partitioner of an assignment, and the fraction of the edges whose endpoints it assigns to
+     * different partitions.
+     */
+    public static final class Result<K> {
+        private final AssignedVertexPartitioner<K> partitioner;
+        private final double edgeCutRatio;
+
+        Result(AssignedVertexPartitioner<K> partitioner, double edgeCutRatio) {
+            this.partitioner = partitioner;
+            this.edgeCutRatio = edgeCutRatio;
+        }
+
+        public AssignedVertexPartitioner<K> partitioner() {
+            return partitioner;
+        }
+
+        public double edgeCutRatio() {
+            return edgeCutRatio;
+        }
+    }
+
+    private static RuntimeException toRuntimeException(Exception e) {
+        return e instanceof RuntimeException ? (RuntimeException) e : new RuntimeException(e);
+    }
+}
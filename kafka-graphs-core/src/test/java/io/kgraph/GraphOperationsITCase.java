@@ -19,19 +19,35 @@
 package io.kgraph;
 
 import static io.kgraph.utils.TestUtils.compareResultAsTuples;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.UUID;
 
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.clients.producer.ProducerRecord;
 import org.apache.kafka.common.serialization.LongSerializer;
 import org.apache.kafka.common.serialization.Serdes;
 import org.apache.kafka.streams.KeyValue;
 import org.apache.kafka.streams.StreamsBuilder;
 import org.apache.kafka.streams.kstream.KTable;
+import org.apache.kafka.streams.kstream.TimeWindows;
+import org.apache.kafka.streams.kstream.Windowed;
+import org.apache.kafka.streams.state.KeyValueIterator;
+import org.apache.kafka.streams.state.QueryableStoreTypes;
+import org.apache.kafka.streams.state.ReadOnlyWindowStore;
 import org.junit.Test;
 
 import io.kgraph.utils.ClientUtils;
 import io.kgraph.utils.KryoSerde;
+import io.kgraph.utils.KryoSerializer;
 import io.kgraph.utils.StreamUtils;
 
 public class GraphOperationsITCase extends AbstractIntegrationTest {
@@ -242,4 +258,174 @@ public class GraphOperationsITCase extends AbstractIntegrationTest {
 
 		compareResultAsTuples(result, expectedResult);
 	}
+
+    @Test
+    public void testConnectedComponents() throws Exception {
+        Properties producerConfig = ClientUtils.producerConfig(CLUSTER.bootstrapServers(), LongSerializer.class,
+            LongSerializer.class, new Properties()
+        );
+        StreamsBuilder builder = new StreamsBuilder();
+
+        String edgesTopic = "edges-" + UUID.randomUUID();
+        KTable<Edge<Long>, Long> edges =
+            StreamUtils.tableFromCollection(builder, producerConfig, edgesTopic, 4, (short) 1,
+                new KryoSerde<>(), Serdes.Long(), TestGraphUtils.getTwoChains());
+
+        KGraph<Long, Long, Long> graph = KGraph.fromEdges(edges, v -> v,
+            GraphSerialized.with(Serdes.Long(), Serdes.Long(), Serdes.Long()));
+
+        String componentsTopic = "components-" + UUID.randomUUID();
+        ClientUtils.createTopic(componentsTopic, 4, (short) 1, producerConfig);
+        KTable<Long, Long> components = graph.connectedComponents(builder, componentsTopic);
+
+        startStreams(builder, Serdes.Long(), Serdes.Long());
+
+        Thread.sleep(5000);
+
+        Map<Long, Long> result = StreamUtils.mapFromTable(streams, components);
+        assertEquals(21, result.size());
+        for (long i = 0; i < 21; i++) {
+            assertEquals(i < 10 ? result.get(0L) : result.get(10L), result.get(i));
+        }
+        assertNotEquals(result.get(0L), result.get(10L));
+
+        try (Producer<Edge<Long>, Long> producer =
+                 new KafkaProducer<>(producerConfig, new KryoSerializer<>(), new LongSerializer())) {
+            producer.send(new ProducerRecord<>(edgesTopic, new Edge<>(9L, 10L), 1L)).get();
+        }
+
+        Thread.sleep(5000);
+
+        result = StreamUtils.mapFromTable(streams, components);
+        assertEquals(21, result.size());
+        for (long i = 0; i < 21; i++) {
+            assertEquals(result.get(0L), result.get(i));
+        }
+    }
+
+    @Test
+    public void testWindowedDegrees() throws Exception {
+        Properties producerConfig = ClientUtils.producerConfig(CLUSTER.bootstrapServers(), LongSerializer.class,
+            LongSerializer.class, new Properties()
+        );
+        StreamsBuilder builder = new StreamsBuilder();
+
+        KTable<Long, Long> vertices =
+            StreamUtils.tableFromCollection(builder, producerConfig, Serdes.Long(), Serdes.Long(),
+                TestGraphUtils.getLongLongVertices());
+
+        KTable<Edge<Long>, Long> edges =
+            StreamUtils.tableFromCollection(builder, producerConfig, new KryoSerde<>(), Serdes.Long(),
+                TestGraphUtils.getLongLongEdges());
+
+        KGraph<Long, Long, Long> graph = new KGraph<>(
+            vertices, edges, GraphSerialized.with(Serdes.Long(), Serdes.Long(), Serdes.Long()));
+
+        KTable<Windowed<Long>, Long> degrees = graph.degrees(EdgeDirection.OUT, TimeWindows.of(Duration.ofDays(1)));
+        KTable<Windowed<Long>, Long> neighbors =
+            graph.distinctNeighbors(EdgeDirection.BOTH, TimeWindows.of(Duration.ofDays(1)));
+
+        startStreams(builder, Serdes.Long(), Serdes.Long());
+
+        Thread.sleep(10000);
+
+        ReadOnlyWindowStore<Long, Long> degreeStore =
+            streams.store(degrees.queryableStoreName(), QueryableStoreTypes.windowStore());
+        Map<Long, Long> result = new HashMap<>();
+        try (KeyValueIterator<Windowed<Long>, Long> iterator = degreeStore.all()) {
+            while (iterator.hasNext()) {
+                KeyValue<Windowed<Long>, Long> next = iterator.next();
+                result.merge(next.key.key(), next.value, Long::sum);
+            }
+        }
+        assertEquals(2L, (long) result.get(1L));
+        assertEquals(1L, (long) result.get(2L));
+        assertEquals(2L, (long) result.get(3L));
+        assertEquals(1L, (long) result.get(4L));
+        assertEquals(1L, (long) result.get(5L));
+
+        result.clear();
+        for (KeyValue<Windowed<Long>, Long> next : StreamUtils.listFromTable(streams, neighbors)) {
+            result.merge(next.key.key(), next.value, Math::max);
+        }
+        assertEquals(3L, (long) result.get(1L));
+        assertEquals(2L, (long) result.get(2L));
+        assertEquals(4L, (long) result.get(3L));
+        assertEquals(2L, (long) result.get(4L));
+        assertEquals(3L, (long) result.get(5L));
+    }
+
+    @Test
+    public void testTriangleCounts() throws Exception {
+        Properties producerConfig = ClientUtils.producerConfig(CLUSTER.bootstrapServers(), LongSerializer.class,
+            LongSerializer.class, new Properties()
+        );
+        StreamsBuilder builder = new StreamsBuilder();
+
+        KTable<Long, Long> vertices =
+            StreamUtils.tableFromCollection(builder, producerConfig, Serdes.Long(), Serdes.Long(),
+                TestGraphUtils.getLongLongVertices());
+
+        KTable<Edge<Long>, Long> edges =
+            StreamUtils.tableFromCollection(builder, producerConfig, new KryoSerde<>(), Serdes.Long(),
+                TestGraphUtils.getLongLongEdges());
+
+        KGraph<Long, Long, Long> graph = new KGraph<>(
+            vertices, edges, GraphSerialized.with(Serdes.Long(), Serdes.Long(), Serdes.Long()));
+
+        String edgesTopic = "triangles-" + UUID.randomUUID();
+        ClientUtils.createTopic(edgesTopic, 4, (short) 1, producerConfig);
+        KTable<Long, Double> triangles = graph.triangleCounts(builder, edgesTopic, 100);
+
+        startStreams(builder, Serdes.Long(), Serdes.Long());
+
+        Thread.sleep(5000);
+
+        // The sample holds every edge, so the counts are exact
+        Map<Long, Double> result = StreamUtils.mapFromTable(streams, triangles);
+        assertEquals(2.0, result.get(1L), 0.0);
+        assertEquals(1.0, result.get(2L), 0.0);
+        assertEquals(3.0, result.get(3L), 0.0);
+        assertEquals(1.0, result.get(4L), 0.0);
+        assertEquals(2.0, result.get(5L), 0.0);
+    }
+
+    @Test
+    public void testTriangleCountsReciprocalEdges() throws Exception {
+        Properties producerConfig = ClientUtils.producerConfig(CLUSTER.bootstrapServers(), LongSerializer.class,
+            LongSerializer.class, new Properties()
+        );
+        StreamsBuilder builder = new StreamsBuilder();
+
+        KTable<Long, Long> vertices =
+            StreamUtils.tableFromCollection(builder, producerConfig, Serdes.Long(), Serdes.Long(),
+                TestGraphUtils.getLongLongVertices());
+
+        // Each edge also appears in reverse, which is the same undirected edge
+        List<KeyValue<Edge<Long>, Long>> edgeList = new ArrayList<>();
+        for (KeyValue<Edge<Long>, Long> edge : TestGraphUtils.getLongLongEdges()) {
+            edgeList.add(edge);
+            edgeList.add(new KeyValue<>(new Edge<>(edge.key.target(), edge.key.source()), edge.value));
+        }
+        KTable<Edge<Long>, Long> edges =
+            StreamUtils.tableFromCollection(builder, producerConfig, new KryoSerde<>(), Serdes.Long(), edgeList);
+
+        KGraph<Long, Long, Long> graph = new KGraph<>(
+            vertices, edges, GraphSerialized.with(Serdes.Long(), Serdes.Long(), Serdes.Long()));
+
+        String edgesTopic = "triangles-" + UUID.randomUUID();
+        ClientUtils.createTopic(edgesTopic, 4, (short) 1, producerConfig);
+        KTable<Long, Double> triangles = graph.triangleCounts(builder, edgesTopic, 100);
+
+        startStreams(builder, Serdes.Long(), Serdes.Long());
+
+        Thread.sleep(5000);
+
+        Map<Long, Double> result = StreamUtils.mapFromTable(streams, triangles);
+        assertEquals(2.0, result.get(1L), 0.0);
+        assertEquals(1.0, result.get(2L), 0.0);
+        assertEquals(3.0, result.get(3L), 0.0);
+        assertEquals(1.0, result.get(4L), 0.0);
+        assertEquals(2.0, result.get(5L), 0.0);
+    }
 }
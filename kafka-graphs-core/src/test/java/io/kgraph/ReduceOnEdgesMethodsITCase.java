@@ -20,7 +20,11 @@ package io.kgraph;
 
 import java.util.List;
 import java.util.Properties;
+import java.util.UUID;
 
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.clients.producer.ProducerRecord;
 import org.apache.kafka.common.serialization.LongSerializer;
 import org.apache.kafka.common.serialization.Serdes;
 import org.apache.kafka.streams.KeyValue;
@@ -31,6 +35,7 @@ import org.junit.Test;
 
 import io.kgraph.utils.ClientUtils;
 import io.kgraph.utils.KryoSerde;
+import io.kgraph.utils.KryoSerializer;
 import io.kgraph.utils.StreamUtils;
 import io.kgraph.utils.TestUtils;
 
@@ -110,6 +115,166 @@ public class ReduceOnEdgesMethodsITCase extends AbstractIntegrationTest {
         TestUtils.compareResultAsTuples(result, expectedResult);
     }
 
+    @Test
+    public void testLowestWeightOutNeighborGroupedByKey() throws Exception {
+        Properties producerConfig = ClientUtils.producerConfig(CLUSTER.bootstrapServers(), LongSerializer.class,
+            LongSerializer.class, new Properties()
+        );
+        StreamsBuilder builder = new StreamsBuilder();
+
+        KTable<Long, Long> vertices =
+            StreamUtils.tableFromCollection(builder, producerConfig, Serdes.Long(), Serdes.Long(),
+                TestGraphUtils.getLongLongVertices());
+
+        KTable<Edge<Long>, Long> edges =
+            StreamUtils.tableFromCollection(builder, producerConfig, new KryoSerde<>(), Serdes.Long(),
+                TestGraphUtils.getLongLongEdges());
+
+        KGraph<Long, Long, Long> graph = new KGraph<>(
+            vertices, edges, GraphSerialized.with(Serdes.Long(), Serdes.Long(), Serdes.Long()));
+
+        KTable<Long, Long> verticesWithLowestOutNeighbor =
+            graph.groupReduceOnEdges(builder, new SelectMinWeightNeighbor(), EdgeDirection.OUT);
+
+        startStreams(builder, Serdes.Long(), Serdes.Long());
+
+        Thread.sleep(10000);
+
+        List<KeyValue<Long, Long>> result = StreamUtils.listFromTable(streams, verticesWithLowestOutNeighbor);
+
+        expectedResult = "1,2\n" +
+            "2,3\n" +
+            "3,4\n" +
+            "4,5\n" +
+            "5,1\n";
+
+        TestUtils.compareResultAsTuples(result, expectedResult);
+    }
+
+    @Test
+    public void testLowestWeightInNeighborNoValueGroupedByKey() throws Exception {
+        Properties producerConfig = ClientUtils.producerConfig(CLUSTER.bootstrapServers(), LongSerializer.class,
+            LongSerializer.class, new Properties()
+        );
+        StreamsBuilder builder = new StreamsBuilder();
+
+        KTable<Long, Long> vertices =
+            StreamUtils.tableFromCollection(builder, producerConfig, Serdes.Long(), Serdes.Long(),
+                TestGraphUtils.getLongLongVertices());
+
+        String edgesTopic = "edges-" + UUID.randomUUID();
+        KTable<Edge<Long>, Long> edges =
+            StreamUtils.tableFromCollection(builder, producerConfig, edgesTopic, 50, (short) 1,
+                new KryoSerde<>(), Serdes.Long(), TestGraphUtils.getLongLongEdges());
+
+        KGraph<Long, Long, Long> graph = new KGraph<>(
+            vertices, edges, GraphSerialized.with(Serdes.Long(), Serdes.Long(), Serdes.Long()));
+
+        KTable<Long, Long> verticesWithLowestInNeighbor =
+            graph.reduceOnEdges(builder, new SelectMinWeightNeighborNoValue(), EdgeDirection.IN);
+
+        startStreams(builder, Serdes.Long(), Serdes.Long());
+
+        Thread.sleep(10000);
+
+        List<KeyValue<Long, Long>> result = StreamUtils.listFromTable(streams, verticesWithLowestInNeighbor);
+
+        expectedResult = "1,51\n" +
+            "2,12\n" +
+            "3,13\n" +
+            "4,34\n" +
+            "5,35\n";
+
+        TestUtils.compareResultAsTuples(result, expectedResult);
+
+        // Adding an edge and removing another only touches their entries in the grouped edges
+        try (Producer<Edge<Long>, Long> producer =
+                 new KafkaProducer<>(producerConfig, new KryoSerializer<>(), new LongSerializer())) {
+            producer.send(new ProducerRecord<>(edgesTopic, new Edge<>(2L, 1L), 21L)).get();
+            producer.send(new ProducerRecord<>(edgesTopic, new Edge<>(3L, 5L), null)).get();
+        }
+
+        Thread.sleep(5000);
+
+        result = StreamUtils.listFromTable(streams, verticesWithLowestInNeighbor);
+
+        expectedResult = "1,21\n" +
+            "2,12\n" +
+            "3,13\n" +
+            "4,34\n" +
+            "5,45\n";
+
+        TestUtils.compareResultAsTuples(result, expectedResult);
+    }
+
+    @Test
+    public void testLowestWeightNeighborNoValueBoth() throws Exception {
+        Properties producerConfig = ClientUtils.producerConfig(CLUSTER.bootstrapServers(), LongSerializer.class,
+            LongSerializer.class, new Properties()
+        );
+        StreamsBuilder builder = new StreamsBuilder();
+
+        KTable<Long, Long> vertices =
+            StreamUtils.tableFromCollection(builder, producerConfig, Serdes.Long(), Serdes.Long(),
+                TestGraphUtils.getLongLongVertices());
+
+        KTable<Edge<Long>, Long> edges =
+            StreamUtils.tableFromCollection(builder, producerConfig, new KryoSerde<>(), Serdes.Long(),
+                TestGraphUtils.getLongLongEdges());
+
+        KGraph<Long, Long, Long> graph = new KGraph<>(
+            vertices, edges, GraphSerialized.with(Serdes.Long(), Serdes.Long(), Serdes.Long()));
+
+        KTable<Long, Long> result =
+            graph.reduceOnEdges(new SelectMinWeightNeighborNoValue(), EdgeDirection.BOTH);
+
+        startStreams(builder, Serdes.Long(), Serdes.Long());
+
+        Thread.sleep(10000);
+
+        expectedResult = "1,12\n" +
+            "2,12\n" +
+            "3,13\n" +
+            "4,34\n" +
+            "5,35\n";
+
+        TestUtils.compareResultAsTuples(StreamUtils.listFromTable(streams, result), expectedResult);
+    }
+
+    @Test
+    public void testLowestWeightNeighborNoValueBothGroupedByKey() throws Exception {
+        Properties producerConfig = ClientUtils.producerConfig(CLUSTER.bootstrapServers(), LongSerializer.class,
+            LongSerializer.class, new Properties()
+        );
+        StreamsBuilder builder = new StreamsBuilder();
+
+        KTable<Long, Long> vertices =
+            StreamUtils.tableFromCollection(builder, producerConfig, Serdes.Long(), Serdes.Long(),
+                TestGraphUtils.getLongLongVertices());
+
+        KTable<Edge<Long>, Long> edges =
+            StreamUtils.tableFromCollection(builder, producerConfig, new KryoSerde<>(), Serdes.Long(),
+                TestGraphUtils.getLongLongEdges());
+
+        KGraph<Long, Long, Long> graph = new KGraph<>(
+            vertices, edges, GraphSerialized.with(Serdes.Long(), Serdes.Long(), Serdes.Long()));
+
+        KTable<Long, Long> result =
+            graph.reduceOnEdges(builder, new SelectMinWeightNeighborNoValue(), EdgeDirection.BOTH);
+
+        startStreams(builder, Serdes.Long(), Serdes.Long());
+
+        Thread.sleep(10000);
+
+        expectedResult = "1,12\n" +
+            "2,12\n" +
+            "3,13\n" +
+            "4,34\n" +
+            "5,35\n";
+
+        TestUtils.compareResultAsTuples(StreamUtils.listFromTable(streams, result), expectedResult);
+    }
+
     private static final class SelectMinWeightNeighbor
         implements EdgesFunctionWithVertexValue<Long, Long, Long, Long> {
 
@@ -23,6 +23,11 @@ import static io.kgraph.utils.TestUtils.compareResultAsTuples;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.UUID;
+
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.clients.producer.ProducerRecord;
 
 import org.apache.kafka.common.serialization.LongSerializer;
 import org.apache.kafka.common.serialization.Serdes;
@@ -33,6 +38,7 @@ import org.junit.Test;
 
 import io.kgraph.utils.ClientUtils;
 import io.kgraph.utils.KryoSerde;
+import io.kgraph.utils.KryoSerializer;
 import io.kgraph.utils.StreamUtils;
 
 public class ReduceOnNeighborMethodsITCase extends AbstractIntegrationTest {
@@ -111,6 +117,185 @@ public class ReduceOnNeighborMethodsITCase extends AbstractIntegrationTest {
         compareResultAsTuples(result, expectedResult);
     }
 
+    @Test
+    public void testSumOfAllNeighbors() throws Exception {
+        Properties producerConfig = ClientUtils.producerConfig(CLUSTER.bootstrapServers(), LongSerializer.class,
+            LongSerializer.class, new Properties()
+        );
+        StreamsBuilder builder = new StreamsBuilder();
+
+        KTable<Long, Long> vertices =
+            StreamUtils.tableFromCollection(builder, producerConfig, Serdes.Long(), Serdes.Long(),
+                TestGraphUtils.getLongLongVertices());
+
+        KTable<Edge<Long>, Long> edges =
+            StreamUtils.tableFromCollection(builder, producerConfig, new KryoSerde<>(), Serdes.Long(),
+                TestGraphUtils.getLongLongEdges());
+
+        KGraph<Long, Long, Long> graph = new KGraph<>(
+            vertices, edges, GraphSerialized.with(Serdes.Long(), Serdes.Long(), Serdes.Long()));
+
+        KTable<Long, Long> result =
+            graph.groupReduceOnNeighbors(new SumOutNeighbors(), EdgeDirection.BOTH);
+
+        startStreams(builder, Serdes.Long(), Serdes.Long());
+
+        Thread.sleep(10000);
+
+        expectedResult = "1,10\n" +
+            "2,4\n" +
+            "3,12\n" +
+            "4,8\n" +
+            "5,8\n";
+
+        compareResultAsTuples(StreamUtils.listFromTable(streams, result), expectedResult);
+    }
+
+    @Test
+    public void testSumOfAllNeighborsNoValue() throws Exception {
+        Properties producerConfig = ClientUtils.producerConfig(CLUSTER.bootstrapServers(), LongSerializer.class,
+            LongSerializer.class, new Properties()
+        );
+        StreamsBuilder builder = new StreamsBuilder();
+
+        KTable<Long, Long> vertices =
+            StreamUtils.tableFromCollection(builder, producerConfig, Serdes.Long(), Serdes.Long(),
+                TestGraphUtils.getLongLongVertices());
+
+        KTable<Edge<Long>, Long> edges =
+            StreamUtils.tableFromCollection(builder, producerConfig, new KryoSerde<>(), Serdes.Long(),
+                TestGraphUtils.getLongLongEdges());
+
+        KGraph<Long, Long, Long> graph = new KGraph<>(
+            vertices, edges, GraphSerialized.with(Serdes.Long(), Serdes.Long(), Serdes.Long()));
+
+        KTable<Long, Long> result =
+            graph.reduceOnNeighbors((v1, v2) -> v1 + v2, EdgeDirection.BOTH);
+
+        startStreams(builder, Serdes.Long(), Serdes.Long());
+
+        Thread.sleep(10000);
+
+        expectedResult = "1,10\n" +
+            "2,4\n" +
+            "3,12\n" +
+            "4,8\n" +
+            "5,8\n";
+
+        compareResultAsTuples(StreamUtils.listFromTable(streams, result), expectedResult);
+    }
+
+    @Test
+    public void testSumOfOutNeighborsIncremental() throws Exception {
+        Properties producerConfig = ClientUtils.producerConfig(CLUSTER.bootstrapServers(), LongSerializer.class,
+            LongSerializer.class, new Properties()
+        );
+        StreamsBuilder builder = new StreamsBuilder();
+
+        String verticesTopic = "vertices-" + UUID.randomUUID();
+        KTable<Long, Long> vertices =
+            StreamUtils.tableFromCollection(builder, producerConfig, verticesTopic, 50, (short) 1,
+                Serdes.Long(), Serdes.Long(), TestGraphUtils.getLongLongVertices());
+
+        String edgesTopic = "edges-" + UUID.randomUUID();
+        KTable<Edge<Long>, Long> edges =
+            StreamUtils.tableFromCollection(builder, producerConfig, edgesTopic, 50, (short) 1,
+                new KryoSerde<>(), Serdes.Long(), TestGraphUtils.getLongLongEdges());
+
+        KGraph<Long, Long, Long> graph = new KGraph<>(
+            vertices, edges, GraphSerialized.with(Serdes.Long(), Serdes.Long(), Serdes.Long()));
+
+        KTable<Long, Long> verticesWithSumOfOutNeighborValues =
+            graph.reduceOnNeighbors(builder, (v1, v2) -> v1 + v2, (v1, v2) -> v1 - v2, EdgeDirection.OUT);
+
+        startStreams(builder, Serdes.Long(), Serdes.Long());
+
+        Thread.sleep(10000);
+
+        List<KeyValue<Long, Long>> result = StreamUtils.listFromTable(streams, verticesWithSumOfOutNeighborValues);
+
+        expectedResult = "1,5\n" +
+            "2,3\n" +
+            "3,9\n" +
+            "4,5\n" +
+            "5,1\n";
+
+        compareResultAsTuples(result, expectedResult);
+
+        // A new vertex value is sent to its in-neighbors, and a removed edge is taken out of the sum
+        try (Producer<Long, Long> producer = new KafkaProducer<>(producerConfig)) {
+            producer.send(new ProducerRecord<>(verticesTopic, 3L, 30L)).get();
+        }
+        try (Producer<Edge<Long>, Long> producer =
+                 new KafkaProducer<>(producerConfig, new KryoSerializer<>(), new LongSerializer())) {
+            producer.send(new ProducerRecord<>(edgesTopic, new Edge<>(1L, 2L), null)).get();
+        }
+
+        Thread.sleep(5000);
+
+        result = StreamUtils.listFromTable(streams, verticesWithSumOfOutNeighborValues);
+
+        expectedResult = "1,30\n" +
+            "2,30\n" +
+            "3,9\n" +
+            "4,5\n" +
+            "5,1\n";
+
+        compareResultAsTuples(result, expectedResult);
+    }
+
+    @Test
+    public void testSumOfAllNeighborsIncremental() throws Exception {
+        Properties producerConfig = ClientUtils.producerConfig(CLUSTER.bootstrapServers(), LongSerializer.class,
+            LongSerializer.class, new Properties()
+        );
+        StreamsBuilder builder = new StreamsBuilder();
+
+        KTable<Long, Long> vertices =
+            StreamUtils.tableFromCollection(builder, producerConfig, Serdes.Long(), Serdes.Long(),
+                TestGraphUtils.getLongLongVertices());
+
+        String edgesTopic = "edges-" + UUID.randomUUID();
+        KTable<Edge<Long>, Long> edges =
+            StreamUtils.tableFromCollection(builder, producerConfig, edgesTopic, 50, (short) 1,
+                new KryoSerde<>(), Serdes.Long(), TestGraphUtils.getLongLongEdges());
+
+        KGraph<Long, Long, Long> graph = new KGraph<>(
+            vertices, edges, GraphSerialized.with(Serdes.Long(), Serdes.Long(), Serdes.Long()));
+
+        KTable<Long, Long> result =
+            graph.reduceOnNeighbors(builder, (v1, v2) -> v1 + v2, EdgeDirection.BOTH);
+
+        startStreams(builder, Serdes.Long(), Serdes.Long());
+
+        Thread.sleep(10000);
+
+        expectedResult = "1,10\n" +
+            "2,4\n" +
+            "3,12\n" +
+            "4,8\n" +
+            "5,8\n";
+
+        compareResultAsTuples(StreamUtils.listFromTable(streams, result), expectedResult);
+
+        // Without an inverse reducer, removing an edge recomputes the sums of its endpoints
+        try (Producer<Edge<Long>, Long> producer =
+                 new KafkaProducer<>(producerConfig, new KryoSerializer<>(), new LongSerializer())) {
+            producer.send(new ProducerRecord<>(edgesTopic, new Edge<>(2L, 1L), 21L)).get();
+            producer.send(new ProducerRecord<>(edgesTopic, new Edge<>(3L, 5L), null)).get();
+        }
+
+        Thread.sleep(5000);
+
+        expectedResult = "1,12\n" +
+            "2,5\n" +
+            "3,7\n" +
+            "4,8\n" +
+            "5,5\n";
+
+        compareResultAsTuples(StreamUtils.listFromTable(streams, result), expectedResult);
+    }
+
     private static final class SumOutNeighbors implements
         NeighborsFunctionWithVertexValue<Long, Long, Long, Long> {
 
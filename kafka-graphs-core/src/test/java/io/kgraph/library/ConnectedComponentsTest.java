@@ -49,12 +49,17 @@ import io.kgraph.GraphAlgorithmState;
 import io.kgraph.GraphSerialized;
 import io.kgraph.KGraph;
 import io.kgraph.TestGraphUtils;
+import io.kgraph.pregel.BarrierCoordinator;
+import io.kgraph.pregel.KafkaBarrierCoordinator;
+import io.kgraph.pregel.LocalBarrierCoordinator;
+import io.kgraph.pregel.PregelComputation;
 import io.kgraph.pregel.PregelGraphAlgorithm;
 import io.kgraph.utils.ClientUtils;
 import io.kgraph.utils.GraphGenerators;
 import io.kgraph.utils.GraphUtils;
 import io.kgraph.utils.KryoSerde;
 import io.kgraph.utils.StreamUtils;
+import io.kgraph.utils.StreamingGraphPartitioner;
 import io.vavr.Tuple2;
 
 public class ConnectedComponentsTest extends AbstractIntegrationTest {
@@ -64,27 +69,62 @@ public class ConnectedComponentsTest extends AbstractIntegrationTest {
 
     @Test
     public void testConnectedComponents() throws Exception {
-        String suffix = "cc";
+        testConnectedComponents("cc", null);
+    }
+
+    @Test
+    public void testConnectedComponentsLocalBarriers() throws Exception {
+        testConnectedComponents("ccLocal", new LocalBarrierCoordinator("run-ccLocal"));
+    }
+
+    @Test
+    public void testConnectedComponentsKafkaBarriers() throws Exception {
+        testConnectedComponents("ccKafka", new KafkaBarrierCoordinator(CLUSTER.bootstrapServers(), "run-ccKafka"));
+    }
+
+    @Test
+    public void testConnectedComponentsAssignedPartitions() throws Exception {
+        testConnectedComponents("ccAssigned", null, true);
+    }
+
+    private void testConnectedComponents(String suffix, BarrierCoordinator coordinator) throws Exception {
+        testConnectedComponents(suffix, coordinator, false);
+    }
+
+    private void testConnectedComponents(String suffix, BarrierCoordinator coordinator, boolean assignPartitions)
+        throws Exception {
         StreamsBuilder builder = new StreamsBuilder();
 
         Properties producerConfig = ClientUtils.producerConfig(CLUSTER.bootstrapServers(), LongSerializer.class,
             LongSerializer.class, new Properties()
         );
         KTable<Edge<Long>, Long> edges =
-            StreamUtils.tableFromCollection(builder, producerConfig, new KryoSerde<>(), Serdes.Long(),
-                TestGraphUtils.getTwoChains());
-        KGraph<Long, Long, Long> graph = KGraph.fromEdges(edges, new InitVertices(),
-            GraphSerialized.with(Serdes.Long(), Serdes.Long(), Serdes.Long()));
+            StreamUtils.tableFromCollection(builder, producerConfig, "initEdges-" + suffix, 1, (short) 1,
+                new KryoSerde<>(), Serdes.Long(), TestGraphUtils.getTwoChains());
+        GraphSerialized<Long, Long, Long> serialized = GraphSerialized.with(Serdes.Long(), Serdes.Long(), Serdes.Long());
+        if (assignPartitions) {
+            // The vertices and the messages of each chain stay in one partition
+            StreamingGraphPartitioner.Result<Long> partitioning = new StreamingGraphPartitioner<>(
+                CLUSTER.bootstrapServers(), new Properties(), Serdes.Long(), StreamingGraphPartitioner.Heuristic.LDG)
+                .partition("initEdges-" + suffix, "assignment-" + suffix, 2, (short) 1).get();
+            assertEquals(0.0, partitioning.edgeCutRatio(), 0.0);
+            serialized = serialized.withVertexPartitioner(partitioning.partitioner());
+        }
+        KGraph<Long, Long, Long> graph = KGraph.fromEdges(edges, new InitVertices(), serialized);
 
         Properties props = ClientUtils.streamsConfig("prepare-" + suffix, "prepare-client-" + suffix,
             CLUSTER.bootstrapServers(), graph.keySerde().getClass(), graph.vertexValueSerde().getClass());
         CompletableFuture<Map<TopicPartition, Long>> state = GraphUtils.groupEdgesBySourceAndRepartition(builder, props, graph, "vertices-" + suffix, "edgesGroupedBySource-" + suffix, 2, (short) 1);
         Map<TopicPartition, Long> offsets = state.get();
 
-        algorithm =
-            new PregelGraphAlgorithm<>(null, "run-" + suffix, CLUSTER.bootstrapServers(),
+        algorithm = coordinator == null
+            ? new PregelGraphAlgorithm<>(null, "run-" + suffix, CLUSTER.bootstrapServers(),
                 CLUSTER.zKConnectString(), "vertices-" + suffix, "edgesGroupedBySource-" + suffix, offsets, graph.serialized(),
                 "solutionSet-" + suffix, "solutionSetStore-" + suffix, "workSet-" + suffix, 2, (short) 1,
+                Collections.emptyMap(), Optional.empty(), new ConnectedComponents<>())
+            : new PregelGraphAlgorithm<>(null, "run-" + suffix, CLUSTER.bootstrapServers(),
+                coordinator, "vertices-" + suffix, "edgesGroupedBySource-" + suffix, offsets, graph.serialized(),
+                "solutionSet-" + suffix, "solutionSetStore-" + suffix, "workSet-" + suffix, 2, (short) 1,
                 Collections.emptyMap(), Optional.empty(), new ConnectedComponents<>());
         props = ClientUtils.streamsConfig("run-" + suffix, "run-client-" + suffix,
             CLUSTER.bootstrapServers(), graph.keySerde().getClass(), KryoSerde.class);
@@ -125,7 +165,15 @@ public class ConnectedComponentsTest extends AbstractIntegrationTest {
 
     @Test
     public void testGridConnectedComponents() throws Exception {
-        String suffix = "grid";
+        testGridConnectedComponents("grid", Collections.emptyMap());
+    }
+
+    @Test
+    public void testGridConnectedComponentsAsync() throws Exception {
+        testGridConnectedComponents("gridAsync", Collections.singletonMap(PregelComputation.ASYNC_STALENESS, 1));
+    }
+
+    private void testGridConnectedComponents(String suffix, Map<String, ?> configs) throws Exception {
         StreamsBuilder builder = new StreamsBuilder();
 
         Properties producerConfig = ClientUtils.producerConfig(CLUSTER.bootstrapServers(), LongSerializer.class,
@@ -145,7 +193,7 @@ public class ConnectedComponentsTest extends AbstractIntegrationTest {
             new PregelGraphAlgorithm<>(null, "run-" + suffix, CLUSTER.bootstrapServers(),
                 CLUSTER.zKConnectString(), "vertices-" + suffix, "edgesGroupedBySource-" + suffix, offsets, graph.serialized(),
                 "solutionSet-" + suffix, "solutionSetStore-" + suffix, "workSet-" + suffix, 2, (short) 1,
-                Collections.emptyMap(), Optional.empty(), new ConnectedComponents<>());
+                configs, Optional.empty(), new ConnectedComponents<>());
         props = ClientUtils.streamsConfig("run-" + suffix, "run-client-" + suffix, CLUSTER.bootstrapServers(),
             graph.keySerde().getClass(), KryoSerde.class);
         KafkaStreams streams = algorithm.configure(new StreamsBuilder(), props).streams();
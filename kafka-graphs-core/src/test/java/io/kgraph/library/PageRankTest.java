@@ -45,11 +45,14 @@ import org.slf4j.LoggerFactory;
 
 import io.kgraph.AbstractIntegrationTest;
 import io.kgraph.Edge;
+import io.kgraph.EdgeWithValue;
 import io.kgraph.GraphAlgorithm;
 import io.kgraph.GraphAlgorithmState;
 import io.kgraph.GraphSerialized;
 import io.kgraph.KGraph;
 import io.kgraph.TestGraphUtils;
+import io.kgraph.VertexWithValue;
+import io.kgraph.pregel.PregelComputation;
 import io.kgraph.pregel.PregelGraphAlgorithm;
 import io.kgraph.utils.ClientUtils;
 import io.kgraph.utils.GraphGenerators;
@@ -193,6 +196,112 @@ public class PageRankTest extends AbstractIntegrationTest {
         assertEquals(expectedResult, list);
     }
 
+    @Test
+    public void testChainLongerPageRankResume() throws Exception {
+        String suffix = "resume";
+        StreamsBuilder builder = new StreamsBuilder();
+
+        Properties producerConfig = ClientUtils.producerConfig(CLUSTER.bootstrapServers(), LongSerializer.class,
+            DoubleSerializer.class, new Properties()
+        );
+        KTable<Edge<Long>, Double> edges =
+            StreamUtils.tableFromCollection(builder, producerConfig, new KryoSerde<>(), Serdes.Double(),
+                TestGraphUtils.getChain());
+        KGraph<Long, Double, Double> initialGraph = KGraph.fromEdges(edges, new InitVertices(),
+            GraphSerialized.with(Serdes.Long(), Serdes.Double(), Serdes.Double()));
+        KTable<Long, Tuple2<Double, Double>> vertices =
+            initialGraph.vertices().mapValues((k, v) -> new Tuple2<>(0.0, 0.0));
+        KGraph<Long, Tuple2<Double, Double>, Double> graph =
+            new KGraph<>(vertices, initialGraph.edges(), GraphSerialized.with(initialGraph.keySerde(), new KryoSerde<>
+                (), Serdes.Double()));
+
+        Properties props = ClientUtils.streamsConfig("prepare-" + suffix, "prepare-client-" + suffix, CLUSTER
+                .bootstrapServers(),
+            graph.keySerde().getClass(), graph.vertexValueSerde().getClass());
+        CompletableFuture<Map<TopicPartition, Long>> state = GraphUtils.groupEdgesBySourceAndRepartition(builder, props, graph, "vertices-" + suffix, "edgesGroupedBySource-" + suffix, 50, (short) 1);
+        Map<TopicPartition, Long> offsets = state.get();
+
+        double resetProb = 0.15;
+        double tol = 0.0001;
+        Map<String, Object> configs = new HashMap<>();
+        configs.put(PageRank.RESET_PROBABILITY, resetProb);
+        configs.put(PageRank.TOLERANCE, tol);
+        configs.put(PregelComputation.CHECKPOINT_INTERVAL, 2);
+        Optional<Double> initMsg = Optional.of(resetProb / (1.0 - resetProb));
+        algorithm =
+            new PregelGraphAlgorithm<>(null, "run-" + suffix, CLUSTER.bootstrapServers(),
+                CLUSTER.zKConnectString(), "vertices-" + suffix, "edgesGroupedBySource-" + suffix, offsets, graph.serialized(),
+                "solutionSet-" + suffix, "solutionSetStore-" + suffix, "workSet-" + suffix, 50, (short) 1,
+                configs, initMsg, new FailingPageRank(5));
+        props = ClientUtils.streamsConfig("run-" + suffix, "run-client-" + suffix, CLUSTER.bootstrapServers(),
+            graph.keySerde().getClass(), KryoSerde.class);
+        algorithm.configure(new StreamsBuilder(), props);
+        GraphAlgorithmState<KTable<Long, Tuple2<Double, Double>>> ranks = algorithm.run(11);
+
+        // The instance fails after the checkpoint at superstep 4, without being closed, and the
+        // computation is resumed by a new instance
+        KafkaStreams failed = ranks.streams();
+        long deadline = System.currentTimeMillis() + 60000L;
+        while (failed.state() != KafkaStreams.State.ERROR && System.currentTimeMillis() < deadline) {
+            Thread.sleep(100);
+        }
+        assertEquals(KafkaStreams.State.ERROR, failed.state());
+        algorithm =
+            new PregelGraphAlgorithm<>(null, "run-" + suffix, CLUSTER.bootstrapServers(),
+                CLUSTER.zKConnectString(), "vertices-" + suffix, "edgesGroupedBySource-" + suffix, offsets, graph.serialized(),
+                "solutionSet-" + suffix, "solutionSetStore-" + suffix, "workSet-" + suffix, 50, (short) 1,
+                configs, initMsg, new PageRank<>());
+        algorithm.configure(new StreamsBuilder(), props);
+        ranks = algorithm.run(11);
+        assertEquals(4, ranks.superstep());
+        ranks.result().get();
+
+        Thread.sleep(2000);
+
+        Map<Long, Tuple2<Double, Double>> map = StreamUtils.mapFromStore(ranks.streams(), "solutionSetStore-" +
+            suffix);
+        List<Double> list = map.values().stream().map(Tuple2::_1).sorted().collect(Collectors.toList());
+
+        log.debug("result: {}", map);
+
+        List<Double> expectedResult = new ArrayList<>();
+        expectedResult.add(0.15);
+        expectedResult.add(0.27749999999999997);
+        expectedResult.add(0.38587499999999997);
+        expectedResult.add(0.47799375);
+        expectedResult.add(0.5562946875);
+        expectedResult.add(0.622850484375);
+        expectedResult.add(0.67942291171875);
+        expectedResult.add(0.7275094749609375);
+        expectedResult.add(0.7683830537167969);
+        expectedResult.add(0.8031255956592774);
+        assertEquals(expectedResult, list);
+    }
+
+    /**
+     * A page rank that fails when it reaches the given superstep.
+     */
+    private static class FailingPageRank extends PageRank<Long> {
+        private final int failAt;
+
+        FailingPageRank(int failAt) {
+            this.failAt = failAt;
+        }
+
+        @Override
+        public void compute(
+            int superstep,
+            VertexWithValue<Long, Tuple2<Double, Double>> vertex,
+            Iterable<Double> messages,
+            Iterable<EdgeWithValue<Long, Double>> edges,
+            Callback<Long, Tuple2<Double, Double>, Double, Double> cb) {
+            if (superstep == failAt) {
+                throw new IllegalStateException("Failing at superstep " + superstep);
+            }
+            super.compute(superstep, vertex, messages, edges, cb);
+        }
+    }
+
     @Test
     public void testChainPersonalPageRank() throws Exception {
         String suffix = "chain-personal";
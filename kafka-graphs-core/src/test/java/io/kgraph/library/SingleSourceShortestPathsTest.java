@@ -19,6 +19,7 @@
 package io.kgraph.library;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -26,6 +27,10 @@ import java.util.Optional;
 import java.util.Properties;
 import java.util.concurrent.CompletableFuture;
 
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
 import org.apache.kafka.common.TopicPartition;
 import org.apache.kafka.common.serialization.DoubleSerializer;
 import org.apache.kafka.common.serialization.LongSerializer;
@@ -41,12 +46,14 @@ import org.slf4j.LoggerFactory;
 
 import io.kgraph.AbstractIntegrationTest;
 import io.kgraph.Edge;
-import io.kgraph.GraphAlgorithm;
 import io.kgraph.GraphAlgorithmState;
 import io.kgraph.GraphSerialized;
 import io.kgraph.KGraph;
 import io.kgraph.TestGraphUtils;
+import io.kgraph.pregel.PregelComputation;
 import io.kgraph.pregel.PregelGraphAlgorithm;
+import io.kgraph.pregel.PregelMetrics;
+import io.kgraph.utils.AdjacencySerde;
 import io.kgraph.utils.ClientUtils;
 import io.kgraph.utils.GraphUtils;
 import io.kgraph.utils.KryoSerde;
@@ -55,11 +62,41 @@ import io.kgraph.utils.StreamUtils;
 public class SingleSourceShortestPathsTest extends AbstractIntegrationTest {
     private static final Logger log = LoggerFactory.getLogger(SingleSourceShortestPathsTest.class);
 
-    GraphAlgorithm<Long, Double, Double, KTable<Long, Double>> algorithm;
+    PregelGraphAlgorithm<Long, Double, Double, Double> algorithm;
 
     @Test
     public void testSingleSourceShortestPaths() throws Exception {
-        String suffix = "";
+        testSingleSourceShortestPaths("", 0, false, 0);
+    }
+
+    @Test
+    public void testSingleSourceShortestPathsAsync() throws Exception {
+        testSingleSourceShortestPaths("Async", 1, false, 0);
+    }
+
+    @Test
+    public void testSingleSourceShortestPathsLocalMessages() throws Exception {
+        testSingleSourceShortestPaths("LocalMessages", 0, true, 0);
+    }
+
+    @Test
+    public void testSingleSourceShortestPathsAsyncLocalMessages() throws Exception {
+        testSingleSourceShortestPaths("AsyncLocalMessages", 1, true, 0);
+    }
+
+    @Test
+    public void testSingleSourceShortestPathsVertexCut() throws Exception {
+        // Vertices 1 and 3 have two out-edges each, so they are split across both partitions
+        testSingleSourceShortestPaths("VertexCut", 0, false, 1);
+    }
+
+    @Test
+    public void testSingleSourceShortestPathsVertexCutLocalMessages() throws Exception {
+        testSingleSourceShortestPaths("VertexCutLocalMessages", 0, true, 1);
+    }
+
+    private void testSingleSourceShortestPaths(String suffix, int staleness, boolean localMessages,
+                                               int vertexCutDegreeThreshold) throws Exception {
         StreamsBuilder builder = new StreamsBuilder();
 
         Properties producerConfig = ClientUtils.producerConfig(CLUSTER.bootstrapServers(), LongSerializer.class,
@@ -71,25 +108,30 @@ public class SingleSourceShortestPathsTest extends AbstractIntegrationTest {
         KGraph<Long, Double, Double> graph = KGraph.fromEdges(edges, new InitVertices(),
             GraphSerialized.with(Serdes.Long(), Serdes.Double(), Serdes.Double()));
 
-        Properties props = ClientUtils.streamsConfig("prepare", "prepare-client", CLUSTER.bootstrapServers(),
+        Properties props = ClientUtils.streamsConfig("prepare" + suffix, "prepare-client" + suffix, CLUSTER.bootstrapServers(),
             graph.keySerde().getClass(), graph.vertexValueSerde().getClass());
         CompletableFuture<Map<TopicPartition, Long>> state = GraphUtils.groupEdgesBySourceAndRepartition(builder, props, graph, "vertices-" + suffix, "edgesGroupedBySource-" + suffix, 2, (short) 1);
         Map<TopicPartition, Long> offsets = state.get();
 
         Map<String, Object> configs = new HashMap<>();
         configs.put(SingleSourceShortestPaths.SRC_VERTEX_ID, 1L);
+        configs.put(PregelComputation.ASYNC_STALENESS, staleness);
+        if (localMessages) {
+            configs.put(PregelComputation.LOCAL_MESSAGES, true);
+        }
+        configs.put(PregelComputation.VERTEX_CUT_DEGREE_THRESHOLD, vertexCutDegreeThreshold);
         algorithm =
-            new PregelGraphAlgorithm<>(null, "run", CLUSTER.bootstrapServers(),
+            new PregelGraphAlgorithm<>(null, "run" + suffix, CLUSTER.bootstrapServers(),
                 CLUSTER.zKConnectString(), "vertices-" + suffix, "edgesGroupedBySource-" + suffix, offsets, graph.serialized(),
-                "solutionSet", "solutionSetStore", "workSet", 2, (short) 1,
+                "solutionSet" + suffix, "solutionSetStore" + suffix, "workSet" + suffix, 2, (short) 1,
                 configs, Optional.empty(), new SingleSourceShortestPaths());
-        props = ClientUtils.streamsConfig("run", "run-client", CLUSTER.bootstrapServers(),
+        props = ClientUtils.streamsConfig("run" + suffix, "run-client" + suffix, CLUSTER.bootstrapServers(),
             graph.keySerde().getClass(), KryoSerde.class);
         KafkaStreams streams = algorithm.configure(new StreamsBuilder(), props).streams();
         GraphAlgorithmState<KTable<Long, Double>> paths = algorithm.run();
         paths.result().get();
 
-        Map<Long, Double> map = StreamUtils.mapFromStore(paths.streams(), "solutionSetStore");
+        Map<Long, Double> map = StreamUtils.mapFromStore(paths.streams(), "solutionSetStore" + suffix);
         log.debug("result: {}", map);
 
         Map<Long, Double> expectedResult = new HashMap<>();
@@ -100,6 +142,87 @@ public class SingleSourceShortestPathsTest extends AbstractIntegrationTest {
         expectedResult.put(5L, 48.0);
 
         assertEquals(expectedResult, map);
+
+        Map<PregelMetrics.Metric, Long> metrics = algorithm.metrics().totals().get(0);
+        assertEquals(5L, (long) metrics.get(PregelMetrics.Metric.ACTIVE_VERTICES));
+        assertTrue(metrics.get(PregelMetrics.Metric.MESSAGES_SENT) > 0);
+        assertTrue(metrics.get(PregelMetrics.Metric.COMPUTE_TIME_NS) > 0);
+        // All tasks run in this instance, so only the asynchronous mode writes messages to the topic
+        long localMessagesSent = metrics.getOrDefault(PregelMetrics.Metric.LOCAL_MESSAGES_SENT, 0L);
+        assertEquals(localMessages && staleness == 0, localMessagesSent > 0);
+    }
+
+    @Test
+    public void testSingleSourceShortestPathsIncremental() throws Exception {
+        String suffix = "Incremental";
+        StreamsBuilder builder = new StreamsBuilder();
+
+        Properties producerConfig = ClientUtils.producerConfig(CLUSTER.bootstrapServers(), LongSerializer.class,
+            DoubleSerializer.class, new Properties()
+        );
+        KTable<Edge<Long>, Double> edges =
+            StreamUtils.tableFromCollection(builder, producerConfig, new KryoSerde<>(), Serdes.Double(),
+                TestGraphUtils.getLongDoubleEdges());
+        KGraph<Long, Double, Double> graph = KGraph.fromEdges(edges, new InitVertices(),
+            GraphSerialized.with(Serdes.Long(), Serdes.Double(), Serdes.Double()));
+
+        Properties props = ClientUtils.streamsConfig("prepare" + suffix, "prepare-client" + suffix, CLUSTER.bootstrapServers(),
+            graph.keySerde().getClass(), graph.vertexValueSerde().getClass());
+        CompletableFuture<Map<TopicPartition, Long>> state = GraphUtils.groupEdgesBySourceAndRepartition(builder, props, graph, "vertices-" + suffix, "edgesGroupedBySource-" + suffix, 2, (short) 1);
+        Map<TopicPartition, Long> offsets = state.get();
+
+        Map<String, Object> configs = new HashMap<>();
+        configs.put(SingleSourceShortestPaths.SRC_VERTEX_ID, 1L);
+        PregelGraphAlgorithm<Long, Double, Double, Double> previous =
+            new PregelGraphAlgorithm<>(null, "run" + suffix, CLUSTER.bootstrapServers(),
+                CLUSTER.zKConnectString(), "vertices-" + suffix, "edgesGroupedBySource-" + suffix, offsets, graph.serialized(),
+                "solutionSet" + suffix, "solutionSetStore" + suffix, "workSet" + suffix, 2, (short) 1,
+                configs, Optional.empty(), new SingleSourceShortestPaths());
+        props = ClientUtils.streamsConfig("run" + suffix, "run-client" + suffix, CLUSTER.bootstrapServers(),
+            graph.keySerde().getClass(), KryoSerde.class);
+        previous.configure(new StreamsBuilder(), props);
+        previous.run().result().get();
+        previous.close();
+
+        // Add an edge from 2 to 5, which shortens the path to 5
+        Map<Long, Double> adjacency = new HashMap<>();
+        adjacency.put(3L, 23.0);
+        adjacency.put(5L, 1.0);
+        Map<TopicPartition, Long> newOffsets = new HashMap<>(offsets);
+        try (Producer<Long, Map<Long, Double>> producer = new KafkaProducer<>(producerConfig, new LongSerializer(),
+            new AdjacencySerde<Long, Double>(Serdes.Long(), Serdes.Double()).serializer())) {
+            RecordMetadata metadata = producer.send(
+                new ProducerRecord<>("edgesGroupedBySource-" + suffix, 2L, adjacency)).get();
+            newOffsets.put(new TopicPartition(metadata.topic(), metadata.partition()), metadata.offset());
+        }
+
+        algorithm =
+            new PregelGraphAlgorithm<>(null, "run2" + suffix, CLUSTER.bootstrapServers(),
+                CLUSTER.zKConnectString(), "vertices-" + suffix, "edgesGroupedBySource-" + suffix, newOffsets, graph.serialized(),
+                "solutionSet2" + suffix, "solutionSetStore2" + suffix, "workSet2" + suffix, 2, (short) 1,
+                configs, Optional.empty(), new SingleSourceShortestPaths())
+                .incremental(previous.solutionSetTopic(), offsets);
+        props = ClientUtils.streamsConfig("run2" + suffix, "run2-client" + suffix, CLUSTER.bootstrapServers(),
+            graph.keySerde().getClass(), KryoSerde.class);
+        algorithm.configure(new StreamsBuilder(), props);
+        GraphAlgorithmState<KTable<Long, Double>> paths = algorithm.run();
+        paths.result().get();
+
+        Map<Long, Double> map = StreamUtils.mapFromStore(paths.streams(), "solutionSetStore2" + suffix);
+        log.debug("result: {}", map);
+
+        Map<Long, Double> expectedResult = new HashMap<>();
+        expectedResult.put(1L, 0.0);
+        expectedResult.put(2L, 12.0);
+        expectedResult.put(3L, 13.0);
+        expectedResult.put(4L, 47.0);
+        expectedResult.put(5L, 13.0);
+
+        assertEquals(expectedResult, map);
+
+        // Only the source of the new edge is active in the first superstep
+        Map<PregelMetrics.Metric, Long> metrics = algorithm.metrics().totals().get(0);
+        assertEquals(1L, (long) metrics.get(PregelMetrics.Metric.ACTIVE_VERTICES));
     }
 
     @After
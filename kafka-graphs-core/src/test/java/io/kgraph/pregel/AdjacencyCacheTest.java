@@ -0,0 +1,119 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.kgraph.pregel;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import org.apache.kafka.common.serialization.Serdes;
+import org.apache.kafka.streams.state.KeyValueStore;
+import org.apache.kafka.streams.state.Stores;
+import org.apache.kafka.test.NoOpProcessorContext;
+import org.junit.Test;
+
+import io.kgraph.EdgeWithValue;
+import io.kgraph.utils.AdjacencySerde;
+
+public class AdjacencyCacheTest {
+
+    private static Map<Long, Double> edges(long... targets) {
+        Map<Long, Double> edges = new HashMap<>();
+        for (long target : targets) {
+            edges.put(target, (double) target);
+        }
+        return edges;
+    }
+
+    @Test
+    public void testLoadOnce() {
+        AtomicInteger loads = new AtomicInteger();
+        Function<Long, Map<Long, Double>> loader = k -> {
+            loads.incrementAndGet();
+            return edges(2L, 3L);
+        };
+        AdjacencyCache<Long, Double> cache = new AdjacencyCache<>(100);
+        List<EdgeWithValue<Long, Double>> first = new ArrayList<>();
+        cache.get(1L, loader).forEach(first::add);
+        List<EdgeWithValue<Long, Double>> second = new ArrayList<>();
+        cache.get(1L, loader).forEach(second::add);
+
+        assertEquals(1, loads.get());
+        assertEquals(2, first.size());
+        assertEquals(first, second);
+        assertEquals(edges(2L, 3L).get(first.get(0).target()), first.get(0).value());
+        assertEquals(1L, (long) first.get(0).source());
+    }
+
+    @Test
+    public void testNoEdges() {
+        AdjacencyCache<String, Double> cache = new AdjacencyCache<>(100);
+        assertEquals(0, cache.get("a", k -> null).size());
+        assertEquals(1, cache.size());
+        assertEquals(1L, cache.edges());
+    }
+
+    @Test
+    public void testEviction() {
+        AdjacencyCache<Long, Double> cache = new AdjacencyCache<>(5);
+        cache.get(1L, k -> edges(2L, 3L));
+        cache.get(2L, k -> edges(3L, 4L));
+        // Touch the first list so that the second one is evicted
+        cache.get(1L, k -> edges());
+        cache.get(3L, k -> edges(4L, 5L));
+        assertEquals(2, cache.size());
+        assertEquals(4L, cache.edges());
+        assertEquals(2, cache.get(1L, k -> edges()).size());
+        assertEquals(0, cache.get(2L, k -> edges()).size());
+
+        // Larger than the cache
+        cache.get(4L, k -> edges(1L, 2L, 3L, 5L, 6L, 7L));
+        assertEquals(3, cache.size());
+    }
+
+    @Test
+    public void testCallbackInvalidates() {
+        KeyValueStore<Long, Map<Long, Double>> edgesStore = Stores.keyValueStoreBuilder(
+            Stores.inMemoryKeyValueStore("edges"), Serdes.Long(), new AdjacencySerde<>(Serdes.Long(), Serdes.Double()))
+            .withLoggingDisabled()
+            .build();
+        edgesStore.init(new NoOpProcessorContext(), edgesStore);
+        edgesStore.put(1L, edges(2L));
+
+        AdjacencyCache<Long, Double> cache = new AdjacencyCache<>(100);
+        assertEquals(1, cache.get(1L, edgesStore::get).size());
+
+        ComputeFunction.Callback<Long, Double, Double, Double> cb = new ComputeFunction.Callback<>(
+            1L, VertexEdges.of(edgesStore), Collections.emptyMap(), Collections.emptyMap(), null, cache);
+        cb.addEdge(3L, 3.0);
+        assertEquals(2, cache.get(1L, edgesStore::get).size());
+        cb.setNewEdgeValue(3L, 4.0);
+        Map<Long, Double> values = new HashMap<>();
+        cache.get(1L, edgesStore::get).forEach(e -> values.put(e.target(), e.value()));
+        assertEquals(4.0, values.get(3L), 0.0);
+        cb.removeEdge(2L);
+        assertEquals(1, cache.get(1L, edgesStore::get).size());
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.kgraph.pregel;
+
+import static org.junit.Assert.assertArrayEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+import io.kgraph.AbstractIntegrationTest;
+
+public class KafkaBarrierCoordinatorTest extends AbstractIntegrationTest {
+
+    private static final int NUM_PATHS = 50;
+
+    @Test
+    public void testConcurrentWriteAndDelete() throws Exception {
+        String applicationId = "concurrent";
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try (KafkaBarrierCoordinator coordinator1 =
+                 new KafkaBarrierCoordinator(CLUSTER.bootstrapServers(), applicationId, (short) 1, 0L);
+             KafkaBarrierCoordinator coordinator2 =
+                 new KafkaBarrierCoordinator(CLUSTER.bootstrapServers(), applicationId, (short) 1, 0L)) {
+            for (int i = 0; i < NUM_PATHS; i++) {
+                String path = path(i);
+                byte[] data = new byte[] {(byte) i};
+                List<Future<?>> writes = new ArrayList<>();
+                writes.add(executor.submit(() -> {
+                    coordinator1.put(path, data);
+                    return null;
+                }));
+                writes.add(executor.submit(() -> {
+                    coordinator2.delete(path);
+                    return null;
+                }));
+                for (Future<?> write : writes) {
+                    write.get();
+                }
+            }
+
+            // A new instance reads the topic up to its end, so its view holds the last record of each path
+            try (KafkaBarrierCoordinator coordinator3 =
+                     new KafkaBarrierCoordinator(CLUSTER.bootstrapServers(), applicationId, (short) 1, 0L)) {
+                long deadline = System.currentTimeMillis() + 10000L;
+                while (!isSynced(coordinator3, coordinator1, coordinator2) && System.currentTimeMillis() < deadline) {
+                    Thread.sleep(100);
+                }
+                for (int i = 0; i < NUM_PATHS; i++) {
+                    assertArrayEquals(coordinator3.get(path(i)), coordinator1.get(path(i)));
+                    assertArrayEquals(coordinator3.get(path(i)), coordinator2.get(path(i)));
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static String path(int i) {
+        return ZKUtils.PREGEL_PATH + "concurrent/path-" + i;
+    }
+
+    private static boolean isSynced(KafkaBarrierCoordinator expected, KafkaBarrierCoordinator... coordinators) {
+        for (KafkaBarrierCoordinator coordinator : coordinators) {
+            for (int i = 0; i < NUM_PATHS; i++) {
+                if (!Arrays.equals(expected.get(path(i)), coordinator.get(path(i)))) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.kgraph.pregel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+import org.junit.Test;
+
+public class KeyValueBarrierCoordinatorTest {
+
+    private static final long SESSION_TIMEOUT_MS = 300L;
+
+    /**
+     * Coordinators that share their entries, as instances reading the same barrier topic do.
+     */
+    private static class SharedBarrierCoordinator extends KeyValueBarrierCoordinator {
+        private final NavigableMap<String, byte[]> entries;
+        private volatile boolean crashed = false;
+
+        SharedBarrierCoordinator(NavigableMap<String, byte[]> entries, long sessionTimeoutMs) {
+            super("test", sessionTimeoutMs);
+            this.entries = entries;
+        }
+
+        void crash() {
+            crashed = true;
+        }
+
+        @Override
+        protected NavigableMap<String, byte[]> entries() {
+            return entries;
+        }
+
+        @Override
+        protected void put(String path, byte[] data) {
+            if (!crashed) {
+                entries.put(path, data);
+                notifyListeners();
+            }
+        }
+
+        @Override
+        protected void delete(String path) {
+            if (!crashed) {
+                entries.remove(path);
+                notifyListeners();
+            }
+        }
+    }
+
+    @Test
+    public void testExpireCrashedSession() throws Exception {
+        NavigableMap<String, byte[]> entries = new ConcurrentSkipListMap<>();
+        try (SharedBarrierCoordinator coordinator1 = new SharedBarrierCoordinator(entries, SESSION_TIMEOUT_MS);
+             SharedBarrierCoordinator coordinator2 = new SharedBarrierCoordinator(entries, SESSION_TIMEOUT_MS)) {
+            BarrierCoordinator.Worker worker1 = coordinator1.join("worker1");
+            Thread.sleep(10);
+            BarrierCoordinator.Worker worker2 = coordinator2.join("worker2");
+            assertTrue(worker1.isLeader());
+            assertFalse(worker2.isLeader());
+            assertEquals(2, worker2.groupSize());
+
+            // The first coordinator stops writing, without closing its worker
+            coordinator1.crash();
+            long deadline = System.currentTimeMillis() + 10 * SESSION_TIMEOUT_MS;
+            while (!worker2.isLeader() && System.currentTimeMillis() < deadline) {
+                Thread.sleep(50);
+            }
+            assertTrue(worker2.isLeader());
+            assertEquals(1, worker2.groupSize());
+            worker2.close();
+        }
+    }
+
+    @Test
+    public void testRegisterAgainAfterExpiry() throws Exception {
+        NavigableMap<String, byte[]> entries = new ConcurrentSkipListMap<>();
+        try (SharedBarrierCoordinator coordinator = new SharedBarrierCoordinator(entries, SESSION_TIMEOUT_MS)) {
+            BarrierCoordinator.Worker worker = coordinator.join("worker");
+            // Another instance expired the session during a pause
+            entries.clear();
+            assertFalse(worker.isLeader());
+            long deadline = System.currentTimeMillis() + 10 * SESSION_TIMEOUT_MS;
+            while (!worker.isLeader() && System.currentTimeMillis() < deadline) {
+                Thread.sleep(50);
+            }
+            assertTrue(worker.isLeader());
+            assertEquals(1, worker.groupSize());
+            worker.close();
+        }
+    }
+
+    @Test
+    public void testRollbackElectsLiveWorker() throws Exception {
+        NavigableMap<String, byte[]> entries = new ConcurrentSkipListMap<>();
+        try (SharedBarrierCoordinator coordinator1 = new SharedBarrierCoordinator(entries, 0L);
+             SharedBarrierCoordinator coordinator2 = new SharedBarrierCoordinator(entries, 0L)) {
+            BarrierCoordinator.Worker worker1 = coordinator1.join("worker1");
+            Thread.sleep(10);
+            BarrierCoordinator.Worker worker2 = coordinator2.join("worker2");
+            assertTrue(worker1.isLeader());
+            assertEquals(2, worker2.groupSize());
+
+            // The first coordinator dies without a session, and the second resumes the computation
+            coordinator1.crash();
+            assertFalse(worker2.isLeader());
+            coordinator2.rollback(4);
+            assertTrue(worker2.isLeader());
+            assertEquals(1, worker2.groupSize());
+            assertFalse(worker1.isLeader());
+            worker2.close();
+        }
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.kgraph.pregel;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import io.kgraph.GraphAlgorithmState.State;
+import io.kgraph.pregel.PregelState.Stage;
+
+public class LocalBarrierCoordinatorTest {
+
+    @Test
+    public void testLeaderAndGroup() throws Exception {
+        try (LocalBarrierCoordinator coordinator = new LocalBarrierCoordinator("test")) {
+            BarrierCoordinator.Worker worker1 = coordinator.join("worker1");
+            BarrierCoordinator.Worker worker2 = coordinator.join("worker2");
+            BarrierCoordinator.Worker worker3 = coordinator.join("worker2");
+            assertTrue(worker1.isLeader());
+            assertFalse(worker2.isLeader());
+            assertFalse(worker3.isLeader());
+            assertEquals(2, worker1.groupSize());
+
+            worker1.close();
+            assertTrue(worker2.isLeader());
+            assertEquals(1, worker2.groupSize());
+            worker2.close();
+            assertEquals(1, worker3.groupSize());
+            worker3.close();
+        }
+    }
+
+    @Test
+    public void testBarriers() throws Exception {
+        try (LocalBarrierCoordinator coordinator = new LocalBarrierCoordinator("test")) {
+            BarrierCoordinator.Worker worker = coordinator.join("worker");
+            PregelState initial = new PregelState(State.RUNNING, -1, Stage.SEND);
+            assertEquals(initial, coordinator.state(initial));
+
+            PregelState send0 = new PregelState(State.RUNNING, 0, Stage.SEND);
+            coordinator.addChild(send0, "partition-0", false);
+
+            PregelState rcv0 = worker.maybeCreateReadyToReceiveNode(initial);
+            assertEquals(new PregelState(State.RUNNING, 0, Stage.RECEIVE), rcv0);
+            coordinator.setState(rcv0);
+            assertEquals(rcv0, coordinator.state(initial));
+
+            // No worker has received yet
+            assertEquals(rcv0, worker.maybeCreateReadyToSendNode(rcv0));
+            coordinator.addChild(rcv0, "worker", true);
+            assertTrue(coordinator.hasChild(rcv0, "worker"));
+            assertEquals(send0, worker.maybeCreateReadyToSendNode(rcv0));
+            assertTrue(coordinator.isReady(send0));
+
+            // Partition still sending
+            assertEquals(send0, worker.maybeCreateReadyToReceiveNode(send0));
+            coordinator.removeChild(send0, "partition-0");
+            assertFalse(coordinator.hasChild(send0, "partition-0"));
+            PregelState rcv1 = worker.maybeCreateReadyToReceiveNode(send0);
+            assertEquals(new PregelState(State.RUNNING, 1, Stage.RECEIVE), rcv1);
+            assertTrue(coordinator.isReady(rcv1));
+
+            // No partitions active for the next superstep
+            coordinator.addChild(rcv1, "worker", true);
+            assertEquals(State.COMPLETED, worker.maybeCreateReadyToSendNode(rcv1).state());
+            worker.close();
+        }
+    }
+
+    @Test
+    public void testListeners() throws Exception {
+        try (LocalBarrierCoordinator coordinator = new LocalBarrierCoordinator("test")) {
+            AtomicInteger events = new AtomicInteger();
+            Runnable listener = events::incrementAndGet;
+            coordinator.addListener(listener);
+            coordinator.setState(new PregelState(State.RUNNING, 0, Stage.RECEIVE));
+            assertEquals(1, events.get());
+            coordinator.addChild(new PregelState(State.RUNNING, 0, Stage.RECEIVE), "worker", true);
+            assertEquals(2, events.get());
+
+            coordinator.removeListener(listener);
+            coordinator.removeChild(new PregelState(State.RUNNING, 0, Stage.RECEIVE), "worker");
+            assertEquals(2, events.get());
+        }
+    }
+
+    @Test
+    public void testAggregatesAndClear() throws Exception {
+        try (LocalBarrierCoordinator coordinator = new LocalBarrierCoordinator("test")) {
+            assertTrue(coordinator.aggregates(0).isEmpty());
+            assertNull(coordinator.aggregate(0, "all"));
+            coordinator.setAggregate(0, "partition-0", new byte[] { 1 });
+            coordinator.setAggregate(0, "partition-0", new byte[] { 2 });
+            coordinator.setAggregate(1, "partition-0", new byte[] { 3 });
+            assertEquals(1, coordinator.aggregates(0).size());
+            assertArrayEquals(new byte[] { 2 }, coordinator.aggregate(0, "partition-0"));
+
+            coordinator.clear();
+            assertEquals(Collections.emptyMap(), coordinator.aggregates(0));
+            assertNull(coordinator.aggregate(1, "partition-0"));
+        }
+    }
+
+    @Test
+    public void testCheckpointAndRollback() throws Exception {
+        try (LocalBarrierCoordinator coordinator = new LocalBarrierCoordinator("test")) {
+            assertEquals(-1, coordinator.checkpoint());
+            coordinator.setCheckpoint(2);
+            coordinator.setCheckpoint(4);
+            assertEquals(4, coordinator.checkpoint());
+
+            PregelState rcv4 = new PregelState(State.RUNNING, 4, Stage.RECEIVE);
+            PregelState send5 = new PregelState(State.RUNNING, 5, Stage.SEND);
+            coordinator.addChild(rcv4, "worker", true);
+            coordinator.addChild(send5, "partition-0", false);
+            coordinator.setAggregate(3, "all", new byte[] { 3 });
+            coordinator.setAggregate(4, "all", new byte[] { 4 });
+            coordinator.setAggregate(5, "partition-0", new byte[] { 5 });
+
+            coordinator.rollback(4);
+            assertFalse(coordinator.hasChild(rcv4, "worker"));
+            assertFalse(coordinator.hasChild(send5, "partition-0"));
+            assertArrayEquals(new byte[] { 3 }, coordinator.aggregate(3, "all"));
+            assertTrue(coordinator.aggregates(4).isEmpty());
+            assertTrue(coordinator.aggregates(5).isEmpty());
+            assertEquals(4, coordinator.checkpoint());
+
+            coordinator.clear();
+            assertEquals(-1, coordinator.checkpoint());
+        }
+    }
+}
@@ -0,0 +1,204 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.kgraph.pregel;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import org.apache.kafka.streams.KeyValue;
+import org.junit.Test;
+
+import io.kgraph.Edge;
+import io.kgraph.EdgeWithValue;
+import io.kgraph.GraphAlgorithmState.State;
+import io.kgraph.TestGraphUtils;
+import io.kgraph.VertexWithValue;
+import io.kgraph.library.PageRank;
+import io.kgraph.library.SingleSourceShortestPaths;
+import io.vavr.Tuple2;
+
+public class LocalPregelEngineTest {
+
+    private static <K, VV> Map<K, VV> toMap(Iterable<KeyValue<K, VV>> result) {
+        Map<K, VV> map = new HashMap<>();
+        for (KeyValue<K, VV> entry : result) {
+            map.put(entry.key, entry.value);
+        }
+        return map;
+    }
+
+    private static InputStream stream(String lines) {
+        return new ByteArrayInputStream(lines.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testChainPageRank() {
+        double resetProb = 0.15;
+        Map<String, Object> configs = new HashMap<>();
+        configs.put(PageRank.RESET_PROBABILITY, resetProb);
+        configs.put(PageRank.TOLERANCE, 0.0001);
+        configs.put(LocalPregelEngine.PARALLELISM, 2);
+        configs.put(LocalPregelEngine.NUM_PARTITIONS, 3);
+        try (LocalPregelEngine<Long, Tuple2<Double, Double>, Double, Double> engine =
+                 new LocalPregelEngine<>(configs, Optional.of(resetProb / (1.0 - resetProb)), new PageRank<>())) {
+            for (KeyValue<Edge<Long>, Double> edge : TestGraphUtils.getChain()) {
+                engine.addVertex(edge.key.source(), new Tuple2<>(0.0, 0.0));
+                engine.addVertex(edge.key.target(), new Tuple2<>(0.0, 0.0));
+                engine.addEdge(edge.key.source(), edge.key.target(), edge.value);
+            }
+            PregelState state = engine.run(11);
+
+            assertEquals(State.COMPLETED, state.state());
+            List<Double> list = toMap(engine.result()).values().stream()
+                .map(Tuple2::_1).sorted().collect(Collectors.toList());
+            List<Double> expectedResult = new ArrayList<>();
+            expectedResult.add(0.15);
+            expectedResult.add(0.27749999999999997);
+            expectedResult.add(0.38587499999999997);
+            expectedResult.add(0.47799375);
+            expectedResult.add(0.5562946875);
+            expectedResult.add(0.622850484375);
+            expectedResult.add(0.67942291171875);
+            expectedResult.add(0.7275094749609375);
+            expectedResult.add(0.7683830537167969);
+            expectedResult.add(0.8031255956592774);
+            assertEquals(expectedResult, list);
+        }
+    }
+
+    @Test
+    public void testSingleSourceShortestPathsFromFiles() throws Exception {
+        Map<String, Object> configs = new HashMap<>();
+        configs.put(SingleSourceShortestPaths.SRC_VERTEX_ID, 1L);
+        String vertices = "1 Infinity\n2 Infinity\n3 Infinity\n4 Infinity\n5 Infinity\n";
+        String edges = "1 2 12.0\n1 3 13.0\n2 3 23.0\n3 4 34.0\n3 5 35.0\n4 5 45.0\n5 1 51.0\n";
+        try (LocalPregelEngine<Long, Double, Double, Double> engine =
+                 new LocalPregelEngine<>(configs, Optional.of(Double.POSITIVE_INFINITY), new SingleSourceShortestPaths())) {
+            engine.loadFromFiles(stream(vertices), stream(edges), Long::parseLong, Double::parseDouble, Double::parseDouble);
+            PregelState state = engine.run(Integer.MAX_VALUE);
+
+            assertEquals(State.COMPLETED, state.state());
+            Map<Long, Double> expectedResult = new HashMap<>();
+            expectedResult.put(1L, 0.0);
+            expectedResult.put(2L, 12.0);
+            expectedResult.put(3L, 13.0);
+            expectedResult.put(4L, 47.0);
+            expectedResult.put(5L, 48.0);
+            assertEquals(expectedResult, toMap(engine.result()));
+        }
+    }
+
+    @Test
+    public void testEdgeChangesAndNewVertices() {
+        ComputeFunction<Long, Long, Long, Long> cf = new ComputeFunction<Long, Long, Long, Long>() {
+            @Override
+            public void compute(int superstep,
+                                VertexWithValue<Long, Long> vertex,
+                                Iterable<Long> messages,
+                                Iterable<EdgeWithValue<Long, Long>> edges,
+                                Callback<Long, Long, Long, Long> cb) {
+                if (superstep == 0) {
+                    if (vertex.id() == 1L) {
+                        cb.removeEdge(2L);
+                        cb.addEdge(3L, 5L);
+                        cb.sendMessageTo(99L, 7L);
+                    } else if (vertex.id() == 2L) {
+                        cb.setNewEdgeValue(3L, 20L);
+                    }
+                    cb.sendMessageToAllNeighbors(vertex.id());
+                } else {
+                    long sum = 0L;
+                    for (Long message : messages) {
+                        sum += message;
+                    }
+                    cb.setNewVertexValue(sum);
+                }
+                cb.voteToHalt();
+            }
+
+            @Override
+            public Long scatter(Long message, EdgeWithValue<Long, Long> edge) {
+                return message * edge.value();
+            }
+        };
+        try (LocalPregelEngine<Long, Long, Long, Long> engine =
+                 new LocalPregelEngine<>(new HashMap<>(), Optional.empty(), cf)) {
+            engine.addVertex(1L, 0L);
+            engine.addVertex(2L, 0L);
+            engine.addVertex(3L, 0L);
+            engine.addEdge(1L, 2L, 1L);
+            engine.addEdge(2L, 3L, 1L);
+            engine.run(10);
+
+            Map<Long, Long> expectedResult = new HashMap<>();
+            expectedResult.put(1L, 0L);
+            expectedResult.put(2L, 0L);
+            expectedResult.put(3L, 45L);
+            expectedResult.put(99L, 7L);
+            assertEquals(expectedResult, toMap(engine.result()));
+        }
+    }
+
+    @Test
+    public void testMissingEdgeChanges() {
+        Map<Long, Boolean> edgesChanged = new ConcurrentHashMap<>();
+        ComputeFunction<Long, Long, Long, Long> cf = new ComputeFunction<Long, Long, Long, Long>() {
+            @Override
+            public void compute(int superstep,
+                                VertexWithValue<Long, Long> vertex,
+                                Iterable<Long> messages,
+                                Iterable<EdgeWithValue<Long, Long>> edges,
+                                Callback<Long, Long, Long, Long> cb) {
+                // Neither vertex has an edge to 3
+                if (vertex.id() == 1L) {
+                    cb.setNewEdgeValue(3L, 20L);
+                } else {
+                    cb.removeEdge(3L);
+                }
+                edgesChanged.put(vertex.id(), cb.edgesChanged);
+                cb.voteToHalt();
+            }
+        };
+        try (LocalPregelEngine<Long, Long, Long, Long> engine =
+                 new LocalPregelEngine<>(new HashMap<>(), Optional.empty(), cf)) {
+            engine.addVertex(1L, 0L);
+            engine.addVertex(2L, 0L);
+            engine.addVertex(3L, 0L);
+            engine.addEdge(1L, 2L, 1L);
+            engine.addEdge(2L, 1L, 1L);
+            engine.run(10);
+
+            Map<Long, Boolean> expectedResult = new HashMap<>();
+            expectedResult.put(1L, false);
+            expectedResult.put(2L, false);
+            expectedResult.put(3L, false);
+            assertEquals(expectedResult, edgesChanged);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.kgraph.pregel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Map;
+
+import org.junit.Test;
+
+import io.kgraph.GraphAlgorithmState;
+import io.kgraph.pregel.PregelMetrics.Metric;
+
+public class PregelMetricsTest {
+
+    @Test
+    public void testRecord() {
+        PregelMetrics metrics = new PregelMetrics("test", 10);
+        metrics.record(0, 0, Metric.MESSAGES_SENT, 3);
+        metrics.record(0, 0, Metric.MESSAGES_SENT, 2);
+        metrics.record(0, 1, Metric.MESSAGES_SENT, 4);
+        metrics.record(1, 1, Metric.ACTIVE_VERTICES, 1);
+
+        Map<Integer, Map<Integer, Map<Metric, Long>>> snapshot = metrics.snapshot();
+        assertEquals(5L, (long) snapshot.get(0).get(0).get(Metric.MESSAGES_SENT));
+        assertEquals(4L, (long) snapshot.get(0).get(1).get(Metric.MESSAGES_SENT));
+        assertEquals(0L, (long) snapshot.get(0).get(1).get(Metric.ACTIVE_VERTICES));
+        assertEquals(9L, (long) metrics.totals().get(0).get(Metric.MESSAGES_SENT));
+        assertEquals(1L, (long) metrics.totals().get(1).get(Metric.ACTIVE_VERTICES));
+    }
+
+    @Test
+    public void testRetainedSupersteps() {
+        PregelMetrics metrics = new PregelMetrics("test", 2);
+        for (int superstep = 0; superstep < 5; superstep++) {
+            metrics.record(superstep, 0, Metric.MESSAGES_RECEIVED, 1);
+        }
+        assertEquals(2, metrics.snapshot().size());
+        assertEquals(3, (int) metrics.snapshot().firstKey());
+    }
+
+    @Test
+    public void testBarrierWait() throws Exception {
+        PregelMetrics metrics = new PregelMetrics("test", 10);
+        metrics.superstepFinished(0, 0);
+        metrics.superstepStarted(0, 0);
+        assertFalse(metrics.snapshot().containsKey(0));
+
+        Thread.sleep(20);
+        metrics.superstepStarted(1, 0);
+        assertTrue(metrics.snapshot().get(0).get(0).get(Metric.BARRIER_WAIT_MS) >= 20);
+
+        // A wait is only recorded once
+        metrics.superstepStarted(2, 0);
+        assertEquals(1, metrics.snapshot().size());
+    }
+
+    @Test
+    public void testCoordinatorOps() throws Exception {
+        PregelMetrics metrics = new PregelMetrics("test", 10);
+        BarrierCoordinator coordinator = new MeteredBarrierCoordinator(new LocalBarrierCoordinator("test"), metrics);
+        PregelState state = new PregelState(GraphAlgorithmState.State.RUNNING, 0, PregelState.Stage.SEND);
+        coordinator.setState(state);
+        coordinator.state(state);
+        coordinator.isReady(state);
+        assertEquals(3L, (long) metrics.snapshot().get(0).get(PregelMetrics.ALL_PARTITIONS).get(Metric.COORDINATOR_OPS));
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.kgraph.pregel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.kafka.common.serialization.Serdes;
+import org.junit.Test;
+
+import io.kgraph.utils.AdjacencySerde;
+import io.kgraph.utils.KryoSerde;
+import io.kgraph.utils.KryoUtils;
+import io.kgraph.utils.PackedAdjacency;
+import io.vavr.Tuple2;
+import io.vavr.Tuple3;
+import io.vavr.Tuple4;
+
+public class PregelSerdesTest {
+
+    @Test
+    public void testWorkSet() {
+        WorkSetSerde<Long, Double> serde = new WorkSetSerde<>(Serdes.Long());
+        Tuple3<Integer, Long, List<Double>> messages = new Tuple3<>(3, 7L, Arrays.asList(1.5, 2.5));
+        byte[] bytes = serde.serialize("topic", messages);
+        assertEquals(messages, serde.deserialize("topic", bytes));
+        assertTrue(bytes.length < KryoUtils.serialize(messages).length);
+
+        Tuple3<Integer, Long, List<Double>> empty = new Tuple3<>(0, 7L, Collections.emptyList());
+        assertEquals(empty, serde.deserialize("topic", serde.serialize("topic", empty)));
+        Tuple3<Integer, Long, List<Double>> tombstone = new Tuple3<>(1, 7L, null);
+        assertEquals(tombstone, serde.deserialize("topic", serde.serialize("topic", tombstone)));
+        assertNull(serde.serialize("topic", null));
+    }
+
+    @Test
+    public void testSolutionSet() {
+        SolutionSetSerde<Tuple2<Long, Long>> serde = new SolutionSetSerde<>(new KryoSerde<>());
+        Tuple4<Integer, Tuple2<Long, Long>, Integer, Tuple2<Long, Long>> initial =
+            new Tuple4<>(-1, new Tuple2<>(1L, 2L), 0, new Tuple2<>(1L, 2L));
+        assertEquals(initial, serde.deserialize("topic", serde.serialize("topic", initial)));
+        Tuple4<Integer, Tuple2<Long, Long>, Integer, Tuple2<Long, Long>> missing = new Tuple4<>(-1, null, 0, null);
+        assertEquals(missing, serde.deserialize("topic", serde.serialize("topic", missing)));
+    }
+
+    @Test
+    public void testEdges() {
+        AdjacencySerde<Long, Double> serde = new AdjacencySerde<>(Serdes.Long(), Serdes.Double());
+        Map<Long, Double> edges = new HashMap<>();
+        edges.put(1L, 0.5);
+        edges.put(2L, null);
+        edges.put(3L, 1.5);
+        byte[] bytes = serde.serialize("topic", edges);
+        assertEquals(edges, serde.deserialize("topic", bytes));
+        assertTrue(bytes.length < KryoUtils.serialize(edges).length);
+        assertEquals(Collections.emptyMap(), serde.deserialize("topic", serde.serialize("topic", Collections.emptyMap())));
+    }
+
+    @Test
+    public void testPackedEdges() {
+        AdjacencySerde<Long, Double> serde = new AdjacencySerde<>(Serdes.Long(), Serdes.Double());
+        Map<Long, Double> edges = new HashMap<>();
+        edges.put(100L, 0.5);
+        edges.put(-3L, 1.5);
+        edges.put(Long.MAX_VALUE, 2.5);
+        edges.put(Long.MIN_VALUE, 3.5);
+        byte[] bytes = serde.serialize("topic", edges);
+        Map<Long, Double> packed = serde.deserialize("topic", bytes);
+        assertTrue(packed instanceof PackedAdjacency);
+        assertEquals(edges, packed);
+        assertEquals(1.5, packed.get(-3L), 0.0);
+
+        // Modifications copy the view
+        packed.put(7L, 4.5);
+        packed.remove(100L);
+        edges.put(7L, 4.5);
+        edges.remove(100L);
+        assertEquals(edges, packed);
+        assertEquals(edges, serde.deserialize("topic", serde.serialize("topic", packed)));
+
+        edges.put(8L, null);
+        assertEquals(edges, serde.deserialize("topic", serde.serialize("topic", edges)));
+        assertEquals(Collections.emptyMap(), serde.deserialize("topic", serde.serialize("topic", Collections.emptyMap())));
+
+        // Deltas of nearby ids take a single byte
+        Map<Long, Double> neighbors = new HashMap<>();
+        for (long i = 0; i < 100; i++) {
+            neighbors.put(1_000_000_000L + i * 3, 1.0);
+        }
+        assertTrue(serde.serialize("topic", neighbors).length <= 100 * (1 + Double.BYTES) + 16);
+    }
+
+    @Test
+    public void testPackedEdgesWithGenericKeys() {
+        AdjacencySerde<String, Long> serde = new AdjacencySerde<>(Serdes.String(), Serdes.Long());
+        Map<String, Long> edges = new HashMap<>();
+        edges.put("a", 1L);
+        edges.put("b", -2L);
+        assertEquals(edges, serde.deserialize("topic", serde.serialize("topic", edges)));
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.kgraph.pregel;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.kafka.common.serialization.LongSerializer;
+import org.apache.kafka.common.utils.Bytes;
+import org.junit.Test;
+
+public class WorkSetKeysTest {
+
+    private final LongSerializer serializer = new LongSerializer();
+
+    @Test
+    public void testKeyParts() {
+        byte[] target = serializer.serialize(null, 5L);
+        byte[] source = serializer.serialize(null, 7L);
+        Bytes key = WorkSetKeys.key(3, target, source);
+
+        assertEquals(3, WorkSetKeys.superstep(key));
+        assertArrayEquals(target, WorkSetKeys.target(key));
+        assertArrayEquals(source, WorkSetKeys.source(key));
+        assertTrue(WorkSetKeys.hasPrefix(key, WorkSetKeys.prefix(3)));
+        assertTrue(WorkSetKeys.hasPrefix(key, WorkSetKeys.prefix(3, target)));
+        assertFalse(WorkSetKeys.hasPrefix(key, WorkSetKeys.prefix(4)));
+        assertFalse(WorkSetKeys.hasPrefix(key, WorkSetKeys.prefix(3, source)));
+    }
+
+    @Test
+    public void testRangeBounds() {
+        byte[] target = serializer.serialize(null, 255L);
+        byte[] source = serializer.serialize(null, -1L);
+        Bytes key = WorkSetKeys.key(1, target, source);
+
+        Bytes prefix = WorkSetKeys.prefix(1, target);
+        Bytes upper = WorkSetKeys.upperBound(prefix);
+        assertTrue(prefix.compareTo(key) < 0);
+        assertTrue(upper.compareTo(key) > 0);
+        assertTrue(upper.compareTo(WorkSetKeys.prefix(2)) <= 0);
+
+        Bytes stepUpper = WorkSetKeys.upperBound(WorkSetKeys.prefix(1));
+        assertEquals(WorkSetKeys.prefix(2), stepUpper);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnboundedPrefix() {
+        WorkSetKeys.upperBound(WorkSetKeys.prefix(-1));
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.kgraph.utils;
+
+import static org.junit.Assert.assertEquals;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.stream.Collectors;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.LongSerializer;
+import org.apache.kafka.common.serialization.Serdes;
+import org.junit.Test;
+
+import io.kgraph.AbstractIntegrationTest;
+import io.kgraph.Edge;
+import io.kgraph.GraphSerialized;
+
+public class BulkGraphLoaderTest extends AbstractIntegrationTest {
+
+    @Test
+    public void testLoad() throws Exception {
+        String suffix = "bulk";
+        Properties producerConfig = ClientUtils.producerConfig(CLUSTER.bootstrapServers(), LongSerializer.class,
+            LongSerializer.class, new Properties());
+        ClientUtils.createTopic("initVertices-" + suffix, 3, (short) 1, producerConfig);
+        ClientUtils.createTopic("initEdges-" + suffix, 3, (short) 1, producerConfig);
+        try (Producer<Long, Long> producer = new KafkaProducer<>(producerConfig)) {
+            for (long i = 0; i < 10; i++) {
+                producer.send(new ProducerRecord<>("initVertices-" + suffix, i, i));
+            }
+            producer.send(new ProducerRecord<>("initVertices-" + suffix, 3L, 30L));
+            producer.send(new ProducerRecord<>("initVertices-" + suffix, 9L, null));
+        }
+        try (Producer<Edge<Long>, Long> producer =
+                 new KafkaProducer<>(producerConfig, new KryoSerializer<>(), new LongSerializer())) {
+            for (long i = 0; i < 9; i++) {
+                producer.send(new ProducerRecord<>("initEdges-" + suffix, new Edge<>(i, i + 1), i));
+            }
+            producer.send(new ProducerRecord<>("initEdges-" + suffix, new Edge<>(0L, 2L), 2L));
+            producer.send(new ProducerRecord<>("initEdges-" + suffix, new Edge<>(1L, 2L), 12L));
+            producer.send(new ProducerRecord<>("initEdges-" + suffix, new Edge<>(0L, 2L), null));
+        }
+
+        GraphSerialized<Long, Long, Long> serialized = GraphSerialized.with(Serdes.Long(), Serdes.Long(), Serdes.Long());
+        // Use a small buffer so that the sort spills to disk
+        BulkGraphLoader<Long, Long, Long> loader =
+            new BulkGraphLoader<>(CLUSTER.bootstrapServers(), new Properties(), serialized, 256);
+        Map<TopicPartition, Long> offsets = loader.load("initVertices-" + suffix, "initEdges-" + suffix,
+            "vertices-" + suffix, "edgesGroupedBySource-" + suffix, 2, (short) 1).get();
+
+        Properties consumerConfig = ClientUtils.consumerConfig(CLUSTER.bootstrapServers(), "verify-" + suffix,
+            ByteArrayDeserializer.class, ByteArrayDeserializer.class, new Properties());
+        try (KafkaConsumer<byte[], byte[]> consumer = new KafkaConsumer<>(consumerConfig)) {
+            List<TopicPartition> partitions = offsets.keySet().stream().collect(Collectors.toList());
+            Map<TopicPartition, Long> endOffsets = consumer.endOffsets(partitions);
+            for (TopicPartition partition : partitions) {
+                assertEquals(endOffsets.get(partition) - 1, (long) offsets.get(partition));
+            }
+
+            Map<Long, Long> vertices = new HashMap<>();
+            Map<Long, Map<Long, Long>> edges = new HashMap<>();
+            AdjacencySerde<Long, Long> edgesSerde = new AdjacencySerde<>(Serdes.Long(), Serdes.Long());
+            consumer.assign(partitions);
+            consumer.seekToBeginning(partitions);
+            int remaining = offsets.values().stream().mapToInt(offset -> (int) (offset + 1)).sum();
+            while (remaining > 0) {
+                for (ConsumerRecord<byte[], byte[]> record : consumer.poll(Duration.ofMillis(100))) {
+                    Long key = Serdes.Long().deserializer().deserialize(record.topic(), record.key());
+                    if (record.topic().equals("vertices-" + suffix)) {
+                        vertices.put(key, Serdes.Long().deserializer().deserialize(record.topic(), record.value()));
+                    } else {
+                        edges.put(key, new HashMap<>(edgesSerde.deserializer().deserialize(record.topic(), record.value())));
+                    }
+                    remaining--;
+                }
+            }
+
+            Map<Long, Long> expectedVertices = new HashMap<>();
+            for (long i = 0; i < 9; i++) {
+                expectedVertices.put(i, i == 3 ? 30L : i);
+            }
+            assertEquals(expectedVertices, vertices);
+
+            Map<Long, Map<Long, Long>> expectedEdges = new HashMap<>();
+            for (long i = 0; i < 9; i++) {
+                expectedEdges.computeIfAbsent(i, k -> new HashMap<>()).put(i + 1, i);
+            }
+            expectedEdges.get(1L).put(2L, 12L);
+            assertEquals(expectedEdges, edges);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.kgraph.utils;
+
+import static org.junit.Assert.assertEquals;
+
+import org.apache.kafka.common.serialization.LongSerializer;
+import org.junit.Test;
+
+public class HyperLogLogTest {
+
+    private final LongSerializer serializer = new LongSerializer();
+
+    @Test
+    public void testSmallCardinality() {
+        HyperLogLog sketch = new HyperLogLog();
+        for (long i = 0; i < 10; i++) {
+            sketch.add(serializer.serialize(null, i));
+            sketch.add(serializer.serialize(null, i));
+        }
+        assertEquals(10L, sketch.cardinality());
+    }
+
+    @Test
+    public void testLargeCardinality() {
+        HyperLogLog sketch = new HyperLogLog(12);
+        for (long i = 0; i < 100000; i++) {
+            sketch.add(serializer.serialize(null, i));
+        }
+        // The standard error is about 1.6%
+        assertEquals(100000.0, sketch.cardinality(), 5000.0);
+    }
+
+    @Test
+    public void testMerge() {
+        HyperLogLog left = new HyperLogLog();
+        HyperLogLog right = new HyperLogLog();
+        for (long i = 0; i < 20000; i++) {
+            left.add(serializer.serialize(null, i));
+            right.add(serializer.serialize(null, i + 10000));
+        }
+        HyperLogLog union = new HyperLogLog().merge(left).merge(right);
+        assertEquals(30000.0, union.cardinality(), 3000.0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMergeDifferentPrecisions() {
+        new HyperLogLog(10).merge(new HyperLogLog(12));
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.kgraph.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+public class LongHashSetTest {
+
+    @Test
+    public void testAddRemove() {
+        LongHashSet set = new LongHashSet();
+        assertTrue(set.add(0L));
+        assertFalse(set.add(0L));
+        assertTrue(set.add(-1L));
+        assertTrue(set.add(Long.MAX_VALUE));
+        assertEquals(3, set.size());
+        assertTrue(set.contains(0L));
+        assertTrue(set.contains((Object) Long.MAX_VALUE));
+        assertFalse(set.contains("0"));
+
+        assertTrue(set.remove(0L));
+        assertFalse(set.contains(0L));
+        assertFalse(set.remove(1L));
+        assertEquals(2, set.size());
+
+        set.clear();
+        assertTrue(set.isEmpty());
+        assertFalse(set.contains(-1L));
+    }
+
+    @Test
+    public void testAgainstHashSet() {
+        Random random = new Random(42);
+        LongHashSet set = new LongHashSet();
+        Set<Long> expected = new HashSet<>();
+        for (int i = 0; i < 100000; i++) {
+            // A small key range, so that there are many collisions and removals
+            long key = random.nextInt(5000) - 100;
+            if (random.nextBoolean()) {
+                assertEquals(expected.add(key), set.add(key));
+            } else {
+                assertEquals(expected.remove(key), set.remove(key));
+            }
+        }
+        assertEquals(expected.size(), set.size());
+        assertEquals(expected, set);
+        assertEquals(expected, new HashSet<>(set));
+    }
+}
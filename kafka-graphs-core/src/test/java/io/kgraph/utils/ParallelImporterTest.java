@@ -0,0 +1,134 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.kgraph.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.DoubleDeserializer;
+import org.apache.kafka.common.serialization.LongDeserializer;
+import org.junit.Test;
+
+import io.kgraph.Edge;
+
+public class ParallelImporterTest {
+
+    private static MockProducer<byte[], byte[]> producer() {
+        return new MockProducer<>(true, new ByteArraySerializer(), new ByteArraySerializer());
+    }
+
+    @Test
+    public void testTextEdges() throws IOException {
+        File file = File.createTempFile("edges", ".txt");
+        file.deleteOnExit();
+        try (PrintWriter writer = new PrintWriter(file, "UTF-8")) {
+            for (long i = 0; i < 1000; i++) {
+                writer.println(i + " " + (i + 1) + "\t" + (i * 0.5));
+            }
+            writer.println();
+            writer.print("-5 7");
+        }
+
+        MockProducer<byte[], byte[]> producer = producer();
+        ParallelImporter importer = new ParallelImporter(producer, 4,
+            ParallelImporter.Format.TEXT, ParallelImporter.ValueType.DOUBLE);
+        ParallelImporter.Report report = importer.importEdges(file, "edges");
+
+        assertEquals(1001L, report.records());
+        Map<Edge<Long>, Double> edges = new HashMap<>();
+        KryoDeserializer<Edge<Long>> keyDeserializer = new KryoDeserializer<>();
+        DoubleDeserializer valueDeserializer = new DoubleDeserializer();
+        for (ProducerRecord<byte[], byte[]> record : producer.history()) {
+            edges.put(keyDeserializer.deserialize("edges", record.key()),
+                valueDeserializer.deserialize("edges", record.value()));
+        }
+        assertEquals(1001, edges.size());
+        assertEquals(21.0, edges.get(new Edge<>(42L, 43L)), 0.0);
+        assertNull(edges.get(new Edge<>(-5L, 7L)));
+    }
+
+    @Test
+    public void testBinaryVertices() throws IOException {
+        File file = File.createTempFile("vertices", ".bin");
+        file.deleteOnExit();
+        try (DataOutputStream out = new DataOutputStream(new FileOutputStream(file))) {
+            for (long i = 0; i < 1000; i++) {
+                out.writeLong(i);
+                out.writeLong(i * 10);
+            }
+        }
+
+        MockProducer<byte[], byte[]> producer = producer();
+        ParallelImporter importer = new ParallelImporter(producer, 3,
+            ParallelImporter.Format.BINARY, ParallelImporter.ValueType.LONG);
+        ParallelImporter.Report report = importer.importVertices(file, "vertices");
+
+        assertEquals(1000L, report.records());
+        Map<Long, Long> vertices = new HashMap<>();
+        LongDeserializer deserializer = new LongDeserializer();
+        for (ProducerRecord<byte[], byte[]> record : producer.history()) {
+            vertices.put(deserializer.deserialize("vertices", record.key()),
+                deserializer.deserialize("vertices", record.value()));
+        }
+        assertEquals(1000, vertices.size());
+        assertEquals(420L, (long) vertices.get(42L));
+    }
+
+    @Test
+    public void testChunks() throws IOException {
+        File file = File.createTempFile("lines", ".txt");
+        file.deleteOnExit();
+        try (PrintWriter writer = new PrintWriter(file, "UTF-8")) {
+            for (int i = 0; i < 100; i++) {
+                writer.println(i);
+            }
+        }
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            List<long[]> chunks = ParallelImporter.chunks(channel, 7, 0);
+            long position = 0;
+            byte[] bytes = Files.readAllBytes(file.toPath());
+            for (long[] chunk : chunks) {
+                assertEquals(position, chunk[0]);
+                assertEquals('\n', bytes[(int) chunk[1] - 1]);
+                position = chunk[1];
+            }
+            assertEquals(file.length(), position);
+
+            chunks = ParallelImporter.chunks(channel, 7, 24);
+            for (long[] chunk : chunks.subList(0, chunks.size() - 1)) {
+                assertEquals(0, (chunk[1] - chunk[0]) % 24);
+            }
+        }
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.kgraph.utils;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import org.apache.kafka.common.utils.Bytes;
+import org.junit.Test;
+
+public class SpillingSorterTest {
+
+    private static byte[] bytes(int i) {
+        return new byte[]{(byte) (i >>> 8), (byte) i};
+    }
+
+    @Test
+    public void testSortWithSpills() throws Exception {
+        File directory = ClientUtils.tempDirectory();
+        try (SpillingSorter sorter = new SpillingSorter(directory, 1000)) {
+            for (int i = 0; i < 500; i++) {
+                sorter.add(bytes((i * 37) % 100), bytes(i), i % 7 == 0 ? null : bytes(i));
+            }
+            assertTrue(sorter.numRuns() > 1);
+
+            List<SpillingSorter.Entry> entries = new ArrayList<>();
+            Iterator<SpillingSorter.Entry> iterator = sorter.sorted();
+            iterator.forEachRemaining(entries::add);
+            assertEquals(500, entries.size());
+            for (int i = 1; i < entries.size(); i++) {
+                SpillingSorter.Entry previous = entries.get(i - 1);
+                SpillingSorter.Entry entry = entries.get(i);
+                int cmp = Bytes.BYTES_LEXICO_COMPARATOR.compare(previous.key, entry.key);
+                assertTrue(cmp < 0 || (cmp == 0 && previous.seq < entry.seq));
+            }
+            SpillingSorter.Entry first = entries.get(0);
+            assertArrayEquals(bytes(0), first.key);
+            assertNull(first.value);
+            assertArrayEquals(bytes(100), entries.get(1).subKey);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.kgraph.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Map;
+import java.util.Properties;
+
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.serialization.LongSerializer;
+import org.apache.kafka.common.serialization.Serdes;
+import org.apache.kafka.streams.KeyValue;
+import org.junit.Test;
+
+import io.kgraph.AbstractIntegrationTest;
+import io.kgraph.AssignedVertexPartitioner;
+import io.kgraph.Edge;
+import io.kgraph.TestGraphUtils;
+
+public class StreamingGraphPartitionerTest extends AbstractIntegrationTest {
+
+    @Test
+    public void testLdg() throws Exception {
+        StreamingGraphPartitioner.Result<Long> result =
+            partition("ldg", StreamingGraphPartitioner.Heuristic.LDG);
+
+        // Each chain fits in a partition
+        assertEquals(0.0, result.edgeCutRatio(), 0.0);
+        Map<Long, Integer> assignments = result.partitioner().assignments();
+        assertEquals(21, assignments.size());
+        for (long i = 0; i < 21; i++) {
+            assertEquals(assignments.get(i < 10 ? 0L : 10L), assignments.get(i));
+        }
+        assertTrue(!assignments.get(0L).equals(assignments.get(10L)));
+    }
+
+    @Test
+    public void testFennel() throws Exception {
+        StreamingGraphPartitioner.Result<Long> result =
+            partition("fennel", StreamingGraphPartitioner.Heuristic.FENNEL);
+
+        // Hashing would cut about half of the edges
+        assertTrue(result.edgeCutRatio() < 0.2);
+        assertEquals(21, result.partitioner().assignments().size());
+    }
+
+    private StreamingGraphPartitioner.Result<Long> partition(String suffix,
+                                                             StreamingGraphPartitioner.Heuristic heuristic)
+        throws Exception {
+        Properties producerConfig = ClientUtils.producerConfig(CLUSTER.bootstrapServers(), LongSerializer.class,
+            LongSerializer.class, new Properties());
+        // A single partition keeps the edges in order
+        ClientUtils.createTopic("initEdges-" + suffix, 1, (short) 1, producerConfig);
+        try (Producer<Edge<Long>, Long> producer =
+                 new KafkaProducer<>(producerConfig, new KryoSerializer<>(), new LongSerializer())) {
+            for (KeyValue<Edge<Long>, Long> edge : TestGraphUtils.getTwoChains()) {
+                producer.send(new ProducerRecord<>("initEdges-" + suffix, edge.key, edge.value));
+            }
+            // A deleted edge is not partitioned
+            producer.send(new ProducerRecord<>("initEdges-" + suffix, new Edge<>(9L, 10L), 1L));
+            producer.send(new ProducerRecord<>("initEdges-" + suffix, new Edge<>(9L, 10L), null));
+        }
+
+        StreamingGraphPartitioner<Long> partitioner = new StreamingGraphPartitioner<>(
+            CLUSTER.bootstrapServers(), new Properties(), Serdes.Long(), heuristic);
+        StreamingGraphPartitioner.Result<Long> result = partitioner.partition(
+            "initEdges-" + suffix, "assignment-" + suffix, 2, (short) 1).get();
+
+        AssignedVertexPartitioner<Long> loaded = StreamingGraphPartitioner.load(
+            CLUSTER.bootstrapServers(), new Properties(), "assignment-" + suffix, Serdes.Long());
+        assertEquals(result.partitioner().assignments(), loaded.assignments());
+        return result;
+    }
+}
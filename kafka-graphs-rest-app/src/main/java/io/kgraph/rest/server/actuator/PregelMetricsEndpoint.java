@@ -0,0 +1,79 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.kgraph.rest.server.actuator;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.stereotype.Component;
+
+import io.kgraph.pregel.PregelGraphAlgorithm;
+import io.kgraph.pregel.PregelMetrics;
+import io.kgraph.rest.server.graph.GraphAlgorithmHandler;
+
+/**
+ * Exposes the superstep metrics of the graph algorithms running on this host at
+ * {@code /actuator/pregel}, summed over partitions, and at {@code /actuator/pregel/{id}} per partition.
+ */
+@Component
+@Endpoint(id = "pregel")
+public class PregelMetricsEndpoint {
+
+    private final GraphAlgorithmHandler<?> handler;
+
+    public PregelMetricsEndpoint(GraphAlgorithmHandler<?> handler) {
+        this.handler = handler;
+    }
+
+    @ReadOperation
+    public Map<String, Map<Integer, Map<String, Long>>> metrics() {
+        Map<String, Map<Integer, Map<String, Long>>> result = new TreeMap<>();
+        for (Map.Entry<String, PregelGraphAlgorithm<Long, ?, ?, ?>> entry : handler.algorithms().entrySet()) {
+            Map<Integer, Map<String, Long>> supersteps = new TreeMap<>();
+            entry.getValue().metrics().totals().forEach((superstep, values) -> supersteps.put(superstep, names(values)));
+            result.put(entry.getKey(), supersteps);
+        }
+        return result;
+    }
+
+    @ReadOperation
+    public Map<Integer, Map<Integer, Map<String, Long>>> metrics(@Selector String id) {
+        PregelGraphAlgorithm<Long, ?, ?, ?> algorithm = handler.algorithms().get(id);
+        if (algorithm == null) {
+            return null;
+        }
+        Map<Integer, Map<Integer, Map<String, Long>>> result = new TreeMap<>();
+        algorithm.metrics().snapshot().forEach((superstep, partitions) -> {
+            Map<Integer, Map<String, Long>> values = new TreeMap<>();
+            partitions.forEach((partition, metrics) -> values.put(partition, names(metrics)));
+            result.put(superstep, values);
+        });
+        return result;
+    }
+
+    private static Map<String, Long> names(Map<PregelMetrics.Metric, Long> values) {
+        Map<String, Long> result = new LinkedHashMap<>();
+        values.forEach((metric, value) -> result.put(metric.metricName(), value));
+        return result;
+    }
+}
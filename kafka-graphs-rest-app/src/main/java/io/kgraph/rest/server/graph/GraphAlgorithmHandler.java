@@ -104,6 +104,10 @@ public class GraphAlgorithmHandler<EV> implements ApplicationListener<ReactiveWe
         this.host = getHostAddress();
     }
 
+    public Map<String, PregelGraphAlgorithm<Long, ?, ?, ?>> algorithms() {
+        return Collections.unmodifiableMap(algorithms);
+    }
+
     @Override
     public void onApplicationEvent(final ReactiveWebServerInitializedEvent event) {
         this.port = event.getWebServer().getPort();
@@ -163,7 +167,16 @@ public class GraphAlgorithmHandler<EV> implements ApplicationListener<ReactiveWe
                         input.isValuesOfTypeDouble() ? Serdes.Double() : Serdes.Long()
                     );
                     CompletableFuture<Map<TopicPartition, Long>> future;
-                    if (input.isValuesOfTypeDouble()) {
+                    if (input.isBulk()) {
+                        GraphSerialized<Long, Long, ?> serialized = input.isValuesOfTypeDouble()
+                            ? GraphSerialized.with(Serdes.Long(), Serdes.Long(), Serdes.Double())
+                            : GraphSerialized.with(Serdes.Long(), Serdes.Long(), Serdes.Long());
+                        future = GraphUtils.bulkGroupEdgesBySource(streamsConfig,
+                            input.getInitialVerticesTopic(), input.getInitialEdgesTopic(), serialized,
+                            input.getVerticesTopic(), input.getEdgesGroupedBySourceTopic(),
+                            input.getNumPartitions(), input.getReplicationFactor()
+                        );
+                    } else if (input.isValuesOfTypeDouble()) {
                         future = GraphUtils.groupEdgesBySourceAndRepartition(builder,
                             streamsConfig, input.getInitialVerticesTopic(), input.getInitialEdgesTopic(),
                             GraphSerialized.with(Serdes.Long(), Serdes.Long(), Serdes.Double()),
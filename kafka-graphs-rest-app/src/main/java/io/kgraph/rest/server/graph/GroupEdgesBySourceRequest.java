@@ -32,4 +32,5 @@ class GroupEdgesBySourceRequest {
     private short replicationFactor = 1;
     private boolean valuesOfTypeDouble = false;
     private boolean async = true;
+    private boolean bulk = false;
 }
@@ -18,17 +18,14 @@
 
 package io.kgraph.tools.importer;
 
-import java.io.BufferedInputStream;
 import java.io.File;
-import java.io.FileInputStream;
 import java.util.Properties;
 import java.util.concurrent.Callable;
 
 import org.apache.kafka.clients.CommonClientConfigs;
-import org.apache.kafka.common.serialization.DoubleSerializer;
-import org.apache.kafka.common.serialization.LongSerializer;
 
-import io.kgraph.utils.GraphUtils;
+import io.kgraph.utils.ClientUtils;
+import io.kgraph.utils.ParallelImporter;
 import picocli.CommandLine;
 import picocli.CommandLine.Option;
 import picocli.CommandLine.Parameters;
@@ -61,6 +58,13 @@ public class GraphImporter implements Callable<Void> {
     @Option(names = {"-rf", "--replicationFactor"}, description = "The replication factor for topics.")
     private short replicationFactor = 1;
 
+    @Option(names = {"-t", "--threads"}, description = "The number of threads for parsing files.")
+    private int numThreads = Runtime.getRuntime().availableProcessors();
+
+    @Option(names = {"-b", "--binary"}, description = "Whether files contain fixed-size big-endian records "
+        + "(a long id, or a long source and target, followed by a value) instead of lines of text.")
+    private boolean binary = false;
+
     public GraphImporter() {
     }
 
@@ -86,28 +90,13 @@ public class GraphImporter implements Callable<Void> {
     public Void call() throws Exception {
         Properties props = new Properties();
         props.setProperty(CommonClientConfigs.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
-        if (valuesOfTypeDouble) {
-            GraphUtils.verticesToTopic(
-                new BufferedInputStream(new FileInputStream(verticesFile)),
-                Double::parseDouble, new DoubleSerializer(),
-                props, verticesTopic, numPartitions, replicationFactor
-            );
-            GraphUtils.edgesToTopic(
-                new BufferedInputStream(new FileInputStream(edgesFile)),
-                Double::parseDouble, new DoubleSerializer(),
-                props, edgesTopic, numPartitions, replicationFactor
-            );
-        } else {
-            GraphUtils.verticesToTopic(
-                new BufferedInputStream(new FileInputStream(verticesFile)),
-                Long::parseLong, new LongSerializer(),
-                props, verticesTopic, numPartitions, replicationFactor
-            );
-            GraphUtils.edgesToTopic(
-                new BufferedInputStream(new FileInputStream(edgesFile)),
-                Long::parseLong, new LongSerializer(),
-                props, edgesTopic, numPartitions, replicationFactor
-            );
+        ClientUtils.createTopic(verticesTopic, numPartitions, replicationFactor, props);
+        ClientUtils.createTopic(edgesTopic, numPartitions, replicationFactor, props);
+        try (ParallelImporter importer = new ParallelImporter(bootstrapServers, new Properties(), numThreads,
+            binary ? ParallelImporter.Format.BINARY : ParallelImporter.Format.TEXT,
+            valuesOfTypeDouble ? ParallelImporter.ValueType.DOUBLE : ParallelImporter.ValueType.LONG)) {
+            importer.importVertices(verticesFile, verticesTopic);
+            importer.importEdges(edgesFile, edgesTopic);
         }
         return null;
     }